@@ -17,8 +17,8 @@ import bio.singa.features.quantities.MolarVolume;
 import bio.singa.structure.features.molarmass.MolarMass;
 
 import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author cl
@@ -40,7 +40,8 @@ public class FeatureRegistry {
     private final Map<Class<? extends Feature>, Class<? extends FeatureProvider>> featureRegistry;
 
     private FeatureRegistry() {
-        featureRegistry = new HashMap<>();
+        // features might be registered lazily by concurrent requests (e.g. the FeaturePrefetcher)
+        featureRegistry = new ConcurrentHashMap<>();
     }
 
     public static FeatureRegistry getInstance() {
@@ -52,7 +53,7 @@ public class FeatureRegistry {
         return instance;
     }
 
-    public static synchronized <FeatureType extends Feature, ProviderType extends FeatureProvider> void addProviderForFeature(Class<FeatureType> featureClass, Class<ProviderType> providerClass) {
+    public static <FeatureType extends Feature, ProviderType extends FeatureProvider> void addProviderForFeature(Class<FeatureType> featureClass, Class<ProviderType> providerClass) {
         getInstance().featureRegistry.put(featureClass, providerClass);
     }
 
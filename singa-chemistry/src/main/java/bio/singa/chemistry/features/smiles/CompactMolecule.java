@@ -0,0 +1,124 @@
+package bio.singa.chemistry.features.smiles;
+
+import bio.singa.structure.elements.Element;
+import bio.singa.structure.model.molecules.MoleculeBondType;
+import bio.singa.structure.model.molecules.MoleculeGraph;
+
+import java.util.Arrays;
+
+/**
+ * A compact, immutable representation of a molecule as it is emitted by the {@link SmilesParser}. Atoms and bonds are
+ * referenced by their index, that corresponds to the order in which they appeared in the SMILES String. Additionally
+ * to the bond list, the adjacency of all atoms is stored in compressed sparse row format, where the neighbours of
+ * atom {@code i} are {@code adjacency[adjacencyOffsets[i]]} to {@code adjacency[adjacencyOffsets[i + 1] - 1]}.
+ * <p>
+ * Compared to {@link MoleculeGraph}s no objects are created per atom or bond, which makes this representation suitable
+ * to process large numbers of molecules. It can be converted with {@link #toMoleculeGraph()}.
+ *
+ * @author cl
+ */
+public class CompactMolecule {
+
+    private final Element[] elements;
+    private final int[] bondSources;
+    private final int[] bondTargets;
+    private final MoleculeBondType[] bondTypes;
+    private final int[] adjacencyOffsets;
+    private final int[] adjacency;
+
+    CompactMolecule(Element[] elements, int[] bondSources, int[] bondTargets, MoleculeBondType[] bondTypes) {
+        this.elements = elements;
+        this.bondSources = bondSources;
+        this.bondTargets = bondTargets;
+        this.bondTypes = bondTypes;
+        // count degrees and accumulate them to offsets
+        adjacencyOffsets = new int[elements.length + 1];
+        for (int bond = 0; bond < bondSources.length; bond++) {
+            adjacencyOffsets[bondSources[bond] + 1]++;
+            adjacencyOffsets[bondTargets[bond] + 1]++;
+        }
+        for (int atom = 0; atom < elements.length; atom++) {
+            adjacencyOffsets[atom + 1] += adjacencyOffsets[atom];
+        }
+        adjacency = new int[2 * bondSources.length];
+        int[] fill = Arrays.copyOf(adjacencyOffsets, elements.length);
+        for (int bond = 0; bond < bondSources.length; bond++) {
+            adjacency[fill[bondSources[bond]]++] = bondTargets[bond];
+            adjacency[fill[bondTargets[bond]]++] = bondSources[bond];
+        }
+    }
+
+    public int getNumberOfAtoms() {
+        return elements.length;
+    }
+
+    public int getNumberOfBonds() {
+        return bondSources.length;
+    }
+
+    public Element getElement(int atom) {
+        return elements[atom];
+    }
+
+    public int getBondSource(int bond) {
+        return bondSources[bond];
+    }
+
+    public int getBondTarget(int bond) {
+        return bondTargets[bond];
+    }
+
+    public MoleculeBondType getBondType(int bond) {
+        return bondTypes[bond];
+    }
+
+    public int getDegree(int atom) {
+        return adjacencyOffsets[atom + 1] - adjacencyOffsets[atom];
+    }
+
+    /**
+     * Returns the indices of all atoms bonded to the given atom.
+     *
+     * @param atom The atom.
+     * @return The neighbouring atoms.
+     */
+    public int[] getNeighbours(int atom) {
+        return Arrays.copyOfRange(adjacency, adjacencyOffsets[atom], adjacencyOffsets[atom + 1]);
+    }
+
+    /**
+     * Returns a copy of the adjacency offsets, that contains one entry per atom and a final entry with the total
+     * length of the adjacency.
+     *
+     * @return The adjacency offsets.
+     */
+    public int[] getAdjacencyOffsets() {
+        return adjacencyOffsets.clone();
+    }
+
+    /**
+     * Returns a copy of the neighbours of all atoms, concatenated in the order of the atoms.
+     *
+     * @return The adjacency.
+     */
+    public int[] getAdjacency() {
+        return adjacency.clone();
+    }
+
+    /**
+     * Converts this molecule to a {@link MoleculeGraph}, where the identifiers of the atoms are their indices.
+     *
+     * @return The MoleculeGraph.
+     */
+    public MoleculeGraph toMoleculeGraph() {
+        MoleculeGraph molecule = new MoleculeGraph();
+        for (Element element : elements) {
+            molecule.addNextAtom(element);
+        }
+        for (int bond = 0; bond < bondSources.length; bond++) {
+            molecule.addEdgeBetween(molecule.getNode(bondSources[bond]), molecule.getNode(bondTargets[bond]), bondTypes[bond]);
+        }
+        return molecule;
+    }
+
+}
@@ -1,6 +1,5 @@
 package bio.singa.chemistry.features.smiles;
 
-import bio.singa.core.utility.Pair;
 import bio.singa.structure.elements.Element;
 import bio.singa.structure.elements.ElementProvider;
 import bio.singa.structure.model.molecules.MoleculeBondType;
@@ -8,9 +7,25 @@ import bio.singa.structure.model.molecules.MoleculeGraph;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
+ * Parses SMILES Strings (as specified by OpenSMILES) in a single pass over their characters. Atoms and bonds are
+ * emitted directly into a {@link CompactMolecule}, that can be converted to a {@link MoleculeGraph}.
+ * <p>
+ * Atoms are indexed in the order of their appearance. Hydrogen atoms, that are given as hydrogen count of bracket
+ * atoms (such as {@code [NH2]}) are appended after all other atoms. Bonds without explicit symbol are aromatic, if
+ * both atoms are aromatic and single bonds otherwise. Chirality and atom classes are parsed, but not retained.
+ * Parsing stops at the first whitespace, such that the name following the SMILES String in a SMILES file is ignored.
+ *
  * @author cl
  */
 public class SmilesParser {
@@ -21,84 +36,97 @@ public class SmilesParser {
     private static final Logger logger = LoggerFactory.getLogger(SmilesParser.class);
 
     /**
-     * The symbols of the SMILES String
+     * The character returned when the end of the SMILES String is reached
      */
-    private final Queue<Character> symbols;
-    /**
-     * Collections of symbols that are handled as contextual connected
-     */
-    private final List<String> tokens;
-    /**
-     * The resulting MoleculeGraph
-     */
-    private final MoleculeGraph molecule;
-    /**
-     * Maps the consecutive connections between atoms (as a pair of identifiers) to the bond type
-     */
-    private final HashMap<Pair<Integer>, MoleculeBondType> connectors;
+    private static final char END = '\0';
+
     /**
-     * Maps the ring closure identifier to atom identifier that is to be connected
+     * The maximal number of simultaneously opened ring closures (0 to 9 and %10 to %99)
      */
-    private final HashMap<Integer, Integer> ringClosures;
+    private static final int RING_CLOSURES = 100;
+
     /**
-     * Holds the atom identifer, where hydrogen need to be added
+     * The elements indexed by their symbol (see {@link #symbolIndex(char, char)})
      */
-    private final List<Integer> hydrogens;
+    private static final Element[] ELEMENTS = new Element[26 * 27];
+
+    static {
+        for (Element element : ElementProvider.getElements()) {
+            if (element == ElementProvider.UNKOWN) {
+                // only given as wildcard '*'
+                continue;
+            }
+            String symbol = element.getSymbol();
+            if (symbol.length() == 1 && isUpperCase(symbol.charAt(0))) {
+                ELEMENTS[symbolIndex(symbol.charAt(0), END)] = element;
+            } else if (symbol.length() == 2 && isUpperCase(symbol.charAt(0)) && isLowerCase(symbol.charAt(1))) {
+                ELEMENTS[symbolIndex(symbol.charAt(0), symbol.charAt(1))] = element;
+            }
+        }
+    }
+
     /**
-     * Remembers at which index a branch was opened
+     * The SMILES String
      */
-    private final Deque<Integer> branches;
+    private final CharSequence smilesString;
     /**
-     * The symbol that is currently handled
+     * The number of characters to parse
      */
-    private Character currentSymbol;
+    private final int length;
     /**
-     * The token that is currently handled
+     * The position of the character that is currently handled
      */
-    private String currentToken;
+    private int position;
+
     /**
-     * The identifier of the last atom, that has been added to the graph
+     * The elements of the atoms
      */
-    private int currentIdentifer = Integer.MIN_VALUE;
+    private Element[] elements = new Element[16];
     /**
-     * The current number of neutrons
+     * Whether the atoms are aromatic
      */
-    private int currentMassNumber;
+    private boolean[] aromatic = new boolean[16];
+    private int numberOfAtoms;
+
     /**
-     * The current charge
+     * The source atoms, target atoms, and types of the bonds
      */
-    private int currentCharge;
+    private int[] bondSources = new int[16];
+    private int[] bondTargets = new int[16];
+    private MoleculeBondType[] bondTypes = new MoleculeBondType[16];
+    private int numberOfBonds;
+
     /**
-     * The current element
+     * The atoms to which hydrogen atoms need to be added (once per hydrogen)
      */
-    private Element currentElement;
+    private int[] hydrogens = new int[8];
+    private int numberOfHydrogens;
+
     /**
-     * The bond type to connect the next atom with
+     * The atoms where branches have been opened
      */
-    private MoleculeBondType currentBondType;
+    private int[] branches = new int[8];
+    private int branchDepth;
+
     /**
-     * A flag that is set true when a branch is closed, so the last referenced branch is used to connect the next atom
+     * The atoms and bond types of opened ring closures, indexed by their ring closure number
      */
-    private boolean firstAtomInBranch = false;
+    private final int[] ringClosureAtoms = new int[RING_CLOSURES];
+    private final MoleculeBondType[] ringClosureBonds = new MoleculeBondType[RING_CLOSURES];
 
     /**
-     * When two branches are following immediately after each other the same chainIdentifier reference is used again
+     * The atom the next atom is connected to, or -1 if there is none
      */
-    private boolean sameChainReference;
-
+    private int previousAtom = -1;
     /**
-     * Initializes the smiles Parser
+     * The explicitly given type of the next bond, or null if the bond is implicit
      */
-    public SmilesParser() {
-        symbols = new LinkedList<>();
-        tokens = new ArrayList<>();
-        molecule = new MoleculeGraph();
-        connectors = new HashMap<>();
-        ringClosures = new HashMap<>();
-        branches = new ArrayDeque<>();
-        hydrogens = new ArrayList<>();
-        currentToken = "";
-        currentBondType = null;
+    private MoleculeBondType pendingBond;
+
+    private SmilesParser(CharSequence smilesString) {
+        this.smilesString = smilesString;
+        length = smilesString.length();
+        Arrays.fill(ringClosureAtoms, -1);
     }
 
     /**
@@ -108,790 +136,443 @@ public class SmilesParser {
      * @return The MoleculeGraph generated from the smiles String.
      */
     public static MoleculeGraph parse(String smilesString) {
-        logger.info("parsing smiles string {} ", smilesString);
-        SmilesParser parser = new SmilesParser();
-        // extract symbols
-        for (char aChar : smilesString.toCharArray()) {
-            parser.symbols.add(aChar);
-        }
-        // poll the first symbol
-        parser.currentSymbol = parser.symbols.poll();
-        // try to parse the string
-        while (!parser.symbols.isEmpty()) {
-            if (!parser.parseSmiles()) {
-                throw new IllegalArgumentException("The given string is no valid SMILES String (Exception was thrown" +
-                        " after " + parser.tokens + " have been parsed).");
-            }
-        }
-
-        // add hydrogens to connectors
-        parser.hydrogens.forEach((identifier) -> {
-            int hydrogenIdentifier = parser.molecule.addNextAtom("H");
-            parser.connectors.put(new Pair<>(identifier, hydrogenIdentifier), MoleculeBondType.SINGLE_BOND);
-        });
-
-        // add bonds
-        parser.connectors.forEach((connector, type) -> {
-            if (type != MoleculeBondType.UNCONNECTED) {
-                parser.molecule.addEdgeBetween(parser.molecule.getNode(connector.getFirst()),
-                        parser.molecule.getNode(connector.getSecond()), type);
-            }
-        });
-
-        // transform aromatic bonds to double bonds
-
-        return parser.molecule;
-
+        return parseCompact(smilesString).toMoleculeGraph();
     }
 
-    private boolean parseSmiles() {
-        // SMILES ::= Atom ( Chain | Branch )*
-        if (isEmpty()) {
-            return false;
-        }
-
-        if (!parseAtom()) {
-            return false;
-        }
+    /**
+     * Parses a SMILES String and returns a {@link CompactMolecule} that contains all the atoms and their connections.
+     *
+     * @param smilesString The SMILES String to parse
+     * @return The CompactMolecule generated from the smiles String.
+     */
+    public static CompactMolecule parseCompact(CharSequence smilesString) {
+        return new SmilesParser(smilesString).parseMolecule();
+    }
 
-        boolean parsable;
-        do {
-            parsable = parseBranch();
-            parsable |= parseChain();
-        } while (parsable);
+    /**
+     * Parses multiple SMILES Strings in parallel and returns the resulting {@link MoleculeGraph}s in the order of the
+     * given Strings.
+     *
+     * @param smilesStrings The SMILES Strings to parse
+     * @return The MoleculeGraphs.
+     */
+    public static List<MoleculeGraph> parseAll(List<? extends CharSequence> smilesStrings) {
+        return smilesStrings.parallelStream()
+                .map(smilesString -> parseCompact(smilesString).toMoleculeGraph())
+                .collect(Collectors.toList());
+    }
 
-        return true;
+    /**
+     * Parses multiple SMILES Strings in parallel and returns the resulting {@link CompactMolecule}s in the order of
+     * the given Strings.
+     *
+     * @param smilesStrings The SMILES Strings to parse
+     * @return The CompactMolecules.
+     */
+    public static List<CompactMolecule> parseAllCompact(List<? extends CharSequence> smilesStrings) {
+        return smilesStrings.parallelStream()
+                .map(SmilesParser::parseCompact)
+                .collect(Collectors.toList());
     }
 
-    private boolean parseAtom() {
-        if (isEmpty()) {
-            return false;
-        }
+    /**
+     * Parses a SMILES file, that contains one SMILES String per line (optionally followed by whitespace and a name),
+     * in parallel. Blank lines are skipped.
+     *
+     * @param smilesFile The path to the file
+     * @return The MoleculeGraphs in the order of the file.
+     */
+    public static List<MoleculeGraph> parseFile(Path smilesFile) {
+        return parseLines(readLines(smilesFile), CompactMolecule::toMoleculeGraph);
+    }
 
-        if (parseOrganicSymbol(false)) {
-            connectConsecutiveAtoms();
-            return true;
-        } else if (parseAromaticSymbol(false)) {
-            connectConsecutiveAtoms();
-            return true;
-        } else if (parseAtomSpecification()) {
-            connectConsecutiveAtoms();
-            return true;
-        } else if (currentSymbol == '*') {
-            addToTokens();
-            poll();
-        }
-        return false;
+    /**
+     * Parses a SMILES file, that contains one SMILES String per line (optionally followed by whitespace and a name),
+     * in parallel. Blank lines are skipped.
+     *
+     * @param smilesFile The path to the file
+     * @return The CompactMolecules in the order of the file.
+     */
+    public static List<CompactMolecule> parseFileCompact(Path smilesFile) {
+        return parseLines(readLines(smilesFile), Function.identity());
     }
 
-    private boolean parseBranch() {
-        // Branch ::= '(' Bond? SMILES+ ')'
-        if (isEmpty()) {
-            return false;
+    private static List<String> readLines(Path smilesFile) {
+        try {
+            return Files.readAllLines(smilesFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read SMILES file " + smilesFile + ".", e);
         }
+    }
 
-        if (currentSymbol == '(') {
-            addToTokens();
-            poll();
-            openBranch();
-            parseBond();
+    private static <MoleculeType> List<MoleculeType> parseLines(List<String> lines, Function<CompactMolecule, MoleculeType> conversion) {
+        List<MoleculeType> molecules = IntStream.range(0, lines.size())
+                .parallel()
+                .filter(index -> !lines.get(index).trim().isEmpty())
+                .mapToObj(index -> {
+                    try {
+                        return conversion.apply(parseCompact(lines.get(index).trim()));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Could not parse SMILES String in line " + (index + 1) + ".", e);
+                    }
+                })
+                .collect(Collectors.toList());
+        logger.debug("parsed {} molecules", molecules.size());
+        return molecules;
+    }
 
-            int length = 0;
-            while (parseSmiles()) {
-                length++;
+    private CompactMolecule parseMolecule() {
+        while (position < length) {
+            char symbol = smilesString.charAt(position);
+            if (Character.isWhitespace(symbol)) {
+                break;
             }
-
-            if (currentSymbol == ')') {
-                // ending with closed round brackets
-                if (length < 1) {
-                    return false;
-                }
-                closeBranch();
-                addToTokens();
-                poll();
-                return true;
+            switch (symbol) {
+                case '(':
+                    openBranch();
+                    break;
+                case ')':
+                    closeBranch();
+                    break;
+                case '.':
+                    if (pendingBond != null) {
+                        throw invalid("bond before disconnection");
+                    }
+                    previousAtom = -1;
+                    position++;
+                    break;
+                case '-':
+                case '=':
+                case '#':
+                case '$':
+                case '/':
+                case '\\':
+                case ':':
+                    if (previousAtom < 0 || pendingBond != null) {
+                        throw invalid("unexpected bond");
+                    }
+                    pendingBond = MoleculeBondType.getBondForSMILESSymbol(symbol);
+                    position++;
+                    break;
+                case '%':
+                    position++;
+                    if (!isDigit(current()) || !isDigit(next())) {
+                        throw invalid("expected two digit ring closure");
+                    }
+                    int ringClosure = 10 * (current() - '0') + (next() - '0');
+                    position += 2;
+                    handleRingClosure(ringClosure);
+                    break;
+                case '[':
+                    parseBracketAtom();
+                    break;
+                default:
+                    if (isDigit(symbol)) {
+                        position++;
+                        handleRingClosure(symbol - '0');
+                    } else {
+                        parseOrganicAtom(symbol);
+                    }
+                    break;
             }
         }
-        return false;
-    }
-
-    private boolean parseChain() {
-        if (isEmpty()) {
-            return false;
+        if (pendingBond != null) {
+            throw invalid("bond without target");
         }
-
-        boolean parsable;
-        int length = 0;
-        do {
-            parseBond();
-            parsable = parseAtom();
-            parsable |= parseRingClosure();
-            if (parsable) {
-                length++;
+        if (branchDepth != 0) {
+            throw invalid("unclosed branch");
+        }
+        for (int ringClosure = 0; ringClosure < RING_CLOSURES; ringClosure++) {
+            if (ringClosureAtoms[ringClosure] >= 0) {
+                throw invalid("unclosed ring closure " + ringClosure);
             }
-        } while (parsable);
-        return length > 0;
+        }
+        for (int hydrogen = 0; hydrogen < numberOfHydrogens; hydrogen++) {
+            int hydrogenAtom = addAtom(ElementProvider.HYDROGEN, false);
+            addBond(hydrogens[hydrogen], hydrogenAtom, MoleculeBondType.SINGLE_BOND);
+        }
+        return new CompactMolecule(Arrays.copyOf(elements, numberOfAtoms),
+                Arrays.copyOf(bondSources, numberOfBonds),
+                Arrays.copyOf(bondTargets, numberOfBonds),
+                Arrays.copyOf(bondTypes, numberOfBonds));
     }
 
-    private boolean parseBond() {
-        if (isEmpty()) {
-            return false;
+    private void openBranch() {
+        if (previousAtom < 0 || pendingBond != null) {
+            throw invalid("unexpected branch");
         }
-
-        switch (currentSymbol) {
-            case '-':
-            case '=':
-            case '#':
-            case '$':
-            case ':':
-            case '/':
-            case '.':
-            case '\\': {
-                addToTokens();
-                setNextBond();
-                poll();
-                return true;
-            }
-            default: {
-                return false;
-            }
+        if (branchDepth == branches.length) {
+            branches = Arrays.copyOf(branches, 2 * branchDepth);
         }
-
+        branches[branchDepth++] = previousAtom;
+        position++;
     }
 
-    private boolean parseRingClosure() {
-        if (isEmpty()) {
-            return false;
+    private void closeBranch() {
+        if (branchDepth == 0 || pendingBond != null) {
+            throw invalid("unexpected end of branch");
         }
+        previousAtom = branches[--branchDepth];
+        position++;
+    }
 
-        if (currentSymbol == '%') {
-            if (isNonZeroDecimal()) {
-                addToCurrentToken();
-                poll();
-                if (isDecimal()) {
-                    addToCurrentToken();
-                    poll();
-                    return true;
-                }
+    /**
+     * Opens a ring closure at the previous atom, or closes it, if it has been opened before. The bond type of the
+     * ring closure bond can be given at either end of the ring closure.
+     *
+     * @param ringClosure The ring closure number.
+     */
+    private void handleRingClosure(int ringClosure) {
+        if (previousAtom < 0) {
+            throw invalid("ring closure without atom");
+        }
+        int openingAtom = ringClosureAtoms[ringClosure];
+        if (openingAtom < 0) {
+            ringClosureAtoms[ringClosure] = previousAtom;
+            ringClosureBonds[ringClosure] = pendingBond;
+        } else {
+            MoleculeBondType openingBond = ringClosureBonds[ringClosure];
+            if (openingAtom == previousAtom || (openingBond != null && pendingBond != null && openingBond != pendingBond)) {
+                throw invalid("conflicting ring closure " + ringClosure);
             }
-        } else if (isDecimal()) {
-            addToTokens();
-            addRingClosure();
-            poll();
-            return true;
+            MoleculeBondType bondType = pendingBond != null ? pendingBond : openingBond;
+            addBond(openingAtom, previousAtom, bondType != null ? bondType : implicitBond(openingAtom, previousAtom));
+            ringClosureAtoms[ringClosure] = -1;
+            ringClosureBonds[ringClosure] = null;
         }
-        return false;
+        pendingBond = null;
     }
 
-    private boolean parseOrganicSymbol(boolean addLater) {
-        if (isEmpty()) {
-            return false;
-        }
-
-        // OrganicSymbol ::= 'B' 'r'? | 'C' 'l'? | 'N' | 'O' | 'P' | 'S' | 'F' | 'I'
-        switch (currentSymbol) {
-            case 'B': {
-                if (symbols.peek() == 'r') {
-                    // Brom
-                    dispose();
-                    if (addLater) {
-                        currentToken += "Br";
-                        currentElement = ElementProvider.BROMINE;
-                    } else {
-                        tokens.add("Br");
-                        addAtomToGraph("Br");
-                    }
+    /**
+     * Parses an atom of the organic subset (B, C, N, O, P, S, F, Cl, Br, I, their aromatic forms, and the wildcard).
+     *
+     * @param symbol The first symbol of the atom.
+     */
+    private void parseOrganicAtom(char symbol) {
+        Element element;
+        boolean isAromatic = false;
+        switch (symbol) {
+            case 'B':
+                if (next() == 'r') {
+                    element = ElementProvider.BROMINE;
+                    position++;
                 } else {
-                    // Bor
-                    handleAtom(addLater);
+                    element = ElementProvider.BORON;
                 }
-                poll();
-                return true;
-            }
-            case 'C': {
-                if (symbols.peek() == 'l') {
-                    // Chlor
-                    dispose();
-                    if (addLater) {
-                        currentToken += "Cl";
-                        currentElement = ElementProvider.CHLORINE;
-                    } else {
-                        tokens.add("Cl");
-                        addAtomToGraph("Cl");
-                    }
+                break;
+            case 'C':
+                if (next() == 'l') {
+                    element = ElementProvider.CHLORINE;
+                    position++;
                 } else {
-                    // Carbon
-                    handleAtom(addLater);
+                    element = ElementProvider.CARBON;
                 }
-                poll();
-                return true;
-            }
+                break;
             case 'N':
             case 'O':
             case 'P':
             case 'S':
             case 'F':
-            case 'I': {
-                handleAtom(addLater);
-                poll();
-                return true;
-            }
-            default: {
-                return false;
-            }
-
-        }
-    }
-
-    private void handleAtom(boolean addLater) {
-        if (addLater) {
-            addToCurrentToken();
-            currentElement = ElementProvider.getElementBySymbol(String.valueOf(currentSymbol))
-                    .orElseThrow(() -> new IllegalArgumentException("The symbol " + currentSymbol + " represents no valid element."));
-        } else {
-            addToTokens();
-            addAtomToGraph(currentSymbol);
-        }
-    }
-
-    private boolean parseAromaticSymbol(boolean addLater) {
-        if (isEmpty()) {
-            return false;
-        }
-
-        // AromaticSymbol ::= 'b' | 'c' | 'n' | 'o' | 'p' | 's'
-        switch (currentSymbol) {
+            case 'I':
+                element = ELEMENTS[symbolIndex(symbol, END)];
+                break;
             case 'b':
             case 'c':
             case 'n':
             case 'o':
             case 'p':
-            case 's': {
-                handleAtom(addLater);
-                currentBondType = MoleculeBondType.AROMATIC_BOND;
-                poll();
-                return true;
-            }
-            default: {
-                return false;
-            }
-        }
-    }
-
-    private boolean parseAtomSpecification() {
-        if (isEmpty()) {
-            return false;
-        }
-
-        // AtomSpec ::= '[' Isotope? ( 'se' | 'as' | AromaticSymbol | ElementSymbol | WILDCARD ) ChiralClass? HCount? Charge? Class? ']'
-        if (currentSymbol == '[') {
-            addToCurrentToken();
-            poll();
-            // try to parse isotope
-            parseIsotope();
-            // one of the following has to match!
-            // try to parse aromatic selene or arsenic
-            if (!parseAromaticSeleniumAndArsenic()) {
-                // if not, try to parse other aromatic elements
-                if (!parseAromaticSymbol(true)) {
-                    // if not, try to parse element
-                    if (!parseElementSymbol()) {
-                        // if not, try to parse wildcard
-                        if (currentSymbol == '*') {
-                            addToCurrentToken();
-                            poll();
-                        } else {
-                            // if all of the previous fail the smiles is invalid
-                            return false;
-                        }
-                    }
-                }
-            }
-
-            parseChirality();
-            parseHCount();
-            parseCharge();
-            parseClass();
-
-            addAtom();
-
-            if (currentSymbol == ']') {
-                // ending with closed square brackets
-                addToCurrentToken();
-                addAndClearCurrentToken();
-                poll();
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private boolean parseIsotope() {
-        if (isEmpty()) {
-            return false;
-        }
-
-        // Isotope  ::= [1-9] [0-9]? [0-9]?
-        String isotopeCount = "";
-        if (isNonZeroDecimal()) {
-            // parse first nonzero decimal
-            isotopeCount += currentSymbol;
-            poll();
-            if (isDecimal()) {
-                // parse second decimal
-                isotopeCount += currentSymbol;
-                poll();
-                if (isDecimal()) {
-                    // parse third decimal
-                    isotopeCount += currentSymbol;
-                    poll();
-                }
-            }
-            currentToken += isotopeCount;
-            currentMassNumber = Integer.valueOf(isotopeCount);
-            return true;
+            case 's':
+                element = ELEMENTS[symbolIndex(Character.toUpperCase(symbol), END)];
+                isAromatic = true;
+                break;
+            case '*':
+                element = ElementProvider.UNKOWN;
+                break;
+            default:
+                throw invalid("unexpected symbol '" + symbol + "'");
         }
-        return false;
+        position++;
+        connectAtom(addAtom(element, isAromatic));
     }
 
-    private boolean parseAromaticSeleniumAndArsenic() {
-        if (isEmpty()) {
-            return false;
-        }
-
-        if (currentSymbol == 's') {
-            if (symbols.peek() == 'e') {
-                // parse selenium
-                dispose();
-                currentElement = ElementProvider.SELENIUM;
-                currentBondType = MoleculeBondType.AROMATIC_BOND;
-                poll();
-                return true;
+    /**
+     * Parses an atom in square brackets: '[' isotope? symbol chiral? hcount? charge? class? ']'
+     */
+    private void parseBracketAtom() {
+        // skip opening bracket
+        position++;
+        int massNumber = parseNumber();
+        // element symbol
+        char first = current();
+        char second = next();
+        Element element;
+        boolean isAromatic = false;
+        if (first == '*') {
+            element = ElementProvider.UNKOWN;
+            position++;
+        } else if (isUpperCase(first) || isLowerCase(first)) {
+            isAromatic = isLowerCase(first);
+            char upperCaseFirst = Character.toUpperCase(first);
+            if (isLowerCase(second) && ELEMENTS[symbolIndex(upperCaseFirst, second)] != null) {
+                element = ELEMENTS[symbolIndex(upperCaseFirst, second)];
+                position += 2;
+            } else {
+                element = ELEMENTS[symbolIndex(upperCaseFirst, END)];
+                position++;
             }
-            return false;
-        } else if (currentSymbol == 'a') {
-            if (symbols.peek() == 's') {
-                // parse arsenic
-                dispose();
-                currentElement = ElementProvider.ARSENIC;
-                currentBondType = MoleculeBondType.AROMATIC_BOND;
-                poll();
-                return true;
+            if (element == null) {
+                throw invalid("unknown element");
             }
-            return false;
-        }
-        return false;
-    }
-
-    private boolean parseElementSymbol() {
-        // ElementSymbol ::= [A-Z] [a-z]?
-        if (isUpperCaseWordCharacter()) {
-            String element = "";
-            addToCurrentToken();
-            element += currentSymbol;
-            poll();
-            if (isLowerCaseWordCharacter()) {
-                addToCurrentToken();
-                element += currentSymbol;
-                poll();
-            }
-            currentElement = ElementProvider.getElementBySymbol(String.valueOf(element))
-                    .orElseThrow(() -> new IllegalArgumentException("The symbol " + currentSymbol + " represents no valid element."));
-            return true;
-        }
-        return false;
-    }
-
-    private boolean parseChirality() {
-        if (isEmpty()) {
-            return false;
-        }
-
-        // ChiralClass ::= ( '@' ( '@' | 'TH' [1-2] | 'AL' [1-2] | 'SP' [1-3] |
-        // 'TB' ( '1' [0-9]? | '2' '0'? | [3-9] ) | 'OH' ( '1' [0-9]? | '2' [0-9]? | '3' '0'? | [4-9] ) )? )?
-        if (currentSymbol == '@') {
-            addToCurrentToken();
-            poll();
-            if (currentSymbol == '@') {
-                addToCurrentToken();
-                poll();
-                return true;
-            } else if (currentSymbol == 'T') {
-                if (symbols.peek() == 'H') {
-                    addThisAndNext();
-                    poll();
-                    if (isInRage('1', '2')) {
-                        addToCurrentToken();
-                        poll();
-                        return true;
-                    }
-                } else if (symbols.peek() == 'B') {
-                    addThisAndNext();
-                    poll();
-                    if (currentSymbol == '1') {
-                        addToCurrentToken();
-                        poll();
-                        if (isDecimal()) {
-                            addToCurrentToken();
-                            poll();
-                        }
-                        return true;
-                    } else if (currentSymbol == '2') {
-                        addToCurrentToken();
-                        poll();
-                        if (currentSymbol == '0') {
-                            addToCurrentToken();
-                            poll();
-                        }
-                        return true;
-                    } else if (isInRage('3', '9')) {
-                        addToCurrentToken();
-                        poll();
-                        return true;
-                    }
-                }
-            } else if (currentSymbol == 'A') {
-                if (symbols.peek() == 'L') {
-                    addThisAndNext();
-                    poll();
-                    if (isInRage('1', '2')) {
-                        addToCurrentToken();
-                        poll();
-                        return true;
-                    }
-                }
-            } else if (currentSymbol == 'S') {
-                if (symbols.peek() == 'P') {
-                    addThisAndNext();
-                    poll();
-                    if (isInRage('1', '3')) {
-                        addToCurrentToken();
-                        poll();
-                        return true;
-                    }
-                }
-            } else if (currentSymbol == 'O') {
-                if (symbols.peek() == 'H') {
-                    addThisAndNext();
-                    poll();
-                    if (currentSymbol == '1') {
-                        addToCurrentToken();
-                        poll();
-                        if (isDecimal()) {
-                            addToCurrentToken();
-                            poll();
-                        }
-                        return true;
-                    } else if (currentSymbol == '2') {
-                        addToCurrentToken();
-                        poll();
-                        if (isDecimal()) {
-                            addToCurrentToken();
-                            poll();
-                        }
-                        return true;
-                    } else if (currentSymbol == '3') {
-                        addToCurrentToken();
-                        poll();
-                        if (currentSymbol == '0') {
-                            addToCurrentToken();
-                            poll();
-                        }
-                        return true;
-                    } else if (isInRage('4', '9')) {
-                        addToCurrentToken();
-                        poll();
-                        return true;
-                    }
+        } else {
+            throw invalid("expected element symbol");
+        }
+        // chirality (@, @@, @TH1, @AL2, @SP3, @TB10, @OH25, ...)
+        if (current() == '@') {
+            position++;
+            if (current() == '@') {
+                position++;
+            } else if (isUpperCase(current()) && isUpperCase(next()) && current() != 'H') {
+                position += 2;
+                if (parseNumber() == 0) {
+                    throw invalid("expected chirality number");
                 }
             }
         }
-        return false;
-    }
-
-    private boolean parseHCount() {
-        if (isEmpty()) {
-            return false;
-        }
-
-        // HCount   ::= 'H' [0-9]?
-        if (currentSymbol == 'H') {
-            addToCurrentToken();
-            poll();
-            if (isDecimal()) {
-                addToCurrentToken();
-                connectHydrogens(Integer.valueOf(String.valueOf(currentSymbol)));
-                poll();
-                return true;
+        // hydrogen count
+        int hydrogenCount = 0;
+        if (current() == 'H') {
+            position++;
+            if (isDigit(current())) {
+                hydrogenCount = current() - '0';
+                position++;
+            } else {
+                hydrogenCount = 1;
             }
-            connectHydrogens(1);
         }
-        return false;
-    }
-
-    private boolean parseCharge() {
-        if (isEmpty()) {
-            return false;
-        }
-        String chargeToken = "";
-        // Charge   ::= '-' ( '-' | '0' | '1' [0-5]? | [2-9] )?
-        //            | '+' ( '+' | '0' | '1' [0-5]? | [2-9] )?
-        if (currentSymbol == '+') {
-            chargeToken += currentSymbol;
-            addToCurrentToken();
-            poll();
-            if (currentSymbol == '+') {
-                chargeToken += currentSymbol;
-                addToCurrentToken();
-                poll();
+        // charge
+        int charge = 0;
+        char sign = current();
+        if (sign == '+' || sign == '-') {
+            position++;
+            if (isDigit(current())) {
+                charge = parseNumber();
             } else {
-                chargeToken += parseChargeNumber();
+                charge = 1;
+                while (current() == sign) {
+                    charge++;
+                    position++;
+                }
             }
-            setCharge(chargeToken);
-            return true;
-        } else if (currentSymbol == '-') {
-            chargeToken += currentSymbol;
-            addToCurrentToken();
-            poll();
-            if (currentSymbol == '-') {
-                chargeToken += currentSymbol;
-                addToCurrentToken();
-                poll();
-            } else {
-                chargeToken += parseChargeNumber();
+            if (sign == '-') {
+                charge = -charge;
             }
-            setCharge(chargeToken);
-            return true;
         }
-        return false;
-    }
-
-    private String parseChargeNumber() {
-        String chargeToken = "";
-        if (currentSymbol == '0') {
-            chargeToken += currentSymbol;
-            addToCurrentToken();
-            poll();
-        } else if (currentSymbol == '1') {
-            chargeToken += currentSymbol;
-            addToCurrentToken();
-            poll();
-            if (isInRage('0', '5')) {
-                chargeToken += currentSymbol;
-                addToCurrentToken();
-                poll();
+        // atom class
+        if (current() == ':') {
+            position++;
+            if (!isDigit(current())) {
+                throw invalid("expected atom class");
             }
-        } else if (isInRage('2', '9')) {
-            chargeToken += currentSymbol;
-            addToCurrentToken();
-            poll();
+            parseNumber();
         }
-        return chargeToken;
-    }
-
-    private void setCharge(String chargeToken) {
-        switch (chargeToken) {
-            case "+":
-                currentCharge = 1;
-                break;
-            case "++":
-                currentCharge = 2;
-                break;
-            case "-":
-                currentCharge = -1;
-                break;
-            case "--":
-                currentCharge = -2;
-                break;
-            default:
-                currentCharge = Integer.valueOf(chargeToken);
-                break;
+        if (current() != ']') {
+            throw invalid("expected closing bracket");
         }
-    }
-
-    private boolean parseClass() {
-        if (isEmpty()) {
-            return false;
+        position++;
+        element = element.asIon(charge);
+        if (massNumber != 0) {
+            element = element.asIsotope(massNumber);
         }
-        // Class    ::= ':' [0-9]+
-        if (currentSymbol == ':') {
-            addToCurrentToken();
-            poll();
-            int length = 0;
-            while (isDecimal()) {
-                addToCurrentToken();
-                poll();
-                length++;
+        int atom = addAtom(element, isAromatic);
+        connectAtom(atom);
+        for (int hydrogen = 0; hydrogen < hydrogenCount; hydrogen++) {
+            if (numberOfHydrogens == hydrogens.length) {
+                hydrogens = Arrays.copyOf(hydrogens, 2 * numberOfHydrogens);
             }
-            return length > 0;
+            hydrogens[numberOfHydrogens++] = atom;
         }
-        return false;
-    }
-
-    private void setNextBond() {
-        currentBondType = MoleculeBondType.getBondForSMILESSymbol(currentSymbol);
-    }
-
-    private void connectConsecutiveAtoms() {
-        if (molecule.getNodes().size() > 1) {
-            if (firstAtomInBranch) {
-                if (sameChainReference) {
-                    connectors.put(new Pair<>(branches.peekLast(), currentIdentifer), currentBondType == null ? MoleculeBondType.SINGLE_BOND : currentBondType);
-                    sameChainReference = false;
-                } else {
-                    connectors.put(new Pair<>(branches.pollLast(), currentIdentifer), currentBondType == null ? MoleculeBondType.SINGLE_BOND : currentBondType);
-                }
-                currentBondType = null;
-                firstAtomInBranch = false;
-            } else {
-                connectors.put(new Pair<>(currentIdentifer - 1, currentIdentifer), currentBondType == null ? MoleculeBondType.SINGLE_BOND : currentBondType);
-                currentBondType = null;
-            }
-        }
-    }
-
-    private void connectHydrogens(int hydrogenCount) {
-        for (int count = 0; count < hydrogenCount; count++) {
-            hydrogens.add(currentIdentifer + 1);
-        }
-    }
-
-    private void addRingClosure() {
-        int closureIdentifier = Integer.valueOf(String.valueOf(currentSymbol));
-        if (ringClosures.containsKey(closureIdentifier)) {
-            connectors.put(new Pair<>(ringClosures.get(closureIdentifier), currentIdentifer), MoleculeBondType.SINGLE_BOND);
-            ringClosures.remove(closureIdentifier);
-        } else {
-            ringClosures.put(closureIdentifier, currentIdentifer);
-        }
-    }
-
-    private boolean isEmpty() {
-        return currentSymbol == null;
-    }
-
-    private boolean isInRage(Character rangeStart, Character rangeEnd) {
-        return currentSymbol >= rangeStart && currentSymbol <= rangeEnd;
-    }
-
-    /**
-     * Checks if the current symbol is a decimal character, but not zero [1-9]
-     *
-     * @return {@code true} if the current symbol is a decimal character, but not zero.
-     */
-    private boolean isNonZeroDecimal() {
-        return isInRage('1', '9');
     }
 
     /**
-     * Checks if the current symbol is a decimal character [0-9]
+     * Parses the digits at the current position.
      *
-     * @return {@code true} if the current symbol is a decimal character.
+     * @return The number or 0 if there are no digits.
      */
-    private boolean isDecimal() {
-        return isInRage('0', '9');
+    private int parseNumber() {
+        int number = 0;
+        while (isDigit(current())) {
+            number = 10 * number + (current() - '0');
+            position++;
+        }
+        return number;
     }
 
-    /**
-     * Checks if the current symbol is a lowercase word character [a-z]
-     *
-     * @return {@code true} if the current symbol is a lowercase word character.
-     */
-    private boolean isLowerCaseWordCharacter() {
-        return isInRage('a', 'z');
+    private int addAtom(Element element, boolean isAromatic) {
+        if (numberOfAtoms == elements.length) {
+            elements = Arrays.copyOf(elements, 2 * numberOfAtoms);
+            aromatic = Arrays.copyOf(aromatic, 2 * numberOfAtoms);
+        }
+        elements[numberOfAtoms] = element;
+        aromatic[numberOfAtoms] = isAromatic;
+        return numberOfAtoms++;
     }
 
     /**
-     * Checks if the current symbol is a uppercase word character [A-Z]
+     * Connects the given atom to the previous atom (if there is any) and makes it the previous atom.
      *
-     * @return {@code true} if the current symbol is a uppercase word character.
+     * @param atom The atom.
      */
-    private boolean isUpperCaseWordCharacter() {
-        return isInRage('A', 'Z');
+    private void connectAtom(int atom) {
+        if (previousAtom >= 0) {
+            addBond(previousAtom, atom, pendingBond != null ? pendingBond : implicitBond(previousAtom, atom));
+            pendingBond = null;
+        }
+        previousAtom = atom;
     }
 
-    /**
-     * Adds the current symbol to the current token.
-     */
-    private void addToCurrentToken() {
-        currentToken += currentSymbol;
+    private void addBond(int source, int target, MoleculeBondType bondType) {
+        if (numberOfBonds == bondSources.length) {
+            bondSources = Arrays.copyOf(bondSources, 2 * numberOfBonds);
+            bondTargets = Arrays.copyOf(bondTargets, 2 * numberOfBonds);
+            bondTypes = Arrays.copyOf(bondTypes, 2 * numberOfBonds);
+        }
+        bondSources[numberOfBonds] = source;
+        bondTargets[numberOfBonds] = target;
+        bondTypes[numberOfBonds] = bondType;
+        numberOfBonds++;
     }
 
-    private void addThisAndNext() {
-        addToCurrentToken();
-        poll();
-        addToCurrentToken();
+    private MoleculeBondType implicitBond(int source, int target) {
+        return aromatic[source] && aromatic[target] ? MoleculeBondType.AROMATIC_BOND : MoleculeBondType.SINGLE_BOND;
     }
 
-    /**
-     * Adds the current symbol to the collected tokens.
-     */
-    private void addToTokens() {
-        logger.trace("read token {}", currentSymbol);
-        tokens.add(String.valueOf(currentSymbol));
+    private char current() {
+        return position < length ? smilesString.charAt(position) : END;
     }
 
-    private void addAndClearCurrentToken() {
-        logger.trace("read token {}", currentToken);
-        tokens.add(currentToken);
-        currentToken = "";
+    private char next() {
+        return position + 1 < length ? smilesString.charAt(position + 1) : END;
     }
 
-    /**
-     * Polls the next character from the symbols and sets the current symbol
-     */
-    private void poll() {
-        currentSymbol = symbols.poll();
+    private IllegalArgumentException invalid(String reason) {
+        return new IllegalArgumentException("The given string " + smilesString + " is no valid SMILES String (" +
+                reason + " at position " + position + ").");
     }
 
-    /**
-     * Disposes the current character.
-     */
-    private void dispose() {
-        poll();
+    private static int symbolIndex(char first, char second) {
+        return (first - 'A') * 27 + (second == END ? 0 : second - 'a' + 1);
     }
 
-    /**
-     * Adds a atom to the molecule. This method creates a new atom with the specified symbol({@link Element#getSymbol()})
-     *
-     * @param atom The symbol of the element of the new atom.
-     */
-    private void addAtomToGraph(char atom) {
-        addAtomToGraph(String.valueOf(atom));
+    private static boolean isDigit(char symbol) {
+        return symbol >= '0' && symbol <= '9';
     }
 
-    /**
-     * Adds a atom to the molecule. This method creates a new atom with the specified symbol({@link Element#getSymbol()})
-     *
-     * @param atom The symbol of the element of the new atom.
-     */
-    private void addAtomToGraph(String atom) {
-        currentIdentifer = molecule.addNextAtom(atom);
-    }
-
-    private void addAtom() {
-        if (currentMassNumber != 0) {
-            currentIdentifer = molecule.addNextAtom(currentElement, currentCharge, currentMassNumber);
-            currentMassNumber = 0;
-        } else {
-            currentIdentifer = molecule.addNextAtom(currentElement, currentCharge);
-        }
-        currentElement = null;
-        currentCharge = 0;
+    private static boolean isUpperCase(char symbol) {
+        return symbol >= 'A' && symbol <= 'Z';
     }
 
-    private void openBranch() {
-        if (!sameChainReference) {
-            branches.add(currentIdentifer);
-        }
-
-    }
-
-    private void closeBranch() {
-        if (symbols.peek() == '(') {
-            sameChainReference = true;
-        }
-        firstAtomInBranch = true;
+    private static boolean isLowerCase(char symbol) {
+        return symbol >= 'a' && symbol <= 'z';
     }
 
 }
@@ -0,0 +1,43 @@
+package bio.singa.chemistry.features;
+
+import bio.singa.chemistry.entities.SmallMolecule;
+import bio.singa.chemistry.features.diffusivity.Diffusivity;
+import bio.singa.features.model.Evidence;
+import bio.singa.features.model.Feature;
+import bio.singa.features.model.FeaturePrefetcher;
+import bio.singa.features.model.Featureable;
+import bio.singa.structure.features.molarmass.MolarMass;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author cl
+ */
+class FeatureRegistryTest {
+
+    @Test
+    void shouldPrefetchFeaturesInParallel() {
+        List<SmallMolecule> molecules = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            molecules.add(new SmallMolecule.Builder("molecule " + i)
+                    .assignFeature(new MolarMass(100, Evidence.MANUALLY_ANNOTATED))
+                    .build());
+        }
+        // diffusivity is registered lazily by the first request, that may occur on any thread
+        List<Class<? extends Feature>> features = Collections.singletonList(Diffusivity.class);
+        Map<Featureable, RuntimeException> failures = FeaturePrefetcher.prefetch(molecules, features, 8);
+        assertTrue(failures.isEmpty());
+        for (SmallMolecule molecule : molecules) {
+            assertTrue(molecule.hasFeature(Diffusivity.class));
+            assertEquals(8.217150338823197E-6, molecule.getFeature(Diffusivity.class).getValue().doubleValue());
+        }
+    }
+
+}
@@ -5,11 +5,16 @@ import bio.singa.structure.model.molecules.MoleculeBondType;
 import bio.singa.structure.model.molecules.MoleculeGraph;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
 
 import static bio.singa.structure.elements.ElementProvider.HYDROGEN;
 import static bio.singa.structure.elements.ElementProvider.OXYGEN;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -41,7 +46,7 @@ class SmilesParserTest {
     @Test
     void shouldParseBranches() {
         // original: (COP(O)(=O)OP(O)(=O)OP(O)(O)=O)[C@@H](O)[C@H]1O
-        String smilesString = "COP(O)(=O)OP(O)(=O)OP(O)(O)=O[C@@H](O)[C@H]1O";
+        String smilesString = "COP(O)(=O)OP(O)(=O)OP(O)(O)=O[C@@H](O)[C@H]O";
         MoleculeGraph moleculeGraph = SmilesParser.parse(smilesString);
         // P:2 is connected to four Oxygen (1,3,4,5)
         List<MoleculeAtom> neighboursOfP2 = moleculeGraph.getNode(2).getNeighbours();
@@ -116,6 +121,73 @@ class SmilesParserTest {
                 .count());
     }
 
+    @Test
+    void shouldParseBondTypesOfRingClosures() {
+        // phenyl attached to a cyclopropene ring, that is closed by a two digit ring closure
+        String smilesString = "c1ccccc1C%10CC=%10O";
+        CompactMolecule molecule = SmilesParser.parseCompact(smilesString);
+        assertEquals(10, molecule.getNumberOfAtoms());
+        assertEquals(11, molecule.getNumberOfBonds());
+        MoleculeGraph moleculeGraph = molecule.toMoleculeGraph();
+        // bonds between aromatic atoms are aromatic, including the ring closure
+        assertEquals(MoleculeBondType.AROMATIC_BOND, moleculeGraph.getEdgeBetween(moleculeGraph.getNode(0), moleculeGraph.getNode(1)).get().getType());
+        assertEquals(MoleculeBondType.AROMATIC_BOND, moleculeGraph.getEdgeBetween(moleculeGraph.getNode(0), moleculeGraph.getNode(5)).get().getType());
+        assertEquals(MoleculeBondType.SINGLE_BOND, moleculeGraph.getEdgeBetween(moleculeGraph.getNode(5), moleculeGraph.getNode(6)).get().getType());
+        // the bond symbol before the closing ring closure number applies to the ring closure bond
+        assertEquals(MoleculeBondType.DOUBLE_BOND, moleculeGraph.getEdgeBetween(moleculeGraph.getNode(6), moleculeGraph.getNode(8)).get().getType());
+        assertEquals(MoleculeBondType.SINGLE_BOND, moleculeGraph.getEdgeBetween(moleculeGraph.getNode(8), moleculeGraph.getNode(9)).get().getType());
+        // C:6 is connected to C:5, C:7 and C:8
+        assertEquals(3, molecule.getDegree(6));
+        assertEquals("[5, 7, 8]", Arrays.toString(Arrays.stream(molecule.getNeighbours(6)).sorted().toArray()));
+    }
+
+    @Test
+    void shouldSaturateLeadingBracketAtom() {
+        String smilesString = "[NH4+]";
+        MoleculeGraph moleculeGraph = SmilesParser.parse(smilesString);
+        assertEquals(5, moleculeGraph.getNodes().size());
+        assertEquals(1, moleculeGraph.getNode(0).getElement().getCharge());
+        assertEquals(4, moleculeGraph.getNode(0).getNeighbours().stream()
+                .filter(atom -> atom.getElement().equals(HYDROGEN))
+                .count());
+    }
+
+    @Test
+    void shouldParseMultipleSmilesStrings() {
+        List<String> smilesStrings = Arrays.asList("CCO ethanol", "O=C=O", "c1ccccc1", "[Na+].[Cl-]");
+        List<CompactMolecule> molecules = SmilesParser.parseAllCompact(smilesStrings);
+        assertEquals(4, molecules.size());
+        // the order is retained and names are ignored
+        assertEquals(3, molecules.get(0).getNumberOfAtoms());
+        assertEquals(OXYGEN, molecules.get(1).getElement(0));
+        assertEquals(6, molecules.get(2).getNumberOfBonds());
+        assertEquals(0, molecules.get(3).getNumberOfBonds());
+        assertThrows(IllegalArgumentException.class, () -> SmilesParser.parseCompact("CC(C"));
+        assertThrows(IllegalArgumentException.class, () -> SmilesParser.parseCompact("C[Xy]"));
+        assertThrows(IllegalArgumentException.class, () -> SmilesParser.parseCompact("C[X]"));
+        assertThrows(IllegalArgumentException.class, () -> SmilesParser.parseCompact("C1CC"));
+        assertEquals(2, SmilesParser.parseCompact("C*").getNumberOfAtoms());
+    }
+
+    @Test
+    void shouldParseSmilesFile() throws IOException {
+        Path smilesFile = Files.createTempFile("molecules", ".smi");
+        try {
+            Files.write(smilesFile, Arrays.asList("CCO ethanol", "", "   ", "O=C=O carbon dioxide"));
+            List<MoleculeGraph> moleculeGraphs = SmilesParser.parseFile(smilesFile);
+            // blank lines are skipped
+            assertEquals(2, moleculeGraphs.size());
+            assertEquals(3, moleculeGraphs.get(0).getNodes().size());
+            assertEquals(3, moleculeGraphs.get(1).getNodes().size());
+            // the line number of invalid SMILES Strings is reported
+            Files.write(smilesFile, Arrays.asList("CCO ethanol", "", "CC(C invalid"));
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> SmilesParser.parseFile(smilesFile));
+            assertTrue(exception.getMessage().contains("line 3"));
+        } finally {
+            Files.delete(smilesFile);
+        }
+    }
+
     // with nested branches
     // Clc(c(Cl)c(Cl)c1C(=O)O)c(Cl)c1Cl
 
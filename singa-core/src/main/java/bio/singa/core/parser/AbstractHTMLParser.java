@@ -1,11 +1,15 @@
 package bio.singa.core.parser;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * This class allows handling and parameter definition for simple HTML requests.
@@ -15,13 +19,75 @@ import java.util.Map;
  */
 public abstract class AbstractHTMLParser<ResultType> extends AbstractParser<ResultType> {
 
+    /**
+     * The cache that is shared by all parsers, null if resources should always be fetched.
+     */
+    private static volatile ResourceCache resourceCache;
+
+    /**
+     * Returns the resource cache that is used by all parsers.
+     *
+     * @return The resource cache or null if no cache is used.
+     */
+    public static ResourceCache getResourceCache() {
+        return resourceCache;
+    }
+
+    /**
+     * Sets the resource cache that is used by all parsers. Resources are retrieved from the cache, if they are present
+     * and only fetched from their remote location otherwise. Set to null to disable caching.
+     *
+     * @param resourceCache The resource cache.
+     */
+    public static void setResourceCache(ResourceCache resourceCache) {
+        AbstractHTMLParser.resourceCache = resourceCache;
+    }
+
+    /**
+     * Opens a stream to the given URL. If a {@link ResourceCache} is set, the content is retrieved from the cache if
+     * possible and stored in the cache otherwise. If the cache is offline and the resource is not cached an
+     * {@link IOException} is thrown.
+     *
+     * @param urlString The URL of the resource.
+     * @return The stream of the resources content.
+     * @throws IOException If the resource could not be retrieved.
+     */
+    public static InputStream openResource(String urlString) throws IOException {
+        ResourceCache cache = resourceCache;
+        if (cache == null) {
+            return new URL(urlString).openStream();
+        }
+        Optional<byte[]> cachedContent = cache.get(urlString);
+        if (cachedContent.isPresent()) {
+            return new ByteArrayInputStream(cachedContent.get());
+        }
+        if (cache.isOffline()) {
+            throw new IOException("The resource \"" + urlString + "\" is not cached and the cache is used in offline mode.");
+        }
+        byte[] content;
+        try (InputStream inputStream = new URL(urlString).openStream()) {
+            content = readAllBytes(inputStream);
+        }
+        cache.put(urlString, content);
+        return new ByteArrayInputStream(content);
+    }
+
+    private static byte[] readAllBytes(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+        return outputStream.toByteArray();
+    }
+
     /**
      * Fetches the currently set resource, by building an URL and opening a stream.
      */
     public void fetchResource() {
         try {
-            URL url = new URL(getResource());
-            setFetchResult(url.openStream());
+            setFetchResult(openResource(getResource()));
         } catch (MalformedURLException e) {
             throw new UncheckedIOException("The url \"" + getResource() + "\" seems to be malformed", e);
         } catch (IOException e) {
@@ -37,8 +103,7 @@ public abstract class AbstractHTMLParser<ResultType> extends AbstractParser<Resu
     public void fetchResource(String resourceExtension) {
         String urlString = getResource() + resourceExtension;
         try {
-            URL url = new URL(urlString);
-            setFetchResult(url.openStream());
+            setFetchResult(openResource(urlString));
         } catch (MalformedURLException e) {
             throw new UncheckedIOException("The url \"" + urlString + "\" seems to be malformed", e);
         } catch (IOException e) {
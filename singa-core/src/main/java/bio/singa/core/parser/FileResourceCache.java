@@ -0,0 +1,192 @@
+package bio.singa.core.parser;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * A {@link ResourceCache} that persists each entry as a single file in a cache directory. The file name is derived
+ * from the SHA-1 hash of the key, entries are considered as expired if their last modification is longer ago than the
+ * time to live. In offline mode the cache is read-only and expired entries are still returned, since there is no other
+ * way to obtain the resource.
+ *
+ * @author cl
+ */
+public class FileResourceCache implements ResourceCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileResourceCache.class);
+
+    /**
+     * The file extension of cache entries.
+     */
+    private static final String ENTRY_EXTENSION = ".cache";
+
+    /**
+     * The directory containing the cache entries.
+     */
+    private final Path cacheDirectory;
+
+    /**
+     * The time to live of each entry.
+     */
+    private final Duration timeToLive;
+
+    /**
+     * True if the cache is used in offline mode.
+     */
+    private final boolean offline;
+
+    /**
+     * Creates a new file resource cache, where entries never expire.
+     *
+     * @param cacheDirectory The directory containing the cache entries.
+     */
+    public FileResourceCache(Path cacheDirectory) {
+        this(cacheDirectory, null, false);
+    }
+
+    /**
+     * Creates a new file resource cache.
+     *
+     * @param cacheDirectory The directory containing the cache entries.
+     * @param timeToLive The time to live of each entry or null if entries should never expire.
+     * @param offline True if the cache should be used read-only, without fetching missing resources.
+     */
+    public FileResourceCache(Path cacheDirectory, Duration timeToLive, boolean offline) {
+        this.cacheDirectory = cacheDirectory;
+        this.timeToLive = timeToLive;
+        this.offline = offline;
+        if (!offline) {
+            try {
+                Files.createDirectories(cacheDirectory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not create cache directory " + cacheDirectory + ".", e);
+            }
+        }
+    }
+
+    /**
+     * Creates a new read-only file resource cache, that never fetches resources that are not cached.
+     *
+     * @param cacheDirectory The directory containing the cache entries.
+     * @return The offline cache.
+     */
+    public static FileResourceCache offline(Path cacheDirectory) {
+        return new FileResourceCache(cacheDirectory, null, true);
+    }
+
+    @Override
+    public Optional<byte[]> get(String key) {
+        Path entry = resolveEntry(key);
+        if (!Files.isRegularFile(entry)) {
+            return Optional.empty();
+        }
+        try {
+            if (!offline && isExpired(entry)) {
+                logger.debug("Cache entry for {} has expired.", key);
+                return Optional.empty();
+            }
+            return Optional.of(Files.readAllBytes(entry));
+        } catch (IOException e) {
+            logger.warn("Could not read cache entry for {}.", key, e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void put(String key, byte[] content) {
+        if (offline) {
+            return;
+        }
+        Path entry = resolveEntry(key);
+        Path temporaryEntry = null;
+        try {
+            // write to temporary file first, so concurrent readers never see partial entries
+            temporaryEntry = Files.createTempFile(cacheDirectory, "entry", ".tmp");
+            Files.write(temporaryEntry, content);
+            Files.move(temporaryEntry, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not write cache entry for {}.", key, e);
+            if (temporaryEntry != null) {
+                try {
+                    Files.deleteIfExists(temporaryEntry);
+                } catch (IOException deletionException) {
+                    logger.warn("Could not delete temporary cache entry {}.", temporaryEntry, deletionException);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void invalidate(String key) {
+        if (offline) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(resolveEntry(key));
+        } catch (IOException e) {
+            logger.warn("Could not delete cache entry for {}.", key, e);
+        }
+    }
+
+    @Override
+    public boolean isOffline() {
+        return offline;
+    }
+
+    /**
+     * Returns the directory containing the cache entries.
+     *
+     * @return The cache directory.
+     */
+    public Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * Returns the time to live of each entry.
+     *
+     * @return The time to live or null if entries never expire.
+     */
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    private boolean isExpired(Path entry) throws IOException {
+        if (timeToLive == null) {
+            return false;
+        }
+        long age = System.currentTimeMillis() - Files.getLastModifiedTime(entry).toMillis();
+        return age > timeToLive.toMillis();
+    }
+
+    private Path resolveEntry(String key) {
+        return cacheDirectory.resolve(hash(key) + ENTRY_EXTENSION);
+    }
+
+    private static String hash(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] bytes = digest.digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder(bytes.length * 2);
+            for (byte b : bytes) {
+                builder.append(Character.forDigit((b >> 4) & 0xF, 16))
+                        .append(Character.forDigit(b & 0xF, 16));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is required to be supported by every java platform.", e);
+        }
+    }
+
+}
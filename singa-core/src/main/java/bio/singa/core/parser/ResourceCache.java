@@ -0,0 +1,47 @@
+package bio.singa.core.parser;
+
+import java.util.Optional;
+
+/**
+ * A resource cache stores the raw content of remote resources, such as the responses of web services, in order to avoid
+ * repeated requests for identical resources. Entries are referenced by a key, preferably the plain URL of the resource
+ * or a database identifier.
+ *
+ * @author cl
+ * @see FileResourceCache
+ * @see AbstractHTMLParser#setResourceCache(ResourceCache)
+ */
+public interface ResourceCache {
+
+    /**
+     * Returns the cached content for the given key, if it is present and has not yet expired.
+     *
+     * @param key The key of the resource.
+     * @return The cached content or an empty optional if no valid entry is available.
+     */
+    Optional<byte[]> get(String key);
+
+    /**
+     * Stores the content of the resource for the given key. Read-only caches silently ignore this method.
+     *
+     * @param key The key of the resource.
+     * @param content The content of the resource.
+     */
+    void put(String key, byte[] content);
+
+    /**
+     * Removes the entry for the given key, if it is present.
+     *
+     * @param key The key of the resource.
+     */
+    void invalidate(String key);
+
+    /**
+     * Returns true if this cache is used in offline mode. In offline mode the cache is read-only and resources that are
+     * not cached must not be fetched from their remote location.
+     *
+     * @return True if this cache is used in offline mode.
+     */
+    boolean isOffline();
+
+}
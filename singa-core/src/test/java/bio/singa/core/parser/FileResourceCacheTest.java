@@ -0,0 +1,133 @@
+package bio.singa.core.parser;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author cl
+ */
+class FileResourceCacheTest {
+
+    private HttpServer server;
+    private AtomicInteger requests;
+    private String resource;
+    private Path cacheDirectory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        requests = new AtomicInteger();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/entity", exchange -> {
+            requests.incrementAndGet();
+            byte[] response = "content".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(response);
+            }
+        });
+        server.start();
+        resource = "http://localhost:" + server.getAddress().getPort() + "/entity";
+        cacheDirectory = Files.createTempDirectory("singa-cache");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        AbstractHTMLParser.setResourceCache(null);
+        server.stop(0);
+        try (Stream<Path> paths = Files.walk(cacheDirectory)) {
+            paths.sorted(Comparator.reverseOrder())
+                    .map(Path::toFile)
+                    .forEach(File::delete);
+        }
+    }
+
+    @Test
+    void shouldFetchResourceOnlyOnce() {
+        AbstractHTMLParser.setResourceCache(new FileResourceCache(cacheDirectory));
+        assertEquals("content", new LineParser(resource).parse());
+        assertEquals("content", new LineParser(resource).parse());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void shouldRefetchExpiredResource() throws IOException {
+        FileResourceCache cache = new FileResourceCache(cacheDirectory, Duration.ofHours(1), false);
+        AbstractHTMLParser.setResourceCache(cache);
+        assertEquals("content", new LineParser(resource).parse());
+        // age all entries
+        try (Stream<Path> paths = Files.list(cacheDirectory)) {
+            for (Path path : paths.collect(Collectors.toList())) {
+                Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis() - Duration.ofHours(2).toMillis()));
+            }
+        }
+        assertEquals("content", new LineParser(resource).parse());
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void shouldUseOfflineCache() {
+        // populate cache
+        AbstractHTMLParser.setResourceCache(new FileResourceCache(cacheDirectory));
+        new LineParser(resource).parse();
+        // switch to offline mode
+        AbstractHTMLParser.setResourceCache(FileResourceCache.offline(cacheDirectory));
+        assertEquals("content", new LineParser(resource).parse());
+        assertEquals(1, requests.get());
+        // uncached resources are not fetched
+        assertThrows(UncheckedIOException.class, () -> new LineParser(resource + "/missing").parse());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void shouldRemoveTemporaryEntryIfWritingFails() throws IOException {
+        FileResourceCache cache = new FileResourceCache(cacheDirectory);
+        cache.put("key", "content".getBytes(StandardCharsets.UTF_8));
+        Path entry;
+        try (Stream<Path> paths = Files.list(cacheDirectory)) {
+            entry = paths.findFirst().orElseThrow(IllegalStateException::new);
+        }
+        // replace the entry by a non empty directory, that can not be replaced by moving the temporary entry
+        Files.delete(entry);
+        Files.createDirectory(entry);
+        Files.createFile(entry.resolve("blocking"));
+        cache.put("key", "content".getBytes(StandardCharsets.UTF_8));
+        try (Stream<Path> paths = Files.list(cacheDirectory)) {
+            assertEquals(1, paths.count());
+        }
+    }
+
+    private static class LineParser extends AbstractHTMLParser<String> {
+
+        LineParser(String resource) {
+            setResource(resource);
+        }
+
+        @Override
+        public String parse() {
+            fetchResource();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(getFetchResult()))) {
+                return reader.readLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+    }
+
+}
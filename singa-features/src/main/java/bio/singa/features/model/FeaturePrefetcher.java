@@ -0,0 +1,104 @@
+package bio.singa.features.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * The feature prefetcher resolves features for a collection of {@link Featureable}s concurrently. Resolving features
+ * frequently requires requests to remote databases, which are mostly waiting for the network. Each featureable is
+ * processed by a single worker of a bounded pool, such that the features of a single featureable are never modified
+ * concurrently. Features that are already present are skipped.
+ *
+ * @author cl
+ */
+public class FeaturePrefetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeaturePrefetcher.class);
+
+    /**
+     * The default number of concurrent requests.
+     */
+    public static final int DEFAULT_NUMBER_OF_THREADS = 8;
+
+    private FeaturePrefetcher() {
+        // prevent instantiation
+    }
+
+    /**
+     * Resolves the given features for all featureables using the default number of threads.
+     *
+     * @param featureables The featureables.
+     * @param features The features to resolve.
+     * @return The featureables, where at least one feature could not be resolved, mapped to the first exception.
+     */
+    public static Map<Featureable, RuntimeException> prefetch(Collection<? extends Featureable> featureables, Collection<Class<? extends Feature>> features) {
+        return prefetch(featureables, features, DEFAULT_NUMBER_OF_THREADS);
+    }
+
+    /**
+     * Resolves the given features for all featureables. Features that can not be assigned to a featureable are
+     * ignored. Failures do not interrupt the resolution of other features or featureables, but are collected and
+     * returned.
+     *
+     * @param featureables The featureables.
+     * @param features The features to resolve.
+     * @param numberOfThreads The maximal number of concurrently resolved featureables.
+     * @return The featureables, where at least one feature could not be resolved, mapped to the first exception.
+     */
+    public static Map<Featureable, RuntimeException> prefetch(Collection<? extends Featureable> featureables, Collection<Class<? extends Feature>> features, int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("The number of threads must be positive.");
+        }
+        logger.info("Prefetching {} features for {} entities using {} threads.", features.size(), featureables.size(), numberOfThreads);
+        Map<Featureable, RuntimeException> failures = new LinkedHashMap<>();
+        if (featureables.isEmpty() || features.isEmpty()) {
+            return failures;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(numberOfThreads, featureables.size()));
+        try {
+            Map<Featureable, Future<RuntimeException>> futures = new LinkedHashMap<>();
+            for (Featureable featureable : featureables) {
+                futures.put(featureable, executor.submit(() -> resolve(featureable, features)));
+            }
+            for (Map.Entry<Featureable, Future<RuntimeException>> entry : futures.entrySet()) {
+                RuntimeException exception = entry.getValue().get();
+                if (exception != null) {
+                    failures.put(entry.getKey(), exception);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Prefetching of features was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to prefetch features.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return failures;
+    }
+
+    private static RuntimeException resolve(Featureable featureable, Collection<Class<? extends Feature>> features) {
+        RuntimeException firstException = null;
+        for (Class<? extends Feature> feature : features) {
+            if (!featureable.canBeFeaturedWith(feature) || featureable.hasFeature(feature)) {
+                continue;
+            }
+            try {
+                featureable.setFeature(feature);
+            } catch (RuntimeException e) {
+                logger.warn("Could not resolve {} for {}.", feature.getSimpleName(), featureable, e);
+                if (firstException == null) {
+                    firstException = e;
+                }
+            }
+        }
+        return firstException;
+    }
+
+}
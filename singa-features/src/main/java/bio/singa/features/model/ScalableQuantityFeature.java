@@ -15,6 +15,11 @@ public abstract class ScalableQuantityFeature<QuantityType extends Quantity<Quan
     protected Quantity<QuantityType> scaledQuantity;
     protected Quantity<QuantityType> halfScaledQuantity;
 
+    /**
+     * The modification count of the {@link UnitRegistry} scales, the quantities have been scaled with.
+     */
+    private long scaleModificationCount = -1;
+
     public ScalableQuantityFeature(Quantity<QuantityType> featureContent, Evidence evidence) {
         this.featureContent = featureContent;
         this.evidence = evidence;
@@ -26,13 +31,27 @@ public abstract class ScalableQuantityFeature<QuantityType extends Quantity<Quan
         halfScaledQuantity = scaledQuantity.multiply(0.5);
     }
 
+    /**
+     * Scales the quantity if the scales of the {@link UnitRegistry} have been changed since the quantity was scaled
+     * the last time. Therefore only features that are actually used are rescaled, when the time step changes.
+     */
+    private void scaleIfRequired() {
+        long currentModificationCount = UnitRegistry.getScaleModificationCount();
+        if (scaleModificationCount != currentModificationCount) {
+            scale();
+            scaleModificationCount = currentModificationCount;
+        }
+    }
+
     @Override
     public Quantity<QuantityType> getScaledQuantity() {
+        scaleIfRequired();
         return scaledQuantity;
     }
 
     @Override
     public Quantity<QuantityType> getHalfScaledQuantity() {
+        scaleIfRequired();
         return halfScaledQuantity;
     }
 
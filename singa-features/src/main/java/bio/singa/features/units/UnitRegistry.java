@@ -58,6 +58,12 @@ public class UnitRegistry {
 
     private static UnitRegistry instance = getInstance();
 
+    /**
+     * Counts changes of the space and time scale, such that scaled quantities can determine if they need to be
+     * rescaled.
+     */
+    private static volatile long scaleModificationCount;
+
     private UnitRegistry() {
         space = DEFAULT_SPACE;
         time = DEFAULT_TIME;
@@ -73,6 +79,7 @@ public class UnitRegistry {
     public static void reinitialize() {
         synchronized (UnitRegistry.class) {
             instance = new UnitRegistry();
+            scaleModificationCount++;
         }
     }
 
@@ -91,6 +98,7 @@ public class UnitRegistry {
 
     public static void setSpaceScale(double scale) {
         getInstance().space = Quantities.getQuantity(scale, getInstance().space.getUnit());
+        scaleModificationCount++;
     }
 
     public static Unit<Length> getSpaceUnit() {
@@ -101,6 +109,7 @@ public class UnitRegistry {
         // only rescale if unit was updated
         getInstance().space = Quantities.getQuantity(getInstance().space.getValue().doubleValue(), unit);
         getInstance().defaultUnits.put(QuantityDimension.LENGTH, unit);
+        scaleModificationCount++;
         rescaleRegisteredUnits();
     }
 
@@ -124,6 +133,7 @@ public class UnitRegistry {
 
     public static void setTimeScale(double scale) {
         getInstance().time = Quantities.getQuantity(scale, getInstance().time.getUnit());
+        scaleModificationCount++;
     }
 
     public static Unit<Time> getTimeUnit() {
@@ -133,6 +143,7 @@ public class UnitRegistry {
     public static void setTimeUnit(Unit<Time> unit) {
         getInstance().time = Quantities.getQuantity(getInstance().time.getValue().doubleValue(), unit);
         getInstance().defaultUnits.put(QuantityDimension.TIME, unit);
+        scaleModificationCount++;
         rescaleRegisteredUnits();
     }
 
@@ -141,8 +152,19 @@ public class UnitRegistry {
         setTimeUnit(DEFAULT_TIME.getUnit());
     }
 
+    /**
+     * Returns a number, that changes every time the space or time scale is changed. Scaled quantities remember the
+     * count they have been scaled with and only need to be rescaled if the count differs.
+     *
+     * @return The current modification count of the scales.
+     */
+    public static long getScaleModificationCount() {
+        return scaleModificationCount;
+    }
+
     public static void setUnit(Unit<?> unit) {
         getInstance().defaultUnits.put(unit.getDimension(), unit);
+        scaleModificationCount++;
     }
 
     public static Unit<MolarConcentration> getConcentrationUnit() {
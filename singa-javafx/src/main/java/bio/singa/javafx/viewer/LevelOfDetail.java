@@ -0,0 +1,71 @@
+package bio.singa.javafx.viewer;
+
+/**
+ * The level of detail used to display a structure. The level is chosen depending on the number of atoms and the
+ * distance of the camera to the structure.
+ *
+ * @author cl
+ */
+public enum LevelOfDetail {
+
+    /**
+     * Only the backbone trace (C alpha atoms of amino acids and phosphorus atoms of nucleotides) is displayed.
+     */
+    TRACE,
+
+    /**
+     * Each leaf substructure is displayed as a single coarse sphere.
+     */
+    COARSE,
+
+    /**
+     * All atoms and bonds are displayed.
+     */
+    FULL;
+
+    /**
+     * Structures with more atoms are never displayed in full detail.
+     */
+    public static final int MAXIMAL_FULL_ATOMS = 25000;
+
+    /**
+     * Structures with more atoms are only displayed as trace.
+     */
+    public static final int MAXIMAL_COARSE_ATOMS = 250000;
+
+    /**
+     * Beyond this multiple of the extent of the structure the level of detail is reduced by one level.
+     */
+    public static final double DISTANT_CAMERA_EXTENTS = 10.0;
+
+    /**
+     * The level of detail is never reduced for camera distances below this distance, such that small structures are
+     * displayed in full detail from the initial camera position.
+     */
+    public static final double MINIMAL_DISTANT_CAMERA = 500.0;
+
+    /**
+     * Selects the level of detail for the given number of atoms and camera distance.
+     *
+     * @param numberOfAtoms The number of displayed atoms.
+     * @param cameraDistance The distance of the camera to the center of the structure.
+     * @param extent The largest distance of an atom to the center of the structure.
+     * @return The level of detail.
+     */
+    public static LevelOfDetail select(int numberOfAtoms, double cameraDistance, double extent) {
+        LevelOfDetail level;
+        if (numberOfAtoms <= MAXIMAL_FULL_ATOMS) {
+            level = FULL;
+        } else if (numberOfAtoms <= MAXIMAL_COARSE_ATOMS) {
+            level = COARSE;
+        } else {
+            level = TRACE;
+        }
+        double distantCamera = Math.max(MINIMAL_DISTANT_CAMERA, DISTANT_CAMERA_EXTENTS * extent);
+        if (cameraDistance > distantCamera && level != TRACE) {
+            level = values()[level.ordinal() - 1];
+        }
+        return level;
+    }
+
+}
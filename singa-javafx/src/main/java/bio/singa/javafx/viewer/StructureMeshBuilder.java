@@ -0,0 +1,424 @@
+package bio.singa.javafx.viewer;
+
+import bio.singa.mathematics.vectors.Vector3D;
+import bio.singa.mathematics.vectors.Vectors3D;
+import bio.singa.structure.model.interfaces.AminoAcid;
+import bio.singa.structure.model.interfaces.Atom;
+import bio.singa.structure.model.interfaces.LeafSubstructure;
+import bio.singa.structure.model.interfaces.Nucleotide;
+import bio.singa.structure.model.oak.OakBond;
+import bio.singa.structure.model.oak.OakLeafSubstructure;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the meshes used to display a structure. Instead of creating a node for every atom and bond, all atoms and
+ * bonds sharing the same material are combined into a single {@link TriangleMesh}. Thereby, only a few nodes are
+ * required even for very large structures. The meshes can be built from any thread, as long as the resulting
+ * {@link MeshView}s are attached to the scene on the JavaFX application thread. The user data of every mesh view are
+ * the {@link FaceOwners}, that map picked faces back to the atoms and leaf substructures.
+ *
+ * @author cl
+ */
+public class StructureMeshBuilder {
+
+    private static final double ATOM_RADIUS = 1.0;
+    private static final double BOND_RADIUS = 0.4;
+    private static final double COARSE_RADIUS = 5.0;
+    private static final double TRACE_RADIUS = 1.2;
+
+    private static final SphereTemplate FULL_SPHERE = new SphereTemplate(8, 12);
+    private static final SphereTemplate COARSE_SPHERE = new SphereTemplate(5, 8);
+    private static final SphereTemplate TRACE_SPHERE = new SphereTemplate(4, 6);
+    private static final int FULL_CYLINDER_SIDES = 8;
+    private static final int TRACE_CYLINDER_SIDES = 6;
+
+    private final List<LeafSubstructure<?>> leafSubstructures;
+    private final BiFunction<LeafSubstructure<?>, Atom, PhongMaterial> atomMaterials;
+    private final Function<LeafSubstructure<?>, PhongMaterial> leafMaterials;
+
+    /**
+     * Creates a new mesh builder.
+     *
+     * @param leafSubstructures The leaf substructures to display.
+     * @param atomMaterials The material of an atom in its leaf substructure.
+     * @param leafMaterials The material of bonds, coarse spheres and trace segments of a leaf substructure.
+     */
+    public StructureMeshBuilder(List<LeafSubstructure<?>> leafSubstructures,
+                                BiFunction<LeafSubstructure<?>, Atom, PhongMaterial> atomMaterials,
+                                Function<LeafSubstructure<?>, PhongMaterial> leafMaterials) {
+        this.leafSubstructures = leafSubstructures;
+        this.atomMaterials = atomMaterials;
+        this.leafMaterials = leafMaterials;
+    }
+
+    /**
+     * Returns the number of atoms, that would be displayed in full detail.
+     *
+     * @return The number of atoms.
+     */
+    public int getNumberOfAtoms() {
+        int numberOfAtoms = 0;
+        for (LeafSubstructure<?> leafSubstructure : leafSubstructures) {
+            numberOfAtoms += leafSubstructure.getAllAtoms().size();
+        }
+        return numberOfAtoms;
+    }
+
+    /**
+     * Returns the largest distance of an atom to the origin, that is used as the center of the displayed structure.
+     *
+     * @return The extent of the structure.
+     */
+    public double getExtent() {
+        double squaredExtent = 0.0;
+        for (LeafSubstructure<?> leafSubstructure : leafSubstructures) {
+            for (Atom atom : leafSubstructure.getAllAtoms()) {
+                Vector3D position = atom.getPosition();
+                squaredExtent = Math.max(squaredExtent, position.getX() * position.getX()
+                        + position.getY() * position.getY() + position.getZ() * position.getZ());
+            }
+        }
+        return Math.sqrt(squaredExtent);
+    }
+
+    /**
+     * Builds one {@link MeshView} per material for the given level of detail.
+     *
+     * @param level The level of detail.
+     * @return The mesh views.
+     */
+    public List<MeshView> build(LevelOfDetail level) {
+        Map<PhongMaterial, MeshAccumulator> accumulators = new LinkedHashMap<>();
+        switch (level) {
+            case TRACE:
+                buildTrace(accumulators);
+                break;
+            case COARSE:
+                buildCoarse(accumulators);
+                break;
+            default:
+                buildFull(accumulators);
+        }
+        List<MeshView> meshViews = new ArrayList<>();
+        for (Map.Entry<PhongMaterial, MeshAccumulator> entry : accumulators.entrySet()) {
+            MeshView meshView = new MeshView(entry.getValue().toMesh());
+            meshView.setMaterial(entry.getKey());
+            meshView.setUserData(entry.getValue().toFaceOwners());
+            meshViews.add(meshView);
+        }
+        return meshViews;
+    }
+
+    private void buildFull(Map<PhongMaterial, MeshAccumulator> accumulators) {
+        for (LeafSubstructure<?> leafSubstructure : leafSubstructures) {
+            for (Atom atom : leafSubstructure.getAllAtoms()) {
+                accumulators.computeIfAbsent(atomMaterials.apply(leafSubstructure, atom), material -> new MeshAccumulator())
+                        .addSphere(atom.getPosition(), ATOM_RADIUS, FULL_SPHERE, leafSubstructure, atom);
+            }
+            if (leafSubstructure instanceof OakLeafSubstructure) {
+                Collection<OakBond> bonds = ((OakLeafSubstructure<?>) leafSubstructure).getBonds();
+                if (bonds.isEmpty()) {
+                    continue;
+                }
+                MeshAccumulator accumulator = accumulators.computeIfAbsent(leafMaterials.apply(leafSubstructure), material -> new MeshAccumulator());
+                for (OakBond bond : bonds) {
+                    accumulator.addCylinder(bond.getSource().getPosition(), bond.getTarget().getPosition(), BOND_RADIUS, FULL_CYLINDER_SIDES, leafSubstructure);
+                }
+            }
+        }
+    }
+
+    private void buildCoarse(Map<PhongMaterial, MeshAccumulator> accumulators) {
+        for (LeafSubstructure<?> leafSubstructure : leafSubstructures) {
+            List<Atom> atoms = leafSubstructure.getAllAtoms();
+            if (atoms.isEmpty()) {
+                continue;
+            }
+            Vector3D centroid = Vectors3D.getCentroid(atoms.stream()
+                    .map(Atom::getPosition)
+                    .collect(Collectors.toList()));
+            accumulators.computeIfAbsent(leafMaterials.apply(leafSubstructure), material -> new MeshAccumulator())
+                    .addSphere(centroid, COARSE_RADIUS, COARSE_SPHERE, leafSubstructure, null);
+        }
+    }
+
+    private void buildTrace(Map<PhongMaterial, MeshAccumulator> accumulators) {
+        LeafSubstructure<?> previousLeaf = null;
+        Vector3D previousPosition = null;
+        for (LeafSubstructure<?> leafSubstructure : leafSubstructures) {
+            Optional<Atom> traceAtom = getTraceAtom(leafSubstructure);
+            if (!traceAtom.isPresent()) {
+                continue;
+            }
+            Vector3D position = traceAtom.get().getPosition();
+            MeshAccumulator accumulator = accumulators.computeIfAbsent(leafMaterials.apply(leafSubstructure), material -> new MeshAccumulator());
+            accumulator.addSphere(position, TRACE_RADIUS, TRACE_SPHERE, leafSubstructure, traceAtom.get());
+            // connect consecutive leaves of the same chain
+            if (previousLeaf != null && previousLeaf.getChainIdentifier().equals(leafSubstructure.getChainIdentifier())
+                    && leafSubstructure.getSerial() - previousLeaf.getSerial() <= 1) {
+                accumulator.addCylinder(previousPosition, position, TRACE_RADIUS, TRACE_CYLINDER_SIDES, leafSubstructure);
+            }
+            previousLeaf = leafSubstructure;
+            previousPosition = position;
+        }
+    }
+
+    private static Optional<Atom> getTraceAtom(LeafSubstructure<?> leafSubstructure) {
+        if (leafSubstructure instanceof AminoAcid) {
+            return leafSubstructure.getAtomByName("CA");
+        } else if (leafSubstructure instanceof Nucleotide) {
+            return leafSubstructure.getAtomByName("P");
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * A unit sphere, that is copied for every displayed sphere.
+     */
+    private static class SphereTemplate {
+
+        private final float[] points;
+        private final int[] faces;
+
+        SphereTemplate(int rings, int segments) {
+            // two poles and segments points for every inner ring
+            int numberOfPoints = 2 + (rings - 1) * segments;
+            points = new float[3 * numberOfPoints];
+            int point = 0;
+            point = setPoint(point, 0.0, 1.0, 0.0);
+            for (int ring = 1; ring < rings; ring++) {
+                double theta = Math.PI * ring / rings;
+                for (int segment = 0; segment < segments; segment++) {
+                    double phi = 2.0 * Math.PI * segment / segments;
+                    point = setPoint(point, Math.sin(theta) * Math.cos(phi), Math.cos(theta), Math.sin(theta) * Math.sin(phi));
+                }
+            }
+            setPoint(point, 0.0, -1.0, 0.0);
+            int bottom = numberOfPoints - 1;
+            // caps contain one triangle and every band two triangles per segment
+            faces = new int[3 * (2 * segments + 2 * segments * (rings - 2))];
+            int face = 0;
+            for (int segment = 0; segment < segments; segment++) {
+                int next = (segment + 1) % segments;
+                // top cap
+                face = setFace(face, 0, 1 + next, 1 + segment);
+                // bands, wound counter clockwise when seen from outside
+                for (int ring = 1; ring < rings - 1; ring++) {
+                    int upper = 1 + (ring - 1) * segments;
+                    int lower = upper + segments;
+                    face = setFace(face, upper + segment, upper + next, lower + segment);
+                    face = setFace(face, upper + next, lower + next, lower + segment);
+                }
+                // bottom cap
+                int last = 1 + (rings - 2) * segments;
+                face = setFace(face, last + segment, last + next, bottom);
+            }
+        }
+
+        private int setPoint(int point, double x, double y, double z) {
+            points[3 * point] = (float) x;
+            points[3 * point + 1] = (float) y;
+            points[3 * point + 2] = (float) z;
+            return point + 1;
+        }
+
+        private int setFace(int face, int first, int second, int third) {
+            faces[3 * face] = first;
+            faces[3 * face + 1] = second;
+            faces[3 * face + 2] = third;
+            return face + 1;
+        }
+
+    }
+
+    /**
+     * Maps the faces of a mesh to the leaf substructures and atoms, that are represented by them.
+     */
+    public static class FaceOwners {
+
+        private final int[] firstFaces;
+        private final LeafSubstructure<?>[] leafSubstructures;
+        private final Atom[] atoms;
+
+        private FaceOwners(int[] firstFaces, LeafSubstructure<?>[] leafSubstructures, Atom[] atoms) {
+            this.firstFaces = firstFaces;
+            this.leafSubstructures = leafSubstructures;
+            this.atoms = atoms;
+        }
+
+        private int getShape(int face) {
+            if (face < 0 || firstFaces.length == 0) {
+                return -1;
+            }
+            int shape = Arrays.binarySearch(firstFaces, face);
+            // the insertion point follows the shape containing the face
+            return shape >= 0 ? shape : -shape - 2;
+        }
+
+        /**
+         * Returns the leaf substructure represented by the given face.
+         *
+         * @param face The index of the face (such as {@link javafx.scene.input.PickResult#getIntersectedFace()}).
+         * @return The leaf substructure or null if the face is undefined.
+         */
+        public LeafSubstructure<?> getLeafSubstructure(int face) {
+            int shape = getShape(face);
+            return shape < 0 ? null : leafSubstructures[shape];
+        }
+
+        /**
+         * Returns the atom represented by the given face.
+         *
+         * @param face The index of the face (such as {@link javafx.scene.input.PickResult#getIntersectedFace()}).
+         * @return The atom or null if the face is undefined or represents a bond or a whole leaf substructure.
+         */
+        public Atom getAtom(int face) {
+            int shape = getShape(face);
+            return shape < 0 ? null : atoms[shape];
+        }
+
+    }
+
+    /**
+     * Collects points and faces of multiple shapes in primitive arrays, that are finally converted to a single mesh.
+     * For every shape the first face and the represented leaf substructure and atom are retained.
+     */
+    private static class MeshAccumulator {
+
+        private float[] points = new float[3 * 1024];
+        private int[] faces = new int[6 * 1024];
+        private int numberOfPoints;
+        private int numberOfFaces;
+
+        private int[] firstFaces = new int[256];
+        private LeafSubstructure<?>[] leafSubstructures = new LeafSubstructure<?>[256];
+        private Atom[] atoms = new Atom[256];
+        private int numberOfShapes;
+
+        private void addShape(LeafSubstructure<?> leafSubstructure, Atom atom) {
+            if (numberOfShapes == firstFaces.length) {
+                firstFaces = Arrays.copyOf(firstFaces, 2 * numberOfShapes);
+                leafSubstructures = Arrays.copyOf(leafSubstructures, 2 * numberOfShapes);
+                atoms = Arrays.copyOf(atoms, 2 * numberOfShapes);
+            }
+            firstFaces[numberOfShapes] = numberOfFaces;
+            leafSubstructures[numberOfShapes] = leafSubstructure;
+            atoms[numberOfShapes] = atom;
+            numberOfShapes++;
+        }
+
+        void addSphere(Vector3D center, double radius, SphereTemplate template, LeafSubstructure<?> leafSubstructure, Atom atom) {
+            addShape(leafSubstructure, atom);
+            int offset = numberOfPoints;
+            float x = (float) center.getX();
+            float y = (float) center.getY();
+            float z = (float) center.getZ();
+            float scale = (float) radius;
+            for (int index = 0; index < template.points.length; index += 3) {
+                addPoint(x + template.points[index] * scale, y + template.points[index + 1] * scale,
+                        z + template.points[index + 2] * scale);
+            }
+            for (int index = 0; index < template.faces.length; index += 3) {
+                addFace(offset + template.faces[index], offset + template.faces[index + 1], offset + template.faces[index + 2]);
+            }
+        }
+
+        void addCylinder(Vector3D source, Vector3D target, double radius, int sides, LeafSubstructure<?> leafSubstructure) {
+            double length = source.distanceTo(target);
+            if (length == 0.0) {
+                return;
+            }
+            addShape(leafSubstructure, null);
+            // orthonormal basis (u, v, w) along the cylinder axis u
+            double ux = (target.getX() - source.getX()) / length;
+            double uy = (target.getY() - source.getY()) / length;
+            double uz = (target.getZ() - source.getZ()) / length;
+            // cross product with the axis least aligned to u
+            double vx, vy, vz;
+            if (Math.abs(ux) < Math.abs(uy) && Math.abs(ux) < Math.abs(uz)) {
+                vx = 0.0;
+                vy = uz;
+                vz = -uy;
+            } else if (Math.abs(uy) < Math.abs(uz)) {
+                vx = -uz;
+                vy = 0.0;
+                vz = ux;
+            } else {
+                vx = uy;
+                vy = -ux;
+                vz = 0.0;
+            }
+            double vLength = Math.sqrt(vx * vx + vy * vy + vz * vz);
+            vx /= vLength;
+            vy /= vLength;
+            vz /= vLength;
+            double wx = uy * vz - uz * vy;
+            double wy = uz * vx - ux * vz;
+            double wz = ux * vy - uy * vx;
+            int offset = numberOfPoints;
+            for (int side = 0; side < sides; side++) {
+                double phi = 2.0 * Math.PI * side / sides;
+                double nx = radius * (Math.cos(phi) * vx + Math.sin(phi) * wx);
+                double ny = radius * (Math.cos(phi) * vy + Math.sin(phi) * wy);
+                double nz = radius * (Math.cos(phi) * vz + Math.sin(phi) * wz);
+                addPoint((float) (source.getX() + nx), (float) (source.getY() + ny), (float) (source.getZ() + nz));
+                addPoint((float) (target.getX() + nx), (float) (target.getY() + ny), (float) (target.getZ() + nz));
+            }
+            // open tube, ends are covered by spheres
+            for (int side = 0; side < sides; side++) {
+                int next = (side + 1) % sides;
+                int sourcePoint = offset + 2 * side;
+                int nextSourcePoint = offset + 2 * next;
+                addFace(sourcePoint, nextSourcePoint, sourcePoint + 1);
+                addFace(nextSourcePoint, nextSourcePoint + 1, sourcePoint + 1);
+            }
+        }
+
+        private void addPoint(float x, float y, float z) {
+            if (3 * (numberOfPoints + 1) > points.length) {
+                points = Arrays.copyOf(points, 2 * points.length);
+            }
+            points[3 * numberOfPoints] = x;
+            points[3 * numberOfPoints + 1] = y;
+            points[3 * numberOfPoints + 2] = z;
+            numberOfPoints++;
+        }
+
+        private void addFace(int first, int second, int third) {
+            if (6 * (numberOfFaces + 1) > faces.length) {
+                faces = Arrays.copyOf(faces, 2 * faces.length);
+            }
+            // point and texture index alternate, all points share the same texture coordinate
+            int index = 6 * numberOfFaces;
+            faces[index] = first;
+            faces[index + 1] = 0;
+            faces[index + 2] = second;
+            faces[index + 3] = 0;
+            faces[index + 4] = third;
+            faces[index + 5] = 0;
+            numberOfFaces++;
+        }
+
+        TriangleMesh toMesh() {
+            TriangleMesh mesh = new TriangleMesh();
+            mesh.getPoints().setAll(points, 0, 3 * numberOfPoints);
+            mesh.getTexCoords().setAll(0.0f, 0.0f);
+            mesh.getFaces().setAll(faces, 0, 6 * numberOfFaces);
+            return mesh;
+        }
+
+        FaceOwners toFaceOwners() {
+            return new FaceOwners(Arrays.copyOf(firstFaces, numberOfShapes), Arrays.copyOf(leafSubstructures, numberOfShapes),
+                    Arrays.copyOf(atoms, numberOfShapes));
+        }
+
+    }
+
+}
@@ -9,22 +9,31 @@ import bio.singa.structure.model.interfaces.LeafSubstructure;
 import bio.singa.structure.model.interfaces.Model;
 import bio.singa.structure.model.oak.*;
 import javafx.application.Application;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.scene.*;
 import javafx.scene.control.*;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.PickResult;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.PhongMaterial;
 import javafx.scene.shape.Box;
 import javafx.scene.shape.Cylinder;
+import javafx.scene.shape.MeshView;
 import javafx.scene.shape.Sphere;
 import javafx.scene.transform.Rotate;
 import javafx.stage.Stage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 
@@ -33,6 +42,8 @@ import java.util.stream.Collectors;
  */
 public class StructureViewer extends Application {
 
+    private static final Logger logger = LoggerFactory.getLogger(StructureViewer.class);
+
     private static final double CAMERA_INITIAL_DISTANCE = -450;
     private static final double CAMERA_INITIAL_X_ANGLE = 70.0;
     private static final double CAMERA_INITIAL_Y_ANGLE = 320.0;
@@ -57,6 +68,17 @@ public class StructureViewer extends Application {
     private final XForm ZRotate = new XForm();
     private OakStructure displayStructure;
     private Map<String, PhongMaterial> chainMaterials;
+    private final ExecutorService meshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "structure-mesh-builder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<LevelOfDetail, List<MeshView>> meshes = new EnumMap<>(LevelOfDetail.class);
+    private StructureMeshBuilder meshBuilder;
+    private int numberOfAtoms;
+    private double extent;
+    private LevelOfDetail levelOfDetail;
+    private final Tooltip tooltip = new Tooltip();
     private XForm world = new XForm();
     private XForm moleculeGroup = new XForm();
     private double mousePosX;
@@ -76,7 +98,8 @@ public class StructureViewer extends Application {
     @Override
     public void start(Stage primaryStage) {
 
-        chainMaterials = new HashMap<>();
+        // materials are also requested while building meshes
+        chainMaterials = new ConcurrentHashMap<>();
 
         treeView = new TreeView<>();
         treeView.getSelectionModel().selectedItemProperty()
@@ -99,9 +122,11 @@ public class StructureViewer extends Application {
             }
             fillTree();
             translateToCentre();
-            buildDisplayedStructure();
         }
         buildCamera();
+        if (displayStructure != null) {
+            buildDisplayedStructure();
+        }
 
         SubScene structureScene = new SubScene(displayGroup, 800, 600, true, SceneAntialiasing.BALANCED);
         handleKeyboard(structureScene);
@@ -139,6 +164,9 @@ public class StructureViewer extends Application {
 
         XYRotate.ry.setAngle(CAMERA_INITIAL_Y_ANGLE);
         XYRotate.rx.setAngle(CAMERA_INITIAL_X_ANGLE);
+
+        // switch level of detail when zooming
+        camera.translateZProperty().addListener((observable, oldValue, newValue) -> updateLevelOfDetail());
     }
 
     private void translateToCentre() {
@@ -154,33 +182,51 @@ public class StructureViewer extends Application {
     }
 
     private void buildDisplayedStructure() {
-        // add leafs
-        displayStructure.getAllLeafSubstructures().stream()
-                .map(OakLeafSubstructure.class::cast)
-                .forEach(this::addLeafSubstructure);
+        // meshes are built for the displayed structure on demand
+        meshes.clear();
+        meshBuilder = new StructureMeshBuilder(displayStructure.getAllLeafSubstructures(), this::getMaterial, this::getMaterial);
+        numberOfAtoms = meshBuilder.getNumberOfAtoms();
+        extent = meshBuilder.getExtent();
+        levelOfDetail = null;
+        updateLevelOfDetail();
         // add the created molecule to the world
         world.getChildren().addAll(moleculeGroup);
-
-    }
-
-    private void addLeafSubstructure(OakLeafSubstructure<?> leafSubstructure) {
-        leafSubstructure.getAllAtoms().forEach(atom -> addAtom(leafSubstructure, atom));
-        leafSubstructure.getBonds().forEach(bond -> addLeafBond(leafSubstructure, bond));
     }
 
-    private void addAtom(LeafSubstructure<?> origin, Atom atom) {
-        Sphere atomShape = new Sphere(1.0);
-        atomShape.setMaterial(getMaterial(origin, atom));
-        atomShape.setTranslateX(atom.getPosition().getX());
-        atomShape.setTranslateY(atom.getPosition().getY());
-        atomShape.setTranslateZ(atom.getPosition().getZ());
-
-        // add tooltip
-        Tooltip tooltip = new Tooltip(atom.getElement().getName() + " (" + (atom.getAtomName()) + ":" +
-                atom.getAtomIdentifier() + ") of " + origin.getFamily().getThreeLetterCode() + ":" + origin.getIdentifier());
-        Tooltip.install(atomShape, tooltip);
-
-        moleculeGroup.getChildren().add(atomShape);
+    private void updateLevelOfDetail() {
+        if (meshBuilder == null) {
+            return;
+        }
+        LevelOfDetail level = LevelOfDetail.select(numberOfAtoms, Math.abs(camera.getTranslateZ()), extent);
+        if (level == levelOfDetail) {
+            return;
+        }
+        levelOfDetail = level;
+        List<MeshView> levelMeshes = meshes.get(level);
+        if (levelMeshes != null) {
+            moleculeGroup.getChildren().setAll(levelMeshes);
+            return;
+        }
+        // build meshes in the background
+        StructureMeshBuilder builder = meshBuilder;
+        Task<List<MeshView>> task = new Task<List<MeshView>>() {
+            @Override
+            protected List<MeshView> call() {
+                return builder.build(level);
+            }
+        };
+        task.setOnSucceeded(event -> {
+            // ignore results for structures that are not displayed any more
+            if (builder != meshBuilder) {
+                return;
+            }
+            meshes.put(level, task.getValue());
+            if (level == levelOfDetail) {
+                moleculeGroup.getChildren().setAll(task.getValue());
+            }
+        });
+        task.setOnFailed(event -> logger.warn("Could not build meshes for level of detail {}.", level, task.getException()));
+        meshExecutor.submit(task);
     }
 
     private void fillTree() {
@@ -234,12 +280,6 @@ public class StructureViewer extends Application {
         displayGroup.getChildren().add(world);
     }
 
-    private void addLeafBond(LeafSubstructure origin, OakBond bond) {
-        Cylinder bondShape = createCylinderConnecting(bond.getSource().getPosition(), bond.getTarget().getPosition());
-        bondShape.setMaterial(getMaterial(origin, bond));
-        moleculeGroup.getChildren().add(bondShape);
-    }
-
     private void addChainBond(Chain origin, OakBond bond) {
         Cylinder bondShape = createCylinderConnecting(bond.getSource().getPosition(), bond.getTarget().getPosition());
         bondShape.setMaterial(getMaterial(origin, bond));
@@ -283,7 +323,7 @@ public class StructureViewer extends Application {
 
     }
 
-    private PhongMaterial getMaterial(LeafSubstructure origin, OakBond edge) {
+    private PhongMaterial getMaterial(LeafSubstructure origin) {
         switch (colorScheme) {
             case BY_ELEMENT:
                 return MaterialProvider.CARBON;
@@ -303,16 +343,11 @@ public class StructureViewer extends Application {
     }
 
     private PhongMaterial getMaterialForChain(String chain) {
-        if (chainMaterials.containsKey(chain)) {
-            return chainMaterials.get(chain);
-        } else {
-            PhongMaterial material = MaterialProvider.crateMaterialFromColor(Color.color(Math.random(), Math.random(), Math.random()));
-            chainMaterials.put(chain, material);
-            return material;
-        }
+        return chainMaterials.computeIfAbsent(chain, key -> MaterialProvider.crateMaterialFromColor(Color.color(Math.random(), Math.random(), Math.random())));
     }
 
     private void buildSpheres(ActionEvent event) {
+        meshBuilder = null;
         world = new XForm();
         moleculeGroup = new XForm();
         for (bio.singa.mathematics.geometry.bodies.Sphere sphere : spheres) {
@@ -351,6 +386,7 @@ public class StructureViewer extends Application {
     }
 
     private void buildCubes(ActionEvent event) {
+        meshBuilder = null;
         world = new XForm();
         moleculeGroup = new XForm();
         for (Cube cube : cubes) {
@@ -372,8 +408,31 @@ public class StructureViewer extends Application {
         displayGroup.getChildren().add(world);
     }
 
+    private void updateTooltip(MouseEvent event) {
+        PickResult pickResult = event.getPickResult();
+        Node node = pickResult.getIntersectedNode();
+        if (node != null && node.getUserData() instanceof StructureMeshBuilder.FaceOwners) {
+            // map the picked face of the combined mesh back to the atom
+            StructureMeshBuilder.FaceOwners faceOwners = (StructureMeshBuilder.FaceOwners) node.getUserData();
+            LeafSubstructure<?> leafSubstructure = faceOwners.getLeafSubstructure(pickResult.getIntersectedFace());
+            if (leafSubstructure != null) {
+                String text = leafSubstructure.getFamily().getThreeLetterCode() + ":" + leafSubstructure.getIdentifier();
+                Atom atom = faceOwners.getAtom(pickResult.getIntersectedFace());
+                if (atom != null) {
+                    text = atom.getElement().getName() + " (" + atom.getAtomName() + ":" + atom.getAtomIdentifier() + ") of " + text;
+                }
+                tooltip.setText(text);
+                tooltip.show(node, event.getScreenX() + 10, event.getScreenY() + 10);
+                return;
+            }
+        }
+        tooltip.hide();
+    }
+
     private void handleMouse(SubScene scene) {
 
+        scene.setOnMouseMoved(this::updateTooltip);
+
         scene.setOnMousePressed(me -> {
             mousePosX = me.getSceneX();
             mousePosY = me.getSceneY();
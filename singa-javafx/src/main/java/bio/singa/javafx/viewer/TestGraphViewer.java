@@ -43,12 +43,12 @@ public class TestGraphViewer {
 
         RISubgraphFinder<GenericNode<String>, DirectedEdge<GenericNode<String>>, Vector2D, Integer, DirectedGraph<GenericNode<String>>> finder
                 = new RISubgraphFinder<>(createPatternGraph(), createTargetGraph(), (a, b) -> a.getContent().equals(b.getContent()), (a, b) -> true);
-        DirectedGraph<GenericNode<GenericNode<String>>> searchSpace = finder.getSearchSpace();
+        DirectedGraph<GenericNode<GenericNode<String>>> parentGraph = finder.getParentGraph();
 
-        GraphDisplayApplication.graph = searchSpace;
+        GraphDisplayApplication.graph = parentGraph;
         GraphRenderer renderer = GraphDisplayApplication.renderer;
         renderer.setRenderAfter(graph -> {
-            for (GenericNode<GenericNode<String>> genericNodeGenericNode : searchSpace.getNodes()) {
+            for (GenericNode<GenericNode<String>> genericNodeGenericNode : parentGraph.getNodes()) {
                 renderer.getGraphicsContext().setFill(Color.SEAGREEN);
                 renderer.fillPoint(genericNodeGenericNode.getPosition(), 25);
                 renderer.getGraphicsContext().setFill(Color.BLACK);
@@ -0,0 +1,172 @@
+package bio.singa.mathematics.algorithms.geometry;
+
+/**
+ * A three dimensional bit set, packed into a single array of longs. Each row along the x axis is stored in consecutive
+ * words, such that spans of bits can be set word by word. Rows of different z slices never share words, thus
+ * different slices can be modified concurrently.
+ *
+ * @author cl
+ */
+public class BitVolume {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+    private static final long WORD_MASK = 0xffffffffffffffffL;
+
+    private final int width;
+    private final int height;
+    private final int depth;
+    private final int wordsPerRow;
+    private final long[] words;
+
+    public BitVolume(int width, int height, int depth) {
+        this.width = width;
+        this.height = height;
+        this.depth = depth;
+        wordsPerRow = (width + 63) >>> ADDRESS_BITS_PER_WORD;
+        words = new long[wordsPerRow * height * depth];
+    }
+
+    private int rowOffset(int y, int z) {
+        return (z * height + y) * wordsPerRow;
+    }
+
+    public void setBit(int x, int y, int z) {
+        words[rowOffset(y, z) + (x >>> ADDRESS_BITS_PER_WORD)] |= 1L << x;
+    }
+
+    public boolean getBit(int x, int y, int z) {
+        return (words[rowOffset(y, z) + (x >>> ADDRESS_BITS_PER_WORD)] & (1L << x)) != 0;
+    }
+
+    /**
+     * Sets all bits of the row at y and z from the specified fromX (inclusive) to the specified toX (exclusive).
+     * Indices outside of the volume are ignored.
+     *
+     * @param y The y index of the row.
+     * @param z The z index of the row.
+     * @param fromX The first x index to set.
+     * @param toX The x index after the last index to set.
+     */
+    public void setSpan(int y, int z, int fromX, int toX) {
+        if (y < 0 || y >= height || z < 0 || z >= depth) {
+            return;
+        }
+        fromX = Math.max(fromX, 0);
+        toX = Math.min(toX, width);
+        if (fromX >= toX) {
+            return;
+        }
+        int offset = rowOffset(y, z);
+        int startWord = fromX >>> ADDRESS_BITS_PER_WORD;
+        int endWord = (toX - 1) >>> ADDRESS_BITS_PER_WORD;
+        // shifts are taken modulo 64
+        long firstWordMask = WORD_MASK << fromX;
+        long lastWordMask = WORD_MASK >>> -toX;
+        if (startWord == endWord) {
+            words[offset + startWord] |= firstWordMask & lastWordMask;
+        } else {
+            words[offset + startWord] |= firstWordMask;
+            for (int word = startWord + 1; word < endWord; word++) {
+                words[offset + word] = WORD_MASK;
+            }
+            words[offset + endWord] |= lastWordMask;
+        }
+    }
+
+    /**
+     * Clears all bits, that are set in the given volume. Both volumes are required to have the same dimensions.
+     *
+     * @param volume The volume.
+     */
+    public void andNot(BitVolume volume) {
+        if (volume.words.length != words.length) {
+            throw new IllegalArgumentException("The dimensions of both volumes have to be identical.");
+        }
+        for (int word = 0; word < words.length; word++) {
+            words[word] &= ~volume.words[word];
+        }
+    }
+
+    /**
+     * Returns the number of set bits.
+     *
+     * @return The number of set bits.
+     */
+    public long cardinality() {
+        long cardinality = 0;
+        for (long word : words) {
+            cardinality += Long.bitCount(word);
+        }
+        return cardinality;
+    }
+
+    /**
+     * Returns the number of set bits in the given z slice.
+     *
+     * @param z The z index of the slice.
+     * @return The number of set bits.
+     */
+    public long cardinality(int z) {
+        long cardinality = 0;
+        int end = rowOffset(0, z + 1);
+        for (int word = rowOffset(0, z); word < end; word++) {
+            cardinality += Long.bitCount(words[word]);
+        }
+        return cardinality;
+    }
+
+    /**
+     * Returns the x index of the next set bit in the row at y and z, starting from the specified x index (inclusive).
+     *
+     * @param fromX The x index to start searching from.
+     * @param y The y index of the row.
+     * @param z The z index of the row.
+     * @return The x index of the next set bit or -1 if no such bit exists.
+     */
+    public int nextSetBit(int fromX, int y, int z) {
+        if (fromX >= width) {
+            return -1;
+        }
+        int offset = rowOffset(y, z);
+        int wordIndex = fromX >>> ADDRESS_BITS_PER_WORD;
+        long word = words[offset + wordIndex] & (WORD_MASK << fromX);
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex == wordsPerRow) {
+                return -1;
+            }
+            word = words[offset + wordIndex];
+        }
+    }
+
+    /**
+     * Returns a copy of the given z slice.
+     *
+     * @param z The z index of the slice.
+     * @return The slice.
+     */
+    public BitPlane getSlice(int z) {
+        BitPlane plane = new BitPlane(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = nextSetBit(0, y, z); x >= 0; x = nextSetBit(x + 1, y, z)) {
+                plane.setBit(x, y);
+            }
+        }
+        return plane;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+}
@@ -6,6 +6,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.IntStream;
 
 /**
  * Predicts the molar volume of a set of spheres.
@@ -14,6 +15,11 @@ import java.util.List;
  *     Ott, Rolf, et al. "A computer method for estimating volumes and surface areas of complex structures consisting of overlapping spheres."
  *     Mathematical and computer modelling 16.12 (1992): 83-98.
  * </pre>
+ * The system is scaled, such that its largest extent spans the given cube side length, and the volume is the number of
+ * voxels, whose center lies within any sphere. Voxels are counted adaptively: In a coarse pass the spheres are
+ * rasterized into {@link BitVolume}s of coarse voxels, that either touch a sphere or lie completely within a sphere.
+ * Only coarse voxels at the boundary (touched, but not completely within a sphere) are refined to the full resolution.
+ * Slices are processed in parallel.
  *
  * @author cl
  */
@@ -22,23 +28,21 @@ public class SphereVolumeEstimaton {
     private static final Logger logger = LoggerFactory.getLogger(SphereVolumeEstimaton.class);
 
     private static final int DEFAULT_CUBE_SIDE_LENGTH = 200;
+    private static final int DEFAULT_REFINEMENT = 4;
+
+    /**
+     * Systems with less spheres are processed sequentially.
+     */
+    private static final int PARALLEL_THRESHOLD = 16;
 
     private List<Sphere> spheres;
-    private BitPlane xyBitPlane;
 
     private List<BitPlane> slices;
 
-    private long volume = 0;
-
-    private double[] xx;
-    private double[] yy;
-    private double[] zz;
-    private double[] rr;
-
-    private int[] scaledX;
-    private int[] scaledY;
-    private int[] scaledZ;
-    private int[] scaledR;
+    private double[] scaledX;
+    private double[] scaledY;
+    private double[] scaledZ;
+    private double[] scaledR;
 
     private double xMin;
     private double yMin;
@@ -49,38 +53,26 @@ public class SphereVolumeEstimaton {
     private double zMax;
 
     private int cubesSideLength = DEFAULT_CUBE_SIDE_LENGTH;
+    private int refinement = DEFAULT_REFINEMENT;
 
     private int numberOfSpheres;
     private double scale;
 
+    private int width;
+    private int height;
+    private int depth;
+
     public SphereVolumeEstimaton() {
-        slices = new ArrayList<>();
     }
 
     private void initialize() {
-        xyBitPlane = new BitPlane(cubesSideLength, cubesSideLength);
         numberOfSpheres = spheres.size();
-        xx = new double[numberOfSpheres];
-        yy = new double[numberOfSpheres];
-        zz = new double[numberOfSpheres];
-        rr = new double[numberOfSpheres];
-        scaledX = new int[numberOfSpheres];
-        scaledY = new int[numberOfSpheres];
-        scaledZ = new int[numberOfSpheres];
-        scaledR = new int[numberOfSpheres];
+        scaledX = new double[numberOfSpheres];
+        scaledY = new double[numberOfSpheres];
+        scaledZ = new double[numberOfSpheres];
+        scaledR = new double[numberOfSpheres];
+        slices = null;
         initializeBoundaries();
-        initializeArrays();
-    }
-
-    private void initializeArrays() {
-        logger.debug("Initializing arrays...");
-        for (int i = 0; i < spheres.size(); i++) {
-            final Sphere sphere = spheres.get(i);
-            xx[i] = sphere.getCenter().getX();
-            yy[i] = sphere.getCenter().getY();
-            zz[i] = sphere.getCenter().getZ();
-            rr[i] = sphere.getRadius();
-        }
     }
 
     private void initializeBoundaries() {
@@ -130,100 +122,180 @@ public class SphereVolumeEstimaton {
     }
 
     public double calculate() {
-        logger.info("Using Abacus algorithm to estimate volume of {} spheres in a {} side length cube.", spheres.size(), cubesSideLength);
+        logger.debug("Using Abacus algorithm to estimate volume of {} spheres in a {} side length cube.", spheres.size(), cubesSideLength);
         initialize();
-        scale();
-        volume = 0;
-        for (int zSlice = 0; zSlice < cubesSideLength; zSlice++) {
-            xyBitPlane = new BitPlane(cubesSideLength, cubesSideLength);
-            createPlane(zSlice);
-            trace();
+        if (numberOfSpheres == 0) {
+            return 0.0;
         }
+        scale();
+        // coarse voxels, that touch any sphere and that are completely within any sphere
+        int coarseWidth = (width + refinement - 1) / refinement;
+        int coarseHeight = (height + refinement - 1) / refinement;
+        int coarseDepth = (depth + refinement - 1) / refinement;
+        BitVolume touched = new BitVolume(coarseWidth, coarseHeight, coarseDepth);
+        BitVolume interior = new BitVolume(coarseWidth, coarseHeight, coarseDepth);
+        // the centers of the fine voxels in a coarse voxel are within this distance to its center
+        double halfDiagonal = 0.5 * (refinement - 1) * Math.sqrt(3.0);
+        slices(coarseDepth).forEach(z -> {
+            rasterize(touched, z, refinement, halfDiagonal);
+            rasterize(interior, z, refinement, -halfDiagonal);
+        });
+        touched.andNot(interior);
+        // refine boundary voxels
+        long boundaryVolume = slices(coarseDepth)
+                .mapToLong(z -> refine(touched, z, halfDiagonal))
+                .sum();
+        long volume = interior.cardinality() * refinement * refinement * refinement + boundaryVolume;
         final double scaledVolume = volume / (scale * scale * scale);
-        logger.info("Predicted volume of {}.", scaledVolume);
+        logger.debug("Predicted volume of {}.", scaledVolume);
         return scaledVolume;
     }
 
+    private IntStream slices(int numberOfSlices) {
+        IntStream slices = IntStream.range(0, numberOfSlices);
+        if (numberOfSpheres >= PARALLEL_THRESHOLD) {
+            return slices.parallel();
+        }
+        return slices;
+    }
+
     private void scale() {
         logger.debug("Scaling system ...");
         // get largest extend
-        final double width = Math.abs(xMax - xMin);
-        final double height = Math.abs(yMax - yMin);
-        final double depth = Math.abs(zMax - zMin);
-        logger.debug("Width (x): {}, Height (y): {}, Depth (z): {}.", width, height, depth);
+        final double systemWidth = Math.abs(xMax - xMin);
+        final double systemHeight = Math.abs(yMax - yMin);
+        final double systemDepth = Math.abs(zMax - zMin);
+        logger.debug("Width (x): {}, Height (y): {}, Depth (z): {}.", systemWidth, systemHeight, systemDepth);
         // scale between 0 and cube side length
-        // get min max coordinates
-        double scaleMin;
-        double scaleMax;
-        if (width > height && width > depth) {
-            scaleMin = xMin;
-            scaleMax = xMax;
-            scale = cubesSideLength / width;
-        } else if (height > width && height > depth) {
-            scaleMin = yMin;
-            scaleMax = yMax;
-            scale = cubesSideLength / height;
-        } else {
-            scaleMin = zMin;
-            scaleMax = zMax;
-            scale = cubesSideLength / depth;
-        }
-
-        logger.info("Using scale between {} and {}, resulting in a final scaling factor of {}.", scaleMin, scaleMax, scale);
+        scale = cubesSideLength / Math.max(systemWidth, Math.max(systemHeight, systemDepth));
+        logger.debug("Using a scaling factor of {}.", scale);
+        width = Math.max(1, (int) Math.ceil(systemWidth * scale));
+        height = Math.max(1, (int) Math.ceil(systemHeight * scale));
+        depth = Math.max(1, (int) Math.ceil(systemDepth * scale));
         for (int i = 0; i < numberOfSpheres; i++) {
-            scaledX[i] = (int) Math.round((xx[i] - xMin) * scale);
-            scaledY[i] = (int) Math.round((yy[i] - yMin) * scale);
-            scaledZ[i] = (int) Math.round((zz[i] - zMin) * scale);
-            scaledR[i] = (int) Math.round(rr[i] * scale);
+            final Sphere sphere = spheres.get(i);
+            scaledX[i] = (sphere.getCenter().getX() - xMin) * scale;
+            scaledY[i] = (sphere.getCenter().getY() - yMin) * scale;
+            scaledZ[i] = (sphere.getCenter().getZ() - zMin) * scale;
+            scaledR[i] = sphere.getRadius() * scale;
         }
-
     }
 
-    public void trace() {
-        for (int x = 0; x < cubesSideLength; x++) {
-            for (int y = 0; y < cubesSideLength; y++) {
-                if (xyBitPlane.getBit(x, y)) {
-                    volume++;
-                    // calc surface here
+    /**
+     * Sets all voxels of the given slice, whose center is within the distance of the radius plus the given offset to
+     * any sphere center. Coordinates are given in fine voxels, each voxel of the volume spanning voxelSize fine voxels.
+     *
+     * @param volume The volume.
+     * @param z The slice.
+     * @param voxelSize The side length of a voxel in fine voxels.
+     * @param radiusOffset The offset added to the radius of every sphere.
+     */
+    private void rasterize(BitVolume volume, int z, int voxelSize, double radiusOffset) {
+        double halfVoxel = 0.5 * voxelSize;
+        double sliceCenter = z * voxelSize + halfVoxel;
+        for (int i = 0; i < numberOfSpheres; i++) {
+            double radius = scaledR[i] + radiusOffset;
+            if (radius <= 0.0) {
+                continue;
+            }
+            double deltaZ = sliceCenter - scaledZ[i];
+            double squaredCircleRadius = radius * radius - deltaZ * deltaZ;
+            if (squaredCircleRadius < 0.0) {
+                continue;
+            }
+            double circleRadius = Math.sqrt(squaredCircleRadius);
+            int fromY = (int) Math.ceil((scaledY[i] - circleRadius - halfVoxel) / voxelSize);
+            int toY = (int) Math.floor((scaledY[i] + circleRadius - halfVoxel) / voxelSize);
+            for (int y = Math.max(fromY, 0); y <= Math.min(toY, volume.getHeight() - 1); y++) {
+                double deltaY = y * voxelSize + halfVoxel - scaledY[i];
+                double squaredHalfWidth = squaredCircleRadius - deltaY * deltaY;
+                if (squaredHalfWidth < 0.0) {
+                    continue;
                 }
+                double halfWidth = Math.sqrt(squaredHalfWidth);
+                int fromX = (int) Math.ceil((scaledX[i] - halfWidth - halfVoxel) / voxelSize);
+                int toX = (int) Math.floor((scaledX[i] + halfWidth - halfVoxel) / voxelSize);
+                volume.setSpan(y, z, fromX, toX + 1);
             }
         }
     }
 
-    private void createPlane(int zSlice) {
-        // zi is the layer in z dimension
+    /**
+     * Counts the fine voxels within any sphere for all boundary voxels in the given coarse slice.
+     *
+     * @param boundary The coarse boundary voxels.
+     * @param z The coarse slice.
+     * @param halfDiagonal The maximal distance of fine voxel centers to the center of their coarse voxel.
+     * @return The number of fine voxels within any sphere.
+     */
+    private long refine(BitVolume boundary, int z, double halfDiagonal) {
+        double halfVoxel = 0.5 * refinement;
+        double sliceCenter = z * refinement + halfVoxel;
+        // spheres touching this slice
+        int[] candidates = new int[numberOfSpheres];
+        int numberOfCandidates = 0;
         for (int i = 0; i < numberOfSpheres; i++) {
-            // squared distance of the current slice to the sphere
-            int sliceDistance = zSlice - scaledZ[i];
-            // radius
-            int sphereRadius = scaledR[i];
-            // calculate squared center distance
-            double squaredCenterDistance = sphereRadius * sphereRadius - sliceDistance * sliceDistance;
-            // check if layer intersects the current sphere ((z - z0)² <= r² = r)
-            if (squaredCenterDistance > 0) {
-                createCircle(i, squaredCenterDistance);
+            if (Math.abs(sliceCenter - scaledZ[i]) < scaledR[i] + halfDiagonal) {
+                candidates[numberOfCandidates++] = i;
+            }
+        }
+        int[] voxelCandidates = new int[numberOfCandidates];
+        long volume = 0;
+        for (int y = 0; y < boundary.getHeight(); y++) {
+            for (int x = boundary.nextSetBit(0, y, z); x >= 0; x = boundary.nextSetBit(x + 1, y, z)) {
+                // spheres touching this voxel
+                double centerX = x * refinement + halfVoxel;
+                double centerY = y * refinement + halfVoxel;
+                int numberOfVoxelCandidates = 0;
+                for (int candidate = 0; candidate < numberOfCandidates; candidate++) {
+                    int i = candidates[candidate];
+                    double deltaX = centerX - scaledX[i];
+                    double deltaY = centerY - scaledY[i];
+                    double deltaZ = sliceCenter - scaledZ[i];
+                    double reach = scaledR[i] + halfDiagonal;
+                    if (deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ < reach * reach) {
+                        voxelCandidates[numberOfVoxelCandidates++] = i;
+                    }
+                }
+                volume += countFineVoxels(x, y, z, voxelCandidates, numberOfVoxelCandidates);
             }
         }
-        slices.add(xyBitPlane);
+        return volume;
     }
 
-    private void createCircle(int i, double squaredCenterDistance) {
-        double centerDistance = Math.sqrt(squaredCenterDistance);
-        for (int x = (int) Math.round(scaledX[i] - centerDistance); x <= scaledX[i]; x++) {
-            double dist = x - scaledX[i];
-            double d = squaredCenterDistance - dist * dist;
-            if (d > 0.0) {
-                int w = (int) Math.sqrt(d);
-                int y1 = scaledY[i] + w;
-                int y2 = scaledY[i] - w;
-                int ix1 = scaledX[i] + scaledX[i] - x;
-                for (int iy = y2; iy < y1; iy++) {
-                    // TODO use setFromTo to do this
-                    xyBitPlane.setBit(x, iy);
-                    xyBitPlane.setBit(ix1, iy);
+    private long countFineVoxels(int coarseX, int coarseY, int coarseZ, int[] candidates, int numberOfCandidates) {
+        long volume = 0;
+        int fromX = coarseX * refinement;
+        int toX = Math.min(fromX + refinement, width);
+        // bits of the row, that are within the coarse voxel
+        long rowMask = -1L >>> (64 - (toX - fromX));
+        int toY = Math.min((coarseY + 1) * refinement, height);
+        int toZ = Math.min((coarseZ + 1) * refinement, depth);
+        for (int z = coarseZ * refinement; z < toZ; z++) {
+            double centerZ = z + 0.5;
+            for (int y = coarseY * refinement; y < toY; y++) {
+                double centerY = y + 0.5;
+                // union of the spans of all spheres in this row
+                long row = 0L;
+                for (int candidate = 0; candidate < numberOfCandidates && row != rowMask; candidate++) {
+                    int i = candidates[candidate];
+                    double deltaY = centerY - scaledY[i];
+                    double deltaZ = centerZ - scaledZ[i];
+                    double squaredHalfWidth = scaledR[i] * scaledR[i] - deltaY * deltaY - deltaZ * deltaZ;
+                    if (squaredHalfWidth < 0.0) {
+                        continue;
+                    }
+                    double halfWidth = Math.sqrt(squaredHalfWidth);
+                    int spanFrom = Math.max((int) Math.ceil(scaledX[i] - halfWidth - 0.5), fromX) - fromX;
+                    int spanTo = Math.min((int) Math.floor(scaledX[i] + halfWidth - 0.5), toX - 1) - fromX;
+                    if (spanFrom <= spanTo) {
+                        row |= (-1L >>> (63 - (spanTo - spanFrom))) << spanFrom;
+                    }
                 }
+                volume += Long.bitCount(row);
             }
         }
+        return volume;
     }
 
     public List<Sphere> getSpheres() {
@@ -242,7 +314,40 @@ public class SphereVolumeEstimaton {
         this.cubesSideLength = cubesSideLength;
     }
 
+    public int getRefinement() {
+        return refinement;
+    }
+
+    /**
+     * Sets the number of fine voxels along each side of the coarse voxels.
+     *
+     * @param refinement The refinement.
+     */
+    public void setRefinement(int refinement) {
+        if (refinement < 1 || refinement > 64) {
+            throw new IllegalArgumentException("The refinement has to be between 1 and 64.");
+        }
+        this.refinement = refinement;
+    }
+
+    /**
+     * Returns the z slices of the system at full resolution. The slices are only rasterized on request after the volume
+     * has been calculated.
+     *
+     * @return The slices.
+     */
     public List<BitPlane> getSlices() {
+        if (slices == null) {
+            slices = new ArrayList<>();
+            if (scaledX == null || numberOfSpheres == 0) {
+                return slices;
+            }
+            BitVolume volume = new BitVolume(width, height, depth);
+            slices(depth).forEach(z -> rasterize(volume, z, 1, 0.0));
+            for (int z = 0; z < depth; z++) {
+                slices.add(volume.getSlice(z));
+            }
+        }
         return slices;
     }
 
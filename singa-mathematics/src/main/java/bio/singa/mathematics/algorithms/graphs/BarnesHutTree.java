@@ -0,0 +1,221 @@
+package bio.singa.mathematics.algorithms.graphs;
+
+import java.util.Arrays;
+
+/**
+ * A quadtree over a set of two dimensional bodies that approximates the accumulated repulsion of distant groups of
+ * bodies by their center of mass (Barnes-Hut approximation). The tree is stored in primitive arrays, that are reused
+ * every time the tree is rebuilt. After building, the tree can be queried concurrently.
+ *
+ * @author cl
+ * @see <a href="https://doi.org/10.1038/324446a0">Barnes and Hut (1986) A hierarchical O(N log N) force-calculation
+ * algorithm</a>
+ */
+class BarnesHutTree {
+
+    /**
+     * Cells beyond this depth are not split any further, bodies at (almost) identical positions are aggregated.
+     */
+    private static final int MAXIMAL_DEPTH = 48;
+
+    private static final int EMPTY = -1;
+    private static final int AGGREGATED = -2;
+    private static final int INTERNAL = -3;
+
+    private double[] centerX;
+    private double[] centerY;
+    private double[] halfSize;
+    private double[] mass;
+    private double[] massX;
+    private double[] massY;
+    private int[] bodies;
+    private int[] children;
+    private int numberOfCells;
+
+    private double[] x;
+    private double[] y;
+
+    BarnesHutTree(int numberOfBodies) {
+        allocate(Math.max(16, 2 * numberOfBodies));
+    }
+
+    private void allocate(int capacity) {
+        centerX = new double[capacity];
+        centerY = new double[capacity];
+        halfSize = new double[capacity];
+        mass = new double[capacity];
+        massX = new double[capacity];
+        massY = new double[capacity];
+        bodies = new int[capacity];
+        children = new int[4 * capacity];
+    }
+
+    private void grow() {
+        int capacity = bodies.length * 2;
+        centerX = Arrays.copyOf(centerX, capacity);
+        centerY = Arrays.copyOf(centerY, capacity);
+        halfSize = Arrays.copyOf(halfSize, capacity);
+        mass = Arrays.copyOf(mass, capacity);
+        massX = Arrays.copyOf(massX, capacity);
+        massY = Arrays.copyOf(massY, capacity);
+        bodies = Arrays.copyOf(bodies, capacity);
+        children = Arrays.copyOf(children, 4 * capacity);
+    }
+
+    /**
+     * Rebuilds the tree for the given positions.
+     *
+     * @param x The x coordinates of the bodies.
+     * @param y The y coordinates of the bodies.
+     * @param numberOfBodies The number of bodies.
+     */
+    void build(double[] x, double[] y, int numberOfBodies) {
+        this.x = x;
+        this.y = y;
+        numberOfCells = 0;
+        if (numberOfBodies == 0) {
+            return;
+        }
+        // determine bounding square
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int body = 0; body < numberOfBodies; body++) {
+            minX = Math.min(minX, x[body]);
+            minY = Math.min(minY, y[body]);
+            maxX = Math.max(maxX, x[body]);
+            maxY = Math.max(maxY, y[body]);
+        }
+        double half = Math.max(maxX - minX, maxY - minY) * 0.5 + 1e-9;
+        createCell((minX + maxX) * 0.5, (minY + maxY) * 0.5, half);
+        for (int body = 0; body < numberOfBodies; body++) {
+            insert(body);
+        }
+    }
+
+    private int createCell(double cellCenterX, double cellCenterY, double cellHalfSize) {
+        if (numberOfCells == bodies.length) {
+            grow();
+        }
+        int cell = numberOfCells++;
+        centerX[cell] = cellCenterX;
+        centerY[cell] = cellCenterY;
+        halfSize[cell] = cellHalfSize;
+        mass[cell] = 0.0;
+        massX[cell] = 0.0;
+        massY[cell] = 0.0;
+        bodies[cell] = EMPTY;
+        children[4 * cell] = EMPTY;
+        children[4 * cell + 1] = EMPTY;
+        children[4 * cell + 2] = EMPTY;
+        children[4 * cell + 3] = EMPTY;
+        return cell;
+    }
+
+    private int childOf(int cell, double bodyX, double bodyY) {
+        int quadrant = (bodyX >= centerX[cell] ? 1 : 0) + (bodyY >= centerY[cell] ? 2 : 0);
+        int child = children[4 * cell + quadrant];
+        if (child == EMPTY) {
+            double quarter = halfSize[cell] * 0.5;
+            double childCenterX = centerX[cell] + ((quadrant & 1) == 1 ? quarter : -quarter);
+            double childCenterY = centerY[cell] + ((quadrant & 2) == 2 ? quarter : -quarter);
+            // the arrays might be replaced during creation
+            child = createCell(childCenterX, childCenterY, quarter);
+            children[4 * cell + quadrant] = child;
+        }
+        return child;
+    }
+
+    private void addMass(int cell, int body) {
+        mass[cell] += 1.0;
+        massX[cell] += x[body];
+        massY[cell] += y[body];
+    }
+
+    private void insert(int body) {
+        int cell = 0;
+        int depth = 0;
+        while (true) {
+            addMass(cell, body);
+            int currentBody = bodies[cell];
+            if (currentBody == EMPTY) {
+                bodies[cell] = body;
+                return;
+            }
+            if (currentBody == AGGREGATED) {
+                return;
+            }
+            if (currentBody >= 0) {
+                if (depth >= MAXIMAL_DEPTH) {
+                    bodies[cell] = AGGREGATED;
+                    return;
+                }
+                // split and move the present body down
+                bodies[cell] = INTERNAL;
+                int child = childOf(cell, x[currentBody], y[currentBody]);
+                addMass(child, currentBody);
+                bodies[child] = currentBody;
+            }
+            cell = childOf(cell, x[body], y[body]);
+            depth++;
+        }
+    }
+
+    /**
+     * Accumulates the repulsion of all other bodies on the given body. The repulsion of two bodies is proportional to
+     * the squared force constant divided by their distance, directed away from each other. Cells, whose size divided by
+     * their distance to the body is smaller than theta, are approximated by their center of mass.
+     *
+     * @param body The body.
+     * @param squaredForceConstant The squared force constant.
+     * @param theta The approximation threshold (0 for exact calculation).
+     * @param displacement The array receiving the displacement (x at index 0 and y at index 1).
+     */
+    void accumulateRepulsion(int body, double squaredForceConstant, double theta, double[] displacement) {
+        displacement[0] = 0.0;
+        displacement[1] = 0.0;
+        if (numberOfCells == 0) {
+            return;
+        }
+        double bodyX = x[body];
+        double bodyY = y[body];
+        double squaredTheta = theta * theta;
+        int[] stack = new int[4 * MAXIMAL_DEPTH + 4];
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        while (stackSize > 0) {
+            int cell = stack[--stackSize];
+            double cellMass = mass[cell];
+            int cellBody = bodies[cell];
+            if (cellMass == 0.0 || cellBody == body) {
+                continue;
+            }
+            double deltaX = bodyX - massX[cell] / cellMass;
+            double deltaY = bodyY - massY[cell] / cellMass;
+            double squaredDistance = deltaX * deltaX + deltaY * deltaY;
+            if (cellBody == INTERNAL) {
+                double size = 2.0 * halfSize[cell];
+                boolean containsBody = Math.abs(bodyX - centerX[cell]) <= halfSize[cell]
+                        && Math.abs(bodyY - centerY[cell]) <= halfSize[cell];
+                if (containsBody || size * size >= squaredTheta * squaredDistance) {
+                    // open cell
+                    for (int quadrant = 0; quadrant < 4; quadrant++) {
+                        int child = children[4 * cell + quadrant];
+                        if (child != EMPTY) {
+                            stack[stackSize++] = child;
+                        }
+                    }
+                    continue;
+                }
+            }
+            // single body, aggregated bodies or distant cell
+            if (squaredDistance > 1e-18) {
+                double factor = cellMass * squaredForceConstant / squaredDistance;
+                displacement[0] += deltaX * factor;
+                displacement[1] += deltaY * factor;
+            }
+        }
+    }
+
+}
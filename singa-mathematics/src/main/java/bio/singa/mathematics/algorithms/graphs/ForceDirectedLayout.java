@@ -0,0 +1,276 @@
+package bio.singa.mathematics.algorithms.graphs;
+
+import bio.singa.mathematics.functions.DecayFunctions;
+import bio.singa.mathematics.graphs.model.Edge;
+import bio.singa.mathematics.graphs.model.Graph;
+import bio.singa.mathematics.graphs.model.Node;
+import bio.singa.mathematics.vectors.Vector2D;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Arranges a graph using force directed placement, without any dependency to a user interface. The algorithm is based
+ * on Fruchterman, Thomas MJ, and Edward M. Reingold. "Graph drawing by force-directed placement." Softw., Pract. Exper.
+ * 21.11 (1991): 1129-1164. Repulsive forces are approximated using a {@link BarnesHutTree}, such that each iteration
+ * requires O(n log n) instead of O(n^2) operations. The accuracy of the approximation is determined by theta, where 0
+ * results in the exact calculation and larger values in a coarser approximation.
+ * <p>
+ * Nodes are referenced by their index and their positions are kept in primitive arrays. For large graphs the
+ * repulsive forces of each iteration are accumulated in parallel.
+ *
+ * @author cl
+ */
+public class ForceDirectedLayout {
+
+    /**
+     * The default approximation threshold of the Barnes-Hut approximation.
+     */
+    public static final double DEFAULT_THETA = 0.8;
+
+    /**
+     * The number of nodes, beginning from which forces are accumulated in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 512;
+
+    private final int numberOfNodes;
+    private final double[] x;
+    private final double[] y;
+    private final double[] displacementX;
+    private final double[] displacementY;
+    private final int[] edgeSources;
+    private final int[] edgeTargets;
+    private final int totalIterations;
+    private final BarnesHutTree tree;
+
+    private double drawingWidth;
+    private double drawingHeight;
+    private double forceConstant;
+    private double theta;
+
+    /**
+     * Creates a new layout.
+     *
+     * @param x The initial x coordinates of the nodes.
+     * @param y The initial y coordinates of the nodes.
+     * @param edgeSources The index of the source node of every edge.
+     * @param edgeTargets The index of the target node of every edge.
+     * @param drawingWidth The width of the drawing area.
+     * @param drawingHeight The height of the drawing area.
+     * @param totalIterations The number of total iterations.
+     */
+    public ForceDirectedLayout(double[] x, double[] y, int[] edgeSources, int[] edgeTargets, double drawingWidth,
+                               double drawingHeight, int totalIterations) {
+        if (x.length != y.length || edgeSources.length != edgeTargets.length) {
+            throw new IllegalArgumentException("The number of coordinates and edge indices have to match.");
+        }
+        numberOfNodes = x.length;
+        this.x = x.clone();
+        this.y = y.clone();
+        this.edgeSources = edgeSources;
+        this.edgeTargets = edgeTargets;
+        this.totalIterations = totalIterations;
+        displacementX = new double[numberOfNodes];
+        displacementY = new double[numberOfNodes];
+        tree = new BarnesHutTree(numberOfNodes);
+        theta = DEFAULT_THETA;
+        setDrawingArea(drawingWidth, drawingHeight);
+    }
+
+    /**
+     * Arranges the given graph completely, using the current positions of the nodes as initial positions.
+     *
+     * @param graph The graph.
+     * @param drawingWidth The width of the drawing area.
+     * @param drawingHeight The height of the drawing area.
+     * @param totalIterations The number of iterations.
+     * @param <NodeType> The type of the nodes.
+     * @param <EdgeType> The type of the edges.
+     * @param <IdentifierType> The type of the identifiers.
+     * @param <GraphType> The type of the graph.
+     */
+    public static <NodeType extends Node<NodeType, Vector2D, IdentifierType>, EdgeType extends Edge<NodeType>,
+            IdentifierType, GraphType extends Graph<NodeType, EdgeType, IdentifierType>> void arrange(GraphType graph,
+                                                                                                  double drawingWidth, double drawingHeight, int totalIterations) {
+        List<NodeType> nodes = new ArrayList<>(graph.getNodes());
+        ForceDirectedLayout layout = of(graph, nodes, drawingWidth, drawingHeight, totalIterations);
+        for (int iteration = 0; iteration < totalIterations; iteration++) {
+            layout.iterate(iteration);
+        }
+        layout.applyPositions(nodes);
+    }
+
+    /**
+     * Creates a new layout for the given graph, nodes are indexed in the order of the given list.
+     *
+     * @param graph The graph.
+     * @param nodes The nodes of the graph.
+     * @param drawingWidth The width of the drawing area.
+     * @param drawingHeight The height of the drawing area.
+     * @param totalIterations The number of total iterations.
+     * @param <NodeType> The type of the nodes.
+     * @param <EdgeType> The type of the edges.
+     * @param <IdentifierType> The type of the identifiers.
+     * @param <GraphType> The type of the graph.
+     * @return The layout.
+     */
+    public static <NodeType extends Node<NodeType, Vector2D, IdentifierType>, EdgeType extends Edge<NodeType>,
+            IdentifierType, GraphType extends Graph<NodeType, EdgeType, IdentifierType>> ForceDirectedLayout of(GraphType graph,
+                                                                                                             List<NodeType> nodes, double drawingWidth, double drawingHeight, int totalIterations) {
+        Map<NodeType, Integer> indices = new HashMap<>();
+        double[] x = new double[nodes.size()];
+        double[] y = new double[nodes.size()];
+        for (int index = 0; index < nodes.size(); index++) {
+            NodeType node = nodes.get(index);
+            indices.put(node, index);
+            x[index] = node.getPosition().getX();
+            y[index] = node.getPosition().getY();
+        }
+        int[] edgeSources = new int[graph.getEdges().size()];
+        int[] edgeTargets = new int[graph.getEdges().size()];
+        int edgeIndex = 0;
+        for (EdgeType edge : graph.getEdges()) {
+            edgeSources[edgeIndex] = indices.get(edge.getSource());
+            edgeTargets[edgeIndex] = indices.get(edge.getTarget());
+            edgeIndex++;
+        }
+        return new ForceDirectedLayout(x, y, edgeSources, edgeTargets, drawingWidth, drawingHeight, totalIterations);
+    }
+
+    /**
+     * Sets the drawing area. The force constant is derived from the area available for every node.
+     *
+     * @param drawingWidth The width of the drawing area.
+     * @param drawingHeight The height of the drawing area.
+     */
+    public void setDrawingArea(double drawingWidth, double drawingHeight) {
+        this.drawingWidth = drawingWidth;
+        this.drawingHeight = drawingHeight;
+        // force constant = sqrt(drawing area / desired area per node)
+        forceConstant = Math.sqrt((drawingHeight * drawingWidth) / (Math.max(numberOfNodes, 1) * 20));
+    }
+
+    public double getTheta() {
+        return theta;
+    }
+
+    /**
+     * Sets the approximation threshold of the Barnes-Hut approximation. Groups of nodes, whose extent divided by their
+     * distance to a node is smaller than theta, are approximated by their center of mass.
+     *
+     * @param theta The approximation threshold (0 for the exact calculation).
+     */
+    public void setTheta(double theta) {
+        if (theta < 0.0) {
+            throw new IllegalArgumentException("The approximation threshold can not be negative.");
+        }
+        this.theta = theta;
+    }
+
+    /**
+     * Returns the current x coordinates of all nodes, indexed as given on creation.
+     *
+     * @return The x coordinates.
+     */
+    public double[] getX() {
+        return x;
+    }
+
+    /**
+     * Returns the current y coordinates of all nodes, indexed as given on creation.
+     *
+     * @return The y coordinates.
+     */
+    public double[] getY() {
+        return y;
+    }
+
+    /**
+     * Sets the position of the node with the given index, e.g. if it has been moved externally.
+     *
+     * @param index The index of the node.
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     */
+    public void setPosition(int index, double x, double y) {
+        this.x[index] = x;
+        this.y[index] = y;
+    }
+
+    /**
+     * Sets the current positions as the positions of the given nodes, that need to be in the order of the indices.
+     *
+     * @param nodes The nodes.
+     * @param <NodeType> The type of the nodes.
+     */
+    public <NodeType extends Node<NodeType, Vector2D, ?>> void applyPositions(List<NodeType> nodes) {
+        for (int index = 0; index < numberOfNodes; index++) {
+            nodes.get(index).setPosition(new Vector2D(x[index], y[index]));
+        }
+    }
+
+    /**
+     * Calculates one iteration of the optimization process.
+     *
+     * @param iteration The current iteration.
+     */
+    public void iterate(int iteration) {
+        // calculate the temperature
+        double temperature = DecayFunctions.linear(iteration, totalIterations, drawingWidth / 40);
+        calculateRepulsion();
+        calculateAttraction();
+        place(temperature);
+    }
+
+    private void calculateRepulsion() {
+        tree.build(x, y, numberOfNodes);
+        double squaredForceConstant = forceConstant * forceConstant;
+        IntStream nodes = IntStream.range(0, numberOfNodes);
+        if (numberOfNodes >= PARALLEL_THRESHOLD) {
+            nodes = nodes.parallel();
+        }
+        nodes.forEach(node -> {
+            double[] displacement = new double[2];
+            tree.accumulateRepulsion(node, squaredForceConstant, theta, displacement);
+            displacementX[node] = displacement[0];
+            displacementY[node] = displacement[1];
+        });
+    }
+
+    private void calculateAttraction() {
+        for (int edge = 0; edge < edgeSources.length; edge++) {
+            int source = edgeSources[edge];
+            int target = edgeTargets[edge];
+            double deltaX = x[source] - x[target];
+            double deltaY = y[source] - y[target];
+            // unit(d) * |d|^2 / k
+            double distance = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+            double factor = distance / forceConstant;
+            // pull target towards source and source towards target
+            displacementX[target] += deltaX * factor;
+            displacementY[target] += deltaY * factor;
+            displacementX[source] -= deltaX * factor;
+            displacementY[source] -= deltaY * factor;
+        }
+    }
+
+    private void place(double temperature) {
+        for (int node = 0; node < numberOfNodes; node++) {
+            double magnitude = Math.sqrt(displacementX[node] * displacementX[node] + displacementY[node] * displacementY[node]);
+            if (magnitude == 0.0) {
+                continue;
+            }
+            // calculate new position v = v.pos + v^ * min(|v|,temp)
+            double step = Math.min(magnitude, temperature) / magnitude;
+            double nextX = x[node] + displacementX[node] * step;
+            double nextY = y[node] + displacementY[node] * step;
+            // nodes leaving the drawing area are placed in its center
+            x[node] = nextX < drawingWidth && nextX > 0.0 ? nextX : drawingWidth / 2;
+            y[node] = nextY < drawingHeight && nextY > 0.0 ? nextY : drawingHeight / 2;
+        }
+    }
+
+}
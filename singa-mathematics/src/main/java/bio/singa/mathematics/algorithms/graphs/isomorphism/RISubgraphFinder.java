@@ -19,6 +19,12 @@ import java.util.function.Function;
  * </pre>
  * This subgraph detection algorithm can be applied on any {@link Graph} and allows the flexible definition of isomorphism
  * conditions via {@link Function}s.
+ * <p>
+ * The node and edge conditions are evaluated once for every pair of pattern and target nodes (or edges) and stored as
+ * compatibility bit masks. Both graphs are indexed and the search is conducted depth first on an explicit stack, such
+ * that the state of the search is kept in a few primitive arrays. Every pattern node has to be mapped to a distinct
+ * target node, such that every edge between two pattern nodes has a compatible counterpart between the corresponding
+ * target nodes. The search can be terminated after a given number of full matches.
  *
  * @author fk
  */
@@ -26,19 +32,68 @@ public class RISubgraphFinder<NodeType extends Node<NodeType, VectorType, Identi
         VectorType extends Vector, IdentifierType, GraphType extends Graph<NodeType, EdgeType, IdentifierType>> {
 
     private static final Logger logger = LoggerFactory.getLogger(RISubgraphFinder.class);
-    private final List<NodeType> mu;
-    private final List<NodeType> ptmu;
+
+    private static final int NO_EDGE = -1;
 
     private final GraphType patternGraph;
     private final GraphType targetGraph;
     private final BiFunction<NodeType, NodeType, Boolean> nodeConditionExtractor;
     private final BiFunction<EdgeType, EdgeType, Boolean> edgeConditionExtractor;
     private final int minimalPartialMatchSize;
-    private final List<List<NodeType>> fullMatches;
+    private final int maximalNumberOfFullMatches;
+
+    private final List<NodeType> patternNodes;
+    private final List<NodeType> targetNodes;
+    private final List<EdgeType> patternEdges;
+    private final List<EdgeType> targetEdges;
+
+    /**
+     * The pattern nodes (as indices) in the order they are matched (mu).
+     */
+    private int[] mu;
+    /**
+     * The position of the parent of each pattern node in the matching order (ptmu), -1 if there is none.
+     */
+    private int[] ptmu;
+    /**
+     * True if the parent of each pattern node is the source of the edge to the pattern node.
+     */
+    private boolean[] parentIsSource;
+    /**
+     * The positions of previously matched pattern nodes, that are adjacent to each pattern node.
+     */
+    private int[][] constraintPositions;
+    /**
+     * The pattern edges from each pattern node to its previously matched neighbours (-1 if there is none).
+     */
+    private int[][] constraintOutgoingEdges;
+    /**
+     * The pattern edges from previously matched neighbours to each pattern node (-1 if there is none).
+     */
+    private int[][] constraintIncomingEdges;
+    private int[] patternOutDegrees;
+    private int[] patternInDegrees;
+
+    private int[][] targetOutNeighbours;
+    private int[][] targetOutEdges;
+    private int[][] targetInNeighbours;
+    private int[][] targetInEdges;
+    private int[] allTargetNodes;
+
+    /**
+     * The target nodes that are compatible to each pattern node (by position in the matching order).
+     */
+    private long[][] nodeCompatibility;
+    /**
+     * The target edges that are compatible to each pattern edge.
+     */
+    private long[][] edgeCompatibility;
+
+    private final List<int[]> fullMatchIndices;
     private final Map<Integer, List<List<NodeType>>> partialMatches;
-    private DirectedGraph<GenericNode<NodeType>> parentGraph;
-    private DirectedGraph<GenericNode<NodeType>> searchSpace;
+    private List<List<NodeType>> fullMatches;
     private List<List<Pair<NodeType>>> fullMatchPairs;
+    private DirectedGraph<GenericNode<NodeType>> parentGraph;
 
     public RISubgraphFinder(GraphType patternGraph, GraphType targetGraph, BiFunction<NodeType, NodeType, Boolean> nodeConditionExtractor,
                             BiFunction<EdgeType, EdgeType, Boolean> edgeConditionExtractor) {
@@ -47,353 +102,439 @@ public class RISubgraphFinder<NodeType extends Node<NodeType, VectorType, Identi
 
     public RISubgraphFinder(GraphType patternGraph, GraphType targetGraph, BiFunction<NodeType, NodeType, Boolean> nodeConditionExtractor,
                             BiFunction<EdgeType, EdgeType, Boolean> edgeConditionExtractor, int minimalPartialMatchSize) {
+        this(patternGraph, targetGraph, nodeConditionExtractor, edgeConditionExtractor, minimalPartialMatchSize, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new subgraph finder and searches the target graph for subgraphs matching the pattern graph.
+     *
+     * @param patternGraph The pattern graph.
+     * @param targetGraph The target graph.
+     * @param nodeConditionExtractor The condition, that a pattern node and a target node have to fulfill to be matched.
+     * @param edgeConditionExtractor The condition, that a pattern edge and a target edge have to fulfill to be matched.
+     * @param minimalPartialMatchSize The minimal size of partial matches, that are retained.
+     * @param maximalNumberOfFullMatches The number of full matches, after which the search is terminated (e.g. 1 to
+     * only determine whether the pattern is contained in the target).
+     */
+    public RISubgraphFinder(GraphType patternGraph, GraphType targetGraph, BiFunction<NodeType, NodeType, Boolean> nodeConditionExtractor,
+                            BiFunction<EdgeType, EdgeType, Boolean> edgeConditionExtractor, int minimalPartialMatchSize, int maximalNumberOfFullMatches) {
+        if (patternGraph.getNodes().isEmpty()) {
+            throw new IllegalArgumentException("The pattern graph does not contain any nodes.");
+        }
+        if (maximalNumberOfFullMatches < 1) {
+            throw new IllegalArgumentException("The maximal number of full matches has to be positive.");
+        }
         this.patternGraph = patternGraph;
         this.targetGraph = targetGraph;
         this.nodeConditionExtractor = nodeConditionExtractor;
         this.edgeConditionExtractor = edgeConditionExtractor;
         this.minimalPartialMatchSize = minimalPartialMatchSize;
-        mu = new ArrayList<>();
-        ptmu = new ArrayList<>();
-        fullMatches = new ArrayList<>();
+        this.maximalNumberOfFullMatches = maximalNumberOfFullMatches;
+        patternNodes = new ArrayList<>(patternGraph.getNodes());
+        targetNodes = new ArrayList<>(targetGraph.getNodes());
+        patternEdges = new ArrayList<>(patternGraph.getEdges());
+        targetEdges = new ArrayList<>(targetGraph.getEdges());
+        fullMatchIndices = new ArrayList<>();
         partialMatches = new TreeMap<>();
         calculateMu();
-        buildParentGraph();
+        indexTargetGraph();
+        calculateCompatibilities();
         matchTargetGraph();
-        logger.info("found {} full and {} partial (minimum size: {}) matches in target graph", fullMatches.size(), partialMatches.size(), minimalPartialMatchSize);
-        if (!fullMatches.isEmpty()) {
-            logger.info("full matches are: {}", fullMatches);
-        }
+        logger.debug("found {} full and {} partial (minimum size: {}) matches in target graph", fullMatchIndices.size(), partialMatches.size(), minimalPartialMatchSize);
     }
 
     /**
      * Calculates the ordering of pattern nodes according to the GreatestConstraintFirst algorithm.
      */
     private void calculateMu() {
-        // determine node with highest degree and use as starting node
-        List<NodeType> v = new ArrayList<>(patternGraph.getNodes());
-        if (v.isEmpty()) {
-            throw new IllegalArgumentException("The pattern graph does not contain any nodes.");
+        int numberOfNodes = patternNodes.size();
+        Map<NodeType, Integer> indices = indexNodes(patternNodes);
+        int[][] neighbours = new int[numberOfNodes][];
+        for (int node = 0; node < numberOfNodes; node++) {
+            neighbours[node] = patternNodes.get(node).getNeighbours().stream()
+                    .map(indices::get)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .mapToInt(Integer::intValue)
+                    .toArray();
         }
-        v.sort(Comparator.comparing(Node::getDegree));
-        NodeType u0 = v.get(v.size() - 1);
 
-        logger.info("highest degree node is {} with degree {}", u0, u0.getDegree());
-
-        // initially remove highest degree node
-        v.remove(u0);
+        // determine node with highest degree and use as starting node
+        List<Integer> v = new ArrayList<>();
+        for (int node = 0; node < numberOfNodes; node++) {
+            v.add(node);
+        }
+        v.sort(Comparator.comparingInt(node -> patternNodes.get(node).getDegree()));
+        int u0 = v.remove(v.size() - 1);
+        logger.debug("highest degree node is {} with degree {}", patternNodes.get(u0), patternNodes.get(u0).getDegree());
 
         // add highest degree node as start
-        mu.add(u0);
-        ptmu.add(null);
-
-        Set<NodeType> neighboursOfMu = new HashSet<>();
-
-        NodeType um = u0;
-        while (!v.isEmpty()) {
-
+        mu = new int[numberOfNodes];
+        ptmu = new int[numberOfNodes];
+        boolean[] inMu = new boolean[numberOfNodes];
+        boolean[] neighboursOfMu = new boolean[numberOfNodes];
+        mu[0] = u0;
+        ptmu[0] = -1;
+        inMu[u0] = true;
+
+        int um = u0;
+        for (int position = 1; position < numberOfNodes; position++) {
             int maxVuvis = Integer.MIN_VALUE;
             int maxVmneig = Integer.MIN_VALUE;
             int maxVmunv = Integer.MIN_VALUE;
 
             // neighbors of nodes in mu
-            neighboursOfMu.addAll(um.getNeighbours());
-
-            for (NodeType ui : v) {
-                int vuvis = calculateVuvis(ui);
-                int vmneig = calculateVmneig(ui, neighboursOfMu);
-                int vmunv = calculateVmunv(ui, neighboursOfMu);
+            for (int neighbour : neighbours[um]) {
+                neighboursOfMu[neighbour] = true;
+            }
 
-                if (vuvis > maxVuvis) {
-                    um = ui;
-                    maxVuvis = vuvis;
-                    maxVmneig = vmneig;
-                    maxVmunv = vmunv;
-                    logger.debug("changed winner is: {}", um);
-                } else if (vuvis == maxVuvis && vmneig > maxVmneig) {
-                    um = ui;
-                    maxVuvis = vuvis;
-                    maxVmneig = vmneig;
-                    maxVmunv = vmunv;
-                    logger.debug("changed winner is: {}", um);
-                } else if (vuvis == maxVuvis && vmneig == maxVmneig && vmunv > maxVmunv) {
+            for (int ui : v) {
+                int vuvis = 0;
+                int vmneig = 0;
+                int vmunv = 0;
+                for (int neighbour : neighbours[ui]) {
+                    if (inMu[neighbour]) {
+                        vuvis++;
+                    } else if (neighboursOfMu[neighbour]) {
+                        vmneig++;
+                    } else {
+                        vmunv++;
+                    }
+                }
+                if (vuvis > maxVuvis || (vuvis == maxVuvis && (vmneig > maxVmneig || (vmneig == maxVmneig && vmunv > maxVmunv)))) {
                     um = ui;
                     maxVuvis = vuvis;
                     maxVmneig = vmneig;
                     maxVmunv = vmunv;
-                    logger.debug("changed winner is: {}", um);
                 }
-                logger.debug("{} has score: {}-{}-{}", ui, vuvis, vmneig, vmunv);
             }
 
-            mu.add(um);
+            mu[position] = um;
+            inMu[um] = true;
+            neighboursOfMu[um] = false;
+            v.remove(Integer.valueOf(um));
+        }
+        logger.debug("mu is {}", Arrays.toString(mu));
 
-            for (NodeType currentMu : mu) {
-                if (patternGraph.getEdgeBetween(um, currentMu).isPresent()) {
-                    ptmu.add(currentMu);
-                    break;
+        // collect the edges between each pattern node and the pattern nodes matched before
+        int[] positions = new int[numberOfNodes];
+        for (int position = 0; position < numberOfNodes; position++) {
+            positions[mu[position]] = position;
+        }
+        int[][] outgoing = new int[numberOfNodes][numberOfNodes];
+        int[][] incoming = new int[numberOfNodes][numberOfNodes];
+        for (int position = 0; position < numberOfNodes; position++) {
+            Arrays.fill(outgoing[position], NO_EDGE);
+            Arrays.fill(incoming[position], NO_EDGE);
+        }
+        patternOutDegrees = new int[numberOfNodes];
+        patternInDegrees = new int[numberOfNodes];
+        for (Map.Entry<Long, Integer> entry : indexEdges(patternNodes, indices, patternEdges).entrySet()) {
+            int source = positions[(int) (entry.getKey() >>> 32)];
+            int target = positions[(int) (long) entry.getKey()];
+            patternOutDegrees[source]++;
+            patternInDegrees[target]++;
+            if (source > target) {
+                outgoing[source][target] = entry.getValue();
+            } else if (target > source) {
+                incoming[target][source] = entry.getValue();
+            }
+        }
+        constraintPositions = new int[numberOfNodes][];
+        constraintOutgoingEdges = new int[numberOfNodes][];
+        constraintIncomingEdges = new int[numberOfNodes][];
+        parentIsSource = new boolean[numberOfNodes];
+        for (int position = 0; position < numberOfNodes; position++) {
+            int numberOfConstraints = 0;
+            for (int previous = 0; previous < position; previous++) {
+                if (outgoing[position][previous] != NO_EDGE || incoming[position][previous] != NO_EDGE) {
+                    numberOfConstraints++;
+                }
+            }
+            constraintPositions[position] = new int[numberOfConstraints];
+            constraintOutgoingEdges[position] = new int[numberOfConstraints];
+            constraintIncomingEdges[position] = new int[numberOfConstraints];
+            int constraint = 0;
+            for (int previous = 0; previous < position; previous++) {
+                if (outgoing[position][previous] != NO_EDGE || incoming[position][previous] != NO_EDGE) {
+                    constraintPositions[position][constraint] = previous;
+                    constraintOutgoingEdges[position][constraint] = outgoing[position][previous];
+                    // undirected edges are only checked once
+                    constraintIncomingEdges[position][constraint] = incoming[position][previous] != outgoing[position][previous] ?
+                            incoming[position][previous] : NO_EDGE;
+                    constraint++;
                 }
             }
-            logger.debug("mu is {}", mu);
-            logger.debug("ptmu is {}", ptmu);
-            neighboursOfMu.remove(um);
-            v.remove(um);
+            // the parent is the first previously matched neighbour
+            if (position > 0) {
+                ptmu[position] = numberOfConstraints > 0 ? constraintPositions[position][0] : -1;
+                parentIsSource[position] = numberOfConstraints > 0 && incoming[position][ptmu[position]] != NO_EDGE;
+            }
         }
+        logger.debug("ptmu is {}", Arrays.toString(ptmu));
     }
 
-    private int calculateVuvis(NodeType ui) {
-        Set<NodeType> neighboursOfUi = new HashSet<>(ui.getNeighbours());
-        neighboursOfUi.retainAll(mu);
-        return neighboursOfUi.size();
-    }
-
-    private int calculateVmunv(NodeType ui, Set<NodeType> neighboursOfMu) {
-        Set<NodeType> neighboursOfUi = new HashSet<>(ui.getNeighbours());
-        neighboursOfUi.removeAll(mu);
-        neighboursOfUi.removeAll(neighboursOfMu);
-        return neighboursOfUi.size();
+    /**
+     * Indexes the adjacency of the target graph.
+     */
+    private void indexTargetGraph() {
+        int numberOfNodes = targetNodes.size();
+        Map<Long, Integer> edges = indexEdges(targetNodes, indexNodes(targetNodes), targetEdges);
+        int[] outDegrees = new int[numberOfNodes];
+        int[] inDegrees = new int[numberOfNodes];
+        for (long pair : edges.keySet()) {
+            outDegrees[(int) (pair >>> 32)]++;
+            inDegrees[(int) pair]++;
+        }
+        // neighbours and edges are encoded in a single long to sort them by neighbour
+        long[][] outgoing = new long[numberOfNodes][];
+        long[][] incoming = new long[numberOfNodes][];
+        for (int node = 0; node < numberOfNodes; node++) {
+            outgoing[node] = new long[outDegrees[node]];
+            incoming[node] = new long[inDegrees[node]];
+        }
+        Arrays.fill(outDegrees, 0);
+        Arrays.fill(inDegrees, 0);
+        for (Map.Entry<Long, Integer> entry : edges.entrySet()) {
+            int source = (int) (entry.getKey() >>> 32);
+            int target = (int) (long) entry.getKey();
+            outgoing[source][outDegrees[source]++] = ((long) target << 32) | entry.getValue();
+            incoming[target][inDegrees[target]++] = ((long) source << 32) | entry.getValue();
+        }
+        targetOutNeighbours = new int[numberOfNodes][];
+        targetOutEdges = new int[numberOfNodes][];
+        targetInNeighbours = new int[numberOfNodes][];
+        targetInEdges = new int[numberOfNodes][];
+        allTargetNodes = new int[numberOfNodes];
+        for (int node = 0; node < numberOfNodes; node++) {
+            allTargetNodes[node] = node;
+            Arrays.sort(outgoing[node]);
+            Arrays.sort(incoming[node]);
+            targetOutNeighbours[node] = new int[outgoing[node].length];
+            targetOutEdges[node] = new int[outgoing[node].length];
+            for (int i = 0; i < outgoing[node].length; i++) {
+                targetOutNeighbours[node][i] = (int) (outgoing[node][i] >>> 32);
+                targetOutEdges[node][i] = (int) outgoing[node][i];
+            }
+            targetInNeighbours[node] = new int[incoming[node].length];
+            targetInEdges[node] = new int[incoming[node].length];
+            for (int i = 0; i < incoming[node].length; i++) {
+                targetInNeighbours[node][i] = (int) (incoming[node][i] >>> 32);
+                targetInEdges[node][i] = (int) incoming[node][i];
+            }
+        }
     }
 
-    private int calculateVmneig(NodeType ui, Set<NodeType> neighboursOfMu) {
-        Set<NodeType> neighboursOfUi = new HashSet<>(ui.getNeighbours());
-        neighboursOfUi.removeAll(mu);
-        neighboursOfUi.retainAll(neighboursOfMu);
-        return neighboursOfUi.size();
+    private static <NodeType> Map<NodeType, Integer> indexNodes(List<NodeType> nodes) {
+        Map<NodeType, Integer> indices = new HashMap<>();
+        for (int index = 0; index < nodes.size(); index++) {
+            indices.put(nodes.get(index), index);
+        }
+        return indices;
     }
 
     /**
-     * Builds the parent graph of the pattern graph.
+     * Maps all ordered pairs of adjacent nodes (source index in the upper and target index in the lower 32 bits) to
+     * the index of the edge between them. Edges can be traversed from target to source, if the source is a neighbour
+     * of the target (as in undirected graphs) and there is no distinct edge in this direction.
      */
-    private void buildParentGraph() {
-        parentGraph = new DirectedGraph<>();
-        for (NodeType patternNode : mu) {
-            parentGraph.addNode(new GenericNode<>(parentGraph.nextNodeIdentifier(), patternNode));
+    private static <NodeType extends Node<NodeType, ?, ?>, EdgeType extends Edge<NodeType>> Map<Long, Integer> indexEdges(List<NodeType> nodes,
+                                                                                                                      Map<NodeType, Integer> indices, List<EdgeType> edges) {
+        Map<Long, Integer> pairs = new HashMap<>();
+        for (int edge = 0; edge < edges.size(); edge++) {
+            Integer source = indices.get(edges.get(edge).getSource());
+            Integer target = indices.get(edges.get(edge).getTarget());
+            if (source != null && target != null && !source.equals(target)) {
+                pairs.put(((long) source << 32) | target, edge);
+            }
         }
-        for (int i = 0; i < ptmu.size(); i++) {
-            NodeType currentSource = ptmu.get(i);
-            Optional<GenericNode<NodeType>> source = parentGraph.getNodes().stream()
-                    .filter(node -> node.getContent().equals(currentSource))
-                    .findFirst();
-            NodeType currentTarget = mu.get(i);
-            Optional<GenericNode<NodeType>> target = parentGraph.getNodes().stream()
-                    .filter(node -> node.getContent().equals(currentTarget))
-                    .findFirst();
-            if (source.isPresent() && target.isPresent()) {
-                parentGraph.addEdgeBetween(target.get(), source.get());
+        for (int edge = 0; edge < edges.size(); edge++) {
+            Integer source = indices.get(edges.get(edge).getSource());
+            Integer target = indices.get(edges.get(edge).getTarget());
+            if (source != null && target != null && !source.equals(target)) {
+                long reversePair = ((long) target << 32) | source;
+                if (!pairs.containsKey(reversePair) && nodes.get(target).getNeighbours().contains(nodes.get(source))) {
+                    pairs.put(reversePair, edge);
+                }
             }
         }
+        return pairs;
     }
 
     /**
-     * Recursively grows the search space and prunes away unfeasible branches in the search tree.
+     * Evaluates the node and edge conditions for all pairs of pattern and target nodes (and edges).
      */
-    private void matchTargetGraph() {
-        searchSpace = new DirectedGraph<>();
-        GenericNode<NodeType> root = new GenericNode<>(searchSpace.nextNodeIdentifier(), null);
-        searchSpace.addNode(root);
-        for (NodeType x : targetGraph.getNodes()) {
-            growSearchSpace(mu.size() - 1, searchSpace, root, x);
+    private void calculateCompatibilities() {
+        int nodeWords = (targetNodes.size() + 63) >>> 6;
+        nodeCompatibility = new long[mu.length][nodeWords];
+        for (int position = 0; position < mu.length; position++) {
+            NodeType patternNode = patternNodes.get(mu[position]);
+            for (int targetNode = 0; targetNode < targetNodes.size(); targetNode++) {
+                if (nodeConditionExtractor.apply(patternNode, targetNodes.get(targetNode))) {
+                    nodeCompatibility[position][targetNode >>> 6] |= 1L << targetNode;
+                }
+            }
         }
-        logger.info("constructed search space graph is: {}", searchSpace);
+        int edgeWords = (targetEdges.size() + 63) >>> 6;
+        edgeCompatibility = new long[patternEdges.size()][edgeWords];
+        for (int patternEdge = 0; patternEdge < patternEdges.size(); patternEdge++) {
+            EdgeType edge = patternEdges.get(patternEdge);
+            for (int targetEdge = 0; targetEdge < targetEdges.size(); targetEdge++) {
+                if (edgeConditionExtractor.apply(edge, targetEdges.get(targetEdge))) {
+                    edgeCompatibility[patternEdge][targetEdge >>> 6] |= 1L << targetEdge;
+                }
+            }
+        }
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
     }
 
     /**
-     * Recursively called method that grows the search space.
-     *
-     * @param remainingPatternNodes The number of remaining pattern nodes to process.
-     * @param targetSpace The current search space.
-     * @param targetSpaceParent The parent of the search space.
-     * @param candidateTargetNode The next node that should be considered for insertion in the search space.
+     * Searches the target graph depth first, the candidates of a pattern node are the neighbours of the target node
+     * matched to its parent in the matching order.
      */
-    private void growSearchSpace(int remainingPatternNodes, DirectedGraph<GenericNode<NodeType>> targetSpace, GenericNode<NodeType> targetSpaceParent, NodeType candidateTargetNode) {
-        // prepare path to the current node in the target space
-        List<NodeType> targetSpacePath = new ArrayList<>();
-        // add previously added node (content because the actual node is encapsulated in another node in the target space)
-        targetSpacePath.add(targetSpaceParent.getContent());
-        // the previously added node is the starting point for the parent traversal
-        GenericNode<NodeType> currentNode = targetSpaceParent;
-        // while the parent is not the root node (node with content null)
-        while (currentNode.getContent() != null) {
-            // since target space is a directed graph with edges pointing to parents, this returns the parent node
-            List<GenericNode<NodeType>> neighbours = currentNode.getNeighbours();
-            // since every node has one and only one parent
-            if (neighbours.size() > 1) {
-                // this must not happen
-                throw new IllegalStateException("Search space is not well-formed.");
+    private void matchTargetGraph() {
+        int patternSize = mu.length;
+        int[] matches = new int[patternSize];
+        int[][] candidates = new int[patternSize][];
+        int[] cursors = new int[patternSize];
+        boolean[] used = new boolean[targetNodes.size()];
+        candidates[0] = allTargetNodes;
+        int position = 0;
+        while (position >= 0) {
+            int[] currentCandidates = candidates[position];
+            int candidate = -1;
+            while (cursors[position] < currentCandidates.length) {
+                int next = currentCandidates[cursors[position]++];
+                if (isFeasible(position, next, matches, used)) {
+                    candidate = next;
+                    break;
+                }
             }
-            // update current node
-            currentNode = neighbours.get(0);
-            // add the current node (parent of previous node) to the path of parents
-            targetSpacePath.add(currentNode.getContent());
-        }
-
-        // first (1a) condition:
-        // path to the current node does not already contain the node that is to be matched
-        if (!targetSpacePath.contains(candidateTargetNode)) {
-            // the index of the pattern node that is to be matched
-            int currentPatternDepth = mu.size() - remainingPatternNodes - 1;
-            // the pattern parent node of the pattern node that is to be matched
-            NodeType ptui = ptmu.get(currentPatternDepth);
-            // a flag that determines if the current iteration can have parents
-            boolean noParent = true;
-            // if there is a parent
-            NodeType mptui = null;
-            if (ptui != null) {
-                // get the index of the pattern parent in the pattern
-                int ptuiIndex = mu.indexOf(ptui);
-                // get the node of the target space that was matched with the pattern parent
-                // the path is build in reverse, therefor the index is calculated
-                mptui = targetSpacePath.get(targetSpacePath.size() - ptuiIndex - 2);
-                // lift flag, indicating that parents need to be considered in the current iteration
-                noParent = false;
+            if (candidate < 0) {
+                // all candidates have been considered, backtrack
+                position--;
+                if (position >= 0) {
+                    used[matches[position]] = false;
+                }
+                continue;
             }
-
-            NodeType patternNode = mu.get(currentPatternDepth);
-            logger.debug("pairing pattern node {} and target node {} in depth {}", patternNode, candidateTargetNode, currentPatternDepth);
-            // second condition (1b):
-            // the target node matched to the pattern parent node of the current pattern node is a neighbour of the
-            // current target node
-            if (noParent || mptui.getNeighbours().contains(candidateTargetNode)) {
-                // third condition (2)
-                // the labels of the node in the pattern graph is equal to the label of the node in the target graph
-                if (nodeConditionExtractor.apply(patternNode, candidateTargetNode)) {
-                    // fourth condition (3):
-                    // the number of edges of the candidate target node is larger than or equal to the number of edges
-                    // connected to supposed pattern node
-                    if ((candidateTargetNode.getNeighbours().size() >= patternNode.getNeighbours().size()) &&
-                            // magic check authored by sb
-                            checkConsumedNeighbors(candidateTargetNode, targetSpacePath, currentPatternDepth)) {
-
-                        // only evaluate condition (4) if ui has parent
-                        boolean parentToCandidateEdgeMatches = false;
-                        boolean candidateToParentEdgeMatches = false;
-                        if (!noParent) {
-
-
-                            Optional<EdgeType> targetSpaceEdgeParentToCandidate = targetGraph.getEdgeBetween(mptui, candidateTargetNode);
-                            Optional<EdgeType> targetSpaceEdgeCandidateToParent = targetGraph.getEdgeBetween(candidateTargetNode, mptui);
-
-                            Optional<EdgeType> patternEdgeParentToCandidate = patternGraph.getEdgeBetween(ptui, patternNode);
-                            Optional<EdgeType> patternEdgeCandidateToParent = patternGraph.getEdgeBetween(patternNode, ptui);
-
-                            parentToCandidateEdgeMatches = checkEdgeCondition(targetSpaceEdgeParentToCandidate, patternEdgeParentToCandidate);
-
-                            candidateToParentEdgeMatches = checkEdgeCondition(targetSpaceEdgeCandidateToParent, patternEdgeCandidateToParent);
-                        }
-
-                        if (noParent || (parentToCandidateEdgeMatches && candidateToParentEdgeMatches)) {
-                            // all conditions passed
-                            logger.debug("all conditions passed");
-                            // create node for target space
-                            GenericNode<NodeType> validTargetSpaceNode = new GenericNode<>(targetSpace.nextNodeIdentifier(), candidateTargetNode);
-                            // add node to target space
-                            targetSpace.addNode(validTargetSpaceNode);
-                            // connect the new node to its parent in the search space
-                            targetSpace.addEdgeBetween(targetSpace.nextEdgeIdentifier(), validTargetSpaceNode, targetSpaceParent);
-                            // if there are nodes left in the pattern graph, that are unpaired
-                            if (remainingPatternNodes > 0) {
-                                // consider partial matches if depth is sufficient
-                                if (currentPatternDepth >= minimalPartialMatchSize - 1) {
-                                    List<NodeType> partialMatch = new ArrayList<>(targetSpacePath);
-                                    partialMatch.remove(partialMatch.size() - 1);
-                                    partialMatch.add(0, validTargetSpaceNode.getContent());
-                                    List<List<NodeType>> currentPartialMatches;
-                                    if (partialMatches.containsKey(currentPatternDepth)) {
-                                        currentPartialMatches = partialMatches.get(currentPatternDepth);
-                                        currentPartialMatches.add(partialMatch);
-                                    } else {
-                                        currentPartialMatches = new ArrayList<>();
-                                        currentPartialMatches.add(partialMatch);
-                                        partialMatches.put(currentPatternDepth + 1, currentPartialMatches);
-                                    }
-                                }
-
-                                // for all nodes of the target graph
-                                for (NodeType targetNode : targetGraph.getNodes()) {
-                                    // try to enlarge search space
-                                    growSearchSpace(remainingPatternNodes - 1, targetSpace, validTargetSpaceNode, targetNode);
-                                }
-                            } else {
-                                targetSpacePath.remove(targetSpacePath.size() - 1);
-                                targetSpacePath.add(0, validTargetSpaceNode.getContent());
-
-//                                NodeType lastTargetNode = targetSpacePath.get(targetSpacePath.size() - 1);
-//
-//                                Optional<EdgeType> targetFirstToLast = targetGraph.getEdgeBetween(lastTargetNode, validTargetSpaceNode.getContent());
-//                                Optional<EdgeType> targetLastToFirst = targetGraph.getEdgeBetween(validTargetSpaceNode.getContent(), lastTargetNode);
-//
-//                                Optional<EdgeType> patternFirstToLast = patternGraph.getEdgeBetween(mu.get(0), patternNode);
-//                                Optional<EdgeType> patternLastToFirst = patternGraph.getEdgeBetween(patternNode, mu.get(0));
-//
-//                                boolean firstToLastMatches = checkEdgeCondition(targetFirstToLast, patternFirstToLast);
-//                                boolean lastToFirstMatches = checkEdgeCondition(targetLastToFirst, patternLastToFirst);
-//
-//                                if (firstToLastMatches && lastToFirstMatches) {
-                                fullMatches.add(targetSpacePath);
-//                                }else{
-//                                    logger.info("(5) ... edge FL:{}-{} LF:{}-{}", targetFirstToLast,patternFirstToLast,targetLastToFirst,patternLastToFirst);
-//                                }
-                            }
-                        } else {
-                            logger.debug("(4) Edge Condition failed: edge condition for pattern node {} and target node {} did not match", edgeConditionExtractor, patternNode, candidateTargetNode);
-                        }
-                    } else {
-                        logger.debug("(3) Connectivity Condition: pattern node neighbors {} are less than target node neighbors {}", patternNode.getNeighbours(), candidateTargetNode.getNeighbours());
-                    }
-                } else {
-                    logger.debug("(2) Node Condition: node condition {} does not match for pattern node {} and target node {}", nodeConditionExtractor, patternNode, candidateTargetNode);
+            matches[position] = candidate;
+            if (position == patternSize - 1) {
+                fullMatchIndices.add(matches.clone());
+                if (fullMatchIndices.size() >= maximalNumberOfFullMatches) {
+                    return;
                 }
+                continue;
+            }
+            if (position + 1 >= minimalPartialMatchSize) {
+                addPartialMatch(matches, position + 1);
+            }
+            used[candidate] = true;
+            position++;
+            int parent = ptmu[position];
+            if (parent < 0) {
+                candidates[position] = allTargetNodes;
+            } else if (parentIsSource[position]) {
+                candidates[position] = targetOutNeighbours[matches[parent]];
             } else {
-                logger.debug("(1) Parent Condition: pattern node {} and target node {} did not match", patternNode, candidateTargetNode);
+                candidates[position] = targetInNeighbours[matches[parent]];
             }
+            cursors[position] = 0;
         }
     }
 
     /**
-     * Magic condition which is not entirely clear.
-     *
-     * @param candidateTargetNode The target node to be added.
-     * @param targetSpacePath The current path in the search space.
-     * @param currentPatternDepth The current depth in the search space.
-     * @return True if condition is met.
+     * Determines whether the pattern node at the given position can be matched to the candidate target node, given
+     * the previous matches.
      */
-    private boolean checkConsumedNeighbors(NodeType candidateTargetNode, List<NodeType> targetSpacePath, int currentPatternDepth) {
-        NodeType patternNode = mu.get(currentPatternDepth);
-        long candidateNeighborCount = candidateTargetNode.getNeighbours().stream()
-                .filter(targetSpacePath::contains)
-                .count();
-        List<NodeType> patternPath = mu.subList(0, currentPatternDepth);
-        long patternNeighborCount = patternNode.getNeighbours().stream()
-                .filter(patternPath::contains)
-                .count();
-        return candidateNeighborCount >= patternNeighborCount;
+    private boolean isFeasible(int position, int candidate, int[] matches, boolean[] used) {
+        // the target node is not matched already
+        if (used[candidate]) {
+            return false;
+        }
+        // the node condition is fulfilled
+        if (!isSet(nodeCompatibility[position], candidate)) {
+            return false;
+        }
+        // the target node has at least as many neighbours as the pattern node
+        if (targetOutNeighbours[candidate].length < patternOutDegrees[position]
+                || targetInNeighbours[candidate].length < patternInDegrees[position]) {
+            return false;
+        }
+        // every edge to a previously matched pattern node has a compatible counterpart
+        int[] previousPositions = constraintPositions[position];
+        for (int constraint = 0; constraint < previousPositions.length; constraint++) {
+            int previousMatch = matches[previousPositions[constraint]];
+            int patternEdge = constraintOutgoingEdges[position][constraint];
+            if (patternEdge != NO_EDGE && !isCompatible(patternEdge, targetOutNeighbours[candidate], targetOutEdges[candidate], previousMatch)) {
+                return false;
+            }
+            patternEdge = constraintIncomingEdges[position][constraint];
+            if (patternEdge != NO_EDGE && !isCompatible(patternEdge, targetInNeighbours[candidate], targetInEdges[candidate], previousMatch)) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    /**
-     * Checks the edge condition.
-     *
-     * @param targetSpaceEdgeCandidateToParent First edge to check.
-     * @param patternEdgeCandidateToParent Second edge to check.
-     * @return True if conditions are met.
-     */
-    private boolean checkEdgeCondition(Optional<EdgeType> targetSpaceEdgeCandidateToParent, Optional<EdgeType> patternEdgeCandidateToParent) {
-        if (targetSpaceEdgeCandidateToParent.isPresent() && patternEdgeCandidateToParent.isPresent()) {
-            EdgeType matchEdgeCP = targetSpaceEdgeCandidateToParent.get();
-            EdgeType patternEdgeCP = patternEdgeCandidateToParent.get();
-            return edgeConditionExtractor.apply(patternEdgeCP, matchEdgeCP);
-        } else {
-            return true;
+    private boolean isCompatible(int patternEdge, int[] neighbours, int[] edges, int neighbour) {
+        int index = Arrays.binarySearch(neighbours, neighbour);
+        return index >= 0 && isSet(edgeCompatibility[patternEdge], edges[index]);
+    }
+
+    private void addPartialMatch(int[] matches, int size) {
+        List<NodeType> partialMatch = new ArrayList<>(size);
+        for (int position = size - 1; position >= 0; position--) {
+            partialMatch.add(targetNodes.get(matches[position]));
         }
+        partialMatches.computeIfAbsent(size, key -> new ArrayList<>()).add(partialMatch);
     }
 
+    /**
+     * Returns the parent graph of the pattern graph, where each pattern node points to its parent in the matching
+     * order.
+     *
+     * @return The parent graph.
+     */
     public DirectedGraph<GenericNode<NodeType>> getParentGraph() {
+        if (parentGraph != null) {
+            return parentGraph;
+        }
+        parentGraph = new DirectedGraph<>();
+        List<GenericNode<NodeType>> parentNodes = new ArrayList<>();
+        for (int patternNode : mu) {
+            GenericNode<NodeType> parentNode = new GenericNode<>(parentGraph.nextNodeIdentifier(), patternNodes.get(patternNode));
+            parentGraph.addNode(parentNode);
+            parentNodes.add(parentNode);
+        }
+        for (int position = 0; position < mu.length; position++) {
+            if (ptmu[position] >= 0) {
+                parentGraph.addEdgeBetween(parentNodes.get(position), parentNodes.get(ptmu[position]));
+            }
+        }
         return parentGraph;
     }
 
-    public DirectedGraph<GenericNode<NodeType>> getSearchSpace() {
-        return searchSpace;
-    }
-
+    /**
+     * Returns the full matches as lists of target nodes, in reverse order of the matching order.
+     *
+     * @return The full matches.
+     */
     public List<List<NodeType>> getFullMatches() {
+        if (fullMatches != null) {
+            return fullMatches;
+        }
+        fullMatches = new ArrayList<>();
+        for (int[] matches : fullMatchIndices) {
+            List<NodeType> fullMatch = new ArrayList<>(matches.length);
+            for (int position = matches.length - 1; position >= 0; position--) {
+                fullMatch.add(targetNodes.get(matches[position]));
+            }
+            fullMatches.add(fullMatch);
+        }
         return fullMatches;
     }
 
@@ -407,23 +548,26 @@ public class RISubgraphFinder<NodeType extends Node<NodeType, VectorType, Identi
             return fullMatchPairs;
         }
         fullMatchPairs = new ArrayList<>();
-        for (List<NodeType> fullMatch : fullMatches) {
-            List<Pair<NodeType>> fullMatchPair = new ArrayList<>();
-            for (int i = 0; i < fullMatch.size(); i++) {
-                NodeType targetNode = fullMatch.get(fullMatch.size() - i - 1);
-                fullMatchPair.add(new Pair<>(mu.get(i), targetNode));
+        for (int[] matches : fullMatchIndices) {
+            List<Pair<NodeType>> fullMatchPair = new ArrayList<>(matches.length);
+            for (int position = 0; position < matches.length; position++) {
+                fullMatchPair.add(new Pair<>(patternNodes.get(mu[position]), targetNodes.get(matches[position])));
             }
             fullMatchPairs.add(fullMatchPair);
         }
         return fullMatchPairs;
     }
 
-
+    /**
+     * Returns the partial matches (as lists of target nodes in reverse order of the matching order), mapped by their
+     * size. Partial matches are only retained if they contain at least the minimal partial match size of nodes.
+     *
+     * @return The partial matches.
+     */
     public Map<Integer, List<List<NodeType>>> getPartialMatches() {
         return partialMatches;
     }
 
-
     public GraphType getPatternGraph() {
         return patternGraph;
     }
@@ -0,0 +1,179 @@
+package bio.singa.mathematics.algorithms.matrix;
+
+import bio.singa.mathematics.matrices.SparseMatrix;
+
+/**
+ * Iteratively solves sparse linear systems {@code A x = b}. Symmetric positive definite systems are solved with the
+ * conjugate gradient method, all other systems with the stabilized bi-conjugate gradient method (BiCGSTAB). Both
+ * methods use the diagonal of the matrix as (Jacobi) preconditioner and only require matrix vector products, such that
+ * the sparsity of the matrix is retained. The given start vector is refined in place until the residual is smaller
+ * than the tolerance relative to the norm of the right hand side.
+ *
+ * @author cl
+ */
+public class ConjugateGradient {
+
+    /**
+     * The default relative tolerance.
+     */
+    public static final double DEFAULT_TOLERANCE = 1e-10;
+
+    private ConjugateGradient() {
+        // prevent instantiation
+    }
+
+    /**
+     * Solves the system with the conjugate gradient method, if the matrix is symmetric, or else with BiCGSTAB.
+     *
+     * @param matrix The matrix.
+     * @param rightHandSide The right hand side.
+     * @param solution The start vector, that is replaced by the solution.
+     * @return The number of iterations.
+     */
+    public static int solve(SparseMatrix matrix, double[] rightHandSide, double[] solution) {
+        if (matrix.isSymmetric(0.0)) {
+            return solveSymmetric(matrix, rightHandSide, solution, DEFAULT_TOLERANCE, matrix.getDimension() * 2);
+        }
+        return solveGeneral(matrix, rightHandSide, solution, DEFAULT_TOLERANCE, matrix.getDimension() * 2);
+    }
+
+    /**
+     * Solves a symmetric positive definite system with the preconditioned conjugate gradient method.
+     *
+     * @param matrix The matrix.
+     * @param rightHandSide The right hand side.
+     * @param solution The start vector, that is replaced by the solution.
+     * @param tolerance The relative tolerance of the residual.
+     * @param maximalIterations The maximal number of iterations.
+     * @return The number of iterations.
+     */
+    public static int solveSymmetric(SparseMatrix matrix, double[] rightHandSide, double[] solution, double tolerance, int maximalIterations) {
+        int n = matrix.getDimension();
+        double[] inverseDiagonal = invertDiagonal(matrix);
+        double[] residual = new double[n];
+        double[] preconditioned = new double[n];
+        double[] direction = new double[n];
+        double[] product = new double[n];
+        matrix.multiply(solution, product);
+        for (int i = 0; i < n; i++) {
+            residual[i] = rightHandSide[i] - product[i];
+            preconditioned[i] = inverseDiagonal[i] * residual[i];
+            direction[i] = preconditioned[i];
+        }
+        double threshold = tolerance * Math.max(norm(rightHandSide), Double.MIN_NORMAL);
+        double rho = dot(residual, preconditioned);
+        int iteration = 0;
+        while (norm(residual) > threshold) {
+            if (iteration == maximalIterations) {
+                throw new IllegalStateException("The conjugate gradient method did not converge after " + maximalIterations + " iterations.");
+            }
+            matrix.multiply(direction, product);
+            double alpha = rho / dot(direction, product);
+            for (int i = 0; i < n; i++) {
+                solution[i] += alpha * direction[i];
+                residual[i] -= alpha * product[i];
+                preconditioned[i] = inverseDiagonal[i] * residual[i];
+            }
+            double previousRho = rho;
+            rho = dot(residual, preconditioned);
+            double beta = rho / previousRho;
+            for (int i = 0; i < n; i++) {
+                direction[i] = preconditioned[i] + beta * direction[i];
+            }
+            iteration++;
+        }
+        return iteration;
+    }
+
+    /**
+     * Solves a general (non symmetric) system with the preconditioned BiCGSTAB method.
+     *
+     * @param matrix The matrix.
+     * @param rightHandSide The right hand side.
+     * @param solution The start vector, that is replaced by the solution.
+     * @param tolerance The relative tolerance of the residual.
+     * @param maximalIterations The maximal number of iterations.
+     * @return The number of iterations.
+     */
+    public static int solveGeneral(SparseMatrix matrix, double[] rightHandSide, double[] solution, double tolerance, int maximalIterations) {
+        int n = matrix.getDimension();
+        double[] inverseDiagonal = invertDiagonal(matrix);
+        double[] residual = new double[n];
+        double[] shadow = new double[n];
+        double[] direction = new double[n];
+        double[] preconditionedDirection = new double[n];
+        double[] v = new double[n];
+        double[] s = new double[n];
+        double[] preconditionedS = new double[n];
+        double[] t = new double[n];
+        matrix.multiply(solution, v);
+        for (int i = 0; i < n; i++) {
+            residual[i] = rightHandSide[i] - v[i];
+            shadow[i] = residual[i];
+            v[i] = 0.0;
+        }
+        double threshold = tolerance * Math.max(norm(rightHandSide), Double.MIN_NORMAL);
+        double rho = 1.0;
+        double alpha = 1.0;
+        double omega = 1.0;
+        int iteration = 0;
+        while (norm(residual) > threshold) {
+            if (iteration == maximalIterations) {
+                throw new IllegalStateException("The BiCGSTAB method did not converge after " + maximalIterations + " iterations.");
+            }
+            double previousRho = rho;
+            rho = dot(shadow, residual);
+            if (rho == 0.0) {
+                throw new IllegalStateException("The BiCGSTAB method broke down after " + iteration + " iterations.");
+            }
+            double beta = (rho / previousRho) * (alpha / omega);
+            for (int i = 0; i < n; i++) {
+                direction[i] = residual[i] + beta * (direction[i] - omega * v[i]);
+                preconditionedDirection[i] = inverseDiagonal[i] * direction[i];
+            }
+            matrix.multiply(preconditionedDirection, v);
+            alpha = rho / dot(shadow, v);
+            for (int i = 0; i < n; i++) {
+                s[i] = residual[i] - alpha * v[i];
+            }
+            if (norm(s) <= threshold) {
+                for (int i = 0; i < n; i++) {
+                    solution[i] += alpha * preconditionedDirection[i];
+                }
+                return iteration + 1;
+            }
+            for (int i = 0; i < n; i++) {
+                preconditionedS[i] = inverseDiagonal[i] * s[i];
+            }
+            matrix.multiply(preconditionedS, t);
+            omega = dot(t, s) / dot(t, t);
+            for (int i = 0; i < n; i++) {
+                solution[i] += alpha * preconditionedDirection[i] + omega * preconditionedS[i];
+                residual[i] = s[i] - omega * t[i];
+            }
+            iteration++;
+        }
+        return iteration;
+    }
+
+    private static double[] invertDiagonal(SparseMatrix matrix) {
+        double[] diagonal = matrix.getDiagonal();
+        for (int i = 0; i < diagonal.length; i++) {
+            diagonal[i] = diagonal[i] == 0.0 ? 1.0 : 1.0 / diagonal[i];
+        }
+        return diagonal;
+    }
+
+    private static double dot(double[] first, double[] second) {
+        double sum = 0.0;
+        for (int i = 0; i < first.length; i++) {
+            sum += first[i] * second[i];
+        }
+        return sum;
+    }
+
+    private static double norm(double[] vector) {
+        return Math.sqrt(dot(vector, vector));
+    }
+
+}
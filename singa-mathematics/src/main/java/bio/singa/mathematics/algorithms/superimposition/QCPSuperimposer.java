@@ -0,0 +1,414 @@
+package bio.singa.mathematics.algorithms.superimposition;
+
+import bio.singa.mathematics.matrices.SquareMatrix;
+import bio.singa.mathematics.vectors.Vector;
+import bio.singa.mathematics.vectors.Vector3D;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An implementation of the quaternion characteristic polynomial (QCP) method to compute the superimposition of two
+ * three-dimensional point sets. The RMSD is determined from the largest eigenvalue of the key matrix, found by
+ * Newton-Raphson iteration on its characteristic polynomial, without computing a rotation. The rotation is only
+ * derived from the corresponding eigenvector if it is requested, which makes this superimposer especially suitable to
+ * screen many candidates against a RMSD cutoff.
+ * <p>
+ * Coordinates are given as primitive arrays of consecutive x, y and z values. The rotation follows the convention of
+ * the other superimposers, candidate vectors are mapped by applying the transposed rotation and adding the
+ * translation.
+ *
+ * @author fk
+ * @see <a href="https://doi.org/10.1107/S0108767305015266">Theobald (2005) Rapid calculation of RMSDs using a
+ * quaternion-based characteristic polynomial</a>
+ * @see <a href="https://doi.org/10.1002/jcc.21439">Liu, Agrafiotis and Theobald (2010) Fast determination of the
+ * optimal rotational matrix for macromolecular superpositions</a>
+ */
+public class QCPSuperimposer {
+
+    private static final double EIGENVALUE_PRECISION = 1e-11;
+    private static final double EIGENVECTOR_PRECISION = 1e-6;
+    private static final int MAXIMAL_ITERATIONS = 50;
+
+    private final double[] reference;
+    private final double[] candidate;
+    private final int numberOfPoints;
+    private final double[] referenceCentroid;
+    private final double[] candidateCentroid;
+
+    /**
+     * The inner product of the centered reference and candidate (row major).
+     */
+    private final double[] innerProduct;
+
+    private double largestEigenvalue;
+    private double rmsd;
+
+    /**
+     * The rotation (row major), null until it is requested.
+     */
+    private double[] rotation;
+
+    /**
+     * Creates a new superimposer and determines the RMSD of the superimposition.
+     *
+     * @param reference The reference coordinates (x, y and z of every point).
+     * @param candidate The candidate coordinates (x, y and z of every point).
+     */
+    public QCPSuperimposer(double[] reference, double[] candidate) {
+        if (reference.length != candidate.length) {
+            throw new IllegalArgumentException("Two lists of vectors cannot be superimposed if they differ in size.");
+        }
+        if (reference.length == 0 || reference.length % 3 != 0) {
+            throw new IllegalArgumentException("The coordinates have to contain x, y and z values of at least one point.");
+        }
+        this.reference = reference;
+        this.candidate = candidate;
+        numberOfPoints = reference.length / 3;
+        referenceCentroid = centroid(reference);
+        candidateCentroid = centroid(candidate);
+        innerProduct = new double[9];
+        calculateRmsd();
+    }
+
+    /**
+     * Creates a new superimposer for three dimensional vectors and determines the RMSD of the superimposition.
+     *
+     * @param reference The reference vectors.
+     * @param candidate The candidate vectors.
+     */
+    public QCPSuperimposer(List<? extends Vector> reference, List<? extends Vector> candidate) {
+        this(toCoordinates(reference), toCoordinates(candidate));
+    }
+
+    /**
+     * Calculates only the RMSD of the superimposition of the given coordinates.
+     *
+     * @param reference The reference coordinates (x, y and z of every point).
+     * @param candidate The candidate coordinates (x, y and z of every point).
+     * @return The RMSD.
+     */
+    public static double calculateRmsd(double[] reference, double[] candidate) {
+        return new QCPSuperimposer(reference, candidate).getRmsd();
+    }
+
+    /**
+     * Calculates only the RMSD of the superimposition of the given vectors.
+     *
+     * @param reference The reference vectors.
+     * @param candidate The candidate vectors.
+     * @return The RMSD.
+     */
+    public static double calculateRmsd(List<? extends Vector> reference, List<? extends Vector> candidate) {
+        return new QCPSuperimposer(reference, candidate).getRmsd();
+    }
+
+    /**
+     * Calculates the full superimposition of the given vectors.
+     *
+     * @param reference The reference vectors.
+     * @param candidate The candidate vectors.
+     * @return The superimposition.
+     */
+    public static VectorSuperimposition<Vector3D> calculateVectorSuperimposition(List<Vector3D> reference, List<Vector3D> candidate) {
+        return new QCPSuperimposer(reference, candidate).getSuperimposition(reference, candidate);
+    }
+
+    /**
+     * Converts the given three dimensional vectors into an array of consecutive x, y and z values.
+     *
+     * @param vectors The vectors.
+     * @return The coordinates.
+     */
+    public static double[] toCoordinates(List<? extends Vector> vectors) {
+        double[] coordinates = new double[vectors.size() * 3];
+        int index = 0;
+        for (Vector vector : vectors) {
+            if (vector.getDimension() != 3) {
+                throw new IllegalArgumentException("Only three dimensional vectors can be superimposed.");
+            }
+            coordinates[index++] = vector.getElement(0);
+            coordinates[index++] = vector.getElement(1);
+            coordinates[index++] = vector.getElement(2);
+        }
+        return coordinates;
+    }
+
+    private double[] centroid(double[] coordinates) {
+        double[] centroid = new double[3];
+        for (int i = 0; i < coordinates.length; i += 3) {
+            centroid[0] += coordinates[i];
+            centroid[1] += coordinates[i + 1];
+            centroid[2] += coordinates[i + 2];
+        }
+        centroid[0] /= numberOfPoints;
+        centroid[1] /= numberOfPoints;
+        centroid[2] /= numberOfPoints;
+        return centroid;
+    }
+
+    private void calculateRmsd() {
+        // inner product of centered coordinates
+        double referenceNorm = 0.0;
+        double candidateNorm = 0.0;
+        for (int i = 0; i < reference.length; i += 3) {
+            double x1 = reference[i] - referenceCentroid[0];
+            double y1 = reference[i + 1] - referenceCentroid[1];
+            double z1 = reference[i + 2] - referenceCentroid[2];
+            double x2 = candidate[i] - candidateCentroid[0];
+            double y2 = candidate[i + 1] - candidateCentroid[1];
+            double z2 = candidate[i + 2] - candidateCentroid[2];
+            referenceNorm += x1 * x1 + y1 * y1 + z1 * z1;
+            candidateNorm += x2 * x2 + y2 * y2 + z2 * z2;
+            innerProduct[0] += x1 * x2;
+            innerProduct[1] += x1 * y2;
+            innerProduct[2] += x1 * z2;
+            innerProduct[3] += y1 * x2;
+            innerProduct[4] += y1 * y2;
+            innerProduct[5] += y1 * z2;
+            innerProduct[6] += z1 * x2;
+            innerProduct[7] += z1 * y2;
+            innerProduct[8] += z1 * z2;
+        }
+        double e0 = (referenceNorm + candidateNorm) * 0.5;
+
+        double sxx = innerProduct[0];
+        double sxy = innerProduct[1];
+        double sxz = innerProduct[2];
+        double syx = innerProduct[3];
+        double syy = innerProduct[4];
+        double syz = innerProduct[5];
+        double szx = innerProduct[6];
+        double szy = innerProduct[7];
+        double szz = innerProduct[8];
+
+        double sxx2 = sxx * sxx;
+        double syy2 = syy * syy;
+        double szz2 = szz * szz;
+        double sxy2 = sxy * sxy;
+        double syz2 = syz * syz;
+        double sxz2 = sxz * sxz;
+        double syx2 = syx * syx;
+        double szy2 = szy * szy;
+        double szx2 = szx * szx;
+
+        double syzSzymSyySzz2 = 2.0 * (syz * szy - syy * szz);
+        double sxx2Syy2Szz2Syz2Szy2 = syy2 + szz2 - sxx2 + syz2 + szy2;
+
+        // coefficients of the characteristic polynomial
+        double c2 = -2.0 * (sxx2 + syy2 + szz2 + sxy2 + syx2 + sxz2 + szx2 + syz2 + szy2);
+        double c1 = 8.0 * (sxx * syz * szy + syy * szx * sxz + szz * sxy * syx
+                - sxx * syy * szz - syz * szx * sxy - szy * syx * sxz);
+
+        double sxzpSzx = sxz + szx;
+        double syzpSzy = syz + szy;
+        double sxypSyx = sxy + syx;
+        double syzmSzy = syz - szy;
+        double sxzmSzx = sxz - szx;
+        double sxymSyx = sxy - syx;
+        double sxxpSyy = sxx + syy;
+        double sxxmSyy = sxx - syy;
+        double sxy2Sxz2Syx2Szx2 = sxy2 + sxz2 - syx2 - szx2;
+
+        double c0 = sxy2Sxz2Syx2Szx2 * sxy2Sxz2Syx2Szx2
+                + (sxx2Syy2Szz2Syz2Szy2 + syzSzymSyySzz2) * (sxx2Syy2Szz2Syz2Szy2 - syzSzymSyySzz2)
+                + (-sxzpSzx * syzmSzy + sxymSyx * (sxxmSyy - szz)) * (-sxzmSzx * syzpSzy + sxymSyx * (sxxmSyy + szz))
+                + (-sxzpSzx * syzpSzy - sxypSyx * (sxxpSyy - szz)) * (-sxzmSzx * syzmSzy - sxypSyx * (sxxpSyy + szz))
+                + (sxypSyx * syzpSzy + sxzpSzx * (sxxmSyy + szz)) * (-sxymSyx * syzmSzy + sxzpSzx * (sxxpSyy + szz))
+                + (sxypSyx * syzmSzy + sxzmSzx * (sxxmSyy - szz)) * (-sxymSyx * syzpSzy + sxzmSzx * (sxxpSyy - szz));
+
+        // newton-raphson iteration starting from the upper bound of the largest eigenvalue
+        largestEigenvalue = e0;
+        for (int iteration = 0; iteration < MAXIMAL_ITERATIONS; iteration++) {
+            double previousEigenvalue = largestEigenvalue;
+            double x2 = largestEigenvalue * largestEigenvalue;
+            double b = (x2 + c2) * largestEigenvalue;
+            double a = b + c1;
+            double delta = (a * largestEigenvalue + c0) / (2.0 * x2 * largestEigenvalue + b + a);
+            largestEigenvalue -= delta;
+            if (Math.abs(largestEigenvalue - previousEigenvalue) < Math.abs(EIGENVALUE_PRECISION * largestEigenvalue)) {
+                break;
+            }
+        }
+        rmsd = Math.sqrt(Math.abs(2.0 * (e0 - largestEigenvalue) / numberOfPoints));
+    }
+
+    private void calculateRotation() {
+        double sxx = innerProduct[0];
+        double sxy = innerProduct[1];
+        double sxz = innerProduct[2];
+        double syx = innerProduct[3];
+        double syy = innerProduct[4];
+        double syz = innerProduct[5];
+        double szx = innerProduct[6];
+        double szy = innerProduct[7];
+        double szz = innerProduct[8];
+
+        // key matrix shifted by the largest eigenvalue
+        double a11 = sxx + syy + szz - largestEigenvalue;
+        double a12 = syz - szy;
+        double a13 = szx - sxz;
+        double a14 = sxy - syx;
+        double a21 = a12;
+        double a22 = sxx - syy - szz - largestEigenvalue;
+        double a23 = sxy + syx;
+        double a24 = sxz + szx;
+        double a31 = a13;
+        double a32 = a23;
+        double a33 = syy - sxx - szz - largestEigenvalue;
+        double a34 = syz + szy;
+        double a41 = a14;
+        double a42 = a24;
+        double a43 = a34;
+        double a44 = szz - sxx - syy - largestEigenvalue;
+
+        // the eigenvector is any non vanishing column of the adjoint matrix
+        double a3344m4334 = a33 * a44 - a43 * a34;
+        double a3244m4234 = a32 * a44 - a42 * a34;
+        double a3243m4233 = a32 * a43 - a42 * a33;
+        double a3143m4133 = a31 * a43 - a41 * a33;
+        double a3144m4134 = a31 * a44 - a41 * a34;
+        double a3142m4132 = a31 * a42 - a41 * a32;
+        double q1 = a22 * a3344m4334 - a23 * a3244m4234 + a24 * a3243m4233;
+        double q2 = -a21 * a3344m4334 + a23 * a3144m4134 - a24 * a3143m4133;
+        double q3 = a21 * a3244m4234 - a22 * a3144m4134 + a24 * a3142m4132;
+        double q4 = -a21 * a3243m4233 + a22 * a3143m4133 - a23 * a3142m4132;
+        double qsqr = q1 * q1 + q2 * q2 + q3 * q3 + q4 * q4;
+
+        if (qsqr < EIGENVECTOR_PRECISION) {
+            q1 = a12 * a3344m4334 - a13 * a3244m4234 + a14 * a3243m4233;
+            q2 = -a11 * a3344m4334 + a13 * a3144m4134 - a14 * a3143m4133;
+            q3 = a11 * a3244m4234 - a12 * a3144m4134 + a14 * a3142m4132;
+            q4 = -a11 * a3243m4233 + a12 * a3143m4133 - a13 * a3142m4132;
+            qsqr = q1 * q1 + q2 * q2 + q3 * q3 + q4 * q4;
+            if (qsqr < EIGENVECTOR_PRECISION) {
+                double a1324m1423 = a13 * a24 - a14 * a23;
+                double a1224m1422 = a12 * a24 - a14 * a22;
+                double a1223m1322 = a12 * a23 - a13 * a22;
+                double a1124m1421 = a11 * a24 - a14 * a21;
+                double a1123m1321 = a11 * a23 - a13 * a21;
+                double a1122m1221 = a11 * a22 - a12 * a21;
+                q1 = a42 * a1324m1423 - a43 * a1224m1422 + a44 * a1223m1322;
+                q2 = -a41 * a1324m1423 + a43 * a1124m1421 - a44 * a1123m1321;
+                q3 = a41 * a1224m1422 - a42 * a1124m1421 + a44 * a1122m1221;
+                q4 = -a41 * a1223m1322 + a42 * a1123m1321 - a43 * a1122m1221;
+                qsqr = q1 * q1 + q2 * q2 + q3 * q3 + q4 * q4;
+                if (qsqr < EIGENVECTOR_PRECISION) {
+                    q1 = a32 * a1324m1423 - a33 * a1224m1422 + a34 * a1223m1322;
+                    q2 = -a31 * a1324m1423 + a33 * a1124m1421 - a34 * a1123m1321;
+                    q3 = a31 * a1224m1422 - a32 * a1124m1421 + a34 * a1122m1221;
+                    q4 = -a31 * a1223m1322 + a32 * a1123m1321 - a33 * a1122m1221;
+                    qsqr = q1 * q1 + q2 * q2 + q3 * q3 + q4 * q4;
+                    if (qsqr < EIGENVECTOR_PRECISION) {
+                        // the point sets are already superimposed
+                        rotation = new double[]{1.0, 0.0, 0.0, 0.0, 1.0, 0.0, 0.0, 0.0, 1.0};
+                        return;
+                    }
+                }
+            }
+        }
+
+        // rotation matrix from the normalized quaternion
+        double norm = Math.sqrt(qsqr);
+        q1 /= norm;
+        q2 /= norm;
+        q3 /= norm;
+        q4 /= norm;
+        double a2 = q1 * q1;
+        double x2 = q2 * q2;
+        double y2 = q3 * q3;
+        double z2 = q4 * q4;
+        double xy = q2 * q3;
+        double az = q1 * q4;
+        double zx = q4 * q2;
+        double ay = q1 * q3;
+        double yz = q3 * q4;
+        double ax = q1 * q2;
+        // stored transposed, such that the candidate is mapped by the transposed rotation
+        rotation = new double[]{
+                a2 + x2 - y2 - z2, 2.0 * (xy - az), 2.0 * (zx + ay),
+                2.0 * (xy + az), a2 - x2 + y2 - z2, 2.0 * (yz - ax),
+                2.0 * (zx - ay), 2.0 * (yz + ax), a2 - x2 - y2 + z2};
+    }
+
+    /**
+     * Returns the RMSD of the superimposition.
+     *
+     * @return The RMSD.
+     */
+    public double getRmsd() {
+        return rmsd;
+    }
+
+    /**
+     * Returns the rotation of the superimposition, it is calculated on the first request.
+     *
+     * @return The rotation.
+     */
+    public SquareMatrix getRotation() {
+        double[] rotation = getRotationElements();
+        return new SquareMatrix(new double[][]{
+                {rotation[0], rotation[1], rotation[2]},
+                {rotation[3], rotation[4], rotation[5]},
+                {rotation[6], rotation[7], rotation[8]}});
+    }
+
+    /**
+     * Returns the translation of the superimposition, the rotation is calculated on the first request.
+     *
+     * @return The translation.
+     */
+    public Vector3D getTranslation() {
+        // t = ca - R' * cb
+        double[] rotation = getRotationElements();
+        return new Vector3D(
+                referenceCentroid[0] - (rotation[0] * candidateCentroid[0] + rotation[3] * candidateCentroid[1] + rotation[6] * candidateCentroid[2]),
+                referenceCentroid[1] - (rotation[1] * candidateCentroid[0] + rotation[4] * candidateCentroid[1] + rotation[7] * candidateCentroid[2]),
+                referenceCentroid[2] - (rotation[2] * candidateCentroid[0] + rotation[5] * candidateCentroid[1] + rotation[8] * candidateCentroid[2]));
+    }
+
+    /**
+     * Maps the given coordinates (x, y and z of every point) onto the reference, such that they are superimposed.
+     *
+     * @param coordinates The coordinates.
+     * @return The mapped coordinates.
+     */
+    public double[] map(double[] coordinates) {
+        double[] rotation = getRotationElements();
+        Vector3D translation = getTranslation();
+        double[] mapped = new double[coordinates.length];
+        for (int i = 0; i < coordinates.length; i += 3) {
+            double x = coordinates[i];
+            double y = coordinates[i + 1];
+            double z = coordinates[i + 2];
+            mapped[i] = rotation[0] * x + rotation[3] * y + rotation[6] * z + translation.getX();
+            mapped[i + 1] = rotation[1] * x + rotation[4] * y + rotation[7] * z + translation.getY();
+            mapped[i + 2] = rotation[2] * x + rotation[5] * y + rotation[8] * z + translation.getZ();
+        }
+        return mapped;
+    }
+
+    /**
+     * Composes the full superimposition for the vectors, this superimposer has been created with.
+     *
+     * @param reference The reference vectors.
+     * @param candidate The candidate vectors.
+     * @return The superimposition.
+     */
+    public VectorSuperimposition<Vector3D> getSuperimposition(List<Vector3D> reference, List<Vector3D> candidate) {
+        double[] mappedCoordinates = map(this.candidate);
+        List<Vector3D> mappedCandidate = new ArrayList<>(numberOfPoints);
+        for (int i = 0; i < mappedCoordinates.length; i += 3) {
+            mappedCandidate.add(new Vector3D(mappedCoordinates[i], mappedCoordinates[i + 1], mappedCoordinates[i + 2]));
+        }
+        return new VectorSuperimposition<>(rmsd, getTranslation(), getRotation(), reference, candidate, mappedCandidate);
+    }
+
+    private double[] getRotationElements() {
+        if (rotation == null) {
+            calculateRotation();
+        }
+        return rotation;
+    }
+
+}
@@ -32,15 +32,28 @@ public class VoronoiGenerator {
      */
     private static final Logger logger = LoggerFactory.getLogger(VoronoiGenerator.class);
 
+    /**
+     * Orders site events from top to bottom and left to right.
+     */
+    private static final Comparator<SiteEvent> SITE_ORDER = Comparator.comparingDouble(SiteEvent::getY)
+            .thenComparingDouble(SiteEvent::getX);
+
     /**
      * The beach line containing {@link BeachSection}s.
      */
     private BeachLine beachLine;
 
     /**
-     * The original site events.
+     * The original site events, sorted by processing order.
+     */
+    private SiteEvent[] siteEvents;
+
+    /**
+     * Creates a new Voronoi generator, that can be used to generate multiple diagrams. Objects used during the
+     * generation (such as circle events) are reused between diagrams.
      */
-    private Deque<SiteEvent> siteEvents;
+    public VoronoiGenerator() {
+    }
 
     /**
      * Generates and returns the Voronoi diagram.
@@ -50,56 +63,77 @@ public class VoronoiGenerator {
      * @return The Voronoi diagram.
      */
     public static VoronoiDiagram generateVoronoiDiagram(Collection<Vector2D> sites, Rectangle boundingBox) {
-        VoronoiGenerator voronoi = new VoronoiGenerator(sites, boundingBox);
-        voronoi.generateDiagram();
-        return voronoi.beachLine.getDiagram();
+        return new VoronoiGenerator().generate(sites, boundingBox);
     }
 
-
     public static <IdentifierType, NodeType extends Node<NodeType, Vector2D, IdentifierType>> VoronoiDiagram generateVoronoiDiagram(Map<Integer, NodeType> nodeMap, Rectangle boundingBox) {
-        VoronoiGenerator voronoi = new VoronoiGenerator(nodeMap, boundingBox);
-        voronoi.generateDiagram();
-        return voronoi.beachLine.getDiagram();
+        SiteEvent[] sites = new SiteEvent[nodeMap.size()];
+        int index = 0;
+        for (Map.Entry<Integer, NodeType> entry : nodeMap.entrySet()) {
+            sites[index++] = new SiteEvent(entry.getKey(), entry.getValue().getPosition());
+        }
+        return new VoronoiGenerator().generate(sites, boundingBox);
     }
 
     /**
-     * Creates a new Voronoi generator.
+     * Generates and returns the Voronoi diagram. Cells are identified by the order in which they have been created.
      *
      * @param sites The sites.
      * @param boundingBox The bounding box.
+     * @return The Voronoi diagram.
      */
-    private VoronoiGenerator(Collection<Vector2D> sites, Rectangle boundingBox) {
-        // initialize beach line with bounding box
-        beachLine = new BeachLine(boundingBox);
-        // sort the original vectors from top to bottom
-        TreeSet<Vector2D> sortedCopy = new TreeSet<>(Comparator.comparingDouble(Vector2D::getY).thenComparing(Vector2D::getX).reversed());
-        sortedCopy.addAll(sites);
-        // add them as site events to the deque
-        siteEvents = new ArrayDeque<>();
-        sortedCopy.forEach(vector -> siteEvents.push(new SiteEvent(vector)));
-        logger.trace("Sorted sites in queue: {}", siteEvents);
+    public VoronoiDiagram generate(Collection<Vector2D> sites, Rectangle boundingBox) {
+        SiteEvent[] siteEvents = new SiteEvent[sites.size()];
+        int index = 0;
+        for (Vector2D site : sites) {
+            siteEvents[index++] = new SiteEvent(site);
+        }
+        return generate(siteEvents, boundingBox);
     }
 
-    private <IdentifierType, NodeType extends Node<NodeType, Vector2D, IdentifierType>> VoronoiGenerator(Map<Integer, NodeType> nodeMap, Rectangle boundingBox) {
+    /**
+     * Generates and returns the Voronoi diagram. The cell of each site is identified by the index of the site in the
+     * given list. Sites at identical positions only result in a single cell.
+     *
+     * @param sites The sites.
+     * @param boundingBox The bounding box.
+     * @return The Voronoi diagram.
+     */
+    public VoronoiDiagram generateIndexed(List<Vector2D> sites, Rectangle boundingBox) {
+        SiteEvent[] siteEvents = new SiteEvent[sites.size()];
+        for (int index = 0; index < siteEvents.length; index++) {
+            siteEvents[index] = new SiteEvent(index, sites.get(index));
+        }
+        return generate(siteEvents, boundingBox);
+    }
+
+    private VoronoiDiagram generate(SiteEvent[] sites, Rectangle boundingBox) {
         // initialize beach line with bounding box
-        beachLine = new BeachLine(boundingBox);
-        // sort the original vectors from top to bottom
-        Comparator<AbstractMap.Entry<Integer,NodeType>> comparator = Comparator.comparing(nodeType -> nodeType.getValue().getPosition().getY());
-        TreeSet<AbstractMap.Entry<Integer,NodeType>> sortedCopy = new TreeSet<>(comparator.reversed());
-        sortedCopy.addAll(nodeMap.entrySet());
-        // add them as site events to the deque
-        siteEvents = new ArrayDeque<>();
-        sortedCopy.forEach(entry -> siteEvents.push(new SiteEvent(entry.getKey(), entry.getValue().getPosition())));
-        logger.trace("Sorted sites in queue: {}", siteEvents);
+        if (beachLine == null) {
+            beachLine = new BeachLine(boundingBox);
+        } else {
+            beachLine.reset(boundingBox);
+        }
+        // sort the sites from top to bottom
+        Arrays.sort(sites, SITE_ORDER);
+        siteEvents = sites;
+        logger.trace("Sorted sites: {}", (Object) siteEvents);
+        generateDiagram();
+        siteEvents = null;
+        return beachLine.getDiagram();
     }
 
     /**
      * Triggers generation of of the Voronoi diagram using the current sites.
      */
     private void generateDiagram() {
+        if (siteEvents.length == 0) {
+            return;
+        }
         // set first site and previous site
         int siteIdentifier = 0;
-        SiteEvent siteEvent = siteEvents.pop();
+        int siteIndex = 0;
+        SiteEvent siteEvent = siteEvents[siteIndex++];
         SiteEvent previousSite = null;
 
         // loop breaks if neither circle nor site events remain
@@ -123,8 +157,8 @@ public class VoronoiGenerator {
                     previousSite = siteEvent;
                 }
                 // get next site event
-                if (!siteEvents.isEmpty()) {
-                    siteEvent = siteEvents.pop();
+                if (siteIndex < siteEvents.length) {
+                    siteEvent = siteEvents[siteIndex++];
                 } else {
                     siteEvent = null;
                 }
@@ -156,8 +190,8 @@ public class VoronoiGenerator {
      * @return True if the site event needs to be processed before the circle event.
      */
     private boolean siteEventIsBeforeCircleEvent(SiteEvent siteEvent, CircleEvent circleEvent) {
-        return siteEvent.getY() < circleEvent.getEventCoordinate().getY() ||
-                (siteEvent.getY() == circleEvent.getEventCoordinate().getY() && siteEvent.getX() < circleEvent.getEventCoordinate().getX());
+        return siteEvent.getY() < circleEvent.getY() ||
+                (siteEvent.getY() == circleEvent.getY() && siteEvent.getX() < circleEvent.getX());
     }
 
 }
@@ -8,7 +8,11 @@ import bio.singa.mathematics.graphs.model.Graph;
 import bio.singa.mathematics.graphs.model.Node;
 import bio.singa.mathematics.vectors.Vector2D;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Lloyd's algorithm, also known as Voronoi iteration or relaxation, is an algorithm named after Stuart P. Lloyd for
@@ -24,61 +28,141 @@ import java.util.*;
  */
 public class VoronoiRelaxation {
 
+    /**
+     * The default maximal number of iterations.
+     */
+    public static final int DEFAULT_MAXIMAL_ITERATIONS = 100;
+
     private VoronoiRelaxation() {
     }
 
     /**
-     * Computes one iteration of lloyd's relaxation. Creates a new relaxed diagram.
+     * Computes one iteration of lloyd's relaxation. Creates a new relaxed diagram. The centroids of the cells are
+     * computed in parallel.
      *
      * @param diagram The Voronoi diagram before relaxation.
      * @return The Voronoi diagram after relaxation.
      */
     public static List<Vector2D> relax(VoronoiDiagram diagram) {
-        final Collection<VoronoiCell> cells = diagram.getCells();
-        List<Vector2D> updatedSites = new ArrayList<>();
-        for (VoronoiCell cell : cells) {
-            // distance between centroid and actual site position
-            final Vector2D centroid = cell.getCentroid();
-            final Vector2D site = cell.getSite().getSite();
-            final double distance = site.distanceTo(centroid);
-            // set next position to midpoint
-            if (distance > 2.0) {
-                updatedSites.add(centroid.getMidpointTo(site));
-            } else {
-                updatedSites.add(centroid);
-            }
-        }
-        return updatedSites;
+        final List<VoronoiCell> cells = new ArrayList<>(diagram.getCells());
+        return cells.parallelStream()
+                .map(cell -> {
+                    // distance between centroid and actual site position
+                    final Vector2D centroid = cell.getCentroid();
+                    final Vector2D site = cell.getSite().getSite();
+                    final double distance = site.distanceTo(centroid);
+                    // set next position to midpoint
+                    if (distance > 2.0) {
+                        return centroid.getMidpointTo(site);
+                    }
+                    return centroid;
+                })
+                .collect(Collectors.toList());
     }
 
-
+    /**
+     * Computes one iteration of lloyd's relaxation and moves the nodes of the graph accordingly.
+     *
+     * @param graph The graph.
+     * @param boundingBox The bounding box.
+     * @param <NodeType> The type of the nodes.
+     * @param <EdgeType> The type of the edges.
+     * @param <IdentifierType> The type of the identifiers.
+     * @param <GraphType> The type of the graph.
+     * @return The relaxed graph.
+     */
     public static <NodeType extends Node<NodeType, Vector2D, IdentifierType>,
             EdgeType extends Edge<NodeType>, IdentifierType,
             GraphType extends Graph<NodeType, EdgeType, IdentifierType>> GraphType relax(GraphType graph, Rectangle boundingBox) {
+        relax(graph, boundingBox, 0.0, 1);
+        return graph;
+    }
 
-        HashMap<Integer, NodeType> nodeMap = new HashMap<>();
-        int identifier = 0;
-        for (NodeType nodeType : graph.getNodes()) {
-            nodeMap.put(identifier, nodeType);
-            identifier++;
-        }
+    /**
+     * Computes iterations of lloyd's relaxation until no site is displaced by more than the convergence threshold,
+     * but at most {@link #DEFAULT_MAXIMAL_ITERATIONS}, and moves the nodes of the graph accordingly.
+     *
+     * @param graph The graph.
+     * @param boundingBox The bounding box.
+     * @param convergenceThreshold The maximal displacement of any site, that is considered as converged.
+     * @param <NodeType> The type of the nodes.
+     * @param <EdgeType> The type of the edges.
+     * @param <IdentifierType> The type of the identifiers.
+     * @param <GraphType> The type of the graph.
+     * @return The number of performed iterations.
+     */
+    public static <NodeType extends Node<NodeType, Vector2D, IdentifierType>,
+            EdgeType extends Edge<NodeType>, IdentifierType,
+            GraphType extends Graph<NodeType, EdgeType, IdentifierType>> int relax(GraphType graph, Rectangle boundingBox,
+                                                                                   double convergenceThreshold) {
+        return relax(graph, boundingBox, convergenceThreshold, DEFAULT_MAXIMAL_ITERATIONS);
+    }
 
-        final VoronoiDiagram diagram = VoronoiGenerator.generateVoronoiDiagram(nodeMap, boundingBox);
-        final Collection<VoronoiCell> cells = diagram.getCells();
-        Map<Integer, Vector2D> updatedSites = new HashMap<>();
-        for (VoronoiCell cell : cells) {
-            // distance between centroid and actual site positionQQ
-            final Vector2D centroid = cell.getCentroid();
-            final Vector2D site = cell.getSite().getSite();
-            final double distance = site.distanceTo(centroid);
-            updatedSites.put(cell.getSite().getIdentifier(), centroid.getMidpointTo(site));
+    /**
+     * Computes iterations of lloyd's relaxation until no site is displaced by more than the convergence threshold
+     * or the maximal number of iterations is reached, and moves the nodes of the graph accordingly. The Voronoi
+     * generator is reused between iterations and the centroids of the cells are computed in parallel.
+     *
+     * @param graph The graph.
+     * @param boundingBox The bounding box.
+     * @param convergenceThreshold The maximal displacement of any site, that is considered as converged.
+     * @param maximalIterations The maximal number of iterations.
+     * @param <NodeType> The type of the nodes.
+     * @param <EdgeType> The type of the edges.
+     * @param <IdentifierType> The type of the identifiers.
+     * @param <GraphType> The type of the graph.
+     * @return The number of performed iterations.
+     */
+    public static <NodeType extends Node<NodeType, Vector2D, IdentifierType>,
+            EdgeType extends Edge<NodeType>, IdentifierType,
+            GraphType extends Graph<NodeType, EdgeType, IdentifierType>> int relax(GraphType graph, Rectangle boundingBox,
+                                                                                   double convergenceThreshold, int maximalIterations) {
+        List<NodeType> nodes = new ArrayList<>(graph.getNodes());
+        Vector2D[] positions = new Vector2D[nodes.size()];
+        for (int index = 0; index < positions.length; index++) {
+            positions[index] = nodes.get(index).getPosition();
         }
-
-        for (Map.Entry<Integer, NodeType> mappingEntry : nodeMap.entrySet()) {
-            mappingEntry.getValue().setPosition(updatedSites.get(mappingEntry.getKey()));
+        VoronoiGenerator generator = new VoronoiGenerator();
+        int iteration = 0;
+        while (iteration < maximalIterations) {
+            iteration++;
+            VoronoiDiagram diagram = generator.generateIndexed(Arrays.asList(positions), boundingBox);
+            if (relaxSites(diagram, positions) < convergenceThreshold) {
+                break;
+            }
+        }
+        for (int index = 0; index < positions.length; index++) {
+            nodes.get(index).setPosition(positions[index]);
         }
+        return iteration;
+    }
 
-        return graph;
+    /**
+     * Moves every site to the midpoint between its current position and the centroid of its cell. Sites are
+     * referenced by the identifiers of their cells.
+     *
+     * @param diagram The Voronoi diagram.
+     * @param positions The positions of the sites.
+     * @return The maximal displacement of any site.
+     */
+    private static double relaxSites(VoronoiDiagram diagram, Vector2D[] positions) {
+        final List<VoronoiCell> cells = new ArrayList<>(diagram.getCells());
+        return IntStream.range(0, cells.size()).parallel()
+                .mapToDouble(index -> {
+                    VoronoiCell cell = cells.get(index);
+                    final Vector2D centroid = cell.getCentroid();
+                    // skip degenerated cells
+                    if (!Double.isFinite(centroid.getX()) || !Double.isFinite(centroid.getY())) {
+                        return 0.0;
+                    }
+                    final Vector2D site = cell.getSite().getSite();
+                    final Vector2D relaxedSite = centroid.getMidpointTo(site);
+                    // each cell is responsible for a different site
+                    positions[cell.getSite().getIdentifier()] = relaxedSite;
+                    return site.distanceTo(relaxedSite);
+                })
+                .max()
+                .orElse(0.0);
     }
 
 }
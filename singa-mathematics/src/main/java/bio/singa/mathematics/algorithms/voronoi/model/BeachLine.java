@@ -5,7 +5,7 @@ import bio.singa.mathematics.vectors.Vector2D;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Comparator;
+import java.util.ArrayDeque;
 import java.util.LinkedList;
 import java.util.TreeSet;
 
@@ -33,6 +33,16 @@ public class BeachLine {
      */
     private TreeSet<CircleEvent> circleEvents;
 
+    /**
+     * Circle events that have been discarded and can be reused.
+     */
+    private final ArrayDeque<CircleEvent> circleEventPool;
+
+    /**
+     * The serial of the next circle event.
+     */
+    private long circleEventSerial;
+
     /**
      * The Voronoi diagram.
      */
@@ -44,10 +54,27 @@ public class BeachLine {
      * @param boundingBox The bounding box.
      */
     public BeachLine(Rectangle boundingBox) {
+        // top to bottom
+        circleEvents = new TreeSet<>(CircleEvent.PROCESSING_ORDER);
+        circleEventPool = new ArrayDeque<>();
+        reset(boundingBox);
+    }
+
+    /**
+     * Resets the beach line to compute a new diagram for the given bounding box. Discarded circle events are kept for
+     * reuse.
+     *
+     * @param boundingBox The bounding box.
+     */
+    public void reset(Rectangle boundingBox) {
         diagram = new VoronoiDiagram(boundingBox);
         beachline = new BeachSection();
-        // top to bottom
-        circleEvents = new TreeSet<>(Comparator.comparingDouble((CircleEvent circle) -> circle.getEventCoordinate().getY()));
+        for (CircleEvent circleEvent : circleEvents) {
+            circleEvent.clear();
+            circleEventPool.push(circleEvent);
+        }
+        circleEvents.clear();
+        circleEventSerial = 0;
     }
 
     /**
@@ -215,7 +242,7 @@ public class BeachLine {
     public void removeBeachSection(BeachSection beachSection) {
         logger.trace("Beach section {} collapsed, removing it.", beachSection);
         CircleEvent circle = beachSection.getCircleEvent();
-        final double x = circle.getEventCoordinate().getX();
+        final double x = circle.getX();
         final double y = circle.getYCenter();
         Vector2D vertex = diagram.createVertex(x, y);
         BeachSection previous = beachSection.getPrevious();
@@ -239,7 +266,7 @@ public class BeachLine {
         // look left
         BeachSection lArc = previous;
         while (lArc.getCircleEvent() != null &&
-                Math.abs(x - lArc.getCircleEvent().getEventCoordinate().getX()) < 1e-9 &&
+                Math.abs(x - lArc.getCircleEvent().getX()) < 1e-9 &&
                 Math.abs(y - lArc.getCircleEvent().getYCenter()) < 1e-9) {
             logger.trace("Found beach section to the left - detaching {}.", lArc);
             previous = lArc.getPrevious();
@@ -258,7 +285,7 @@ public class BeachLine {
         // look right
         BeachSection rArc = next;
         while (rArc.getCircleEvent() != null &&
-                Math.abs(x - rArc.getCircleEvent().getEventCoordinate().getX()) < 1e-9 &&
+                Math.abs(x - rArc.getCircleEvent().getX()) < 1e-9 &&
                 Math.abs(y - rArc.getCircleEvent().getYCenter()) < 1e-9) {
             logger.trace("Found beach section to the left - detaching {}.", rArc);
             next = rArc.getNext();
@@ -306,7 +333,7 @@ public class BeachLine {
      * @return The break point (the x position on the directrix).
      */
     private double calculateLeftBreakPoint(BeachSection beachSection, double directrix) {
-        logger.trace("Calculating break point for node " + beachSection + " and directrix " + directrix);
+        logger.trace("Calculating break point for node {} and directrix {}.", beachSection, directrix);
         // get focus
         double rightFocusX = beachSection.getSite().getX();
         double rightFocusY = beachSection.getSite().getY();
@@ -372,7 +399,7 @@ public class BeachLine {
     }
 
     /**
-     * Removes referenced circle event from collapsing beach section.
+     * Removes referenced circle event from collapsing beach section and returns it to the pool.
      *
      * @param beachSection The collapsing beach section.
      */
@@ -381,6 +408,8 @@ public class BeachLine {
         if (circleEvent != null) {
             circleEvents.remove(circleEvent);
             beachSection.setCircleEvent(null);
+            circleEvent.clear();
+            circleEventPool.push(circleEvent);
         }
     }
 
@@ -438,11 +467,11 @@ public class BeachLine {
         double y = (ax * hc - cx * ha) / d;
         double ycenter = y + by;
 
-        CircleEvent circleEvent = new CircleEvent();
-        circleEvent.setBeachSection(beachSection);
-        circleEvent.setSite(cSite);
-        circleEvent.setEventCoordinate(new Vector2D(x + bx, ycenter + Math.sqrt(x * x + y * y)));
-        circleEvent.setYCenter(ycenter);
+        CircleEvent circleEvent = circleEventPool.poll();
+        if (circleEvent == null) {
+            circleEvent = new CircleEvent();
+        }
+        circleEvent.initialize(beachSection, cSite, x + bx, ycenter + Math.sqrt(x * x + y * y), ycenter, circleEventSerial++);
         beachSection.setCircleEvent(circleEvent);
 
         // add newly created circle event
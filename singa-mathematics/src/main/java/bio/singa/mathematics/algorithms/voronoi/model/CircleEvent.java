@@ -2,6 +2,8 @@ package bio.singa.mathematics.algorithms.voronoi.model;
 
 import bio.singa.mathematics.vectors.Vector2D;
 
+import java.util.Comparator;
+
 /**
  * A circle event happens when a parabolic arc shrinks to a point and disappears from the beach line. Let bj be the
  * disappearing arc and bi and bk are two neighboring arcs before bj disappears. These arcs are then defined by three
@@ -10,11 +12,22 @@ import bio.singa.mathematics.vectors.Vector2D;
  * These three points define a circle, with its center at point q which represents the Voronoi point. The lowest point
  * of this circle touches the scanning line and represents the circle event.
  *
+ * <p>
+ * Circle events are created and discarded frequently while the beach line is processed. Therefore, they are pooled and
+ * reused by the {@link BeachLine}.
+ *
  * @author cl
  * @see <a href="http://old.cescg.org/CESCG99/RCuk/circle.htm">Circle events explained</a>
  */
 public class CircleEvent {
 
+    /**
+     * Orders circle events by their processing order (top to bottom, left to right, then by creation).
+     */
+    static final Comparator<CircleEvent> PROCESSING_ORDER = Comparator.comparingDouble(CircleEvent::getY)
+            .thenComparingDouble(CircleEvent::getX)
+            .thenComparingLong(CircleEvent::getSerial);
+
     /**
      * The referenced beach section
      */
@@ -26,9 +39,19 @@ public class CircleEvent {
     private SiteEvent site;
 
     /**
-     * The event coordinate (determining que position)
+     * The x coordinate of the event.
      */
-    private Vector2D eventCoordinate;
+    private double x;
+
+    /**
+     * The y coordinate of the event (determining que position).
+     */
+    private double y;
+
+    /**
+     * The serial of this event, distinguishing events at identical coordinates.
+     */
+    private long serial;
 
     /**
      * The centre of the circle
@@ -72,7 +95,7 @@ public class CircleEvent {
      * @return The event coordinate.
      */
     public Vector2D getEventCoordinate() {
-        return eventCoordinate;
+        return new Vector2D(x, y);
     }
 
     /**
@@ -80,7 +103,59 @@ public class CircleEvent {
      * @param eventCoordinate The event coordinate.
      */
     public void setEventCoordinate(Vector2D eventCoordinate) {
-        this.eventCoordinate = eventCoordinate;
+        x = eventCoordinate.getX();
+        y = eventCoordinate.getY();
+    }
+
+    /**
+     * Returns the x coordinate of the event.
+     * @return The x coordinate of the event.
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * Returns the y coordinate of the event.
+     * @return The y coordinate of the event.
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * Returns the serial of this event.
+     * @return The serial of this event.
+     */
+    long getSerial() {
+        return serial;
+    }
+
+    /**
+     * Initializes this (possibly reused) event.
+     *
+     * @param beachSection The beach section.
+     * @param site The site.
+     * @param x The x coordinate of the event.
+     * @param y The y coordinate of the event.
+     * @param yCenter The y position of the centre of the circle.
+     * @param serial The serial of the event.
+     */
+    void initialize(BeachSection beachSection, SiteEvent site, double x, double y, double yCenter, long serial) {
+        this.beachSection = beachSection;
+        this.site = site;
+        this.x = x;
+        this.y = y;
+        this.yCenter = yCenter;
+        this.serial = serial;
+    }
+
+    /**
+     * Releases all references of this event.
+     */
+    void clear() {
+        beachSection = null;
+        site = null;
     }
 
     /**
@@ -150,16 +150,19 @@ public class VoronoiCell implements Polygon {
     }
 
     public Vector2D getCentroid() {
+        // area and first moments are accumulated in a single pass
         double x = 0.0;
         double y = 0.0;
+        double doubleArea = 0.0;
         for (VoronoiHalfEdge halfEdge : halfEdges) {
             final Vector2D startPoint = halfEdge.getStartPoint();
             final Vector2D endPoint = halfEdge.getEndPoint();
             final double v = startPoint.getX() * endPoint.getY() - endPoint.getX() * startPoint.getY();
             x += (startPoint.getX() + endPoint.getX()) * v;
             y += (startPoint.getY() + endPoint.getY()) * v;
+            doubleArea += v;
         }
-        double m = getArea() * 6.0;
+        double m = doubleArea * 3.0;
         return new Vector2D(x / m, y / m);
     }
 
@@ -36,6 +36,8 @@ public class VoronoiDiagram {
      */
     private List<Vector2D> vertices;
 
+    private Set<Vector2D> uniqueVertices;
+
     /**
      * The bounding box.
      */
@@ -70,11 +72,13 @@ public class VoronoiDiagram {
         cells = new HashMap<>();
         edges = new ArrayList<>();
         vertices = new ArrayList<>();
+        uniqueVertices = new HashSet<>();
         this.boundingBox = boundingBox;
-        leftBorder = boundingBox.getLeftMostXPosition();
-        rightBorder = boundingBox.getRightMostXPosition();
-        bottomBorder = boundingBox.getTopMostYPosition();
-        topBorder = boundingBox.getBottomMostYPosition();
+        // borders are independent of the orientation of the y axis
+        leftBorder = Math.min(boundingBox.getLeftMostXPosition(), boundingBox.getRightMostXPosition());
+        rightBorder = Math.max(boundingBox.getLeftMostXPosition(), boundingBox.getRightMostXPosition());
+        topBorder = Math.min(boundingBox.getTopMostYPosition(), boundingBox.getBottomMostYPosition());
+        bottomBorder = Math.max(boundingBox.getTopMostYPosition(), boundingBox.getBottomMostYPosition());
     }
 
     public List<Vector2D> getSites() {
@@ -167,10 +171,9 @@ public class VoronoiDiagram {
      * @return The vertex.
      */
     Vector2D createVertex(Vector2D vertex) {
-        if (vertices.contains(vertex)) {
-            return vertex;
+        if (uniqueVertices.add(vertex)) {
+            vertices.add(vertex);
         }
-        vertices.add(vertex);
         return vertex;
     }
 
@@ -221,11 +224,12 @@ public class VoronoiDiagram {
                 logger.trace(" Removing edge {}, starting at {}, ending at {}", iEdge, edge.getStartingPoint(), edge.getEndingPoint());
                 edge.setStartingPoint(null);
                 edge.setEndingPoint(null);
-                edges.remove(edge);
             } else {
                 logger.trace(" Post processed edge: {}, starting at {}, ending at {}", iEdge, edge.getStartingPoint(), edge.getEndingPoint());
             }
         }
+        // remove all discarded edges at once
+        edges.removeIf(edge -> edge.getStartingPoint() == null);
     }
 
     /**
@@ -496,7 +500,8 @@ public class VoronoiDiagram {
                 Vector2D va = halfEdges.get(iLeft).getEndPoint();
                 Vector2D vz = halfEdges.get((iLeft + 1) % nHalfedges).getStartPoint();
                 // if end point is not equal to start point, we need to add the missing
-                // halfedge(s) up to vz
+                // halfedge(s) up to vz, after the last border segment the next gap is processed
+                closing:
                 if (Math.abs(va.getX() - vz.getX()) >= 1e-9 || Math.abs(va.getY() - vz.getY()) >= 1e-9) {
 
                     // walk downward along left side
@@ -508,7 +513,7 @@ public class VoronoiDiagram {
                         halfEdges.add(iLeft, new VoronoiHalfEdge(edge, cell.getSite(), null));
                         nHalfedges++;
                         if (lastBorderSegment) {
-                            break;
+                            break closing;
                         }
                         va = vb;
                     }
@@ -522,7 +527,7 @@ public class VoronoiDiagram {
                         halfEdges.add(iLeft, new VoronoiHalfEdge(edge, cell.getSite(), null));
                         nHalfedges++;
                         if (lastBorderSegment) {
-                            break;
+                            break closing;
                         }
                         va = vb;
                     }
@@ -536,7 +541,7 @@ public class VoronoiDiagram {
                         halfEdges.add(iLeft, new VoronoiHalfEdge(edge, cell.getSite(), null));
                         nHalfedges++;
                         if (lastBorderSegment) {
-                            break;
+                            break closing;
                         }
                         va = vb;
                     }
@@ -550,7 +555,7 @@ public class VoronoiDiagram {
                         halfEdges.add(iLeft, new VoronoiHalfEdge(edge, cell.getSite(), null));
                         nHalfedges++;
                         if (lastBorderSegment) {
-                            break;
+                            break closing;
                         }
                         va = vb;
 
@@ -562,7 +567,7 @@ public class VoronoiDiagram {
                         halfEdges.add(iLeft, new VoronoiHalfEdge(edge, cell.getSite(), null));
                         nHalfedges++;
                         if (lastBorderSegment) {
-                            break;
+                            break closing;
                         }
                         va = vb;
 
@@ -574,7 +579,7 @@ public class VoronoiDiagram {
                         halfEdges.add(iLeft, new VoronoiHalfEdge(edge, cell.getSite(), null));
                         nHalfedges++;
                         if (lastBorderSegment) {
-                            break;
+                            break closing;
                         }
                         va = vb;
 
@@ -586,7 +591,7 @@ public class VoronoiDiagram {
                         halfEdges.add(iLeft, new VoronoiHalfEdge(edge, cell.getSite(), null));
                         nHalfedges++;
                         if (lastBorderSegment) {
-                            break;
+                            break closing;
                         }
 
                         System.out.println("This point should never be reached.");
@@ -0,0 +1,257 @@
+package bio.singa.mathematics.matrices;
+
+import java.util.Arrays;
+
+/**
+ * A square matrix, that is stored in compressed sparse row (CSR) format. Only non zero elements are stored: the
+ * column indices and values of all elements are stored row by row in two primitive arrays and the row pointers
+ * determine where each row starts. Sparse matrices are intended for large linear systems with few elements per row,
+ * such as the discrete Laplacian of a graph, and are therefore no {@link Matrix} implementation. The structure of the
+ * matrix is fixed after it has been assembled, but values can be modified.
+ * <pre>
+ *  SparseMatrix.Builder builder = new SparseMatrix.Builder(3);
+ *  builder.add(0, 0, 2.0);
+ *  builder.add(0, 1, -1.0);
+ *  ...
+ *  SparseMatrix matrix = builder.build(); </pre>
+ *
+ * @author cl
+ */
+public class SparseMatrix {
+
+    private final int dimension;
+    private final int[] rowPointers;
+    private final int[] columnIndices;
+    private final double[] values;
+
+    private SparseMatrix(int dimension, int[] rowPointers, int[] columnIndices, double[] values) {
+        this.dimension = dimension;
+        this.rowPointers = rowPointers;
+        this.columnIndices = columnIndices;
+        this.values = values;
+    }
+
+    /**
+     * Returns the number of rows (and columns).
+     *
+     * @return The dimension.
+     */
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Returns the number of stored (non zero) elements.
+     *
+     * @return The number of stored elements.
+     */
+    public int getNumberOfElements() {
+        return rowPointers[dimension];
+    }
+
+    /**
+     * Returns the element at the given position.
+     *
+     * @param row The row.
+     * @param column The column.
+     * @return The element or zero if it is not stored.
+     */
+    public double getElement(int row, int column) {
+        int position = find(row, column);
+        return position < 0 ? 0.0 : values[position];
+    }
+
+    /**
+     * Sets the element at the given position. Only elements, that have been stored during assembly can be set.
+     *
+     * @param row The row.
+     * @param column The column.
+     * @param value The value.
+     */
+    public void setElement(int row, int column, double value) {
+        int position = find(row, column);
+        if (position < 0) {
+            throw new IllegalArgumentException("The element (" + row + ", " + column + ") is not part of the structure of this matrix.");
+        }
+        values[position] = value;
+    }
+
+    private int find(int row, int column) {
+        // column indices are sorted in each row
+        int position = Arrays.binarySearch(columnIndices, rowPointers[row], rowPointers[row + 1], column);
+        return position < 0 ? -1 : position;
+    }
+
+    /**
+     * Returns the diagonal of this matrix.
+     *
+     * @return The diagonal.
+     */
+    public double[] getDiagonal() {
+        double[] diagonal = new double[dimension];
+        for (int row = 0; row < dimension; row++) {
+            diagonal[row] = getElement(row, row);
+        }
+        return diagonal;
+    }
+
+    /**
+     * Multiplies this matrix with the given vector and writes the result to the target.
+     *
+     * @param vector The vector.
+     * @param target The target, that must not be the same array as the vector.
+     */
+    public void multiply(double[] vector, double[] target) {
+        for (int row = 0; row < dimension; row++) {
+            double sum = 0.0;
+            for (int position = rowPointers[row]; position < rowPointers[row + 1]; position++) {
+                sum += values[position] * vector[columnIndices[position]];
+            }
+            target[row] = sum;
+        }
+    }
+
+    /**
+     * Returns a new matrix with the same structure, where each element is scaled by the given factor and the given
+     * value is added to the diagonal, i.e. {@code diagonalValue * I + factor * this}. Elements of the diagonal, that
+     * are not stored in this matrix, are not added.
+     *
+     * @param diagonalValue The value added to the diagonal.
+     * @param factor The factor for all elements.
+     * @return The new matrix.
+     */
+    public SparseMatrix shift(double diagonalValue, double factor) {
+        double[] shiftedValues = new double[values.length];
+        for (int row = 0; row < dimension; row++) {
+            for (int position = rowPointers[row]; position < rowPointers[row + 1]; position++) {
+                shiftedValues[position] = factor * values[position];
+                if (columnIndices[position] == row) {
+                    shiftedValues[position] += diagonalValue;
+                }
+            }
+        }
+        return new SparseMatrix(dimension, rowPointers, columnIndices, shiftedValues);
+    }
+
+    /**
+     * Returns true if this matrix is symmetric.
+     *
+     * @param tolerance The largest accepted difference between mirrored elements.
+     * @return True if this matrix is symmetric.
+     */
+    public boolean isSymmetric(double tolerance) {
+        for (int row = 0; row < dimension; row++) {
+            for (int position = rowPointers[row]; position < rowPointers[row + 1]; position++) {
+                if (Math.abs(values[position] - getElement(columnIndices[position], row)) > tolerance) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "SparseMatrix " + dimension + "x" + dimension + " with " + getNumberOfElements() + " elements";
+    }
+
+    /**
+     * Assembles sparse matrices. Elements can be added in any order, elements at the same position are summed up.
+     */
+    public static class Builder {
+
+        private final int dimension;
+        private int[] rows;
+        private int[] columns;
+        private double[] entries;
+        private int size;
+
+        public Builder(int dimension) {
+            this.dimension = dimension;
+            rows = new int[dimension * 4 + 1];
+            columns = new int[rows.length];
+            entries = new double[rows.length];
+        }
+
+        /**
+         * Adds the value to the element at the given position.
+         *
+         * @param row The row.
+         * @param column The column.
+         * @param value The value.
+         * @return This builder.
+         */
+        public Builder add(int row, int column, double value) {
+            if (row < 0 || row >= dimension || column < 0 || column >= dimension) {
+                throw new IndexOutOfBoundsException("The element (" + row + ", " + column + ") is outside of the matrix with dimension " + dimension + ".");
+            }
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+                columns = Arrays.copyOf(columns, size * 2);
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            rows[size] = row;
+            columns[size] = column;
+            entries[size] = value;
+            size++;
+            return this;
+        }
+
+        public SparseMatrix build() {
+            // count elements per row
+            int[] rowPointers = new int[dimension + 1];
+            for (int i = 0; i < size; i++) {
+                rowPointers[rows[i] + 1]++;
+            }
+            for (int row = 0; row < dimension; row++) {
+                rowPointers[row + 1] += rowPointers[row];
+            }
+            // distribute elements to rows
+            int[] fill = Arrays.copyOf(rowPointers, dimension);
+            int[] columnIndices = new int[size];
+            double[] values = new double[size];
+            for (int i = 0; i < size; i++) {
+                int position = fill[rows[i]]++;
+                columnIndices[position] = columns[i];
+                values[position] = entries[i];
+            }
+            // sort each row by column and merge duplicates
+            int[] compressedPointers = new int[dimension + 1];
+            int compressedSize = 0;
+            for (int row = 0; row < dimension; row++) {
+                int start = rowPointers[row];
+                int end = rowPointers[row + 1];
+                sortRow(columnIndices, values, start, end);
+                for (int position = start; position < end; position++) {
+                    if (compressedSize > compressedPointers[row] && columnIndices[compressedSize - 1] == columnIndices[position]) {
+                        values[compressedSize - 1] += values[position];
+                    } else {
+                        columnIndices[compressedSize] = columnIndices[position];
+                        values[compressedSize] = values[position];
+                        compressedSize++;
+                    }
+                }
+                compressedPointers[row + 1] = compressedSize;
+            }
+            return new SparseMatrix(dimension, compressedPointers, Arrays.copyOf(columnIndices, compressedSize), Arrays.copyOf(values, compressedSize));
+        }
+
+        private static void sortRow(int[] columnIndices, double[] values, int start, int end) {
+            // rows are short, insertion sort is sufficient
+            for (int i = start + 1; i < end; i++) {
+                int column = columnIndices[i];
+                double value = values[i];
+                int j = i - 1;
+                while (j >= start && columnIndices[j] > column) {
+                    columnIndices[j + 1] = columnIndices[j];
+                    values[j + 1] = values[j];
+                    j--;
+                }
+                columnIndices[j + 1] = column;
+                values[j + 1] = value;
+            }
+        }
+
+    }
+
+}
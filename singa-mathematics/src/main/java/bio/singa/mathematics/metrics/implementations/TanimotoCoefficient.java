@@ -14,6 +14,33 @@ import bio.singa.mathematics.vectors.BitVector;
  */
 public class TanimotoCoefficient<BitVectorType extends BitVector> implements Metric<BitVectorType> {
 
+    /**
+     * Calculates the Tanimoto coefficient of two bit vectors, that are packed into arrays of longs (e.g. molecular
+     * fingerprints). The coefficient is determined from the population count of every word.
+     *
+     * @param first The first packed bit vector.
+     * @param second The second packed bit vector.
+     * @return The Tanimoto coefficient.
+     */
+    public static double calculateCoefficient(long[] first, long[] second) {
+        if (first.length != second.length) {
+            throw new IllegalArgumentException("The packed bit vectors must be of the same length.");
+        }
+        int nab = 0;
+        int na = 0;
+        int nb = 0;
+        for (int i = 0; i < first.length; i++) {
+            nab += Long.bitCount(first[i] & second[i]);
+            na += Long.bitCount(first[i]);
+            nb += Long.bitCount(second[i]);
+        }
+        // similarity is 1.0 if all values are false
+        if (na == 0 && nb == 0) {
+            return 1.0;
+        }
+        return (double) nab / (na + nb - nab);
+    }
+
     @Override
     public double calculateDistance(BitVectorType first, BitVectorType second) {
         if (first.hasSameDimensions(second) && first.getElements().length != 0) {
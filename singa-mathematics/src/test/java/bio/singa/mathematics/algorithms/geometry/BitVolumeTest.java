@@ -0,0 +1,49 @@
+package bio.singa.mathematics.algorithms.geometry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author cl
+ */
+class BitVolumeTest {
+
+    @Test
+    void shouldSetSpans() {
+        Random random = new Random(5);
+        BitVolume volume = new BitVolume(150, 3, 2);
+        BitSet expected = new BitSet();
+        for (int span = 0; span < 50; span++) {
+            int from = random.nextInt(170) - 10;
+            int to = from + random.nextInt(80);
+            volume.setSpan(1, 1, from, to);
+            expected.set(Math.max(from, 0), Math.max(Math.min(to, 150), Math.max(from, 0)));
+        }
+        for (int x = 0; x < 150; x++) {
+            assertEquals(expected.get(x), volume.getBit(x, 1, 1));
+            assertEquals(expected.nextSetBit(x), volume.nextSetBit(x, 1, 1));
+        }
+        assertEquals(expected.cardinality(), volume.cardinality());
+        assertEquals(expected.cardinality(), volume.cardinality(1));
+        assertEquals(0, volume.cardinality(0));
+    }
+
+    @Test
+    void shouldRemoveBits() {
+        BitVolume volume = new BitVolume(70, 2, 2);
+        volume.setSpan(0, 0, 0, 70);
+        volume.setSpan(1, 1, 10, 20);
+        BitVolume mask = new BitVolume(70, 2, 2);
+        mask.setSpan(0, 0, 60, 70);
+        mask.setBit(15, 1, 1);
+        volume.andNot(mask);
+        assertEquals(60 + 9, volume.cardinality());
+        assertEquals(-1, volume.nextSetBit(60, 0, 0));
+        assertEquals(16, volume.nextSetBit(15, 1, 1));
+    }
+
+}
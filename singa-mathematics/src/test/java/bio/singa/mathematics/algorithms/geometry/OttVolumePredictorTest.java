@@ -24,4 +24,34 @@ class OttVolumePredictorTest {
         assertEquals(actualVolume, predictedVolume, 1e-1);
     }
 
+    @Test
+    void shouldRefineBoundaryVoxels() {
+        List<Sphere> spheres = new ArrayList<>();
+        spheres.add(new Sphere(new Vector3D(0.0, 0.0, 0.0), 1.7));
+        spheres.add(new Sphere(new Vector3D(1.5, 0.3, -0.2), 1.5));
+        spheres.add(new Sphere(new Vector3D(2.4, 1.6, 0.7), 1.2));
+        spheres.add(new Sphere(new Vector3D(6.0, 0.0, 0.0), 1.0));
+        SphereVolumeEstimaton estimation = new SphereVolumeEstimaton();
+        estimation.setSpheres(spheres);
+        final double predictedVolume = estimation.calculate();
+        // the adaptive volume is identical to the one at full resolution
+        long voxels = 0;
+        for (BitPlane slice : estimation.getSlices()) {
+            for (int x = 0; x < slice.getWidth(); x++) {
+                for (int y = 0; y < slice.getHeight(); y++) {
+                    if (slice.getBit(x, y)) {
+                        voxels++;
+                    }
+                }
+            }
+        }
+        final double scale = estimation.getScale();
+        assertEquals(voxels / (scale * scale * scale), predictedVolume, 1e-10);
+        // the isolated sphere is added to the volume
+        estimation.setSpheres(spheres.subList(0, 3));
+        estimation.setCubesSideLength(400);
+        final double overlappingVolume = estimation.calculate();
+        assertEquals(overlappingVolume + spheres.get(3).getVolume(), predictedVolume, 2e-1);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package bio.singa.mathematics.algorithms.graphs;
+
+import bio.singa.mathematics.forces.RepulsiveForce;
+import bio.singa.mathematics.graphs.model.Graphs;
+import bio.singa.mathematics.graphs.model.RegularNode;
+import bio.singa.mathematics.graphs.model.UndirectedGraph;
+import bio.singa.mathematics.vectors.Vector2D;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author cl
+ */
+class ForceDirectedLayoutTest {
+
+    @Test
+    void shouldCalculateExactRepulsion() {
+        Random random = new Random(42);
+        int numberOfBodies = 200;
+        double[] x = new double[numberOfBodies];
+        double[] y = new double[numberOfBodies];
+        for (int body = 0; body < numberOfBodies; body++) {
+            x[body] = random.nextDouble() * 400.0;
+            y[body] = random.nextDouble() * 400.0;
+        }
+        double forceConstant = 5.0;
+        RepulsiveForce force = new RepulsiveForce(forceConstant);
+        BarnesHutTree tree = new BarnesHutTree(numberOfBodies);
+        tree.build(x, y, numberOfBodies);
+        double[] displacement = new double[2];
+        for (int body = 0; body < numberOfBodies; body++) {
+            Vector2D expected = new Vector2D();
+            for (int other = 0; other < numberOfBodies; other++) {
+                if (body != other) {
+                    expected = expected.add(force.calculateAcceleration(new Vector2D(x[body], y[body]), new Vector2D(x[other], y[other])));
+                }
+            }
+            tree.accumulateRepulsion(body, forceConstant * forceConstant, 0.0, displacement);
+            assertEquals(expected.getX(), displacement[0], 1e-8);
+            assertEquals(expected.getY(), displacement[1], 1e-8);
+        }
+    }
+
+    @Test
+    void shouldApproximateRepulsion() {
+        Random random = new Random(7);
+        int numberOfBodies = 1000;
+        double[] x = new double[numberOfBodies];
+        double[] y = new double[numberOfBodies];
+        for (int body = 0; body < numberOfBodies; body++) {
+            x[body] = random.nextDouble() * 400.0;
+            y[body] = random.nextDouble() * 400.0;
+        }
+        BarnesHutTree tree = new BarnesHutTree(numberOfBodies);
+        tree.build(x, y, numberOfBodies);
+        double[] exact = new double[2];
+        double[] approximated = new double[2];
+        double totalError = 0.0;
+        double totalMagnitude = 0.0;
+        for (int body = 0; body < numberOfBodies; body++) {
+            tree.accumulateRepulsion(body, 25.0, 0.0, exact);
+            tree.accumulateRepulsion(body, 25.0, ForceDirectedLayout.DEFAULT_THETA, approximated);
+            totalMagnitude += Math.hypot(exact[0], exact[1]);
+            totalError += Math.hypot(exact[0] - approximated[0], exact[1] - approximated[1]);
+        }
+        assertTrue(totalError / totalMagnitude < 0.02);
+    }
+
+    @Test
+    void shouldArrangeGraphWithinDrawingArea() {
+        UndirectedGraph graph = Graphs.buildRandomGraph(1000, 0.002);
+        ForceDirectedLayout.arrange(graph, 400.0, 300.0, 50);
+        for (RegularNode node : graph.getNodes()) {
+            Vector2D position = node.getPosition();
+            assertTrue(position.getX() > 0.0 && position.getX() < 400.0);
+            assertTrue(position.getY() > 0.0 && position.getY() < 300.0);
+        }
+    }
+
+}
@@ -6,7 +6,6 @@ import bio.singa.mathematics.graphs.model.DirectedGraph;
 import bio.singa.mathematics.graphs.model.GenericNode;
 import bio.singa.mathematics.vectors.Vector2D;
 import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
@@ -212,12 +211,10 @@ class RISubgraphFinderTest {
     }
 
     @Test
-    @Disabled
     void shouldFindFullDirectedMatch() {
         BiFunction<GenericNode<String>, GenericNode<String>, Boolean> nodeConditionExtractor =
                 (first, second) -> first.getContent().equals(second.getContent());
 
-        // TODO the directed edge should be considered (or is it considered implicitly)
         BiFunction<DirectedEdge<GenericNode<String>>, DirectedEdge<GenericNode<String>>, Boolean> edgeConditionExtractor = (first, second) -> {
             // (first, second) -> nodeConditionExtractor.apply(first.getSource(), second.getSource()) && nodeConditionExtractor.apply(first.getTarget(), second.getTarget());
             return true;
@@ -229,4 +226,42 @@ class RISubgraphFinderTest {
         assertEquals(1, finder.getFullMatches().size());
     }
 
+    @Test
+    void shouldRespectEdgeDirection() {
+        DirectedGraph<GenericNode<String>> target = new DirectedGraph<>();
+        GenericNode<String> ta = new GenericNode<>(target.nextNodeIdentifier(), "A");
+        target.addNode(ta);
+        GenericNode<String> tb = new GenericNode<>(target.nextNodeIdentifier(), "B");
+        target.addNode(tb);
+        GenericNode<String> tc = new GenericNode<>(target.nextNodeIdentifier(), "C");
+        target.addNode(tc);
+
+        // the edge between B and C points in the opposite direction as in the pattern
+        target.addEdgeBetween(ta, tb);
+        target.addEdgeBetween(tb, tc);
+
+        RISubgraphFinder<GenericNode<String>, DirectedEdge<GenericNode<String>>, Vector2D, Integer, DirectedGraph<GenericNode<String>>> finder
+                = new RISubgraphFinder<>(pattern2, target, (a, b) -> a.getContent().equals(b.getContent()), (a, b) -> true);
+        assertEquals(0, finder.getFullMatches().size());
+    }
+
+    @Test
+    void shouldTerminateAfterFirstMatch() {
+        // a ring of six nodes matches itself in twelve ways
+        DirectedGraph<GenericNode<String>> ring = new DirectedGraph<>();
+        for (int i = 0; i < 6; i++) {
+            ring.addNode(new GenericNode<>(ring.nextNodeIdentifier(), "C"));
+        }
+        for (int i = 0; i < 6; i++) {
+            ring.addEdgeBetween(ring.getNode(i), ring.getNode((i + 1) % 6));
+            ring.addEdgeBetween(ring.getNode((i + 1) % 6), ring.getNode(i));
+        }
+        RISubgraphFinder<GenericNode<String>, DirectedEdge<GenericNode<String>>, Vector2D, Integer, DirectedGraph<GenericNode<String>>> finder
+                = new RISubgraphFinder<>(ring, ring, (a, b) -> a.getContent().equals(b.getContent()), (a, b) -> true);
+        assertEquals(12, finder.getFullMatches().size());
+        finder = new RISubgraphFinder<>(ring, ring, (a, b) -> a.getContent().equals(b.getContent()), (a, b) -> true, 6, 1);
+        assertEquals(1, finder.getFullMatches().size());
+        assertEquals(6, finder.getFullMatches().get(0).size());
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+package bio.singa.mathematics.algorithms.matrix;
+
+import bio.singa.mathematics.matrices.SparseMatrix;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author cl
+ */
+class ConjugateGradientTest {
+
+    @Test
+    void shouldAssembleSparseMatrix() {
+        SparseMatrix matrix = new SparseMatrix.Builder(3)
+                .add(2, 0, 1.0)
+                .add(0, 1, 2.0)
+                .add(0, 1, 3.0)
+                .add(1, 1, 4.0)
+                .build();
+        assertEquals(3, matrix.getNumberOfElements());
+        assertEquals(5.0, matrix.getElement(0, 1));
+        assertEquals(0.0, matrix.getElement(1, 0));
+        double[] result = new double[3];
+        matrix.multiply(new double[]{1.0, 2.0, 3.0}, result);
+        assertArrayEquals(new double[]{10.0, 8.0, 1.0}, result, 1e-12);
+    }
+
+    @Test
+    void shouldSolveSymmetricSystem() {
+        // one dimensional laplacian shifted by identity
+        int dimension = 50;
+        SparseMatrix.Builder builder = new SparseMatrix.Builder(dimension);
+        for (int i = 0; i < dimension; i++) {
+            builder.add(i, i, 3.0);
+            if (i > 0) {
+                builder.add(i, i - 1, -1.0);
+            }
+            if (i < dimension - 1) {
+                builder.add(i, i + 1, -1.0);
+            }
+        }
+        SparseMatrix matrix = builder.build();
+        assertSolution(matrix);
+    }
+
+    @Test
+    void shouldSolveGeneralSystem() {
+        SparseMatrix matrix = new SparseMatrix.Builder(4)
+                .add(0, 0, 4.0).add(0, 1, -1.0)
+                .add(1, 0, -2.0).add(1, 1, 5.0).add(1, 3, 1.0)
+                .add(2, 1, 1.0).add(2, 2, 3.0)
+                .add(3, 2, -1.0).add(3, 3, 6.0)
+                .build();
+        assertSolution(matrix);
+    }
+
+    private static void assertSolution(SparseMatrix matrix) {
+        int dimension = matrix.getDimension();
+        double[] expected = new double[dimension];
+        for (int i = 0; i < dimension; i++) {
+            expected[i] = Math.sin(i);
+        }
+        double[] rightHandSide = new double[dimension];
+        matrix.multiply(expected, rightHandSide);
+        double[] solution = new double[dimension];
+        ConjugateGradient.solve(matrix, rightHandSide, solution);
+        assertArrayEquals(expected, solution, 1e-8);
+    }
+
+}
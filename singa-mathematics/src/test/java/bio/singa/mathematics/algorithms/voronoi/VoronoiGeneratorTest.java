@@ -0,0 +1,63 @@
+package bio.singa.mathematics.algorithms.voronoi;
+
+import bio.singa.mathematics.algorithms.voronoi.model.VoronoiCell;
+import bio.singa.mathematics.algorithms.voronoi.model.VoronoiDiagram;
+import bio.singa.mathematics.geometry.faces.Rectangle;
+import bio.singa.mathematics.graphs.model.Graphs;
+import bio.singa.mathematics.graphs.model.RegularNode;
+import bio.singa.mathematics.graphs.model.UndirectedGraph;
+import bio.singa.mathematics.vectors.Vector2D;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author cl
+ */
+class VoronoiGeneratorTest {
+
+    private static final Rectangle BOUNDING_BOX = new Rectangle(1000, 1000);
+
+    @Test
+    void shouldPartitionBoundingBox() {
+        Random random = new Random(1);
+        List<Vector2D> sites = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            sites.add(new Vector2D(random.nextDouble() * 1000, random.nextDouble() * 1000));
+        }
+        // sites sharing the same y coordinate
+        for (int i = 0; i < 20; i++) {
+            sites.add(new Vector2D(50.0 * i + 5, 500.0));
+        }
+        VoronoiGenerator generator = new VoronoiGenerator();
+        // the generator is reused for the second diagram
+        for (int run = 0; run < 2; run++) {
+            VoronoiDiagram diagram = generator.generateIndexed(sites, BOUNDING_BOX);
+            assertEquals(sites.size(), diagram.getCells().size());
+            double area = 0.0;
+            for (VoronoiCell cell : diagram.getCells()) {
+                area += Math.abs(cell.getArea());
+                assertEquals(sites.get(cell.getSite().getIdentifier()), cell.getSite().getSite());
+            }
+            assertEquals(1000.0 * 1000.0, area, 1e-6);
+        }
+    }
+
+    @Test
+    void shouldRelaxUntilConverged() {
+        UndirectedGraph graph = Graphs.buildRandomGraph(1000, 0.0, BOUNDING_BOX);
+        int iterations = VoronoiRelaxation.relax(graph, BOUNDING_BOX, 0.5, 200);
+        assertTrue(iterations < 200);
+        for (RegularNode node : graph.getNodes()) {
+            Vector2D position = node.getPosition();
+            assertTrue(position.getX() >= 0.0 && position.getX() <= 1000.0);
+            assertTrue(position.getY() >= 0.0 && position.getY() <= 1000.0);
+        }
+    }
+
+}
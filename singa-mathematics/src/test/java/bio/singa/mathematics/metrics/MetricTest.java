@@ -127,4 +127,13 @@ class MetricTest {
         double distance = tanimotoCoefficient.calculateDistance(firstBitVector, secondBitVector);
         assertEquals(0.4, distance, 1E-6);
     }
+
+    @Test
+    void testPackedTanimotoCoefficient() {
+        // bits 0, 2, 3, 5 and 64 against 0, 1, 3 and 127
+        long[] first = new long[]{0b101101L, 1L};
+        long[] second = new long[]{0b1011L, 1L << 63};
+        assertEquals(2.0 / 7.0, TanimotoCoefficient.calculateCoefficient(first, second), 1E-6);
+        assertEquals(1.0, TanimotoCoefficient.calculateCoefficient(new long[2], new long[2]), 1E-6);
+    }
 }
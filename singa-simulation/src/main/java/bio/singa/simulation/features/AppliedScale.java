@@ -27,16 +27,6 @@ public class AppliedScale extends ScalableQuantityFeature<Dimensionless> {
         super(Quantities.getQuantity(1.0, ONE), Evidence.MANUALLY_ANNOTATED);
     }
 
-    @Override
-    public Quantity<Dimensionless> getScaledQuantity() {
-        return scaledQuantity;
-    }
-
-    @Override
-    public Quantity<Dimensionless> getHalfScaledQuantity() {
-        return halfScaledQuantity;
-    }
-
     @Override
     public String getSymbol() {
         return SYMBOL;
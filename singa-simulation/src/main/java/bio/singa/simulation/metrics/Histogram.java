@@ -0,0 +1,100 @@
+package bio.singa.simulation.metrics;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of durations (or any other non negative values) with logarithmic buckets. Each bucket covers values
+ * between two consecutive powers of two, therefore recording a value requires no allocation and the relative error of
+ * percentiles is at most a factor of two. Count, sum, minimum and maximum are recorded exactly.
+ *
+ * @author cl
+ */
+public class Histogram {
+
+    /**
+     * One bucket for zero and one bucket for every bit of a long.
+     */
+    private static final int NUMBER_OF_BUCKETS = 65;
+
+    private final long[] buckets;
+    private long count;
+    private long sum;
+    private long minimum;
+    private long maximum;
+
+    public Histogram() {
+        buckets = new long[NUMBER_OF_BUCKETS];
+        minimum = Long.MAX_VALUE;
+    }
+
+    /**
+     * Records a value. Negative values are recorded as zero.
+     *
+     * @param value The value.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets[NUMBER_OF_BUCKETS - 1 - Long.numberOfLeadingZeros(value)]++;
+        count++;
+        sum += value;
+        minimum = Math.min(minimum, value);
+        maximum = Math.max(maximum, value);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public long getMinimum() {
+        return count == 0 ? 0 : minimum;
+    }
+
+    public long getMaximum() {
+        return maximum;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    /**
+     * Estimates the value below which the given fraction of recorded values lies. The estimate is the upper bound of
+     * the bucket containing the percentile, limited to the maximal recorded value.
+     *
+     * @param fraction The fraction (between 0 and 1).
+     * @return The estimated percentile.
+     */
+    public long getPercentile(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(fraction * count);
+        long cumulative = 0;
+        for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+            cumulative += buckets[bucket];
+            if (cumulative >= rank && buckets[bucket] > 0) {
+                long upperBound = bucket == 0 ? 0 : bucket >= 63 ? Long.MAX_VALUE : (1L << bucket) - 1;
+                return Math.max(getMinimum(), Math.min(upperBound, maximum));
+            }
+        }
+        return maximum;
+    }
+
+    /**
+     * Removes all recorded values.
+     */
+    public void clear() {
+        Arrays.fill(buckets, 0);
+        count = 0;
+        sum = 0;
+        minimum = Long.MAX_VALUE;
+        maximum = 0;
+    }
+
+}
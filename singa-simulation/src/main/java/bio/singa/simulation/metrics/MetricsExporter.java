@@ -0,0 +1,215 @@
+package bio.singa.simulation.metrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Exports the metrics collected by a {@link MetricsRegistry}. The metrics of all operations can be written as CSV (one
+ * row per operation) or as JSON, which additionally contains the time step history and all snapshots. Durations are
+ * given in microseconds.
+ *
+ * @author cl
+ */
+public class MetricsExporter {
+
+    /**
+     * The character separating different values.
+     */
+    private static final char SEPARATOR_CHARACTER = ',';
+
+    /**
+     * The line separator of the current system.
+     */
+    private static final String LINEBREAK = System.lineSeparator();
+
+    private static final String OPERATION_HEADER = String.join(String.valueOf(SEPARATOR_CHARACTER),
+            "operation", "invocations", "recalculations", "total_us", "mean_us", "p50_us", "p95_us", "max_us",
+            "share", "deltas", "allocated_bytes");
+
+    private MetricsExporter() {
+        // prevent instantiation
+    }
+
+    /**
+     * Writes the metrics of all operations as CSV.
+     *
+     * @param registry The registry.
+     * @param path The target file.
+     * @throws IOException if the file could not be written.
+     */
+    public static void writeCsv(MetricsRegistry registry, Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(toCsv(registry));
+        }
+    }
+
+    /**
+     * Writes the time step history as CSV.
+     *
+     * @param registry The registry.
+     * @param path The target file.
+     * @throws IOException if the file could not be written.
+     */
+    public static void writeTimeStepCsv(MetricsRegistry registry, Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("epoch" + SEPARATOR_CHARACTER + "elapsed_time_us" + SEPARATOR_CHARACTER + "time_step_us" + LINEBREAK);
+            for (int i = 0; i < registry.getHistorySize(); i++) {
+                writer.write(registry.getEpoch(i) + "" + SEPARATOR_CHARACTER + format(registry.getElapsedTime(i)) + SEPARATOR_CHARACTER + format(registry.getTimeStep(i)) + LINEBREAK);
+            }
+        }
+    }
+
+    /**
+     * Writes all metrics as JSON.
+     *
+     * @param registry The registry.
+     * @param path The target file.
+     * @throws IOException if the file could not be written.
+     */
+    public static void writeJson(MetricsRegistry registry, Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(toJson(registry));
+        }
+    }
+
+    /**
+     * Returns the metrics of all operations as CSV.
+     *
+     * @param registry The registry.
+     * @return The CSV representation.
+     */
+    public static String toCsv(MetricsRegistry registry) {
+        StringBuilder builder = new StringBuilder(OPERATION_HEADER).append(LINEBREAK);
+        for (OperationMetrics metrics : registry.getAllMetrics()) {
+            Histogram durations = metrics.getDurations();
+            builder.append('"').append(metrics.getName().replace("\"", "\"\"")).append('"').append(SEPARATOR_CHARACTER)
+                    .append(metrics.getInvocations()).append(SEPARATOR_CHARACTER)
+                    .append(metrics.getRecalculations()).append(SEPARATOR_CHARACTER)
+                    .append(format(micros(metrics.getTotalNanos()))).append(SEPARATOR_CHARACTER)
+                    .append(format(micros(durations.getMean()))).append(SEPARATOR_CHARACTER)
+                    .append(format(micros(durations.getPercentile(0.5)))).append(SEPARATOR_CHARACTER)
+                    .append(format(micros(durations.getPercentile(0.95)))).append(SEPARATOR_CHARACTER)
+                    .append(format(micros(durations.getMaximum()))).append(SEPARATOR_CHARACTER)
+                    .append(format(registry.getShare(metrics))).append(SEPARATOR_CHARACTER)
+                    .append(metrics.getDeltas()).append(SEPARATOR_CHARACTER)
+                    .append(metrics.getAllocatedBytes()).append(LINEBREAK);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns all metrics as JSON.
+     *
+     * @param registry The registry.
+     * @return The JSON representation.
+     */
+    public static String toJson(MetricsRegistry registry) {
+        StringBuilder builder = new StringBuilder("{");
+        Histogram epochDurations = registry.getEpochDurations();
+        builder.append("\"epochs\":").append(epochDurations.getCount())
+                .append(",\"total_us\":").append(format(micros(epochDurations.getSum())))
+                .append(",\"mean_epoch_us\":").append(format(micros(epochDurations.getMean())))
+                .append(",\"operations\":[");
+        boolean first = true;
+        for (OperationMetrics metrics : registry.getAllMetrics()) {
+            if (!first) {
+                builder.append(',');
+            }
+            first = false;
+            Histogram durations = metrics.getDurations();
+            builder.append("{\"name\":").append(quote(metrics.getName()))
+                    .append(",\"invocations\":").append(metrics.getInvocations())
+                    .append(",\"recalculations\":").append(metrics.getRecalculations())
+                    .append(",\"total_us\":").append(format(micros(metrics.getTotalNanos())))
+                    .append(",\"mean_us\":").append(format(micros(durations.getMean())))
+                    .append(",\"p50_us\":").append(format(micros(durations.getPercentile(0.5))))
+                    .append(",\"p95_us\":").append(format(micros(durations.getPercentile(0.95))))
+                    .append(",\"max_us\":").append(format(micros(durations.getMaximum())))
+                    .append(",\"recalculation_us\":").append(format(micros(metrics.getRecalculationDurations().getSum())))
+                    .append(",\"share\":").append(format(registry.getShare(metrics)))
+                    .append(",\"deltas\":").append(metrics.getDeltas())
+                    .append(",\"allocated_bytes\":").append(metrics.getAllocatedBytes())
+                    .append('}');
+        }
+        builder.append("],\"time_steps\":[");
+        for (int i = 0; i < registry.getHistorySize(); i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"epoch\":").append(registry.getEpoch(i))
+                    .append(",\"elapsed_time_us\":").append(format(registry.getElapsedTime(i)))
+                    .append(",\"time_step_us\":").append(format(registry.getTimeStep(i)))
+                    .append('}');
+        }
+        builder.append("],\"snapshots\":[");
+        first = true;
+        for (MetricsSnapshot snapshot : registry.getSnapshots()) {
+            if (!first) {
+                builder.append(',');
+            }
+            first = false;
+            builder.append("{\"epoch\":").append(snapshot.getEpoch())
+                    .append(",\"elapsed_time_us\":").append(format(snapshot.getElapsedTime()))
+                    .append(",\"wall_us\":").append(format(micros(snapshot.getWallNanos())))
+                    .append(",\"operations_us\":{");
+            boolean firstOperation = true;
+            for (Map.Entry<String, Long> entry : snapshot.getOperationNanos().entrySet()) {
+                if (!firstOperation) {
+                    builder.append(',');
+                }
+                firstOperation = false;
+                builder.append(quote(entry.getKey())).append(':').append(format(micros(entry.getValue())));
+            }
+            builder.append("}}");
+        }
+        builder.append("]}");
+        return builder.toString();
+    }
+
+    private static double micros(double nanos) {
+        return nanos / 1000.0;
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return "0";
+        }
+        return String.format(Locale.US, "%.3f", value);
+    }
+
+    private static String quote(String value) {
+        StringBuilder builder = new StringBuilder("\"");
+        for (char character : value.toCharArray()) {
+            switch (character) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (character < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) character));
+                    } else {
+                        builder.append(character);
+                    }
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+}
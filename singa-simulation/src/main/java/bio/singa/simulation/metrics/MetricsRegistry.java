@@ -0,0 +1,342 @@
+package bio.singa.simulation.metrics;
+
+import bio.singa.simulation.model.modules.UpdateModule;
+import bio.singa.simulation.model.modules.concentration.ConcentrationBasedModule;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+
+/**
+ * The metrics registry collects performance metrics of a simulation. If enabled, the calculation and recalculation of
+ * each {@link UpdateModule}, the application of deltas and the movement and association of vesicles are timed, as
+ * well as the total duration of each epoch. For each operation the wall time (as {@link Histogram}), number of
+ * invocations, number of recalculations, number of produced deltas and allocated memory (if the JVM supports and
+ * enables the measurement of thread allocated memory, the setting is never changed) is recorded. Additionally, the
+ * time step of every epoch is retained and every {@link #getSnapshotInterval() snapshot interval} epochs a
+ * {@link MetricsSnapshot} of the cumulative times is taken. Metrics can be exported with the {@link MetricsExporter}.
+ * <p>
+ * The registry is disabled by default, in this case operations are executed without any overhead.
+ * <pre>
+ *  simulation.getMetrics().setEnabled(true);
+ *  ...
+ *  MetricsExporter.writeJson(simulation.getMetrics(), Paths.get("metrics.json")); </pre>
+ *
+ * @author cl
+ */
+public class MetricsRegistry {
+
+    /**
+     * The operation applying concentration deltas to updatables.
+     */
+    public static final String CONCENTRATION_DELTAS = "concentration deltas";
+
+    /**
+     * The operation applying displacement deltas to vesicles.
+     */
+    public static final String VESICLE_DISPLACEMENT = "vesicle displacement";
+
+    /**
+     * The operation associating vesicles to nodes.
+     */
+    public static final String VESICLE_ASSOCIATION = "vesicle association";
+
+    /**
+     * The default number of epochs between two snapshots.
+     */
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 1000;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ThreadMXBean threadBean;
+    private final boolean allocationSupported;
+
+    private boolean enabled;
+    private int snapshotInterval;
+
+    private final Map<UpdateModule, OperationMetrics> moduleMetrics;
+    private final Map<String, OperationMetrics> operationMetrics;
+    private final Histogram epochDurations;
+    private final List<MetricsSnapshot> snapshots;
+
+    private long epochStartNanos;
+    private long[] epochs;
+    private double[] elapsedTimes;
+    private double[] timeSteps;
+    private int historySize;
+
+    public MetricsRegistry() {
+        threadBean = ManagementFactory.getThreadMXBean();
+        allocationSupported = threadBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported();
+        snapshotInterval = DEFAULT_SNAPSHOT_INTERVAL;
+        moduleMetrics = new LinkedHashMap<>();
+        operationMetrics = new LinkedHashMap<>();
+        epochDurations = new Histogram();
+        snapshots = new ArrayList<>();
+        epochs = new long[INITIAL_CAPACITY];
+        elapsedTimes = new double[INITIAL_CAPACITY];
+        timeSteps = new double[INITIAL_CAPACITY];
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables the collection of metrics. Previously collected metrics are retained.
+     *
+     * @param enabled True if metrics should be collected.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    /**
+     * Sets the number of epochs between two snapshots.
+     *
+     * @param snapshotInterval The number of epochs between two snapshots.
+     */
+    public void setSnapshotInterval(int snapshotInterval) {
+        if (snapshotInterval < 1) {
+            throw new IllegalArgumentException("The snapshot interval must be positive.");
+        }
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * Calculates the updates of the module and records the metrics of the calculation.
+     *
+     * @param module The module.
+     */
+    public void calculateUpdates(UpdateModule module) {
+        if (!enabled) {
+            module.calculateUpdates();
+            return;
+        }
+        long producedDeltas = getProducedDeltas(module);
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        module.calculateUpdates();
+        long nanos = System.nanoTime() - start;
+        OperationMetrics metrics = getModuleMetrics(module);
+        metrics.recordInvocation(nanos, allocatedBytes() - bytes);
+        metrics.addDeltas(getProducedDeltas(module) - producedDeltas);
+    }
+
+    /**
+     * Optimizes the time step of the module and records the metrics of the recalculation.
+     *
+     * @param module The module.
+     */
+    public void optimizeTimeStep(UpdateModule module) {
+        if (!enabled) {
+            module.optimizeTimeStep();
+            return;
+        }
+        long producedDeltas = getProducedDeltas(module);
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        module.optimizeTimeStep();
+        long nanos = System.nanoTime() - start;
+        OperationMetrics metrics = getModuleMetrics(module);
+        metrics.recordRecalculation(nanos, allocatedBytes() - bytes);
+        metrics.addDeltas(getProducedDeltas(module) - producedDeltas);
+    }
+
+    /**
+     * Executes the operation and records its metrics.
+     *
+     * @param name The name of the operation.
+     * @param operation The operation.
+     */
+    public void measure(String name, Runnable operation) {
+        if (!enabled) {
+            operation.run();
+            return;
+        }
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        operation.run();
+        long nanos = System.nanoTime() - start;
+        operationMetrics.computeIfAbsent(name, OperationMetrics::new).recordInvocation(nanos, allocatedBytes() - bytes);
+    }
+
+    /**
+     * Marks the start of an epoch.
+     */
+    public void startEpoch() {
+        if (enabled) {
+            epochStartNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Marks the end of an epoch, records the time step and takes a snapshot if required.
+     *
+     * @param epoch The epoch, that has been finished.
+     * @param elapsedTime The elapsed simulation time after the epoch (in microseconds).
+     * @param timeStep The time step of the epoch (in microseconds).
+     */
+    public void finishEpoch(long epoch, double elapsedTime, double timeStep) {
+        if (!enabled) {
+            return;
+        }
+        epochDurations.record(System.nanoTime() - epochStartNanos);
+        if (historySize == epochs.length) {
+            int capacity = historySize * 2;
+            epochs = Arrays.copyOf(epochs, capacity);
+            elapsedTimes = Arrays.copyOf(elapsedTimes, capacity);
+            timeSteps = Arrays.copyOf(timeSteps, capacity);
+        }
+        epochs[historySize] = epoch;
+        elapsedTimes[historySize] = elapsedTime;
+        timeSteps[historySize] = timeStep;
+        historySize++;
+        if (epochDurations.getCount() % snapshotInterval == 0) {
+            snapshots.add(takeSnapshot(epoch, elapsedTime));
+        }
+    }
+
+    /**
+     * Returns a snapshot of the cumulative times of all operations.
+     *
+     * @param epoch The current epoch.
+     * @param elapsedTime The elapsed simulation time (in microseconds).
+     * @return The snapshot.
+     */
+    public MetricsSnapshot takeSnapshot(long epoch, double elapsedTime) {
+        Map<String, Long> operationNanos = new LinkedHashMap<>();
+        for (OperationMetrics metrics : getAllMetrics()) {
+            operationNanos.put(metrics.getName(), metrics.getTotalNanos());
+        }
+        return new MetricsSnapshot(epoch, elapsedTime, epochDurations.getSum(), operationNanos);
+    }
+
+    private OperationMetrics getModuleMetrics(UpdateModule module) {
+        return moduleMetrics.computeIfAbsent(module, key -> new OperationMetrics(key.getIdentifier() != null ? key.getIdentifier() : key.toString()));
+    }
+
+    private static long getProducedDeltas(UpdateModule module) {
+        if (module instanceof ConcentrationBasedModule) {
+            return ((ConcentrationBasedModule<?>) module).getProducedDeltas();
+        }
+        return 0;
+    }
+
+    private long allocatedBytes() {
+        if (!allocationSupported) {
+            return 0;
+        }
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        if (!allocationBean.isThreadAllocatedMemoryEnabled()) {
+            // the setting is JVM wide and left to the application
+            return 0;
+        }
+        return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Returns the metrics of the given module.
+     *
+     * @param module The module.
+     * @return The metrics or null if the module has not been measured.
+     */
+    public OperationMetrics getMetrics(UpdateModule module) {
+        return moduleMetrics.get(module);
+    }
+
+    /**
+     * Returns the metrics of the operation with the given name.
+     *
+     * @param name The name.
+     * @return The metrics or null if the operation has not been measured.
+     */
+    public OperationMetrics getMetrics(String name) {
+        return operationMetrics.get(name);
+    }
+
+    /**
+     * Returns the metrics of all modules followed by the metrics of all other operations.
+     *
+     * @return All metrics.
+     */
+    public List<OperationMetrics> getAllMetrics() {
+        List<OperationMetrics> metrics = new ArrayList<>(moduleMetrics.values());
+        metrics.addAll(operationMetrics.values());
+        return metrics;
+    }
+
+    /**
+     * Returns the wall time of all measured epochs (in nanoseconds).
+     *
+     * @return The epoch durations.
+     */
+    public Histogram getEpochDurations() {
+        return epochDurations;
+    }
+
+    /**
+     * Returns the fraction of the total epoch time, that has been spent in the given operation.
+     *
+     * @param metrics The metrics of the operation.
+     * @return The fraction of the epoch time.
+     */
+    public double getShare(OperationMetrics metrics) {
+        long total = epochDurations.getSum();
+        return total == 0 ? 0.0 : (double) metrics.getTotalNanos() / total;
+    }
+
+    public List<MetricsSnapshot> getSnapshots() {
+        return Collections.unmodifiableList(snapshots);
+    }
+
+    /**
+     * Returns the number of epochs in the time step history.
+     *
+     * @return The number of recorded epochs.
+     */
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    public long getEpoch(int index) {
+        return epochs[index];
+    }
+
+    /**
+     * Returns the elapsed simulation time after the recorded epoch (in microseconds).
+     *
+     * @param index The index in the history.
+     * @return The elapsed time.
+     */
+    public double getElapsedTime(int index) {
+        return elapsedTimes[index];
+    }
+
+    /**
+     * Returns the time step of the recorded epoch (in microseconds).
+     *
+     * @param index The index in the history.
+     * @return The time step.
+     */
+    public double getTimeStep(int index) {
+        return timeSteps[index];
+    }
+
+    /**
+     * Removes all collected metrics.
+     */
+    public void clear() {
+        moduleMetrics.clear();
+        operationMetrics.clear();
+        epochDurations.clear();
+        snapshots.clear();
+        historySize = 0;
+    }
+
+}
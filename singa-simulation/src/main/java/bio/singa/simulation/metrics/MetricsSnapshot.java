@@ -0,0 +1,57 @@
+package bio.singa.simulation.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The cumulative time spent in each operation at a certain epoch.
+ *
+ * @author cl
+ */
+public class MetricsSnapshot {
+
+    private final long epoch;
+    private final double elapsedTime;
+    private final long wallNanos;
+    private final Map<String, Long> operationNanos;
+
+    MetricsSnapshot(long epoch, double elapsedTime, long wallNanos, Map<String, Long> operationNanos) {
+        this.epoch = epoch;
+        this.elapsedTime = elapsedTime;
+        this.wallNanos = wallNanos;
+        this.operationNanos = Collections.unmodifiableMap(new LinkedHashMap<>(operationNanos));
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Returns the elapsed simulation time (in microseconds).
+     *
+     * @return The elapsed simulation time.
+     */
+    public double getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * Returns the wall time spent in epochs until this snapshot (in nanoseconds).
+     *
+     * @return The wall time.
+     */
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * Returns the cumulative time spent in each operation (in nanoseconds).
+     *
+     * @return The time spent in each operation.
+     */
+    public Map<String, Long> getOperationNanos() {
+        return operationNanos;
+    }
+
+}
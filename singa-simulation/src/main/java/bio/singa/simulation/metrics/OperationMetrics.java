@@ -0,0 +1,96 @@
+package bio.singa.simulation.metrics;
+
+/**
+ * The metrics of a single instrumented operation, such as the calculation of a module or the application of deltas.
+ * Durations are recorded in nanoseconds. For modules, the time spent in recalculations (optimizing the time step) is
+ * recorded separately, as well as the number of deltas produced.
+ *
+ * @author cl
+ */
+public class OperationMetrics {
+
+    private final String name;
+    private final Histogram durations;
+    private final Histogram recalculationDurations;
+    private long deltas;
+    private long allocatedBytes;
+
+    OperationMetrics(String name) {
+        this.name = name;
+        durations = new Histogram();
+        recalculationDurations = new Histogram();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the durations of all invocations (in nanoseconds).
+     *
+     * @return The durations.
+     */
+    public Histogram getDurations() {
+        return durations;
+    }
+
+    /**
+     * Returns the durations of all recalculations (in nanoseconds).
+     *
+     * @return The durations of recalculations.
+     */
+    public Histogram getRecalculationDurations() {
+        return recalculationDurations;
+    }
+
+    public long getInvocations() {
+        return durations.getCount();
+    }
+
+    public long getRecalculations() {
+        return recalculationDurations.getCount();
+    }
+
+    /**
+     * Returns the total time spent in this operation including recalculations (in nanoseconds).
+     *
+     * @return The total time.
+     */
+    public long getTotalNanos() {
+        return durations.getSum() + recalculationDurations.getSum();
+    }
+
+    public long getDeltas() {
+        return deltas;
+    }
+
+    /**
+     * Returns the number of bytes allocated by the operation or zero, if allocations can not be measured by the
+     * current virtual machine.
+     *
+     * @return The allocated bytes.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    void recordInvocation(long nanos, long bytes) {
+        durations.record(nanos);
+        allocatedBytes += bytes;
+    }
+
+    void recordRecalculation(long nanos, long bytes) {
+        recalculationDurations.record(nanos);
+        allocatedBytes += bytes;
+    }
+
+    void addDeltas(long deltas) {
+        this.deltas += deltas;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + getInvocations() + " invocations, " + getRecalculations() + " recalculations, " + getTotalNanos() / 1_000_000 + " ms";
+    }
+
+}
@@ -171,6 +171,14 @@ public class Vesicle implements Updatable, Featureable {
         displacementManager.addPotentialDisplacementDelta(spatialDelta);
     }
 
+    public void addPotentialSpatialDelta(DisplacementBasedModule module, double x, double y) {
+        displacementManager.addPotentialDisplacement(module, x, y);
+    }
+
+    public double getSquaredTotalDisplacement() {
+        return displacementManager.getSquaredTotalDisplacement();
+    }
+
     public DisplacementDelta getSpatialDelta(DisplacementBasedModule module) {
         return displacementManager.getPotentialDisplacementDelta(module);
     }
@@ -275,9 +283,19 @@ public class Vesicle implements Updatable, Featureable {
         clearPotentialDisplacementDeltas();
     }
 
+    @Override
+    public void clearPotentialDeltas(UpdateModule module) {
+        concentrationManager.clearPotentialDeltas(module);
+    }
+
+    @Override
+    public void scalePotentialDeltas(UpdateModule module, double factor) {
+        concentrationManager.scalePotentialDeltas(module, factor);
+    }
+
     @Override
     public boolean hasDeltas() {
-        return !concentrationManager.getFinalDeltas().isEmpty();
+        return concentrationManager.hasFinalDeltas();
     }
 
     @Override
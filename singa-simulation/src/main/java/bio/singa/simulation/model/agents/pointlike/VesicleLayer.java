@@ -137,13 +137,30 @@ public class VesicleLayer {
         }
     }
 
+    /**
+     * Returns the squared displacement epsilon in simulation scale.
+     *
+     * @return The squared displacement epsilon.
+     */
+    public double getSquaredDisplacementEpsilon() {
+        double epsilon = Environment.convertSystemToSimulationScale(displacementEpsilon);
+        return epsilon * epsilon;
+    }
+
+    /**
+     * Checks the total displacement of every vesicle against the displacement epsilon, after all displacement based
+     * modules added their deltas. The totals are accumulated while the deltas are added, such that no vectors are
+     * created.
+     *
+     * @return True if no total displacement exceeds the displacement epsilon.
+     */
     public boolean deltasAreBelowDisplacementCutoff() {
+        // compare in simulation scale to avoid unit conversions for every vesicle
+        double squaredEpsilon = getSquaredDisplacementEpsilon();
         for (Vesicle vesicle : vesicles) {
-            Vector2D totalDisplacement = vesicle.calculateTotalDisplacement();
-            Quantity<Length> lengthQuantity = Environment.convertSimulationToSystemScale(totalDisplacement.getMagnitude());
-            lengthQuantity.to(displacementEpsilon.getUnit());
-            if (lengthQuantity.getValue().doubleValue() > displacementEpsilon.getValue().doubleValue()) {
-                logger.info("The magnitude of the spatial displacement of {} is {}, higher than the allowed {}.", vesicle.getStringIdentifier(), lengthQuantity, displacementEpsilon);
+            double squaredMagnitude = vesicle.getSquaredTotalDisplacement();
+            if (squaredMagnitude > squaredEpsilon) {
+                logger.info("The magnitude of the spatial displacement of {} is {}, higher than the allowed {}.", vesicle.getStringIdentifier(), Environment.convertSimulationToSystemScale(Math.sqrt(squaredMagnitude)), displacementEpsilon);
                 return false;
             }
         }
@@ -241,7 +258,18 @@ public class VesicleLayer {
         }
     }
 
+    public void clearDisplacementUpdates() {
+        for (Vesicle vesicle : vesicles) {
+            vesicle.clearPotentialDisplacementDeltas();
+            vesicle.resetNextPosition();
+        }
+    }
+
     public void applyDeltas() {
+        // determine next positions
+        for (Vesicle vesicle : vesicles) {
+            vesicle.calculateTotalDisplacement();
+        }
         checkForCollisions();
         for (Vesicle vesicle : vesicles) {
             vesicle.clearPotentialDisplacementDeltas();
@@ -11,12 +11,11 @@ import bio.singa.simulation.model.simulation.Simulation;
 import tec.uom.se.quantity.Quantities;
 
 import javax.measure.Quantity;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import javax.measure.quantity.Time;
+import java.util.*;
 
 import static bio.singa.features.units.UnitProvider.MOLE_PER_LITRE;
+import static tec.uom.se.unit.Units.SECOND;
 
 /**
  * The Automaton graph class is the underlying graph of cellular graph automaton {@link Simulation}s. Each {@link
@@ -33,6 +32,48 @@ public class AutomatonGraph extends AbstractGridGraph<AutomatonNode, AutomatonEd
      */
     private final Map<String, CellRegion> cellRegions;
 
+    /**
+     * The default change of concentrations (within the {@link #DEFAULT_ACTIVITY_CUTOFF_TIME}), below which nodes are
+     * considered quiescent.
+     */
+    private static final Quantity<MolarConcentration> DEFAULT_ACTIVITY_CUTOFF_CHANGE = Quantities.getQuantity(1e-12, MOLE_PER_LITRE);
+
+    /**
+     * The default time, the {@link #DEFAULT_ACTIVITY_CUTOFF_CHANGE} refers to.
+     */
+    private static final Quantity<Time> DEFAULT_ACTIVITY_CUTOFF_TIME = Quantities.getQuantity(1.0, SECOND);
+
+    /**
+     * The default number of epochs, after which all nodes are reactivated.
+     */
+    private static final int DEFAULT_REACTIVATION_INTERVAL = 100;
+
+    /**
+     * Determines whether quiescent nodes are excluded from the evaluation of modules.
+     */
+    private boolean activityTracking;
+
+    /**
+     * The change of concentrations (within the {@link #activityCutoffTime}), below which nodes are considered
+     * quiescent.
+     */
+    private Quantity<MolarConcentration> activityCutoffChange = DEFAULT_ACTIVITY_CUTOFF_CHANGE;
+
+    /**
+     * The time, the {@link #activityCutoffChange} refers to.
+     */
+    private Quantity<Time> activityCutoffTime = DEFAULT_ACTIVITY_CUTOFF_TIME;
+
+    /**
+     * The number of epochs, after which all nodes are reactivated.
+     */
+    private int reactivationInterval = DEFAULT_REACTIVATION_INTERVAL;
+
+    /**
+     * The number of epochs since all nodes have been reactivated.
+     */
+    private int epochsSinceReactivation;
+
     /**
      * Creates a new empty graph, initialized with node and edge capacity.
      *
@@ -103,4 +144,145 @@ public class AutomatonGraph extends AbstractGridGraph<AutomatonNode, AutomatonEd
         cellRegions.put(cellSection.getIdentifier(), cellSection);
     }
 
+    /**
+     * Returns true if activity tracking is enabled.
+     *
+     * @return True if activity tracking is enabled.
+     */
+    public boolean isActivityTracking() {
+        return activityTracking;
+    }
+
+    /**
+     * Enables or disables activity tracking. If enabled, only active nodes are evaluated by the modules of the
+     * simulation. After each epoch, nodes whose concentrations changed faster than the {@link #getActivityCutoff()
+     * activity cutoff} remain active. All other nodes become inactive until they are activated by a vesicle or by
+     * calling {@link #activate(AutomatonNode)}. Observed nodes are always active. Every active node also activates
+     * its neighbours, such that exchanges across the border of the active region (such as diffusion) are evaluated
+     * on both sides.
+     * <p>
+     * The time, that passes while a node is inactive, is not caught up once it becomes active again. Hence, changes
+     * slower than the activity cutoff are lost while the node is inactive. To limit this drift, all nodes are
+     * reactivated every {@link #getReactivationInterval() reactivation interval} epochs, such that slow changes are
+     * suppressed for at most this number of epochs.
+     *
+     * @param activityTracking True if activity tracking should be enabled.
+     */
+    public void setActivityTracking(boolean activityTracking) {
+        this.activityTracking = activityTracking;
+        activateAll();
+    }
+
+    /**
+     * Returns the rate of concentration changes, below which nodes are considered quiescent. The cutoff is scaled to
+     * the time step of each epoch, such that the activity of a node does not depend on the time step.
+     *
+     * @return The activity cutoff (a concentration per time).
+     */
+    public Quantity<?> getActivityCutoff() {
+        return activityCutoffChange.divide(activityCutoffTime);
+    }
+
+    /**
+     * Sets the rate of concentration changes, below which nodes are considered quiescent, as the change of
+     * concentrations within the given time.
+     *
+     * @param change The change of concentrations.
+     * @param time The time, the change refers to.
+     */
+    public void setActivityCutoff(Quantity<MolarConcentration> change, Quantity<Time> time) {
+        activityCutoffChange = change;
+        activityCutoffTime = time;
+    }
+
+    /**
+     * Returns the number of epochs, after which all nodes are reactivated.
+     *
+     * @return The reactivation interval.
+     */
+    public int getReactivationInterval() {
+        return reactivationInterval;
+    }
+
+    /**
+     * Sets the number of epochs, after which all nodes are reactivated.
+     *
+     * @param reactivationInterval The reactivation interval.
+     */
+    public void setReactivationInterval(int reactivationInterval) {
+        if (reactivationInterval < 1) {
+            throw new IllegalArgumentException("The reactivation interval must be positive.");
+        }
+        this.reactivationInterval = reactivationInterval;
+    }
+
+    /**
+     * Returns all nodes that should be evaluated in the next epoch. If activity tracking is disabled, all nodes are
+     * returned.
+     *
+     * @return The active nodes.
+     */
+    public List<AutomatonNode> getActiveNodes() {
+        if (!activityTracking) {
+            return new ArrayList<>(getNodes());
+        }
+        List<AutomatonNode> activeNodes = new ArrayList<>();
+        for (AutomatonNode node : getNodes()) {
+            if (node.isActive()) {
+                activeNodes.add(node);
+            }
+        }
+        return activeNodes;
+    }
+
+    /**
+     * Activates the given node and its neighbours, such that they are evaluated in the next epoch. This is required
+     * if concentrations are changed from outside of the modules.
+     *
+     * @param node The node.
+     */
+    public void activate(AutomatonNode node) {
+        node.setActive(true);
+        for (AutomatonNode neighbour : node.getNeighbours()) {
+            neighbour.setActive(true);
+        }
+    }
+
+    /**
+     * Activates all nodes.
+     */
+    public void activateAll() {
+        getNodes().forEach(node -> node.setActive(true));
+    }
+
+    /**
+     * Determines the nodes, that are active in the next epoch, from the concentration changes of the last epoch.
+     * Only nodes that have been active can have changed. This has no effect if activity tracking is disabled.
+     */
+    public void updateActivity() {
+        if (!activityTracking) {
+            return;
+        }
+        epochsSinceReactivation++;
+        if (epochsSinceReactivation >= reactivationInterval) {
+            epochsSinceReactivation = 0;
+            activateAll();
+            return;
+        }
+        // scale the cutoff to the time step of the last epoch
+        double timeStep = UnitRegistry.getTime().to(SECOND).getValue().doubleValue();
+        double cutoffTime = activityCutoffTime.to(SECOND).getValue().doubleValue();
+        double cutoff = activityCutoffChange.to(UnitRegistry.getConcentrationUnit()).getValue().doubleValue() * timeStep / cutoffTime;
+        List<AutomatonNode> activeNodes = new ArrayList<>();
+        for (AutomatonNode node : getNodes()) {
+            if (node.isObserved() || (node.isActive() && node.getLargestConcentrationChange() > cutoff)) {
+                activeNodes.add(node);
+            }
+        }
+        for (AutomatonNode node : getNodes()) {
+            node.setActive(false);
+        }
+        activeNodes.forEach(this::activate);
+    }
+
 }
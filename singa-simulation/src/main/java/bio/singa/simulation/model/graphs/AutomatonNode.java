@@ -38,6 +38,7 @@ public class AutomatonNode extends AbstractNode<AutomatonNode, Vector2D, Rectang
     private Map<CellSubsection, Polygon> subsectionRepresentations;
 
     private Quantity<Area> membraneArea;
+    private boolean active;
 
     public AutomatonNode(RectangularCoordinate identifier) {
         super(identifier);
@@ -47,6 +48,7 @@ public class AutomatonNode extends AbstractNode<AutomatonNode, Vector2D, Rectang
         membraneSegments = new ArrayList<>();
         cellRegion = CellRegions.EXTRACELLULAR_REGION;
         updateManager = new ConcentrationDeltaManager(cellRegion.setUpConcentrationContainer());
+        active = true;
     }
 
     public AutomatonNode(int column, int row) {
@@ -79,6 +81,16 @@ public class AutomatonNode extends AbstractNode<AutomatonNode, Vector2D, Rectang
         updateManager.clearPotentialDeltasBut(module);
     }
 
+    @Override
+    public void clearPotentialDeltas(UpdateModule module) {
+        updateManager.clearPotentialDeltas(module);
+    }
+
+    @Override
+    public void scalePotentialDeltas(UpdateModule module, double factor) {
+        updateManager.scalePotentialDeltas(module, factor);
+    }
+
     /**
      * Shifts the deltas from the potential delta list to the final delta list.
      */
@@ -95,7 +107,7 @@ public class AutomatonNode extends AbstractNode<AutomatonNode, Vector2D, Rectang
 
     @Override
     public boolean hasDeltas() {
-        return !updateManager.getFinalDeltas().isEmpty();
+        return updateManager.hasFinalDeltas();
     }
 
     @Override
@@ -130,6 +142,30 @@ public class AutomatonNode extends AbstractNode<AutomatonNode, Vector2D, Rectang
         updateManager.setObserved(isObserved);
     }
 
+    /**
+     * Returns {@code true} if this node is evaluated by the modules of the simulation. Nodes are only inactive if
+     * activity tracking is enabled in the {@link AutomatonGraph} and neither the node nor any of its neighbours have
+     * been kept active after the last epoch.
+     *
+     * @return {@code true} if this node is active.
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    void setActive(boolean active) {
+        this.active = active;
+    }
+
+    /**
+     * Returns the largest absolute change of any concentration in this node in the last epoch.
+     *
+     * @return The largest absolute concentration change.
+     */
+    public double getLargestConcentrationChange() {
+        return updateManager.getLargestConcentrationChange();
+    }
+
     public boolean isConcentrationFixed() {
         return updateManager.isConcentrationFixed();
     }
@@ -16,10 +16,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.measure.Quantity;
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.Objects;
-import java.util.Set;
+import java.util.*;
 import java.util.function.Predicate;
 
 import static bio.singa.simulation.model.modules.concentration.ModuleState.*;
@@ -95,15 +92,41 @@ public abstract class ConcentrationBasedModule<DeltaFunctionType extends Abstrac
     private FeatureManager featureManager;
 
     /**
-     * Evaluated every time the module is applied to any updatable.
+     * Determines whether the module is applied to an updatable.
      */
     private Predicate<Updatable> applicationCondition;
 
+    /**
+     * True if the application condition only depends on the type of the updatables and its results can be retained
+     * until the updatables change.
+     */
+    private boolean applicationConditionCached = true;
+
+    /**
+     * The updatables fulfilling the application condition.
+     */
+    private List<Updatable> applicableUpdatables;
+
+    /**
+     * The revision of the updatables, the applicable updatables have been determined for.
+     */
+    private long applicableRevision = -1;
+
     /**
      * All chemical entities that might be accessed by this module.
      */
     private Set<ChemicalEntity> referencedChemicalEntities;
 
+    /**
+     * Determines whether the deltas of this module are proportional to the time step.
+     */
+    private boolean linearInTimeStep;
+
+    /**
+     * The number of deltas, that have been produced by this module.
+     */
+    private long producedDeltas;
+
     /**
      * Creates a new concentration based module.
      */
@@ -128,12 +151,30 @@ public abstract class ConcentrationBasedModule<DeltaFunctionType extends Abstrac
 
     /**
      * Sets the application condition for this module. The module is only evaluated if the updatable fulfills the given
-     * predicate.
+     * predicate. The condition is evaluated every time the module is applied.
      *
      * @param applicationCondition The application condition.
+     * @see #setApplicationCondition(Predicate, boolean)
      */
     protected void setApplicationCondition(Predicate<Updatable> applicationCondition) {
+        setApplicationCondition(applicationCondition, false);
+    }
+
+    /**
+     * Sets the application condition for this module. The module is only evaluated if the updatable fulfills the given
+     * predicate. Conditions, that only depend on the type of the updatable, can be cached, the updatables fulfilling
+     * them are determined once and retained until updatables are added to or removed from the simulation. Conditions,
+     * that depend on regions or subsections (which are replaced when a node is assigned a new region or
+     * {@link bio.singa.simulation.model.sections.ConcentrationContainer}) or on the current state of the updatable
+     * (such as the presence of entities), must not be cached.
+     *
+     * @param applicationCondition The application condition.
+     * @param cached True if the condition can be cached until the updatables of the simulation change.
+     */
+    protected void setApplicationCondition(Predicate<Updatable> applicationCondition, boolean cached) {
         this.applicationCondition = applicationCondition;
+        applicationConditionCached = cached;
+        applicableRevision = -1;
     }
 
     /**
@@ -146,6 +187,33 @@ public abstract class ConcentrationBasedModule<DeltaFunctionType extends Abstrac
         return applicationCondition;
     }
 
+    /**
+     * Returns all updatables of the simulation, that fulfill the application condition of this module.
+     *
+     * @return The applicable updatables.
+     */
+    public List<Updatable> getApplicableUpdatables() {
+        if (!applicationConditionCached) {
+            return filterApplicableUpdatables();
+        }
+        long revision = simulation.getUpdatableRevision();
+        if (applicableUpdatables == null || applicableRevision != revision) {
+            applicableUpdatables = filterApplicableUpdatables();
+            applicableRevision = revision;
+        }
+        return applicableUpdatables;
+    }
+
+    private List<Updatable> filterApplicableUpdatables() {
+        List<Updatable> updatables = new ArrayList<>();
+        for (Updatable updatable : simulation.getUpdatables()) {
+            if (applicationCondition.test(updatable)) {
+                updatables.add(updatable);
+            }
+        }
+        return updatables;
+    }
+
     /**
      * Returns all chemical entities that might be accessed by this module.
      *
@@ -254,6 +322,40 @@ public abstract class ConcentrationBasedModule<DeltaFunctionType extends Abstrac
         return supplier;
     }
 
+    /**
+     * Returns true if the deltas calculated by this module are proportional to the time step. Deltas of linear modules
+     * remain valid after the time step has been changed, if they are scaled accordingly. Since deltas are determined
+     * at the midpoint of the time step, this is only the case for modules, whose deltas do not depend on the
+     * concentrations they change (e.g. zero order reactions). Deltas of other modules are only rescaled, if their
+     * local error limits the deviation from calculating them again (see {@link #acceptsRescaledDeltas(double)}). By
+     * default modules are considered not to be linear.
+     *
+     * @return True if the deltas are proportional to the time step.
+     */
+    public boolean isLinearInTimeStep() {
+        return linearInTimeStep;
+    }
+
+    /**
+     * Sets whether the deltas calculated by this module are proportional to the time step. Modules that are not
+     * linear in the time step are calculated again every time the time step changes during an epoch.
+     *
+     * @param linearInTimeStep True if the deltas are proportional to the time step.
+     */
+    public void setLinearInTimeStep(boolean linearInTimeStep) {
+        this.linearInTimeStep = linearInTimeStep;
+    }
+
+    /**
+     * Returns the total number of deltas, that have been produced by this module (including deltas that have been
+     * discarded during recalculations).
+     *
+     * @return The number of produced deltas.
+     */
+    public long getProducedDeltas() {
+        return producedDeltas;
+    }
+
     /**
      * Returns the scope of this module.
      *
@@ -304,6 +406,7 @@ public abstract class ConcentrationBasedModule<DeltaFunctionType extends Abstrac
     public void handleDelta(ConcentrationDeltaIdentifier deltaIdentifier, ConcentrationDelta delta) {
         logDelta(deltaIdentifier, delta);
         if (supplier.isStrutCalculation()) {
+            producedDeltas++;
             delta = delta.multiply(2.0);
             supplier.getCurrentHalfDeltas().put(deltaIdentifier, delta);
             deltaIdentifier.getUpdatable().addPotentialDelta(delta);
@@ -383,6 +486,10 @@ public abstract class ConcentrationBasedModule<DeltaFunctionType extends Abstrac
         double largestLocalError = -Double.MAX_VALUE;
         ConcentrationDeltaIdentifier largestIdentifier = null;
         for (ConcentrationDeltaIdentifier identifier : supplier.getCurrentFullDeltas().keySet()) {
+            if (simulation.getScheduler().isStochastic(identifier.getUpdatable())) {
+                // deltas of stochastic updatables are sampled and do not constrain the time step
+                continue;
+            }
             double fullDelta = supplier.getCurrentFullDeltas().get(identifier).getQuantity().getValue().doubleValue();
             double halfDelta = supplier.getCurrentHalfDeltas().get(identifier).getQuantity().getValue().doubleValue();
             // calculate error
@@ -395,8 +502,10 @@ public abstract class ConcentrationBasedModule<DeltaFunctionType extends Abstrac
                 largestLocalError = localError;
             }
         }
-        // safety check
-        Objects.requireNonNull(largestIdentifier);
+        if (largestIdentifier == null) {
+            // only stochastic updatables
+            return LocalError.MINIMAL_EMPTY_ERROR;
+        }
         LocalError localError = new LocalError(largestIdentifier.getUpdatable(), largestIdentifier.getEntity(), largestLocalError);
         logger.debug("The largest error was {} for {}", localError.getValue(), localError.getUpdatable());
         // set local error and return local error
@@ -422,7 +531,7 @@ public abstract class ConcentrationBasedModule<DeltaFunctionType extends Abstrac
 
     @Override
     public void calculateUpdates() {
-        scope.processAllUpdatables(simulation.getUpdatables());
+        scope.processAllUpdatables(getApplicableUpdatables());
         evaluateModuleState();
     }
 
@@ -430,17 +539,66 @@ public abstract class ConcentrationBasedModule<DeltaFunctionType extends Abstrac
     public void optimizeTimeStep() {
         Updatable updatable = supplier.getLargestLocalError().getUpdatable();
         while (state == REQUIRING_RECALCULATION) {
-            // reset previous error
+            // predict time step from previous error
+            double previousError = supplier.getLargestLocalError().getValue();
             supplier.resetError();
-            // determine new local error with decreased time step
-            simulation.getScheduler().decreaseTimeStep();
-            scope.processUpdatable(updatable);
+            double previousTimeStep = UnitRegistry.getTimeScale();
+            simulation.getScheduler().decreaseTimeStep(previousError);
+            if (isLinearInTimeStep()) {
+                // deltas of all other updatables remain valid for the decreased time step
+                rescaleDeltas(UnitRegistry.getTimeScale() / previousTimeStep);
+                // determine new local error with decreased time step
+                scope.processUpdatable(updatable);
+            } else {
+                simulation.getUpdatables().forEach(currentUpdatable -> currentUpdatable.clearPotentialDeltas(this));
+                scope.processAllUpdatables(getApplicableUpdatables());
+            }
             // evaluate module state by error
             evaluateModuleState();
         }
         logger.debug("Optimized local error for {} was {} with time step of {}.", this, supplier.getLargestLocalError().getValue(), UnitRegistry.getTime());
     }
 
+    /**
+     * Returns true if the deltas, that have been calculated by this module in the current epoch, may be
+     * {@link #rescaleDeltas(double) rescaled} to a changed time step instead of being calculated again. The deltas of
+     * modules, that are {@link #isLinearInTimeStep() linear in the time step}, are rescaled exactly. For all other
+     * modules the local error, that compares a full step to two half steps, estimates the deviation of deltas, that
+     * are rescaled to half of the time step. This deviation is extrapolated linearly to the given ratio and has to be
+     * below the recalculation cutoff.
+     *
+     * @param timeStepRatio The ratio between the new and the previous time step.
+     * @return True if the deltas may be rescaled.
+     */
+    public boolean acceptsRescaledDeltas(double timeStepRatio) {
+        if (state != SUCCEEDED && state != SUCCEEDED_WITH_PENDING_CHANGES) {
+            return false;
+        }
+        if (isLinearInTimeStep()) {
+            return true;
+        }
+        double rescalingError = 2.0 * Math.abs(1.0 - timeStepRatio) * supplier.getLargestLocalError().getValue();
+        return rescalingError < simulation.getScheduler().getRecalculationCutoff();
+    }
+
+    /**
+     * Adapts the deltas, that have been calculated by this module in the current epoch, to a changed time step,
+     * instead of calculating them again. The deltas and the local error are multiplied by the ratio between the new
+     * and the previous time step. This is exact for modules, that are {@link #isLinearInTimeStep() linear in the
+     * time step}, and an approximation otherwise.
+     *
+     * @param timeStepRatio The ratio between the new and the previous time step.
+     */
+    public void rescaleDeltas(double timeStepRatio) {
+        for (Updatable updatable : simulation.getUpdatables()) {
+            updatable.scalePotentialDeltas(this, timeStepRatio);
+        }
+        LocalError largestLocalError = supplier.getLargestLocalError();
+        if (largestLocalError != LocalError.MINIMAL_EMPTY_ERROR) {
+            supplier.setLargestLocalError(new LocalError(largestLocalError.getUpdatable(), largestLocalError.getChemicalEntity(), largestLocalError.getValue() * timeStepRatio));
+        }
+    }
+
     /**
      * Evaluates the current state of the module. This includes evaluating the local error and if necessary scheduling
      * a recalculation.
@@ -1,22 +1,28 @@
 package bio.singa.simulation.model.modules.concentration;
 
+import bio.singa.chemistry.entities.ChemicalEntity;
 import bio.singa.core.events.UpdateEventListener;
-import bio.singa.features.parameters.Environment;
 import bio.singa.features.quantities.MolarConcentration;
+import bio.singa.features.units.UnitRegistry;
 import bio.singa.simulation.model.graphs.AutomatonNode;
 import bio.singa.simulation.model.modules.UpdateModule;
+import bio.singa.simulation.model.sections.CellSubsection;
 import bio.singa.simulation.model.sections.ConcentrationContainer;
 import bio.singa.simulation.model.simulation.Updatable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import tec.uom.se.quantity.Quantities;
 
 import javax.measure.Quantity;
-import java.util.ArrayList;
-import java.util.List;
+import javax.measure.Unit;
+import java.util.*;
 
 /**
  * The ConcentrationDeltaManager handles current concentrations of an updatable and the updates to those
- * concentrations that should be applied during simulation.
+ * concentrations that should be applied during simulation. Each combination of {@link CellSubsection} and
+ * {@link ChemicalEntity} that received a delta is assigned a slot. Deltas are stored as primitive values in parallel
+ * arrays of slots, modules and values, such that shifting, applying and clearing deltas does not require creating
+ * or traversing objects. {@link ConcentrationDelta}s are only created if they are requested, e.g. for observation.
  *
  * @author cl
  */
@@ -28,19 +34,89 @@ public class ConcentrationDeltaManager {
     private static final Logger logger = LoggerFactory.getLogger(ConcentrationDeltaManager.class);
 
     /**
-     * A list of potential deltas.
+     * The initial capacity of the delta buffers.
      */
-    private final List<ConcentrationDelta> potentialDeltas;
+    private static final int INITIAL_CAPACITY = 16;
 
     /**
-     * The current concentrations.
+     * The slots of each subsection and entity.
      */
-    private ConcentrationContainer currentConcentrations;
+    private final Map<CellSubsection, Map<ChemicalEntity, Integer>> slots;
+
+    /**
+     * The subsection of each slot.
+     */
+    private final List<CellSubsection> slotSubsections;
+
+    /**
+     * The entity of each slot.
+     */
+    private final List<ChemicalEntity> slotEntities;
+
+    /**
+     * The modules that contributed deltas, referenced by their index.
+     */
+    private final List<UpdateModule> modules;
+
+    /**
+     * The slots of the potential deltas.
+     */
+    private int[] potentialSlots;
+
+    /**
+     * The module indices of the potential deltas.
+     */
+    private int[] potentialModules;
+
+    /**
+     * The values of the potential deltas (in the current concentration unit).
+     */
+    private double[] potentialValues;
+
+    /**
+     * The number of potential deltas.
+     */
+    private int potentialSize;
+
+    /**
+     * The slots of the final deltas.
+     */
+    private int[] finalSlots;
+
+    /**
+     * The values of the final deltas (in the current concentration unit).
+     */
+    private double[] finalValues;
+
+    /**
+     * The number of final deltas.
+     */
+    private int finalSize;
+
+    /**
+     * The concentration of each slot while deltas are applied.
+     */
+    private double[] slotConcentrations;
+
+    /**
+     * Signifies if the concentration of a slot has been read while deltas are applied.
+     */
+    private boolean[] slotRead;
+
+    /**
+     * The concentration of each slot before the deltas have been applied.
+     */
+    private double[] slotPreviousConcentrations;
 
     /**
-     * Deltas that are to be applied to the node.
+     * The largest absolute change of any concentration during the last application of deltas.
      */
-    private final List<ConcentrationDelta> finalDeltas;
+    private double largestConcentrationChange;
+
+    /**
+     * The current concentrations.
+     */
+    private ConcentrationContainer currentConcentrations;
 
     /**
      * A flag signifying if this node is observed.
@@ -58,8 +134,18 @@ public class ConcentrationDeltaManager {
      * @param initialConcentrations The initial concentrations.
      */
     public ConcentrationDeltaManager(ConcentrationContainer initialConcentrations) {
-        finalDeltas = new ArrayList<>();
-        potentialDeltas = new ArrayList<>();
+        slots = new HashMap<>();
+        slotSubsections = new ArrayList<>();
+        slotEntities = new ArrayList<>();
+        modules = new ArrayList<>();
+        potentialSlots = new int[INITIAL_CAPACITY];
+        potentialModules = new int[INITIAL_CAPACITY];
+        potentialValues = new double[INITIAL_CAPACITY];
+        finalSlots = new int[INITIAL_CAPACITY];
+        finalValues = new double[INITIAL_CAPACITY];
+        slotConcentrations = new double[0];
+        slotRead = new boolean[0];
+        slotPreviousConcentrations = new double[0];
         observed = false;
         concentrationFixed = false;
         currentConcentrations = initialConcentrations;
@@ -120,21 +206,44 @@ public class ConcentrationDeltaManager {
     }
 
     /**
-     * Returns all deltas that are going to be applied to this node.
+     * Returns all deltas that are going to be applied to this node. The deltas are created on request, modifying them
+     * does not affect the deltas that will be applied.
      *
      * @return All deltas that are going to be applied to this node.
      */
     public List<ConcentrationDelta> getFinalDeltas() {
-        return finalDeltas;
+        List<ConcentrationDelta> deltas = new ArrayList<>(finalSize);
+        for (int i = 0; i < finalSize; i++) {
+            deltas.add(createDelta(null, finalSlots[i], finalValues[i]));
+        }
+        return deltas;
     }
 
     /**
-     * Returns all potential deltas that should be applied.
+     * Returns true if there are deltas that are going to be applied to this node.
+     *
+     * @return True if there are deltas that are going to be applied to this node.
+     */
+    public boolean hasFinalDeltas() {
+        return finalSize > 0;
+    }
+
+    /**
+     * Returns all potential deltas that should be applied. The deltas are created on request, modifying them does not
+     * affect the deltas that will be applied.
      *
      * @return All potential deltas that should be applied.
      */
     public List<ConcentrationDelta> getPotentialDeltas() {
-        return potentialDeltas;
+        List<ConcentrationDelta> deltas = new ArrayList<>(potentialSize);
+        for (int i = 0; i < potentialSize; i++) {
+            deltas.add(createDelta(modules.get(potentialModules[i]), potentialSlots[i], potentialValues[i]));
+        }
+        return deltas;
+    }
+
+    private ConcentrationDelta createDelta(UpdateModule module, int slot, double value) {
+        return new ConcentrationDelta(module, slotSubsections.get(slot), slotEntities.get(slot), UnitRegistry.concentration(value));
     }
 
     /**
@@ -143,7 +252,65 @@ public class ConcentrationDeltaManager {
      * @param potentialDelta The potential delta.
      */
     public void addPotentialDelta(ConcentrationDelta potentialDelta) {
-        potentialDeltas.add(potentialDelta);
+        addPotentialDelta(potentialDelta.getModule(), potentialDelta.getCellSubsection(), potentialDelta.getChemicalEntity(),
+                potentialDelta.getQuantity().to(UnitRegistry.getConcentrationUnit()).getValue().doubleValue());
+    }
+
+    /**
+     * Adds a potential delta to this updatable.
+     *
+     * @param module The module, that calculated the delta.
+     * @param subsection The subsection the delta is applied to.
+     * @param entity The chemical entity the delta is applied to.
+     * @param value The change in concentration (in the current concentration unit).
+     */
+    public void addPotentialDelta(UpdateModule module, CellSubsection subsection, ChemicalEntity entity, double value) {
+        if (potentialSize == potentialSlots.length) {
+            int capacity = potentialSize * 2;
+            potentialSlots = Arrays.copyOf(potentialSlots, capacity);
+            potentialModules = Arrays.copyOf(potentialModules, capacity);
+            potentialValues = Arrays.copyOf(potentialValues, capacity);
+        }
+        potentialSlots[potentialSize] = getSlot(subsection, entity);
+        potentialModules[potentialSize] = getModuleIndex(module);
+        potentialValues[potentialSize] = value;
+        potentialSize++;
+    }
+
+    /**
+     * Returns the slot of the subsection and entity, assigning a new slot if necessary.
+     *
+     * @param subsection The subsection.
+     * @param entity The entity.
+     * @return The slot.
+     */
+    private int getSlot(CellSubsection subsection, ChemicalEntity entity) {
+        Map<ChemicalEntity, Integer> entitySlots = slots.computeIfAbsent(subsection, key -> new HashMap<>());
+        Integer slot = entitySlots.get(entity);
+        if (slot == null) {
+            slot = slotSubsections.size();
+            entitySlots.put(entity, slot);
+            slotSubsections.add(subsection);
+            slotEntities.add(entity);
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the index of the module, assigning a new index if necessary. Only few modules contribute deltas to each
+     * updatable, therefore modules are compared by identity in a list.
+     *
+     * @param module The module.
+     * @return The index.
+     */
+    private int getModuleIndex(UpdateModule module) {
+        for (int i = 0; i < modules.size(); i++) {
+            if (modules.get(i) == module) {
+                return i;
+            }
+        }
+        modules.add(module);
+        return modules.size() - 1;
     }
 
     /**
@@ -151,7 +318,7 @@ public class ConcentrationDeltaManager {
      * time step.
      */
     public void clearPotentialDeltas() {
-        potentialDeltas.clear();
+        potentialSize = 0;
     }
 
     /**
@@ -161,36 +328,122 @@ public class ConcentrationDeltaManager {
      * @param module The module.
      */
     public void clearPotentialDeltasBut(UpdateModule module) {
-        potentialDeltas.removeIf(delta -> delta.getModule() != module);
+        retainPotentialDeltas(modules.indexOf(module), true);
+    }
+
+    /**
+     * Clears all potential deltas of a specific module, retaining the updates from all other modules. Usually done
+     * after the module has been rejected and needs to be recalculated.
+     *
+     * @param module The module.
+     */
+    public void clearPotentialDeltas(UpdateModule module) {
+        int moduleIndex = modules.indexOf(module);
+        if (moduleIndex == -1) {
+            return;
+        }
+        retainPotentialDeltas(moduleIndex, false);
+    }
+
+    private void retainPotentialDeltas(int moduleIndex, boolean retainModule) {
+        int retained = 0;
+        for (int i = 0; i < potentialSize; i++) {
+            if ((potentialModules[i] == moduleIndex) == retainModule) {
+                potentialSlots[retained] = potentialSlots[i];
+                potentialModules[retained] = potentialModules[i];
+                potentialValues[retained] = potentialValues[i];
+                retained++;
+            }
+        }
+        potentialSize = retained;
+    }
+
+    /**
+     * Multiplies all potential deltas of a specific module with the given factor.
+     *
+     * @param module The module.
+     * @param factor The factor.
+     */
+    public void scalePotentialDeltas(UpdateModule module, double factor) {
+        int moduleIndex = modules.indexOf(module);
+        if (moduleIndex == -1) {
+            return;
+        }
+        for (int i = 0; i < potentialSize; i++) {
+            if (potentialModules[i] == moduleIndex) {
+                potentialValues[i] *= factor;
+            }
+        }
     }
 
     /**
      * Shifts the deltas from the potential delta list to the final delta list.
      */
     public void shiftDeltas() {
-        finalDeltas.addAll(potentialDeltas);
+        largestConcentrationChange = 0.0;
+        int requiredCapacity = finalSize + potentialSize;
+        if (requiredCapacity > finalSlots.length) {
+            int capacity = Math.max(requiredCapacity, finalSlots.length * 2);
+            finalSlots = Arrays.copyOf(finalSlots, capacity);
+            finalValues = Arrays.copyOf(finalValues, capacity);
+        }
+        System.arraycopy(potentialSlots, 0, finalSlots, finalSize, potentialSize);
+        System.arraycopy(potentialValues, 0, finalValues, finalSize, potentialSize);
+        finalSize = requiredCapacity;
         if (!observed) {
-            potentialDeltas.clear();
+            potentialSize = 0;
         }
     }
 
     /**
-     * Applies all final deltas and clears the delta list.
+     * Applies all final deltas and clears the delta list. The concentration of every affected slot is retrieved and
+     * set only once.
      */
     public void applyDeltas() {
-        if (!concentrationFixed) {
-            for (ConcentrationDelta delta : finalDeltas) {
-                Quantity<MolarConcentration> previousConcentration = currentConcentrations.get(delta.getCellSubsection(), delta.getChemicalEntity());
-                Quantity<MolarConcentration> updatedConcentration = previousConcentration.add(delta.getQuantity());
-                if (updatedConcentration.getValue().doubleValue() < 0.0) {
+        if (!concentrationFixed && finalSize > 0) {
+            int numberOfSlots = slotSubsections.size();
+            if (slotConcentrations.length < numberOfSlots) {
+                slotConcentrations = new double[numberOfSlots];
+                slotRead = new boolean[numberOfSlots];
+                slotPreviousConcentrations = new double[numberOfSlots];
+            }
+            Unit<MolarConcentration> concentrationUnit = UnitRegistry.getConcentrationUnit();
+            for (int i = 0; i < finalSize; i++) {
+                int slot = finalSlots[i];
+                if (!slotRead[slot]) {
+                    Quantity<MolarConcentration> previousConcentration = currentConcentrations.get(slotSubsections.get(slot), slotEntities.get(slot));
+                    slotConcentrations[slot] = previousConcentration.to(concentrationUnit).getValue().doubleValue();
+                    slotPreviousConcentrations[slot] = slotConcentrations[slot];
+                    slotRead[slot] = true;
+                }
+                double updatedConcentration = slotConcentrations[slot] + finalValues[i];
+                if (updatedConcentration < 0.0) {
                     // FIXME updated concentration should probably not be capped
                     // FIXME the the delta that resulted in the decrease probably had a corresponding increase
-                    updatedConcentration = Environment.emptyConcentration();
+                    updatedConcentration = 0.0;
+                }
+                slotConcentrations[slot] = updatedConcentration;
+            }
+            for (int slot = 0; slot < numberOfSlots; slot++) {
+                if (slotRead[slot]) {
+                    logger.trace("Setting c({}) in {} to {}", slotEntities.get(slot).getIdentifier(), slotSubsections.get(slot).getIdentifier(), slotConcentrations[slot]);
+                    currentConcentrations.set(slotSubsections.get(slot), slotEntities.get(slot), Quantities.getQuantity(slotConcentrations[slot], concentrationUnit));
+                    largestConcentrationChange = Math.max(largestConcentrationChange, Math.abs(slotConcentrations[slot] - slotPreviousConcentrations[slot]));
+                    slotRead[slot] = false;
                 }
-                logger.trace("Setting c({}) in {} from {} to {} ", delta.getChemicalEntity().getIdentifier(), delta.getCellSubsection().getIdentifier(), previousConcentration, updatedConcentration);
-                currentConcentrations.set(delta.getCellSubsection(), delta.getChemicalEntity(), updatedConcentration);
             }
         }
-        finalDeltas.clear();
+        finalSize = 0;
     }
+
+    /**
+     * Returns the largest absolute change of any concentration (in the current concentration unit of the
+     * {@link UnitRegistry}) caused by the deltas of the current epoch. The value is reset when deltas are shifted.
+     *
+     * @return The largest absolute concentration change.
+     */
+    public double getLargestConcentrationChange() {
+        return largestConcentrationChange;
+    }
+
 }
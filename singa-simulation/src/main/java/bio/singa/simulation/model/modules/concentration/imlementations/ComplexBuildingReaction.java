@@ -89,7 +89,7 @@ public class ComplexBuildingReaction extends ConcentrationBasedModule<UpdatableD
     public void initialize() {
         // apply
         // TODO apply condition ?
-        setApplicationCondition(updatable -> true);
+        setApplicationCondition(updatable -> true, true);
         // function
         // TODO apply condition this::containsReactants
         UpdatableDeltaFunction function = new UpdatableDeltaFunction(this::calculateDeltas, container -> true);
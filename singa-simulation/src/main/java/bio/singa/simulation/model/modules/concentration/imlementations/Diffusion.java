@@ -57,7 +57,7 @@ public class Diffusion extends ConcentrationBasedModule<EntityDeltaFunction> {
 
     private void initialize() {
         // apply
-        setApplicationCondition(updatable -> updatable instanceof AutomatonNode);
+        setApplicationCondition(updatable -> updatable instanceof AutomatonNode, true);
         // function
         EntityDeltaFunction function = new EntityDeltaFunction(this::calculateDelta, this::onlyForReferencedEntities);
         addDeltaFunction(function);
@@ -48,7 +48,7 @@ public class DynamicReaction extends ConcentrationBasedModule<UpdatableDeltaFunc
 
     public void initialize() {
         // apply
-        setApplicationCondition(updatable -> true);
+        setApplicationCondition(updatable -> true, true);
         // function
         UpdatableDeltaFunction function = new UpdatableDeltaFunction(this::calculateDeltas, container -> true);
         addDeltaFunction(function);
@@ -0,0 +1,438 @@
+package bio.singa.simulation.model.modules.concentration.imlementations;
+
+import bio.singa.chemistry.entities.ChemicalEntity;
+import bio.singa.chemistry.features.diffusivity.Diffusivity;
+import bio.singa.features.model.Feature;
+import bio.singa.features.model.ScalableFeature;
+import bio.singa.features.quantities.MolarConcentration;
+import bio.singa.mathematics.algorithms.matrix.ConjugateGradient;
+import bio.singa.mathematics.matrices.SparseMatrix;
+import bio.singa.simulation.features.Cargoes;
+import bio.singa.simulation.model.graphs.AutomatonNode;
+import bio.singa.simulation.model.modules.UpdateModule;
+import bio.singa.simulation.model.modules.concentration.ModuleState;
+import bio.singa.simulation.model.parameters.FeatureManager;
+import bio.singa.simulation.model.sections.CellSubsection;
+import bio.singa.simulation.model.simulation.Simulation;
+import bio.singa.simulation.model.simulation.Updatable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.measure.Quantity;
+import java.util.*;
+
+import static bio.singa.features.model.Evidence.MANUALLY_ANNOTATED;
+
+/**
+ * Implicit diffusion calculates the same diffusion process as {@link Diffusion}, but integrates it with the backward
+ * Euler method instead of explicit steps. The explicit method becomes unstable if the diffusivity (scaled to the time
+ * step and the size of the nodes) exceeds 1/(number of neighbours), which forces very small time steps for fast
+ * diffusing entities or fine graphs, such as the graphs created by
+ * {@link bio.singa.simulation.model.graphs.AutomatonGraphs#createRectangularAutomatonGraph(int, int)}. The backward
+ * Euler method is L-stable, i.e. steep gradients are damped instead of oscillating for large time steps, and since
+ * (I - D L) is an M-matrix, concentrations never become negative. It is only first order accurate in time, this
+ * module does not contribute a local error and does not require the time step to be decreased. The accuracy of
+ * transients is therefore determined by the other modules and the maximal time step.
+ * <p>
+ * For each subsection and entity the discrete Laplacian of all updated nodes, that contain the subsection, is
+ * assembled as a {@link SparseMatrix} following the same rules as {@link Diffusion} (including entities anchored to
+ * membranes and neighbours without concentration of the entity, that are skipped). Nodes with fixed concentrations
+ * and nodes that are not updated in the current epoch (see
+ * {@link bio.singa.simulation.model.graphs.AutomatonGraph#setActivityTracking(boolean)}) form the boundary of the
+ * system and keep their concentrations. The resulting linear system
+ * <pre>
+ *     (I - D L) c(t+dt) = c(t) + D b </pre>
+ * is solved by the {@link ConjugateGradient} method (or BiCGSTAB for membrane anchored entities, where L is not
+ * symmetric) and the difference to the current concentrations is added as a delta. The Laplacian of a subsection is
+ * only assembled once per epoch and shared by all entities with the same anchoring, that are present in all nodes.
+ * <pre>
+ *  ImplicitDiffusion diffusion = ImplicitDiffusion.inSimulation(simulation)
+ *         .identifier("ammonia diffusion")
+ *         .onlyFor(ammonia)
+ *         .build(); </pre>
+ *
+ * @author cl
+ */
+public class ImplicitDiffusion implements UpdateModule {
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ImplicitDiffusion.class);
+
+    private Simulation simulation;
+    private String identifier;
+    private FeatureManager featureManager;
+    private ModuleState state;
+    private Set<ChemicalEntity> referencedEntities;
+
+    /**
+     * The number of solver iterations in the last epoch.
+     */
+    private int iterations;
+
+    private ImplicitDiffusion() {
+        featureManager = new FeatureManager();
+        referencedEntities = new HashSet<>();
+        state = ModuleState.PENDING;
+    }
+
+    public static SelectionStep inSimulation(Simulation simulation) {
+        return new ImplicitDiffusionBuilder(simulation);
+    }
+
+    private void initialize() {
+        getRequiredFeatures().add(Diffusivity.class);
+        referencedEntities.addAll(featureManager.getFeature(Cargoes.class).getFeatureContent());
+        simulation.getModules().add(this);
+        for (ChemicalEntity chemicalEntity : referencedEntities) {
+            simulation.addReferencedEntity(chemicalEntity);
+        }
+    }
+
+    @Override
+    public void calculateUpdates() {
+        iterations = 0;
+        // collect updated nodes per subsection
+        Map<CellSubsection, List<AutomatonNode>> subsectionNodes = new HashMap<>();
+        for (Updatable updatable : simulation.getUpdatables()) {
+            if (updatable instanceof AutomatonNode) {
+                AutomatonNode node = (AutomatonNode) updatable;
+                if (node.isConcentrationFixed()) {
+                    continue;
+                }
+                for (CellSubsection subsection : node.getConcentrationContainer().getReferencedSubSections()) {
+                    subsectionNodes.computeIfAbsent(subsection, key -> new ArrayList<>()).add(node);
+                }
+            }
+        }
+        for (Map.Entry<CellSubsection, List<AutomatonNode>> entry : subsectionNodes.entrySet()) {
+            CellSubsection subsection = entry.getKey();
+            List<AutomatonNode> nodes = entry.getValue();
+            DiffusionSystem freeSystem = null;
+            DiffusionSystem anchoredSystem = null;
+            for (ChemicalEntity entity : referencedEntities) {
+                if (entity.isMembraneAnchored()) {
+                    if (anchoredSystem == null) {
+                        anchoredSystem = new DiffusionSystem(subsection, nodes, true, null);
+                    }
+                    solve(anchoredSystem, entity);
+                } else {
+                    if (freeSystem == null) {
+                        freeSystem = new DiffusionSystem(subsection, nodes, false, null);
+                    }
+                    solve(freeSystem, entity);
+                }
+            }
+        }
+        logger.debug("Solved implicit diffusion with {} iterations.", iterations);
+        state = ModuleState.SUCCEEDED;
+    }
+
+    /**
+     * Solves the backward Euler step for the given entity and adds the resulting deltas to the nodes.
+     *
+     * @param system The system.
+     * @param entity The entity.
+     */
+    private void solve(DiffusionSystem system, ChemicalEntity entity) {
+        if (system.entity == null && system.lacksConcentrationOf(entity)) {
+            // the shared system assumes, that every node has a concentration of the entity
+            system = new DiffusionSystem(system.subsection, system.nodes, system.anchored, entity);
+        }
+        final double diffusivity = entity.getFeature(Diffusivity.class).getScaledQuantity().getValue().doubleValue();
+        int size = system.nodes.size();
+        double[] concentrations = new double[size];
+        double[] boundary = new double[size];
+        for (int i = 0; i < size; i++) {
+            concentrations[i] = getConcentration(system.nodes.get(i), system.subsection, entity);
+            for (AutomatonNode boundaryNode : system.boundaryNodes.get(i)) {
+                boundary[i] += getConcentration(boundaryNode, system.subsection, entity);
+            }
+        }
+        // the current flux L c + b vanishes in equilibrium
+        double[] flux = new double[size];
+        system.laplacian.multiply(concentrations, flux);
+        boolean anyChange = false;
+        // right hand side c + D b
+        double[] rightHandSide = new double[size];
+        for (int i = 0; i < size; i++) {
+            anyChange |= flux[i] + boundary[i] != 0.0;
+            rightHandSide[i] = concentrations[i] + diffusivity * boundary[i];
+        }
+        if (!anyChange) {
+            // equilibrium
+            return;
+        }
+        // left hand side (I - D L)
+        SparseMatrix matrix = system.laplacian.shift(1.0, -diffusivity);
+        double[] nextConcentrations = Arrays.copyOf(concentrations, size);
+        if (system.anchored) {
+            iterations += ConjugateGradient.solveGeneral(matrix, rightHandSide, nextConcentrations, ConjugateGradient.DEFAULT_TOLERANCE, size * 2);
+        } else {
+            iterations += ConjugateGradient.solveSymmetric(matrix, rightHandSide, nextConcentrations, ConjugateGradient.DEFAULT_TOLERANCE, size * 2);
+        }
+        for (int i = 0; i < size; i++) {
+            double delta = nextConcentrations[i] - concentrations[i];
+            if (delta != 0.0) {
+                system.nodes.get(i).getUpdateManager().addPotentialDelta(this, system.subsection, entity, delta);
+            }
+        }
+    }
+
+    private static double getConcentration(AutomatonNode node, CellSubsection subsection, ChemicalEntity entity) {
+        Quantity<MolarConcentration> concentration = node.getConcentrationContainer().get(subsection, entity);
+        return concentration == null ? 0.0 : concentration.getValue().doubleValue();
+    }
+
+    /**
+     * Returns the number of iterations the linear solver required in the last calculation.
+     *
+     * @return The number of iterations.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    @Override
+    public ModuleState getState() {
+        return state;
+    }
+
+    @Override
+    public void resetState() {
+        state = ModuleState.PENDING;
+    }
+
+    @Override
+    public void optimizeTimeStep() {
+        // implicit integration does not constrain the time step
+    }
+
+    @Override
+    public void scaleScalableFeatures() {
+        featureManager.scaleScalableFeatures();
+    }
+
+    @Override
+    public Set<Class<? extends Feature>> getRequiredFeatures() {
+        return featureManager.getRequiredFeatures();
+    }
+
+    @Override
+    public <FeatureContentType extends Quantity<FeatureContentType>> Quantity<FeatureContentType> getScaledFeature(Class<? extends ScalableFeature<FeatureContentType>> featureClass) {
+        return featureManager.getFeature(featureClass).getScaledQuantity();
+    }
+
+    public <FeatureType extends Feature> FeatureType getFeature(Class<FeatureType> featureTypeClass) {
+        return featureManager.getFeature(featureTypeClass);
+    }
+
+    @Override
+    public Collection<Feature<?>> getFeatures() {
+        return featureManager.getAllFeatures();
+    }
+
+    @Override
+    public void setFeature(Feature<?> feature) {
+        featureManager.setFeature(feature);
+    }
+
+    @Override
+    public Set<ChemicalEntity> getReferencedEntities() {
+        return referencedEntities;
+    }
+
+    @Override
+    public void checkFeatures() {
+        for (Class<? extends Feature> featureClass : getRequiredFeatures()) {
+            for (ChemicalEntity chemicalEntity : referencedEntities) {
+                if (!chemicalEntity.hasFeature(featureClass)) {
+                    chemicalEntity.setFeature(featureClass);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public void setIdentifier(String identifier) {
+        this.identifier = identifier;
+    }
+
+    @Override
+    public void onReset() {
+
+    }
+
+    @Override
+    public void onCompletion() {
+
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + (identifier != null ? " (" + identifier + ")" : "");
+    }
+
+    /**
+     * The discrete Laplacian of the nodes, that contain a subsection, for unit diffusivity. The concentrations of
+     * neighbours, that are not part of the system, are considered as constant boundary. If the system is specific to
+     * an entity, nodes without concentration of the entity are neither updated nor considered as neighbours.
+     */
+    private static class DiffusionSystem {
+
+        private final CellSubsection subsection;
+        private final List<AutomatonNode> nodes;
+        private final boolean anchored;
+        private final ChemicalEntity entity;
+        private final List<List<AutomatonNode>> boundaryNodes;
+        private final SparseMatrix laplacian;
+
+        /**
+         * Assembles the system.
+         *
+         * @param subsection The subsection.
+         * @param nodes The updated nodes, that contain the subsection.
+         * @param anchored True if the system is assembled for membrane anchored entities.
+         * @param entity The entity, whose missing concentrations are skipped, or null if the system is shared.
+         */
+        DiffusionSystem(CellSubsection subsection, List<AutomatonNode> nodes, boolean anchored, ChemicalEntity entity) {
+            this.subsection = subsection;
+            this.anchored = anchored;
+            this.entity = entity;
+            if (entity != null) {
+                List<AutomatonNode> nodesWithConcentration = new ArrayList<>(nodes.size());
+                for (AutomatonNode node : nodes) {
+                    if (hasConcentration(node)) {
+                        nodesWithConcentration.add(node);
+                    }
+                }
+                nodes = nodesWithConcentration;
+            }
+            this.nodes = nodes;
+            boundaryNodes = new ArrayList<>(nodes.size());
+            Map<AutomatonNode, Integer> indices = new HashMap<>();
+            for (int i = 0; i < nodes.size(); i++) {
+                indices.put(nodes.get(i), i);
+            }
+            SparseMatrix.Builder builder = new SparseMatrix.Builder(nodes.size());
+            for (int row = 0; row < nodes.size(); row++) {
+                AutomatonNode node = nodes.get(row);
+                List<AutomatonNode> boundary = new ArrayList<>();
+                int leavingNeighbours = 0;
+                for (AutomatonNode neighbour : node.getNeighbours()) {
+                    if (!neighbour.getConcentrationContainer().getReferencedSubSections().contains(subsection)) {
+                        continue;
+                    }
+                    boolean nodeIsMembrane = node.getCellRegion().hasMembrane();
+                    boolean neighbourIsMembrane = neighbour.getCellRegion().hasMembrane();
+                    // same rules as the explicit diffusion
+                    boolean classical = !anchored || nodeIsMembrane == neighbourIsMembrane;
+                    boolean entering = classical || nodeIsMembrane;
+                    boolean leaving = classical || neighbourIsMembrane;
+                    if (!hasConcentration(neighbour)) {
+                        // nothing enters from neighbours without concentration, classical neighbours are skipped
+                        entering = false;
+                        leaving = leaving && !classical;
+                    }
+                    if (leaving) {
+                        leavingNeighbours++;
+                    }
+                    if (entering) {
+                        Integer column = indices.get(neighbour);
+                        if (column != null) {
+                            builder.add(row, column, 1.0);
+                        } else {
+                            boundary.add(neighbour);
+                        }
+                    }
+                }
+                // the diagonal is always stored to be shifted
+                builder.add(row, row, -leavingNeighbours);
+                boundaryNodes.add(boundary);
+            }
+            laplacian = builder.build();
+        }
+
+        private boolean hasConcentration(AutomatonNode node) {
+            return entity == null || node.getConcentrationContainer().get(subsection, entity) != null;
+        }
+
+        /**
+         * Returns true if any node of the system or its boundary has no concentration of the given entity.
+         *
+         * @param entity The entity.
+         * @return True if any concentration is missing.
+         */
+        boolean lacksConcentrationOf(ChemicalEntity entity) {
+            for (int i = 0; i < nodes.size(); i++) {
+                if (nodes.get(i).getConcentrationContainer().get(subsection, entity) == null) {
+                    return true;
+                }
+                for (AutomatonNode boundaryNode : boundaryNodes.get(i)) {
+                    if (boundaryNode.getConcentrationContainer().get(subsection, entity) == null) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+    }
+
+    public interface SelectionStep {
+        SelectionStep identifier(String identifier);
+
+        BuildStep onlyFor(ChemicalEntity chemicalEntity);
+
+        BuildStep forAll(ChemicalEntity... chemicalEntities);
+
+        BuildStep forAll(Collection<ChemicalEntity> chemicalEntities);
+
+    }
+
+    public interface BuildStep {
+        ImplicitDiffusion build();
+    }
+
+    public static class ImplicitDiffusionBuilder implements SelectionStep, BuildStep {
+
+        private ImplicitDiffusion module;
+
+        public ImplicitDiffusionBuilder(Simulation simulation) {
+            module = new ImplicitDiffusion();
+            module.simulation = simulation;
+        }
+
+        public ImplicitDiffusionBuilder identifier(String identifier) {
+            module.setIdentifier(identifier);
+            return this;
+        }
+
+        public BuildStep onlyFor(ChemicalEntity chemicalEntity) {
+            module.setFeature(new Cargoes(Collections.singleton(chemicalEntity), MANUALLY_ANNOTATED));
+            return this;
+        }
+
+        public BuildStep forAll(ChemicalEntity... chemicalEntities) {
+            module.setFeature(new Cargoes(new HashSet<>(Arrays.asList(chemicalEntities)), MANUALLY_ANNOTATED));
+            return this;
+        }
+
+        public BuildStep forAll(Collection<ChemicalEntity> chemicalEntities) {
+            module.setFeature(new Cargoes(new HashSet<>(chemicalEntities), MANUALLY_ANNOTATED));
+            return this;
+        }
+
+        public ImplicitDiffusion build() {
+            module.initialize();
+            return module;
+        }
+
+    }
+
+}
@@ -35,7 +35,7 @@ public class MichaelisMentenReaction extends Reaction {
     @Override
     public void initialize() {
         // apply
-        setApplicationCondition(updatable -> true);
+        setApplicationCondition(updatable -> true, true);
         // function
         SectionDeltaFunction function = new SectionDeltaFunction(this::calculateDeltas, container -> true);
         addDeltaFunction(function);
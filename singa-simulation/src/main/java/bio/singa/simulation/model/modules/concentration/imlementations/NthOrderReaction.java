@@ -32,7 +32,7 @@ public class NthOrderReaction extends Reaction {
     @Override
     public void initialize() {
         // apply
-        setApplicationCondition(this::substratesAvailable);
+        setApplicationCondition(this::substratesAvailable, false);
         // function
         SectionDeltaFunction function = new SectionDeltaFunction(this::calculateDeltas, this::containsSubstrate);
         addDeltaFunction(function);
@@ -54,6 +54,17 @@ public class NthOrderReaction extends Reaction {
     }
 
 
+    /**
+     * Returns true if the reaction is of zero order, since the velocity of zero order reactions does not depend on
+     * any concentration.
+     *
+     * @return True if the deltas are proportional to the time step.
+     */
+    @Override
+    public boolean isLinearInTimeStep() {
+        return super.isLinearInTimeStep() || getRateConstant() instanceof ZeroOrderRateConstant;
+    }
+
     @Override
     public double calculateVelocity(ConcentrationContainer concentrationContainer) {
         Quantity scaledReactionRate = getScaledReactionRate();
@@ -77,7 +88,7 @@ public class NthOrderReaction extends Reaction {
         throw new FeatureUnassignableException("Required reaction rate unavailable.");
     }
 
-    private Quantity getScaledReactionRate() {
+    private RateConstant getRateConstant() {
         if (rateConstant == null) {
             for (Feature<?> feature : getFeatures()) {
                 // any forwards rate constant
@@ -87,10 +98,14 @@ public class NthOrderReaction extends Reaction {
                 }
             }
         }
+        return rateConstant;
+    }
+
+    private Quantity getScaledReactionRate() {
         if (supplier.isStrutCalculation()) {
-            return rateConstant.getHalfScaledQuantity();
+            return getRateConstant().getHalfScaledQuantity();
         }
-        return rateConstant.getScaledQuantity();
+        return getRateConstant().getScaledQuantity();
     }
 
     public static ModuleBuilder getBuilder(Simulation simulation) {
@@ -71,7 +71,7 @@ public class ReversibleReaction extends Reaction {
     @Override
     public void initialize() {
         // apply
-        setApplicationCondition(updatable -> true);
+        setApplicationCondition(updatable -> true, true);
         // function
         SectionDeltaFunction function = new SectionDeltaFunction(this::calculateDeltas, container -> true);
         addDeltaFunction(function);
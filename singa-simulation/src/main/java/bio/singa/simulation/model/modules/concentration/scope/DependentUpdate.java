@@ -62,10 +62,8 @@ public class DependentUpdate implements UpdateScope {
         // calculate all full updates first
         supply().setStrutCalculation(false);
         for (Updatable updatable : updatables) {
-            if (module.getApplicationCondition().test(updatable)) {
-                supply().setCurrentUpdatable(updatable);
-                specify().processContainer(updatable.getConcentrationContainer());
-            }
+            supply().setCurrentUpdatable(updatable);
+            specify().processContainer(updatable.getConcentrationContainer());
         }
         // explicitly calculate half step concentrations
         determineHalfStepConcentrations();
@@ -83,12 +81,12 @@ public class DependentUpdate implements UpdateScope {
 
     @Override
     public void processUpdatable(Updatable updatable) {
-        processAllUpdatables(module.getSimulation().getUpdatables());
+        processAllUpdatables(module.getApplicableUpdatables());
     }
 
     @Override
     public void clearPotentialDeltas(Updatable updatable) {
-        module.getSimulation().getUpdatables().forEach(Updatable::clearPotentialConcentrationDeltas);
+        module.getSimulation().getUpdatables().forEach(currentUpdatable -> currentUpdatable.clearPotentialDeltas(module));
     }
 
     /**
@@ -61,10 +61,8 @@ public class IndependentUpdate implements UpdateScope {
     public void processAllUpdatables(Collection<Updatable> updatables) {
         // for each updatable
         for (Updatable updatable : updatables) {
-            if (module.getApplicationCondition().test(updatable)) {
-                supply().setCurrentUpdatable(updatable);
-                processUpdatable(updatable);
-            }
+            supply().setCurrentUpdatable(updatable);
+            processUpdatable(updatable);
         }
     }
 
@@ -87,7 +85,7 @@ public class IndependentUpdate implements UpdateScope {
 
     @Override
     public void clearPotentialDeltas(Updatable updatable) {
-        module.getSimulation().getUpdatables().forEach(Updatable::clearPotentialConcentrationDeltas);
+        updatable.clearPotentialDeltas(module);
     }
 
     /**
@@ -68,10 +68,8 @@ public class SemiDependentUpdate implements UpdateScope {
     public void processAllUpdatables(Collection<Updatable> updatables) {
         // for each updatable
         for (Updatable updatable : updatables) {
-            if (module.getApplicationCondition().test(updatable)) {
-                supply().setCurrentUpdatable(updatable);
-                processUpdatable(updatable);
-            }
+            supply().setCurrentUpdatable(updatable);
+            processUpdatable(updatable);
         }
     }
 
@@ -97,7 +95,7 @@ public class SemiDependentUpdate implements UpdateScope {
 
     @Override
     public void clearPotentialDeltas(Updatable updatable) {
-        module.getSimulation().getUpdatables().forEach(Updatable::clearPotentialConcentrationDeltas);
+        module.getSimulation().getUpdatables().forEach(currentUpdatable -> currentUpdatable.clearPotentialDeltas(module));
     }
 
     /**
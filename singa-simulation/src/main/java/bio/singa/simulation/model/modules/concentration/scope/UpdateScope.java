@@ -22,6 +22,7 @@ public interface UpdateScope {
     /**
      * Processes all given updatables. This includes calculating the delta functions of the corresponding module,
      * calculating the current numerical error and pushing potential Deltas to the updatables, ready to be applied.
+     * The updatables are required to fulfill the application condition of the module.
      * @param updatables The updatables to be processed.
      */
     void processAllUpdatables(Collection<Updatable> updatables);
@@ -34,7 +35,7 @@ public interface UpdateScope {
     void processUpdatable(Updatable updatable);
 
     /**
-     * Clears all concentration deltas that may be assigned to the given updatable.
+     * Clears all concentration deltas of the module, that may have been influenced by the given updatable.
      * @param updatable The updatable.
      */
     void clearPotentialDeltas(Updatable updatable);
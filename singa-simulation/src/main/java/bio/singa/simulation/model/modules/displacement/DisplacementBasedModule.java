@@ -5,8 +5,9 @@ import bio.singa.features.model.Feature;
 import bio.singa.features.model.ScalableFeature;
 import bio.singa.features.parameters.Environment;
 import bio.singa.features.units.UnitRegistry;
-import bio.singa.mathematics.vectors.Vector2D;
+import bio.singa.mathematics.vectors.Vectors;
 import bio.singa.simulation.model.agents.pointlike.Vesicle;
+import bio.singa.simulation.model.agents.pointlike.VesicleLayer;
 import bio.singa.simulation.model.modules.UpdateModule;
 import bio.singa.simulation.model.modules.concentration.ModuleState;
 import bio.singa.simulation.model.parameters.FeatureManager;
@@ -19,8 +20,25 @@ import javax.measure.Quantity;
 import java.util.*;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
 
 /**
+ * Displacement based modules calculate the movement of {@link Vesicle}s. Each module registers delta functions, that
+ * are applied to every vesicle fulfilling the corresponding predicate. If the displacement of any vesicle exceeds the
+ * displacement cutoff, the time step is decreased and the displacements are calculated again. The displacement cutoff
+ * of the module is checked while the deltas are added. The displacement epsilon of the {@link VesicleLayer} is checked
+ * against the total displacement of each vesicle, once all modules added their deltas.
+ * <p>
+ * Modules describing Brownian motion (displacements drawn from a two dimensional normal distribution with a vesicle
+ * specific standard deviation) register their function with {@link #addBrownianFunction(ToDoubleFunction, Predicate)}.
+ * Those displacements can be calculated in a batched mode (see {@link #setBatched(boolean)}), where the standard
+ * deviations of all vesicles are collected into primitive arrays and the random displacements are generated in
+ * parallel chunks of vesicles. Each chunk draws from its own {@link SplittableRandom} stream, that is split from a
+ * seeded stream of the module, such that results are reproducible for a given seed independent of the number of
+ * threads. The components of the displacements are passed to the vesicles as primitives, without creating
+ * {@link DisplacementDelta}s.
+ *
  * @author cl
  */
 public class DisplacementBasedModule implements UpdateModule {
@@ -32,6 +50,11 @@ public class DisplacementBasedModule implements UpdateModule {
 
     private static final double DEFAULT_DISPLACEMENT_CUTOFF_FACTOR = 1.0/10.0;
 
+    /**
+     * The number of vesicles processed by a single task in batched mode.
+     */
+    private static final int CHUNK_SIZE = 1024;
+
     /**
      * The simulation.
      */
@@ -51,6 +74,16 @@ public class DisplacementBasedModule implements UpdateModule {
     private double displacementCutoffFactor = DEFAULT_DISPLACEMENT_CUTOFF_FACTOR;
     private double displacementCutoff;
 
+    /**
+     * The delta function for Brownian motion, that is replaced in batched mode.
+     */
+    private Function<Vesicle, DisplacementDelta> brownianFunction;
+    private ToDoubleFunction<Vesicle> brownianDeviation;
+    private Predicate<Vesicle> brownianCondition;
+
+    private boolean batched;
+    private SplittableRandom random;
+
     public DisplacementBasedModule() {
         deltaFunctions = new HashMap<>();
         displacementCutoff = Environment.convertSystemToSimulationScale(UnitRegistry.getSpace().multiply(displacementCutoffFactor));
@@ -67,29 +100,159 @@ public class DisplacementBasedModule implements UpdateModule {
         deltaFunctions.put(deltaFunction, predicate);
     }
 
+    /**
+     * Adds a delta function for Brownian motion. The displacement in each dimension is normally distributed with the
+     * given standard deviation (in simulation scale).
+     *
+     * @param standardDeviation The standard deviation of the displacement of a vesicle.
+     * @param predicate The predicate, vesicles need to fulfill to be displaced.
+     */
+    protected void addBrownianFunction(ToDoubleFunction<Vesicle> standardDeviation, Predicate<Vesicle> predicate) {
+        brownianDeviation = standardDeviation;
+        brownianCondition = predicate;
+        brownianFunction = vesicle -> new DisplacementDelta(this, Vectors.generateStandardGaussian2DVector().multiply(standardDeviation.applyAsDouble(vesicle)));
+        addDeltaFunction(brownianFunction, predicate);
+    }
+
+    /**
+     * Returns true if Brownian displacements are calculated in batched mode.
+     *
+     * @return True if Brownian displacements are calculated in batched mode.
+     */
+    public boolean isBatched() {
+        return batched;
+    }
+
+    /**
+     * Enables or disables the batched calculation of Brownian displacements. If no seed has been set, a random seed is
+     * used.
+     *
+     * @param batched True if Brownian displacements should be calculated in batched mode.
+     */
+    public void setBatched(boolean batched) {
+        this.batched = batched;
+        if (batched && random == null) {
+            random = new SplittableRandom();
+        }
+    }
+
+    /**
+     * Sets the seed for the random streams used in batched mode.
+     *
+     * @param seed The seed.
+     */
+    public void setSeed(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
     @Override
     public void calculateUpdates() {
-        processAllVesicles(simulation.getVesicleLayer().getVesicles());
-        evaluateModuleState();
+        List<Vesicle> vesicles = simulation.getVesicleLayer().getVesicles();
+        boolean valid = true;
+        boolean brownianBatched = batched && brownianFunction != null;
+        if (brownianBatched) {
+            valid = processBrownianBatch(vesicles);
+        }
+        if (!brownianBatched || deltaFunctions.size() > 1) {
+            valid &= processAllVesicles(vesicles);
+        }
+        state = valid ? ModuleState.SUCCEEDED : ModuleState.REQUIRING_RECALCULATION;
     }
 
-    public void processAllVesicles(List<Vesicle> vesicles) {
+    /**
+     * Calculates the Brownian displacements of all vesicles in parallel chunks.
+     *
+     * @param vesicles The vesicles.
+     * @return True if no displacement exceeds the displacement cutoff.
+     */
+    private boolean processBrownianBatch(List<Vesicle> vesicles) {
+        // collect vesicles and standard deviations (features are not accessed concurrently)
+        Vesicle[] selectedVesicles = new Vesicle[vesicles.size()];
+        double[] deviations = new double[vesicles.size()];
+        int size = 0;
+        for (Vesicle vesicle : vesicles) {
+            if (brownianCondition.test(vesicle)) {
+                selectedVesicles[size] = vesicle;
+                deviations[size] = brownianDeviation.applyAsDouble(vesicle);
+                size++;
+            }
+        }
+        if (size == 0) {
+            return true;
+        }
+        final int numberOfVesicles = size;
+        int numberOfChunks = (numberOfVesicles + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        // split streams in a fixed order to be reproducible
+        SplittableRandom[] streams = new SplittableRandom[numberOfChunks];
+        for (int chunk = 0; chunk < numberOfChunks; chunk++) {
+            streams[chunk] = random.split();
+        }
+        double squaredCutoff = displacementCutoff * displacementCutoff;
+        IntStream chunks = IntStream.range(0, numberOfChunks);
+        if (numberOfChunks > 1) {
+            chunks = chunks.parallel();
+        }
+        return chunks.allMatch(chunk -> {
+            SplittableRandom stream = streams[chunk];
+            int end = Math.min(numberOfVesicles, (chunk + 1) * CHUNK_SIZE);
+            boolean valid = true;
+            for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+                // Box-Muller transform provides both dimensions
+                double radius = Math.sqrt(-2.0 * Math.log(1.0 - stream.nextDouble())) * deviations[i];
+                double angle = 2.0 * Math.PI * stream.nextDouble();
+                double x = radius * Math.cos(angle);
+                double y = radius * Math.sin(angle);
+                selectedVesicles[i].addPotentialSpatialDelta(this, x, y);
+                if (x * x + y * y > squaredCutoff) {
+                    valid = false;
+                }
+            }
+            return valid;
+        });
+    }
+
+    /**
+     * Determines the deltas of all vesicles.
+     *
+     * @param vesicles The vesicles.
+     * @return True if no displacement exceeds the displacement cutoff.
+     */
+    public boolean processAllVesicles(List<Vesicle> vesicles) {
+        boolean valid = true;
         // determine deltas
         for (Vesicle vesicle : vesicles) {
             logger.trace("Determining delta for {}.", vesicle.getStringIdentifier());
-            determineDeltas(vesicle);
+            valid &= determineDeltas(vesicle);
         }
+        return valid;
     }
 
-    public void determineDeltas(Vesicle vesicle) {
+    /**
+     * Determines the deltas of the vesicle.
+     *
+     * @param vesicle The vesicle.
+     * @return True if no displacement exceeds the displacement cutoff.
+     */
+    public boolean determineDeltas(Vesicle vesicle) {
+        boolean valid = true;
         for (Map.Entry<Function<Vesicle, DisplacementDelta>, Predicate<Vesicle>> entry : deltaFunctions.entrySet()) {
+            if (batched && entry.getKey() == brownianFunction) {
+                // calculated in batch
+                continue;
+            }
             // test predicate
             if (entry.getValue().test(vesicle)) {
                 DisplacementDelta spatialDelta = entry.getKey().apply(vesicle);
                 logDelta(vesicle, spatialDelta);
                 vesicle.addPotentialSpatialDelta(spatialDelta);
+                double length = spatialDelta.getDeltaVector().getMagnitude();
+                if (length > displacementCutoff) {
+                    logger.trace("Recalculation required for module {} displacement magnitude {} exceeding threshold {}.", this, length, displacementCutoff);
+                    valid = false;
+                }
             }
         }
+        return valid;
     }
 
     private void logDelta(Vesicle vesicle, DisplacementDelta delta) {
@@ -153,27 +316,12 @@ public class DisplacementBasedModule implements UpdateModule {
     @Override
     public void optimizeTimeStep() {
         while (state == ModuleState.REQUIRING_RECALCULATION) {
-            simulation.getVesicleLayer().clearUpdates();
+            simulation.getVesicleLayer().clearDisplacementUpdates();
             updateScheduler.decreaseTimeStep();
             calculateUpdates();
         }
     }
 
-    protected void evaluateModuleState() {
-        for (Vesicle vesicle : simulation.getVesicleLayer().getVesicles()) {
-            if (vesicle.getSpatialDelta(this) != null) {
-                Vector2D displacement = vesicle.getSpatialDelta(this).getDeltaVector();
-                double length = displacement.getMagnitude();
-                if (length > displacementCutoff) {
-                    logger.trace("Recalculation required for module {} displacement magnitude {} exceeding threshold.", this, length, displacementCutoff);
-                    state = ModuleState.REQUIRING_RECALCULATION;
-                    return;
-                }
-            }
-        }
-        state = ModuleState.SUCCEEDED;
-    }
-
     @Override
     public void checkFeatures() {
         for (Class<? extends Feature> featureClass : getRequiredFeatures()) {
@@ -5,11 +5,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * The DisplacementDeltaManager handles the current position an updatable amd the updates to this position during
- * simulation.
+ * simulation. The components of the potential deltas are stored in primitive arrays, that are reused between epochs,
+ * and the total displacement is accumulated while the deltas are added. {@link DisplacementDelta}s are only created
+ * if they are requested.
  *
  * @author cl
  */
@@ -20,10 +23,37 @@ public class DisplacementDeltaManager {
      */
     private static final Logger logger = LoggerFactory.getLogger(DisplacementDeltaManager.class);
 
+    private static final int INITIAL_CAPACITY = 4;
+
+    /**
+     * The modules, that calculated the potential deltas.
+     */
+    private DisplacementBasedModule[] modules;
+
+    /**
+     * The x components of the potential deltas.
+     */
+    private double[] deltaX;
+
     /**
-     * The list of potential deltas.
+     * The y components of the potential deltas.
      */
-    private List<DisplacementDelta> potentialSpatialDeltas;
+    private double[] deltaY;
+
+    /**
+     * The number of potential deltas.
+     */
+    private int size;
+
+    /**
+     * The x component of the total displacement.
+     */
+    private double totalX;
+
+    /**
+     * The y component of the total displacement.
+     */
+    private double totalY;
 
     /**
      * The current position.
@@ -43,7 +73,9 @@ public class DisplacementDeltaManager {
     public DisplacementDeltaManager(Vector2D initialPosition) {
         currentPosition = initialPosition;
         nextPosition = initialPosition;
-        potentialSpatialDeltas = new ArrayList<>();
+        modules = new DisplacementBasedModule[INITIAL_CAPACITY];
+        deltaX = new double[INITIAL_CAPACITY];
+        deltaY = new double[INITIAL_CAPACITY];
     }
 
     /**
@@ -61,7 +93,11 @@ public class DisplacementDeltaManager {
      * @return The current displacement deltas.
      */
     public List<DisplacementDelta> getPotentialDisplacementDeltas() {
-        return potentialSpatialDeltas;
+        List<DisplacementDelta> deltas = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            deltas.add(new DisplacementDelta(modules[i], new Vector2D(deltaX[i], deltaY[i])));
+        }
+        return deltas;
     }
 
     /**
@@ -70,9 +106,9 @@ public class DisplacementDeltaManager {
      * @return The displacement delta.
      */
     public DisplacementDelta getPotentialDisplacementDelta(DisplacementBasedModule module) {
-        for (DisplacementDelta potentialSpatialDelta : potentialSpatialDeltas) {
-            if (potentialSpatialDelta.getModule().equals(module)) {
-                return potentialSpatialDelta;
+        for (int i = 0; i < size; i++) {
+            if (modules[i].equals(module)) {
+                return new DisplacementDelta(modules[i], new Vector2D(deltaX[i], deltaY[i]));
             }
         }
         return null;
@@ -83,14 +119,45 @@ public class DisplacementDeltaManager {
      * @param delta The displacement delta.
      */
     public void addPotentialDisplacementDelta(DisplacementDelta delta) {
-        potentialSpatialDeltas.add(delta);
+        addPotentialDisplacement(delta.getModule(), delta.getDeltaVector().getX(), delta.getDeltaVector().getY());
+    }
+
+    /**
+     * Adds a displacement delta given by its components.
+     * @param module The module, that calculated the delta.
+     * @param x The x component of the delta.
+     * @param y The y component of the delta.
+     */
+    public void addPotentialDisplacement(DisplacementBasedModule module, double x, double y) {
+        if (size == modules.length) {
+            modules = Arrays.copyOf(modules, size * 2);
+            deltaX = Arrays.copyOf(deltaX, size * 2);
+            deltaY = Arrays.copyOf(deltaY, size * 2);
+        }
+        modules[size] = module;
+        deltaX[size] = x;
+        deltaY[size] = y;
+        size++;
+        totalX += x;
+        totalY += y;
+    }
+
+    /**
+     * Returns the squared magnitude of the total displacement resulting from the potential deltas.
+     * @return The squared magnitude of the total displacement.
+     */
+    public double getSquaredTotalDisplacement() {
+        return totalX * totalX + totalY * totalY;
     }
 
     /**
      * Clears all potential displacement deltas.
      */
     public void clearPotentialDisplacementDeltas() {
-        potentialSpatialDeltas.clear();
+        Arrays.fill(modules, 0, size, null);
+        size = 0;
+        totalX = 0.0;
+        totalY = 0.0;
     }
 
     /**
@@ -99,10 +166,7 @@ public class DisplacementDeltaManager {
      */
     public Vector2D calculateTotalDisplacement() {
         // FIXME calculates total displacement AND sets next position
-        Vector2D totalDisplacement = new Vector2D(0.0, 0.0);
-        for (DisplacementDelta potentialSpatialDelta : potentialSpatialDeltas) {
-            totalDisplacement = totalDisplacement.add(potentialSpatialDelta.getDeltaVector());
-        }
+        Vector2D totalDisplacement = new Vector2D(totalX, totalY);
         nextPosition = currentPosition.add(totalDisplacement);
         return totalDisplacement;
     }
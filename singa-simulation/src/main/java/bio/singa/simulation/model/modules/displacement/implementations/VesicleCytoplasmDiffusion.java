@@ -20,15 +20,24 @@ public class VesicleCytoplasmDiffusion extends DisplacementBasedModule {
 
     public VesicleCytoplasmDiffusion() {
         // delta function
-        addDeltaFunction(this::calculateDisplacement, vesicle -> vesicle.getVesicleState() == VesicleStateRegistry.UNATTACHED);
+        addBrownianFunction(this::calculateStandardDeviation, vesicle -> vesicle.getVesicleState() == VesicleStateRegistry.UNATTACHED);
         // feature
         getRequiredFeatures().add(Diffusivity.class);
     }
 
     public DisplacementDelta calculateDisplacement(Vesicle vesicle) {
-        double scaling = SQRT2 * Environment.convertSystemToSimulationScale(Quantities.getQuantity(Math.sqrt(vesicle.getFeature(Diffusivity.class).getScaledQuantity().getValue().doubleValue()), UnitRegistry.getSpaceUnit()));
         Vector2D gaussian = Vectors.generateStandardGaussian2DVector();
-        return new DisplacementDelta(this, gaussian.multiply(scaling));
+        return new DisplacementDelta(this, gaussian.multiply(calculateStandardDeviation(vesicle)));
+    }
+
+    /**
+     * Returns the standard deviation of the displacement in each dimension sqrt(2 D dt) in simulation scale.
+     *
+     * @param vesicle The vesicle.
+     * @return The standard deviation of the displacement.
+     */
+    public double calculateStandardDeviation(Vesicle vesicle) {
+        return SQRT2 * Environment.convertSystemToSimulationScale(Quantities.getQuantity(Math.sqrt(vesicle.getFeature(Diffusivity.class).getScaledQuantity().getValue().doubleValue()), UnitRegistry.getSpaceUnit()));
     }
 
     @Override
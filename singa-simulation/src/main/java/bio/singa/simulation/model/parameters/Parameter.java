@@ -26,6 +26,11 @@ public class Parameter<QuantityType extends Quantity<QuantityType>> {
     protected Quantity<QuantityType> scaledQuantity;
     protected Quantity<QuantityType> halfScaledQuantity;
 
+    /**
+     * The modification count of the {@link UnitRegistry} scales, the quantities have been scaled with.
+     */
+    private long scaleModificationCount = -1;
+
     public Parameter(String identifier) {
         this.identifier = identifier;
     }
@@ -39,6 +44,13 @@ public class Parameter<QuantityType extends Quantity<QuantityType>> {
     public void scale() {
         scaledQuantity = UnitRegistry.scale(quantity);
         halfScaledQuantity = scaledQuantity.multiply(0.5);
+        scaleModificationCount = UnitRegistry.getScaleModificationCount();
+    }
+
+    private void scaleIfRequired() {
+        if (quantity != null && scaleModificationCount != UnitRegistry.getScaleModificationCount()) {
+            scale();
+        }
     }
 
     public String getIdentifier() {
@@ -59,13 +71,16 @@ public class Parameter<QuantityType extends Quantity<QuantityType>> {
 
     public void setQuantity(Quantity<QuantityType> quantity) {
         this.quantity = quantity;
+        scaleModificationCount = -1;
     }
 
     public Quantity<QuantityType> getScaledQuantity() {
+        scaleIfRequired();
         return scaledQuantity;
     }
 
     public Quantity<QuantityType> getHalfScaledQuantity() {
+        scaleIfRequired();
         return halfScaledQuantity;
     }
 
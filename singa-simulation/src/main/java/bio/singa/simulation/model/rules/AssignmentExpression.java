@@ -0,0 +1,21 @@
+package bio.singa.simulation.model.rules;
+
+/**
+ * The expression of an {@link AssignmentRule}. The expression is evaluated with the concentrations of the referenced
+ * entities (in the order of the parameter identifiers of the rule and the preferred concentration unit) and returns
+ * the concentration of the target entity.
+ *
+ * @author cl
+ */
+@FunctionalInterface
+public interface AssignmentExpression {
+
+    /**
+     * Evaluates the expression.
+     *
+     * @param parameters The concentrations of the referenced entities.
+     * @return The concentration of the target entity.
+     */
+    double evaluate(double[] parameters);
+
+}
@@ -1,14 +1,13 @@
 package bio.singa.simulation.model.rules;
 
 import bio.singa.chemistry.entities.ChemicalEntity;
-import bio.singa.features.quantities.MolarConcentration;
+import bio.singa.features.units.UnitRegistry;
 import bio.singa.simulation.model.graphs.AutomatonNode;
+import bio.singa.simulation.model.sections.ConcentrationContainer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.measure.Quantity;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 /**
  * @author cl
@@ -17,15 +16,23 @@ public class AssignmentRule {
 
     private static final Logger logger = LoggerFactory.getLogger(AssignmentRule.class);
 
-    // private final AppliedExpression expression;
-
     private ChemicalEntity targetEntity;
     private Map<ChemicalEntity, String> entityReference;
 
+    /**
+     * The expression, that determines the concentration of the target entity.
+     */
+    private AssignmentExpression expression;
+
+    /**
+     * The order in which the parameters are passed to the expression.
+     */
+    private List<String> parameterIdentifiers;
+
     public AssignmentRule(ChemicalEntity targetEntity) {
         this.targetEntity = targetEntity;
-        // this.expression = expression;
         entityReference = new HashMap<>();
+        parameterIdentifiers = Collections.emptyList();
     }
 
     public ChemicalEntity getTargetEntity() {
@@ -38,8 +45,6 @@ public class AssignmentRule {
 
     public void referenceChemicalEntityToParameter(String parameterIdentifier, ChemicalEntity entity) {
         entityReference.put(entity, parameterIdentifier);
-        // FIXME this is not done correctly
-        // expression.setParameter(new Parameter<>(parameterIdentifier, Environment.emptyConcentration()));
     }
 
     public Map<ChemicalEntity, String> getEntityReference() {
@@ -50,16 +55,69 @@ public class AssignmentRule {
         this.entityReference = entityReference;
     }
 
+    public AssignmentExpression getExpression() {
+        return expression;
+    }
+
+    /**
+     * Sets the expression of this rule. The concentrations of the entities referenced to the given parameters are
+     * passed to the expression in the given order.
+     *
+     * @param expression The expression.
+     * @param parameterIdentifiers The identifiers of the parameters.
+     */
+    public void setExpression(AssignmentExpression expression, String... parameterIdentifiers) {
+        this.expression = expression;
+        this.parameterIdentifiers = Arrays.asList(parameterIdentifiers);
+    }
+
+    public List<String> getParameterIdentifiers() {
+        return parameterIdentifiers;
+    }
+
+    /**
+     * Returns the entities referenced by the parameters of the expression, in the order of the parameters.
+     *
+     * @return The referenced entities.
+     */
+    public List<ChemicalEntity> getParameterEntities() {
+        List<ChemicalEntity> parameterEntities = new ArrayList<>();
+        for (String parameterIdentifier : parameterIdentifiers) {
+            ChemicalEntity parameterEntity = null;
+            for (Map.Entry<ChemicalEntity, String> entry : entityReference.entrySet()) {
+                if (entry.getValue().equals(parameterIdentifier)) {
+                    parameterEntity = entry.getKey();
+                    break;
+                }
+            }
+            if (parameterEntity == null) {
+                throw new IllegalStateException("The parameter " + parameterIdentifier + " of the assignment rule for " +
+                        targetEntity.getIdentifier() + " is not referenced to any chemical entity.");
+            }
+            parameterEntities.add(parameterEntity);
+        }
+        return parameterEntities;
+    }
+
+    /**
+     * Applies this rule to a single node. To apply rules to all nodes of a graph use {@link CompiledAssignmentRules}.
+     *
+     * @param node The node.
+     */
     public void applyRule(AutomatonNode node) {
-        // set entity parameters
-        for (Map.Entry<ChemicalEntity, String> entry : entityReference.entrySet()) {
-            final Quantity<MolarConcentration> concentration = node.getConcentrationContainer().get(node.getConcentrationContainer().getInnerSubsection(), entry.getKey());
-            final String parameterName = entityReference.get(entry.getKey());
-            // expression.acceptValue(parameterName, concentration.getValue().doubleValue());
+        if (expression == null) {
+            return;
+        }
+        ConcentrationContainer container = node.getConcentrationContainer();
+        List<ChemicalEntity> parameterEntities = getParameterEntities();
+        double[] parameters = new double[parameterEntities.size()];
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = container.get(container.getInnerSubsection(), parameterEntities.get(i))
+                    .to(UnitRegistry.getConcentrationUnit()).getValue().doubleValue();
         }
-        // Quantity<?> concentration = expression.evaluate();
-        // logger.debug("Initialized concentration of {} to {}.", targetEntity.getIdentifier(), concentration);
-        // node.getConcentrationContainer().set(node.getConcentrationContainer().getInnerSubsection(), targetEntity, concentration.getValue().doubleValue());
+        double concentration = expression.evaluate(parameters);
+        logger.trace("Assigned concentration of {} in {} to {}.", targetEntity.getIdentifier(), node, concentration);
+        container.set(container.getInnerSubsection(), targetEntity, UnitRegistry.concentration(concentration));
     }
 
 }
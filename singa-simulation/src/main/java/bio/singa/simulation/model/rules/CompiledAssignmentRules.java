@@ -0,0 +1,192 @@
+package bio.singa.simulation.model.rules;
+
+import bio.singa.chemistry.entities.ChemicalEntity;
+import bio.singa.features.units.UnitRegistry;
+import bio.singa.simulation.model.graphs.AutomatonNode;
+import bio.singa.simulation.model.sections.CellSubsection;
+import bio.singa.simulation.model.sections.ConcentrationContainer;
+import bio.singa.simulation.model.sections.ConcentrationPool;
+
+import java.util.*;
+
+/**
+ * A list of {@link AssignmentRule}s compiled for a fixed set of {@link AutomatonNode}s. Instead of evaluating every
+ * rule for every node separately, the concentrations of all referenced entities are loaded once into one column per
+ * entity (indexed by node), each rule is evaluated over all nodes in a single loop, writing to the column of its
+ * target entity (such that subsequent rules use the assigned values) and finally the target columns are written back
+ * to the nodes. The concentrations are taken from and assigned to the inner subsection of each node.
+ * <p>
+ * The concentration pools are resolved every time the rules are applied, such that nodes may change their regions or
+ * concentration containers. The compiled rules remain valid as long as the set of nodes remains unchanged. Rules
+ * without {@link AssignmentExpression} are ignored.
+ *
+ * @author cl
+ */
+public class CompiledAssignmentRules {
+
+    /**
+     * The nodes (by row).
+     */
+    private final AutomatonNode[] nodes;
+
+    /**
+     * The inner concentration pool of every node (null if the node has no inner subsection), resolved whenever the
+     * rules are applied.
+     */
+    private final ConcentrationPool[] pools;
+
+    /**
+     * The entity of every column.
+     */
+    private final ChemicalEntity[] entities;
+
+    /**
+     * The concentrations of every entity (by column) in every node (by row).
+     */
+    private final double[][] columns;
+
+    /**
+     * True for every column, that is read by any rule, before it has been assigned.
+     */
+    private final boolean[] loadedColumns;
+
+    /**
+     * True for every column, that is assigned by any rule.
+     */
+    private final boolean[] assignedColumns;
+
+    private final AssignmentExpression[] expressions;
+    private final int[] targetColumns;
+    private final int[][] parameterColumns;
+
+    /**
+     * Compiles the rules for the given nodes.
+     *
+     * @param assignmentRules The rules, sorted by priority.
+     * @param nodes The nodes.
+     * @see AssignmentRules#sortAssignmentRulesByPriority(List)
+     */
+    public CompiledAssignmentRules(List<AssignmentRule> assignmentRules, Collection<AutomatonNode> nodes) {
+        this.nodes = nodes.toArray(new AutomatonNode[0]);
+        pools = new ConcentrationPool[this.nodes.length];
+        // assign columns to entities
+        Map<ChemicalEntity, Integer> columnMap = new LinkedHashMap<>();
+        List<AssignmentRule> compiledRules = new ArrayList<>();
+        for (AssignmentRule rule : assignmentRules) {
+            if (rule.getExpression() != null) {
+                compiledRules.add(rule);
+            }
+        }
+        expressions = new AssignmentExpression[compiledRules.size()];
+        targetColumns = new int[compiledRules.size()];
+        parameterColumns = new int[compiledRules.size()][];
+        Set<Integer> loaded = new HashSet<>();
+        Set<Integer> assigned = new HashSet<>();
+        for (int ruleIndex = 0; ruleIndex < compiledRules.size(); ruleIndex++) {
+            AssignmentRule rule = compiledRules.get(ruleIndex);
+            expressions[ruleIndex] = rule.getExpression();
+            List<ChemicalEntity> parameterEntities = rule.getParameterEntities();
+            parameterColumns[ruleIndex] = new int[parameterEntities.size()];
+            for (int parameterIndex = 0; parameterIndex < parameterEntities.size(); parameterIndex++) {
+                int column = columnMap.computeIfAbsent(parameterEntities.get(parameterIndex), entity -> columnMap.size());
+                parameterColumns[ruleIndex][parameterIndex] = column;
+                if (!assigned.contains(column)) {
+                    loaded.add(column);
+                }
+            }
+            int targetColumn = columnMap.computeIfAbsent(rule.getTargetEntity(), entity -> columnMap.size());
+            targetColumns[ruleIndex] = targetColumn;
+            assigned.add(targetColumn);
+        }
+        entities = columnMap.keySet().toArray(new ChemicalEntity[0]);
+        columns = new double[entities.length][pools.length];
+        loadedColumns = new boolean[entities.length];
+        assignedColumns = new boolean[entities.length];
+        for (int column = 0; column < entities.length; column++) {
+            loadedColumns[column] = loaded.contains(column);
+            assignedColumns[column] = assigned.contains(column);
+        }
+    }
+
+    /**
+     * Returns the number of nodes, the rules have been compiled for.
+     *
+     * @return The number of nodes.
+     */
+    public int getNumberOfNodes() {
+        return pools.length;
+    }
+
+    /**
+     * Returns the number of compiled rules.
+     *
+     * @return The number of rules.
+     */
+    public int getNumberOfRules() {
+        return expressions.length;
+    }
+
+    /**
+     * Applies all rules to all nodes.
+     */
+    public void apply() {
+        resolvePools();
+        // load concentrations
+        for (int column = 0; column < entities.length; column++) {
+            if (loadedColumns[column]) {
+                loadColumn(column);
+            }
+        }
+        // evaluate rules
+        for (int ruleIndex = 0; ruleIndex < expressions.length; ruleIndex++) {
+            AssignmentExpression expression = expressions[ruleIndex];
+            int[] currentParameterColumns = parameterColumns[ruleIndex];
+            double[] target = columns[targetColumns[ruleIndex]];
+            double[] parameters = new double[currentParameterColumns.length];
+            for (int row = 0; row < pools.length; row++) {
+                if (pools[row] == null) {
+                    continue;
+                }
+                for (int parameterIndex = 0; parameterIndex < currentParameterColumns.length; parameterIndex++) {
+                    parameters[parameterIndex] = columns[currentParameterColumns[parameterIndex]][row];
+                }
+                target[row] = expression.evaluate(parameters);
+            }
+        }
+        // assign concentrations
+        for (int column = 0; column < entities.length; column++) {
+            if (assignedColumns[column]) {
+                storeColumn(column);
+            }
+        }
+    }
+
+    private void resolvePools() {
+        for (int row = 0; row < nodes.length; row++) {
+            ConcentrationContainer container = nodes[row].getConcentrationContainer();
+            CellSubsection innerSubsection = container.getInnerSubsection();
+            pools[row] = innerSubsection != null ? container.getConcentrations().get(innerSubsection) : null;
+        }
+    }
+
+    private void loadColumn(int column) {
+        ChemicalEntity entity = entities[column];
+        double[] values = columns[column];
+        for (int row = 0; row < pools.length; row++) {
+            if (pools[row] != null) {
+                values[row] = pools[row].get(entity).to(UnitRegistry.getConcentrationUnit()).getValue().doubleValue();
+            }
+        }
+    }
+
+    private void storeColumn(int column) {
+        ChemicalEntity entity = entities[column];
+        double[] values = columns[column];
+        for (int row = 0; row < pools.length; row++) {
+            if (pools[row] != null) {
+                pools[row].set(entity, UnitRegistry.concentration(values[row]));
+            }
+        }
+    }
+
+}
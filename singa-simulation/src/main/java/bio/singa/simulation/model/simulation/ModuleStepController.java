@@ -0,0 +1,212 @@
+package bio.singa.simulation.model.simulation;
+
+import bio.singa.simulation.model.modules.UpdateModule;
+
+/**
+ * The module step controller determines the step size of a single {@link UpdateModule}, if multi rate time stepping
+ * is enabled in the {@link UpdateScheduler}. The step size of each module is a multiple of the global time step. A
+ * module with a step multiplier of k is evaluated every k-th epoch using the global time step, such that slow modules
+ * advance in large steps, while fast modules determine the global time step. The time steps of the skipped epochs are
+ * accumulated and the deltas of the next evaluation are scaled by the ratio of the simulated time since the previous
+ * evaluation and the current time step. Hence, modules catch up with the time, that actually elapsed, even if the
+ * global time step changed while they were skipped.
+ * <p>
+ * The local error of explicit steps grows linearly with the step size, therefore the error of a module at k times the
+ * global time step is estimated to be k times the error at the global time step. After each evaluation the
+ * multiplier is adapted to the largest power of two, where the estimated error stays below the recalculation cutoff
+ * (reduced by a safety factor), but grows at most by a factor of two.
+ *
+ * @author cl
+ */
+public class ModuleStepController {
+
+    /**
+     * The fraction of the recalculation cutoff, that should not be exceeded by the estimated error.
+     */
+    private static final double SAFETY_FACTOR = 0.5;
+
+    /**
+     * The controlled module.
+     */
+    private final UpdateModule module;
+
+    /**
+     * The maximal step multiplier.
+     */
+    private int maximalStepMultiplier;
+
+    /**
+     * The current step multiplier.
+     */
+    private int stepMultiplier;
+
+    /**
+     * The epoch, the module is evaluated next.
+     */
+    private long nextEvaluationEpoch;
+
+    /**
+     * The number of times the module has been evaluated.
+     */
+    private long evaluations;
+
+    /**
+     * The number of epochs, the module has been skipped.
+     */
+    private long skippedEpochs;
+
+    /**
+     * The simulated time since the last evaluation of the module, that has not been covered by its deltas.
+     */
+    private double skippedTime;
+
+    /**
+     * Creates a new controller for the given module.
+     *
+     * @param module The module.
+     * @param maximalStepMultiplier The maximal step multiplier.
+     */
+    ModuleStepController(UpdateModule module, int maximalStepMultiplier) {
+        this.module = module;
+        this.maximalStepMultiplier = maximalStepMultiplier;
+        stepMultiplier = 1;
+    }
+
+    /**
+     * Returns the controlled module.
+     *
+     * @return The controlled module.
+     */
+    public UpdateModule getModule() {
+        return module;
+    }
+
+    /**
+     * Returns the current step multiplier, the step size of the module is the global time step multiplied by the step
+     * multiplier.
+     *
+     * @return The current step multiplier.
+     */
+    public int getStepMultiplier() {
+        return stepMultiplier;
+    }
+
+    /**
+     * Returns the maximal step multiplier.
+     *
+     * @return The maximal step multiplier.
+     */
+    public int getMaximalStepMultiplier() {
+        return maximalStepMultiplier;
+    }
+
+    /**
+     * Sets the maximal step multiplier.
+     *
+     * @param maximalStepMultiplier The maximal step multiplier.
+     */
+    void setMaximalStepMultiplier(int maximalStepMultiplier) {
+        this.maximalStepMultiplier = maximalStepMultiplier;
+        stepMultiplier = Math.min(stepMultiplier, maximalStepMultiplier);
+    }
+
+    /**
+     * Returns the number of times the module has been evaluated, i.e. the number of steps the module took.
+     *
+     * @return The number of evaluations.
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * Returns the number of epochs, where the module has not been evaluated.
+     *
+     * @return The number of skipped epochs.
+     */
+    public long getSkippedEpochs() {
+        return skippedEpochs;
+    }
+
+    /**
+     * Returns true if the module is to be evaluated in the given epoch.
+     *
+     * @param epoch The epoch.
+     * @return True if the module is to be evaluated.
+     */
+    boolean isDue(long epoch) {
+        return epoch >= nextEvaluationEpoch;
+    }
+
+    /**
+     * Returns the simulated time since the last evaluation of the module, that has not been covered by its deltas.
+     *
+     * @return The skipped time.
+     */
+    public double getSkippedTime() {
+        return skippedTime;
+    }
+
+    /**
+     * Registers that the module has been skipped in the current epoch.
+     *
+     * @param timeStep The time step of the current epoch.
+     */
+    void skip(double timeStep) {
+        skippedEpochs++;
+        skippedTime += timeStep;
+    }
+
+    /**
+     * Returns the factor the deltas of the module, that have been calculated for the given time step, have to be
+     * scaled with, to cover the skipped time and the current time step. The skipped time is reset.
+     *
+     * @param timeStep The time step of the current epoch.
+     * @return The factor the deltas have to be scaled with.
+     */
+    double catchUp(double timeStep) {
+        double factor = (skippedTime + timeStep) / timeStep;
+        skippedTime = 0.0;
+        return factor;
+    }
+
+    /**
+     * Adapts the step multiplier to the local error of the module determined in the given epoch and schedules the next
+     * evaluation.
+     *
+     * @param epoch The epoch the module was evaluated in.
+     * @param timeStep The time step of the epoch.
+     * @param localError The largest local error of the module at the global time step.
+     * @param recalculationCutoff The largest acceptable error.
+     * @return The factor, that should be applied to the deltas calculated in this epoch (see {@link #catchUp(double)}).
+     */
+    double evaluated(long epoch, double timeStep, double localError, double recalculationCutoff) {
+        evaluations++;
+        int acceptedMultiplier;
+        if (localError <= 0.0) {
+            // no (measurable) error
+            acceptedMultiplier = maximalStepMultiplier;
+        } else {
+            double acceptedRatio = SAFETY_FACTOR * recalculationCutoff / localError;
+            acceptedMultiplier = acceptedRatio >= maximalStepMultiplier ? maximalStepMultiplier : Math.max(1, Integer.highestOneBit((int) acceptedRatio));
+        }
+        stepMultiplier = Math.min(acceptedMultiplier, stepMultiplier * 2);
+        nextEvaluationEpoch = epoch + stepMultiplier;
+        return catchUp(timeStep);
+    }
+
+    /**
+     * Resets the controller to evaluate the module in every epoch. Time that has been skipped already is retained,
+     * until it is caught up with.
+     */
+    void reset() {
+        stepMultiplier = 1;
+        nextEvaluationEpoch = 0;
+    }
+
+    @Override
+    public String toString() {
+        return module + ": " + evaluations + " evaluations, " + skippedEpochs + " skipped epochs, step multiplier " + stepMultiplier;
+    }
+
+}
@@ -3,11 +3,16 @@ package bio.singa.simulation.model.simulation;
 import bio.singa.chemistry.entities.ChemicalEntity;
 import bio.singa.chemistry.entities.ComplexedChemicalEntity;
 import bio.singa.features.identifiers.SimpleStringIdentifier;
+import bio.singa.features.model.Feature;
+import bio.singa.features.model.FeaturePrefetcher;
+import bio.singa.features.model.Featureable;
 import bio.singa.features.parameters.Environment;
 import bio.singa.features.units.UnitRegistry;
 import bio.singa.mathematics.geometry.faces.Rectangle;
 import bio.singa.mathematics.vectors.Vector2D;
+import bio.singa.simulation.metrics.MetricsRegistry;
 import bio.singa.simulation.model.agents.linelike.LineLikeAgentLayer;
+import bio.singa.simulation.model.agents.pointlike.Vesicle;
 import bio.singa.simulation.model.agents.pointlike.VesicleLayer;
 import bio.singa.simulation.model.agents.surfacelike.MembraneLayer;
 import bio.singa.simulation.model.agents.volumelike.VolumeLayer;
@@ -17,6 +22,7 @@ import bio.singa.simulation.model.modules.UpdateModule;
 import bio.singa.simulation.model.modules.concentration.ConcentrationDelta;
 import bio.singa.simulation.model.rules.AssignmentRule;
 import bio.singa.simulation.model.rules.AssignmentRules;
+import bio.singa.simulation.model.rules.CompiledAssignmentRules;
 import bio.singa.simulation.model.sections.CellRegion;
 import bio.singa.simulation.model.sections.CellRegions;
 import bio.singa.simulation.model.sections.concentration.ConcentrationInitializer;
@@ -73,6 +79,11 @@ public class Simulation {
      */
     private List<AssignmentRule> assignmentRules;
 
+    /**
+     * The assignment rules, compiled for the nodes of the current graph.
+     */
+    private CompiledAssignmentRules compiledAssignmentRules;
+
     /**
      * The current epoch.
      */
@@ -88,6 +99,11 @@ public class Simulation {
      */
     private ArrayList<Updatable> updatables;
 
+    /**
+     * The revision of the updatables, incremented every time the collected updatables change.
+     */
+    private long updatableRevision;
+
     /**
      * The nodes, that are observed during simulation.
      */
@@ -107,6 +123,11 @@ public class Simulation {
 
     private Map<Updatable, List<ConcentrationDelta>> observedDeltas;
 
+    /**
+     * The performance metrics of this simulation.
+     */
+    private MetricsRegistry metrics;
+
     /**
      * Creates a new plain simulation.
      */
@@ -122,6 +143,7 @@ public class Simulation {
         scheduler = new UpdateScheduler(this);
         standardRegion = CellRegions.EXTRACELLULAR_REGION;
         observedDeltas = new HashMap<>();
+        metrics = new MetricsRegistry();
     }
 
     /**
@@ -138,6 +160,7 @@ public class Simulation {
             scheduler.rescaleParameters();
             initializationDone = true;
         }
+        metrics.startEpoch();
         // clear observed nodes if necessary
         if (!observedUpdatables.isEmpty()) {
             for (Updatable observedUpdatable : observedUpdatables) {
@@ -157,29 +180,32 @@ public class Simulation {
         scheduler.nextEpoch();
         // apply generated deltas
         logger.debug("Applying deltas.");
-        for (Updatable updatable : updatables) {
-            if (updatable.hasDeltas()) {
-                logger.trace("Deltas in {}:", updatable.getStringIdentifier());
-                updatable.applyDeltas();
-            }
-        }
+        metrics.measure(MetricsRegistry.CONCENTRATION_DELTAS, this::applyDeltas);
+        // determine nodes that changed
+        graph.updateActivity();
         // move vesicles
         if (vesicleLayer != null) {
-            vesicleLayer.applyDeltas();
-            vesicleLayer.associateVesicles();
+            metrics.measure(MetricsRegistry.VESICLE_DISPLACEMENT, vesicleLayer::applyDeltas);
+            metrics.measure(MetricsRegistry.VESICLE_ASSOCIATION, vesicleLayer::associateVesicles);
+            // nodes touched by vesicles remain active
+            for (Vesicle vesicle : vesicleLayer.getVesicles()) {
+                vesicle.getAssociatedNodes().keySet().forEach(graph::activate);
+            }
         }
         // update epoch and elapsed time
         updateEpoch();
-        // if time step did not change it can possibly be increased
-        if (!scheduler.timeStepWasRescaled()) {
-            // if no maximal time step is given or time step is not already maximal
-            if (maximalTimeStep == null || UnitRegistry.getTime().to(maximalTimeStep.getUnit()).getValue().doubleValue() < maximalTimeStep.getValue().doubleValue()) {
-                // if error was below tolerance threshold (10 percent of epsilon)
-                // TODO evaluate if the sign is right (< instead of >)
-                if (scheduler.getRecalculationCutoff() - scheduler.getLargestError().getValue() > 0.1 * scheduler.getRecalculationCutoff()) {
-                    // try larger time step next time
-                    scheduler.increaseTimeStep();
-                }
+        if (metrics.isEnabled()) {
+            metrics.finishEpoch(epoch - 1, elapsedTime.to(MICRO(SECOND)).getValue().doubleValue(), UnitRegistry.getTime().to(MICRO(SECOND)).getValue().doubleValue());
+        }
+        // predict the time step of the next epoch from the error of this epoch
+        scheduler.adaptTimeStep(maximalTimeStep);
+    }
+
+    private void applyDeltas() {
+        for (Updatable updatable : updatables) {
+            if (updatable.hasDeltas()) {
+                logger.trace("Deltas in {}:", updatable.getStringIdentifier());
+                updatable.applyDeltas();
             }
         }
     }
@@ -273,19 +299,60 @@ public class Simulation {
     }
 
     public void collectUpdatables() {
-        updatables = new ArrayList<>(graph.getNodes());
-        updatables.addAll(vesicleLayer.getVesicles());
+        ArrayList<Updatable> collectedUpdatables = new ArrayList<>(graph.getActiveNodes());
+        collectedUpdatables.addAll(vesicleLayer.getVesicles());
+        if (!isSameSequence(updatables, collectedUpdatables)) {
+            updatableRevision++;
+        }
+        updatables = collectedUpdatables;
+    }
+
+    private static boolean isSameSequence(List<Updatable> previousUpdatables, List<Updatable> currentUpdatables) {
+        if (previousUpdatables == null || previousUpdatables.size() != currentUpdatables.size()) {
+            return false;
+        }
+        for (int i = 0; i < currentUpdatables.size(); i++) {
+            if (previousUpdatables.get(i) != currentUpdatables.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the revision of the updatables. The revision changes every time updatables are added or removed (such
+     * as spawned or fused vesicles) or {@link #invalidateUpdatables() invalidated} explicitly. Anything derived from
+     * the structure of the updatables can be cached until the revision changes.
+     *
+     * @return The revision of the updatables.
+     */
+    public long getUpdatableRevision() {
+        return updatableRevision;
+    }
+
+    /**
+     * Invalidates everything, that has been derived from the structure of the updatables. This is required if
+     * updatables change their structure (such as regions or subsections), without being added or removed.
+     */
+    public void invalidateUpdatables() {
+        updatableRevision++;
+        compiledAssignmentRules = null;
     }
 
     /**
-     * Apply all referenced assignment rules.
+     * Apply all referenced assignment rules. The rules are compiled once for all nodes of the graph and evaluated as
+     * a whole.
+     *
+     * @see CompiledAssignmentRules
      */
     public void applyAssignmentRules() {
-        for (AssignmentRule rule : assignmentRules) {
-            for (AutomatonNode bioNode : graph.getNodes()) {
-                rule.applyRule(bioNode);
-            }
+        if (assignmentRules.isEmpty()) {
+            return;
         }
+        if (compiledAssignmentRules == null) {
+            compiledAssignmentRules = new CompiledAssignmentRules(assignmentRules, graph.getNodes());
+        }
+        compiledAssignmentRules.apply();
     }
 
     /**
@@ -296,6 +363,7 @@ public class Simulation {
      */
     public void setAssignmentRules(List<AssignmentRule> assignmentRules) {
         this.assignmentRules = AssignmentRules.sortAssignmentRulesByPriority(assignmentRules);
+        compiledAssignmentRules = null;
     }
 
     public ArrayList<Updatable> getUpdatables() {
@@ -310,6 +378,15 @@ public class Simulation {
         return scheduler;
     }
 
+    /**
+     * Returns the performance metrics of this simulation. Metrics are only collected if the registry has been enabled.
+     *
+     * @return The metrics registry.
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
     public void setScheduler(UpdateScheduler scheduler) {
         this.scheduler = scheduler;
     }
@@ -336,6 +413,7 @@ public class Simulation {
 
     public void setGraph(AutomatonGraph graph) {
         this.graph = graph;
+        invalidateUpdatables();
     }
 
     public long getEpoch() {
@@ -362,6 +440,19 @@ public class Simulation {
         return entities;
     }
 
+    /**
+     * Resolves the given features for all chemical entities (including the entities that are part of complexes)
+     * concurrently, such that remote databases do not have to be queried entity by entity during setup.
+     *
+     * @param features The features to resolve.
+     * @param numberOfThreads The maximal number of concurrently resolved entities.
+     * @return The entities, where at least one feature could not be resolved, mapped to the first exception.
+     * @see FeaturePrefetcher
+     */
+    public Map<Featureable, RuntimeException> prefetchFeatures(Collection<Class<? extends Feature>> features, int numberOfThreads) {
+        return FeaturePrefetcher.prefetch(getAllChemicalEntities(), features, numberOfThreads);
+    }
+
     public ChemicalEntity getChemicalEntity(String primaryIdentifier) {
         return chemicalEntities.get(new SimpleStringIdentifier(primaryIdentifier));
     }
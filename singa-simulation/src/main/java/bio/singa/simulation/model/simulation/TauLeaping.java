@@ -0,0 +1,397 @@
+package bio.singa.simulation.model.simulation;
+
+import bio.singa.chemistry.entities.ChemicalEntity;
+import bio.singa.features.quantities.MolarConcentration;
+import bio.singa.features.quantities.NaturalConstants;
+import bio.singa.features.units.UnitRegistry;
+import bio.singa.simulation.model.agents.pointlike.Vesicle;
+import bio.singa.simulation.model.modules.UpdateModule;
+import bio.singa.simulation.model.modules.concentration.ConcentrationBasedModule;
+import bio.singa.simulation.model.modules.concentration.ConcentrationDelta;
+import bio.singa.simulation.model.modules.concentration.imlementations.Reaction;
+import bio.singa.simulation.model.modules.concentration.reactants.Reactant;
+import bio.singa.simulation.model.modules.concentration.specifity.SectionSpecific;
+import bio.singa.simulation.model.modules.concentration.specifity.UpdatableSpecific;
+import bio.singa.simulation.model.sections.CellSubsection;
+import bio.singa.simulation.model.sections.ConcentrationPool;
+
+import javax.measure.Quantity;
+import javax.measure.quantity.Dimensionless;
+import javax.measure.quantity.Volume;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Tau leaping introduces stochastic updates for updatables, that contain only few molecules, such as vesicles. In
+ * those updatables deterministic modules produce deltas corresponding to fractions of molecules, which do not reflect
+ * the discrete nature of the reactions and (because the relative changes are large) drive the time step to very small
+ * values.
+ * <p>
+ * At the start of each epoch the updatables are partitioned: candidates (by default all {@link Vesicle}s), where the
+ * copy number of every entity is below the copy number threshold are updated stochastically, all other updatables
+ * deterministically. Copy numbers are determined from the volume of the updatable (the volume of {@link Vesicle}s or
+ * the volume of a node for all other updatables). The modules calculate deltas for stochastic updatables as usual, but
+ * their local errors are not considered for the time step. After all modules have been evaluated the deltas of each
+ * process are converted to the expected number of firings in the current time step (the propensity multiplied by
+ * tau), by dividing the number of molecules by the stoichiometric number of the entity (taken from the
+ * {@link Reaction}, all other modules change one molecule per firing). The expected number is replaced by a Poisson
+ * distributed number of firings, that is sampled once per process and applied to all of its entities, such that whole
+ * molecules are converted and mass is conserved. Processes are determined by the structure of the module: a
+ * {@link Reaction} (or any other section specific module) forms one process in each subsection, updatable specific
+ * modules form one process per updatable and the deltas of all other modules are sampled separately. Reversible
+ * processes are sampled by their net rate. The sampled firings are limited by the molecules available to the
+ * consumed entities, such that no concentration becomes negative.
+ * <p>
+ * Every updatable draws from its own random stream, that is derived from the seed, the epoch and the position of the
+ * updatable among all updatables of the epoch, such that results are reproducible independent of the order (or
+ * parallel) processing of updatables.
+ *
+ * @author cl
+ */
+public class TauLeaping {
+
+    /**
+     * The default copy number threshold.
+     */
+    public static final double DEFAULT_COPY_NUMBER_THRESHOLD = 100.0;
+
+    /**
+     * Expected values above this limit are sampled by transformed rejection instead of inversion.
+     */
+    private static final double INVERSION_LIMIT = 10.0;
+
+    private final long seed;
+    private double copyNumberThreshold;
+    private Predicate<Updatable> candidateCondition;
+
+    /**
+     * The updatables, that are updated stochastically in the current epoch, and their position among all updatables.
+     */
+    private final Map<Updatable, Integer> stochasticUpdatables;
+
+    /**
+     * The total number of sampled firings.
+     */
+    private long firings;
+
+    /**
+     * Creates a new tau leaping scheme with the given seed.
+     *
+     * @param seed The seed of the random streams.
+     */
+    public TauLeaping(long seed) {
+        this.seed = seed;
+        copyNumberThreshold = DEFAULT_COPY_NUMBER_THRESHOLD;
+        candidateCondition = updatable -> updatable instanceof Vesicle;
+        stochasticUpdatables = new IdentityHashMap<>();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public double getCopyNumberThreshold() {
+        return copyNumberThreshold;
+    }
+
+    /**
+     * Sets the number of molecules, below which updatables are considered for stochastic updates.
+     *
+     * @param copyNumberThreshold The copy number threshold.
+     */
+    public void setCopyNumberThreshold(double copyNumberThreshold) {
+        if (copyNumberThreshold < 0.0) {
+            throw new IllegalArgumentException("The copy number threshold must not be negative.");
+        }
+        this.copyNumberThreshold = copyNumberThreshold;
+    }
+
+    public Predicate<Updatable> getCandidateCondition() {
+        return candidateCondition;
+    }
+
+    /**
+     * Sets the condition, that updatables need to fulfill to be considered for stochastic updates.
+     *
+     * @param candidateCondition The candidate condition.
+     */
+    public void setCandidateCondition(Predicate<Updatable> candidateCondition) {
+        this.candidateCondition = candidateCondition;
+    }
+
+    /**
+     * Returns true if the updatable is updated stochastically in the current epoch.
+     *
+     * @param updatable The updatable.
+     * @return True if the updatable is updated stochastically.
+     */
+    public boolean isStochastic(Updatable updatable) {
+        return stochasticUpdatables.containsKey(updatable);
+    }
+
+    /**
+     * Returns the updatables, that are updated stochastically in the current epoch.
+     *
+     * @return The stochastic updatables.
+     */
+    public Set<Updatable> getStochasticUpdatables() {
+        return Collections.unmodifiableSet(stochasticUpdatables.keySet());
+    }
+
+    /**
+     * Returns the total number of firings, that have been sampled.
+     *
+     * @return The number of firings.
+     */
+    public long getFirings() {
+        return firings;
+    }
+
+    /**
+     * Determines the updatables, that are updated stochastically in the current epoch.
+     *
+     * @param updatables All updatables, in the order of the simulation.
+     */
+    void partition(Collection<Updatable> updatables) {
+        stochasticUpdatables.clear();
+        int position = 0;
+        for (Updatable updatable : updatables) {
+            if (candidateCondition.test(updatable)
+                    && isBelowThreshold(updatable, copyNumberThreshold / getMoleculesPerConcentration(updatable))) {
+                stochasticUpdatables.put(updatable, position);
+            }
+            position++;
+        }
+    }
+
+    private static boolean isBelowThreshold(Updatable updatable, double concentrationThreshold) {
+        for (ConcentrationPool pool : updatable.getConcentrationContainer().getPoolsOfConcentration()) {
+            for (Quantity<MolarConcentration> concentration : pool.getConcentrations().values()) {
+                if (concentration.to(UnitRegistry.getConcentrationUnit()).getValue().doubleValue() >= concentrationThreshold) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the deterministic deltas of all stochastic updatables by sampled firings.
+     *
+     * @param epoch The current epoch.
+     */
+    void leap(long epoch) {
+        for (Map.Entry<Updatable, Integer> entry : stochasticUpdatables.entrySet()) {
+            Updatable updatable = entry.getKey();
+            SplittableRandom random = new SplittableRandom(mix(seed, epoch, entry.getValue()));
+            firings += sample(updatable, getMoleculesPerConcentration(updatable), random);
+        }
+    }
+
+    /**
+     * Samples the firings of all modules, that calculated deltas for the updatable.
+     *
+     * @param updatable The updatable.
+     * @param moleculesPerConcentration The number of molecules corresponding to one concentration unit.
+     * @param random The random stream of the updatable.
+     * @return The number of firings.
+     */
+    private static long sample(Updatable updatable, double moleculesPerConcentration, SplittableRandom random) {
+        List<ConcentrationDelta> deltas = updatable.getPotentialConcentrationDeltas();
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        // group by module, retaining the order of modules
+        Map<UpdateModule, List<ConcentrationDelta>> moduleDeltas = new LinkedHashMap<>();
+        for (ConcentrationDelta delta : deltas) {
+            moduleDeltas.computeIfAbsent(delta.getModule(), key -> new ArrayList<>()).add(delta);
+        }
+        long firings = 0;
+        updatable.clearPotentialConcentrationDeltas();
+        // molecules, that are still available to be consumed, by subsection and entity
+        Map<CellSubsection, Map<ChemicalEntity, Double>> availableMolecules = new HashMap<>();
+        for (Map.Entry<UpdateModule, List<ConcentrationDelta>> entry : moduleDeltas.entrySet()) {
+            UpdateModule module = entry.getKey();
+            // group by process, retaining the order of deltas
+            Map<Object, List<ConcentrationDelta>> processes = new LinkedHashMap<>();
+            for (ConcentrationDelta delta : entry.getValue()) {
+                if (delta.getQuantity().getValue().doubleValue() == 0.0 || getStoichiometricNumber(module, delta.getChemicalEntity()) == 0.0) {
+                    continue;
+                }
+                processes.computeIfAbsent(getProcessKey(module, delta), key -> new ArrayList<>()).add(delta);
+            }
+            for (List<ConcentrationDelta> processDeltas : processes.values()) {
+                // the propensity is identical for all entities of a process
+                double propensity = 0.0;
+                long availableFirings = Long.MAX_VALUE;
+                for (ConcentrationDelta delta : processDeltas) {
+                    double stoichiometricNumber = getStoichiometricNumber(module, delta.getChemicalEntity());
+                    double value = delta.getQuantity().getValue().doubleValue();
+                    propensity += Math.abs(value) / stoichiometricNumber;
+                    if (value < 0.0) {
+                        double available = getAvailableMolecules(availableMolecules, updatable, delta, moleculesPerConcentration);
+                        availableFirings = Math.min(availableFirings, (long) Math.floor(available / stoichiometricNumber + 1e-9));
+                    }
+                }
+                propensity /= processDeltas.size();
+                long sampledFirings = Math.min(samplePoisson(propensity * moleculesPerConcentration, random), availableFirings);
+                if (sampledFirings <= 0) {
+                    continue;
+                }
+                firings += sampledFirings;
+                // the same number of firings for all entities of the process
+                for (ConcentrationDelta delta : processDeltas) {
+                    double molecules = Math.signum(delta.getQuantity().getValue().doubleValue())
+                            * getStoichiometricNumber(module, delta.getChemicalEntity()) * sampledFirings;
+                    if (molecules < 0.0) {
+                        availableMolecules.get(delta.getCellSubsection()).merge(delta.getChemicalEntity(), molecules, Double::sum);
+                    }
+                    updatable.addPotentialDelta(new ConcentrationDelta(module, delta.getCellSubsection(), delta.getChemicalEntity(),
+                            UnitRegistry.concentration(molecules / moleculesPerConcentration)));
+                }
+            }
+        }
+        return firings;
+    }
+
+    /**
+     * Returns the number of molecules of the entity, that are converted by one firing of the module. Entities, that
+     * are substrate and product of a reaction, are considered by their net change.
+     *
+     * @param module The module.
+     * @param entity The entity.
+     * @return The stoichiometric number.
+     */
+    static double getStoichiometricNumber(UpdateModule module, ChemicalEntity entity) {
+        if (!(module instanceof Reaction)) {
+            return 1.0;
+        }
+        double stoichiometricNumber = 0.0;
+        for (Reactant reactant : ((Reaction) module).getStoichiometricReactants()) {
+            if (reactant.getEntity().equals(entity)) {
+                if (reactant.isSubstrate()) {
+                    stoichiometricNumber -= reactant.getStoichiometricNumber();
+                } else {
+                    stoichiometricNumber += reactant.getStoichiometricNumber();
+                }
+            }
+        }
+        return Math.abs(stoichiometricNumber);
+    }
+
+    /**
+     * Returns the key of the process, the delta belongs to. A {@link Reaction} or any other section specific module
+     * forms one process in every subsection, updatable specific modules form a single process and the deltas of all
+     * other modules are processes of their own.
+     *
+     * @param module The module.
+     * @param delta The delta.
+     * @return The key of the process.
+     */
+    private static Object getProcessKey(UpdateModule module, ConcentrationDelta delta) {
+        if (module instanceof Reaction) {
+            return delta.getCellSubsection();
+        }
+        if (module instanceof ConcentrationBasedModule) {
+            Object specificity = ((ConcentrationBasedModule<?>) module).getSpecificity();
+            if (specificity instanceof SectionSpecific) {
+                return delta.getCellSubsection();
+            }
+            if (specificity instanceof UpdatableSpecific) {
+                return module;
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Returns the number of molecules of the entity of the delta, that have not been consumed by previously sampled
+     * processes.
+     */
+    private static double getAvailableMolecules(Map<CellSubsection, Map<ChemicalEntity, Double>> availableMolecules, Updatable updatable,
+                                                ConcentrationDelta delta, double moleculesPerConcentration) {
+        return availableMolecules.computeIfAbsent(delta.getCellSubsection(), subsection -> new HashMap<>())
+                .computeIfAbsent(delta.getChemicalEntity(), entity -> updatable.getConcentrationContainer()
+                        .get(delta.getCellSubsection(), entity).to(UnitRegistry.getConcentrationUnit()).getValue().doubleValue() * moleculesPerConcentration);
+    }
+
+    /**
+     * Samples a Poisson distributed number with the given expected value. Small expected values are sampled by
+     * inversion, large expected values by the transformed rejection method with squeeze (PTRS) by Hörmann (1993).
+     *
+     * @param expectedValue The expected value.
+     * @param random The random stream.
+     * @return The sampled number.
+     */
+    static long samplePoisson(double expectedValue, SplittableRandom random) {
+        if (expectedValue <= 0.0) {
+            return 0;
+        }
+        if (expectedValue < INVERSION_LIMIT) {
+            double limit = Math.exp(-expectedValue);
+            double product = random.nextDouble();
+            long count = 0;
+            while (product > limit) {
+                product *= random.nextDouble();
+                count++;
+            }
+            return count;
+        }
+        double logExpectedValue = Math.log(expectedValue);
+        double b = 0.931 + 2.53 * Math.sqrt(expectedValue);
+        double a = -0.059 + 0.02483 * b;
+        double inverseAlpha = 1.1239 + 1.1328 / (b - 3.4);
+        double vr = 0.9277 - 3.6224 / (b - 2);
+        while (true) {
+            double u = random.nextDouble() - 0.5;
+            double v = random.nextDouble();
+            double us = 0.5 - Math.abs(u);
+            long k = (long) Math.floor((2 * a / us + b) * u + expectedValue + 0.43);
+            if (us >= 0.07 && v <= vr) {
+                return k;
+            }
+            if (k < 0 || (us < 0.013 && v > us)) {
+                continue;
+            }
+            if (Math.log(v * inverseAlpha / (a / (us * us) + b)) <= -expectedValue + k * logExpectedValue - logFactorial(k)) {
+                return k;
+            }
+        }
+    }
+
+    private static double logFactorial(long k) {
+        if (k < 2) {
+            return 0.0;
+        }
+        // Stirling series
+        double x = k + 1.0;
+        return (x - 0.5) * Math.log(x) - x + 0.5 * Math.log(2 * Math.PI) + 1.0 / (12.0 * x) - 1.0 / (360.0 * x * x * x);
+    }
+
+    /**
+     * Returns the number of molecules, that correspond to one concentration unit in the volume of the updatable.
+     * Vesicles use their own volume, all other updatables the volume of a node.
+     *
+     * @param updatable The updatable.
+     * @return The number of molecules per concentration unit.
+     */
+    static double getMoleculesPerConcentration(Updatable updatable) {
+        Quantity<Volume> volume = updatable instanceof Vesicle ? ((Vesicle) updatable).getVolume() : UnitRegistry.getVolume();
+        return MolarConcentration.concentrationToMoles(UnitRegistry.concentration(1.0), volume)
+                .multiply(NaturalConstants.AVOGADRO_CONSTANT).asType(Dimensionless.class).getValue().doubleValue();
+    }
+
+    /**
+     * Combines seed, epoch and position of the updatable to the seed of a random stream.
+     */
+    private static long mix(long seed, long epoch, int position) {
+        long value = seed;
+        value = value * 0x9E3779B97F4A7C15L + epoch;
+        value = value * 0x9E3779B97F4A7C15L + position;
+        // finalizer of SplitMix64
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+}
@@ -0,0 +1,202 @@
+package bio.singa.simulation.model.simulation;
+
+/**
+ * The time step controller predicts the size of the next global time step from the local error, that was measured
+ * with the current time step. Instead of shrinking the time step by a constant factor until the error is acceptable,
+ * the controller uses the known dependence of the error estimate on the step size to directly compute the time step,
+ * where the error is expected to match the tolerance (reduced by a safety factor).
+ * <p>
+ * After accepted steps a proportional-integral (PI) controller is used, that additionally considers the error of the
+ * previous step to smooth the sequence of time steps:
+ * <pre>
+ *     factor = safety * (tolerance / error)^(0.7 / order) * (previousError / tolerance)^(0.4 / order)
+ * </pre>
+ * After rejected steps only the integral part is used. The factor is always limited to the range between the minimal
+ * and maximal factor and the time step is never increased directly after a rejection.
+ * <p>
+ * The error order is the exponent, with which the error estimate grows with the step size. The relative error of the
+ * midpoint method used by concentration based modules (see {@link bio.singa.simulation.model.modules.concentration.LocalError})
+ * grows linearly with the time step, therefore the default error order is one.
+ *
+ * @author cl
+ */
+public class TimeStepController {
+
+    /**
+     * The default fraction of the tolerance, that is aimed for.
+     */
+    private static final double DEFAULT_SAFETY_FACTOR = 0.9;
+
+    /**
+     * The default limit for decreasing the time step.
+     */
+    private static final double DEFAULT_MINIMAL_FACTOR = 0.2;
+
+    /**
+     * The default limit for increasing the time step.
+     */
+    private static final double DEFAULT_MAXIMAL_FACTOR = 2.0;
+
+    /**
+     * The factor the time step is increased by, if no error could be measured.
+     */
+    private static final double UNCONTROLLED_INCREASE = 1.2;
+
+    /**
+     * The factor the time step is decreased by, if no error could be measured.
+     */
+    private static final double UNCONTROLLED_DECREASE = 0.8;
+
+    /**
+     * The weight of the current error (integral part).
+     */
+    private static final double INTEGRAL_GAIN = 0.7;
+
+    /**
+     * The weight of the previous error (proportional part).
+     */
+    private static final double PROPORTIONAL_GAIN = 0.4;
+
+    private double errorOrder = 1.0;
+    private double safetyFactor = DEFAULT_SAFETY_FACTOR;
+    private double minimalFactor = DEFAULT_MINIMAL_FACTOR;
+    private double maximalFactor = DEFAULT_MAXIMAL_FACTOR;
+
+    /**
+     * The error of the previously accepted step or a negative value if there was none.
+     */
+    private double previousError = -1.0;
+
+    /**
+     * True if the last step has been rejected.
+     */
+    private boolean previousRejected;
+
+    private long acceptedSteps;
+    private long rejectedSteps;
+
+    /**
+     * Returns the factor for the time step after a step with the given error has been rejected.
+     *
+     * @param error The error measured with the rejected time step or a non positive value if the error is unknown.
+     * @param tolerance The largest acceptable error.
+     * @return The factor, that should be applied to the current time step.
+     */
+    public double rejected(double error, double tolerance) {
+        rejectedSteps++;
+        previousRejected = true;
+        if (!isMeasurable(error)) {
+            return UNCONTROLLED_DECREASE;
+        }
+        double factor = safetyFactor * Math.pow(tolerance / error, 1.0 / errorOrder);
+        return limit(factor, minimalFactor, Math.min(safetyFactor, UNCONTROLLED_DECREASE));
+    }
+
+    /**
+     * Returns the factor for the next time step after a step with the given error has been accepted.
+     *
+     * @param error The error measured with the accepted time step or a non positive value if the error is unknown.
+     * @param tolerance The largest acceptable error.
+     * @return The factor, that should be applied to the current time step.
+     */
+    public double accepted(double error, double tolerance) {
+        acceptedSteps++;
+        double upperLimit = previousRejected ? 1.0 : maximalFactor;
+        previousRejected = false;
+        if (!isMeasurable(error)) {
+            previousError = -1.0;
+            return Math.min(UNCONTROLLED_INCREASE, upperLimit);
+        }
+        double factor = safetyFactor * Math.pow(tolerance / error, INTEGRAL_GAIN / errorOrder);
+        if (previousError > 0.0) {
+            factor *= Math.pow(previousError / tolerance, PROPORTIONAL_GAIN / errorOrder);
+        }
+        previousError = error;
+        return limit(factor, minimalFactor, upperLimit);
+    }
+
+    private static boolean isMeasurable(double error) {
+        return error > 0.0 && !Double.isInfinite(error) && !Double.isNaN(error);
+    }
+
+    private static double limit(double factor, double lowerLimit, double upperLimit) {
+        return Math.max(lowerLimit, Math.min(upperLimit, factor));
+    }
+
+    /**
+     * Resets the history of the controller. Statistics are retained.
+     */
+    public void reset() {
+        previousError = -1.0;
+        previousRejected = false;
+    }
+
+    public double getErrorOrder() {
+        return errorOrder;
+    }
+
+    public void setErrorOrder(double errorOrder) {
+        if (errorOrder <= 0.0) {
+            throw new IllegalArgumentException("The error order must be positive.");
+        }
+        this.errorOrder = errorOrder;
+    }
+
+    public double getSafetyFactor() {
+        return safetyFactor;
+    }
+
+    public void setSafetyFactor(double safetyFactor) {
+        if (safetyFactor <= 0.0 || safetyFactor > 1.0) {
+            throw new IllegalArgumentException("The safety factor must be in (0, 1].");
+        }
+        this.safetyFactor = safetyFactor;
+    }
+
+    public double getMinimalFactor() {
+        return minimalFactor;
+    }
+
+    public void setMinimalFactor(double minimalFactor) {
+        if (minimalFactor <= 0.0 || minimalFactor >= 1.0) {
+            throw new IllegalArgumentException("The minimal factor must be in (0, 1).");
+        }
+        this.minimalFactor = minimalFactor;
+    }
+
+    public double getMaximalFactor() {
+        return maximalFactor;
+    }
+
+    public void setMaximalFactor(double maximalFactor) {
+        if (maximalFactor < 1.0) {
+            throw new IllegalArgumentException("The maximal factor must not be smaller than one.");
+        }
+        this.maximalFactor = maximalFactor;
+    }
+
+    /**
+     * Returns the number of accepted steps.
+     *
+     * @return The number of accepted steps.
+     */
+    public long getAcceptedSteps() {
+        return acceptedSteps;
+    }
+
+    /**
+     * Returns the number of rejected steps, i.e. the number of times the time step had to be decreased and the
+     * calculation had to be repeated.
+     *
+     * @return The number of rejected steps.
+     */
+    public long getRejectedSteps() {
+        return rejectedSteps;
+    }
+
+    @Override
+    public String toString() {
+        return "TimeStepController: " + acceptedSteps + " accepted, " + rejectedSteps + " rejected steps";
+    }
+
+}
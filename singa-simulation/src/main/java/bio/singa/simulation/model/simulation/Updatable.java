@@ -25,6 +25,8 @@ public interface Updatable {
     void addPotentialDelta(ConcentrationDelta delta);
     void clearPotentialConcentrationDeltas();
     void clearPotentialDeltasBut(UpdateModule module);
+    void clearPotentialDeltas(UpdateModule module);
+    void scalePotentialDeltas(UpdateModule module, double factor);
     void shiftDeltas();
     void applyDeltas();
     boolean hasDeltas();
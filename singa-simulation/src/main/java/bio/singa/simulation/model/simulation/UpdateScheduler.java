@@ -3,14 +3,19 @@ package bio.singa.simulation.model.simulation;
 import bio.singa.chemistry.entities.ChemicalEntity;
 import bio.singa.features.units.UnitRegistry;
 import bio.singa.simulation.model.modules.UpdateModule;
+import bio.singa.simulation.model.modules.concentration.ConcentrationBasedModule;
 import bio.singa.simulation.model.modules.concentration.LocalError;
 import bio.singa.simulation.model.modules.concentration.ModuleState;
 import bio.singa.simulation.model.agents.pointlike.Vesicle;
+import bio.singa.simulation.model.modules.displacement.DisplacementBasedModule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
-import java.util.ListIterator;
+import javax.measure.Quantity;
+import javax.measure.quantity.Time;
+import java.util.*;
+
+import static tec.uom.se.unit.Units.SECOND;
 
 /**
  * @author cl
@@ -24,6 +29,12 @@ public class UpdateScheduler {
      */
     private static final double DEFAULT_RECALCULATION_CUTOFF = 0.01;
 
+    /**
+     * The default maximal multiple of the global time step, modules are allowed to advance, if multi rate time
+     * stepping is enabled.
+     */
+    private static final int DEFAULT_MAXIMAL_STEP_MULTIPLIER = 8;
+
     private Simulation simulation;
     private List<Updatable> updatables;
 
@@ -36,10 +47,36 @@ public class UpdateScheduler {
     private LocalError largestError;
     private int processedModules;
 
+    /**
+     * The number of module evaluations in the current epoch, that have been discarded.
+     */
+    private int wastedEvaluations;
+
+    /**
+     * The number of module evaluations, that have been discarded since the start of the simulation.
+     */
+    private long totalWastedEvaluations;
+
+    private final TimeStepController timeStepController;
+
+    /**
+     * The stochastic update scheme for low copy number updatables or null if all updatables are updated
+     * deterministically.
+     */
+    private TauLeaping tauLeaping;
+
+    private boolean multiRate;
+    private int maximalStepMultiplier = DEFAULT_MAXIMAL_STEP_MULTIPLIER;
+    private final Map<UpdateModule, ModuleStepController> stepControllers;
+    private final Set<UpdateModule> skippedModules;
+
     public UpdateScheduler(Simulation simulation) {
         this.simulation = simulation;
         modules = simulation.getModules();
         largestError = LocalError.MINIMAL_EMPTY_ERROR;
+        timeStepController = new TimeStepController();
+        stepControllers = new LinkedHashMap<>();
+        skippedModules = new HashSet<>();
     }
 
     public double getRecalculationCutoff() {
@@ -50,20 +87,134 @@ public class UpdateScheduler {
         this.recalculationCutoff = recalculationCutoff;
     }
 
+    /**
+     * Returns the controller, that predicts the global time step from the local error of the modules. The controller
+     * provides statistics about accepted and rejected steps.
+     *
+     * @return The time step controller.
+     */
+    public TimeStepController getTimeStepController() {
+        return timeStepController;
+    }
+
+    /**
+     * Returns the stochastic update scheme for low copy number updatables.
+     *
+     * @return The tau leaping scheme or null if all updatables are updated deterministically.
+     */
+    public TauLeaping getTauLeaping() {
+        return tauLeaping;
+    }
+
+    /**
+     * Enables hybrid stochastic updates, where updatables with low copy numbers are updated by tau leaping (see
+     * {@link TauLeaping}), while all other updatables are updated deterministically.
+     *
+     * @param tauLeaping The tau leaping scheme or null to update all updatables deterministically.
+     */
+    public void setTauLeaping(TauLeaping tauLeaping) {
+        this.tauLeaping = tauLeaping;
+    }
+
+    /**
+     * Returns true if the given updatable is updated stochastically in the current epoch.
+     *
+     * @param updatable The updatable.
+     * @return True if the updatable is updated stochastically.
+     */
+    public boolean isStochastic(Updatable updatable) {
+        return tauLeaping != null && tauLeaping.isStochastic(updatable);
+    }
+
+    /**
+     * Returns true if multi rate time stepping is enabled.
+     *
+     * @return True if multi rate time stepping is enabled.
+     */
+    public boolean isMultiRate() {
+        return multiRate;
+    }
+
+    /**
+     * Enables or disables multi rate time stepping. If enabled, each {@link ConcentrationBasedModule} advances with
+     * its own step size, that is a multiple of the global time step and adapted to the local error of the module (see
+     * {@link ModuleStepController}). Slow modules are only evaluated at some epochs, while fast modules are evaluated
+     * in every epoch and determine the global time step.
+     *
+     * @param multiRate True if multi rate time stepping should be enabled.
+     */
+    public void setMultiRate(boolean multiRate) {
+        this.multiRate = multiRate;
+        if (!multiRate) {
+            stepControllers.values().forEach(ModuleStepController::reset);
+        }
+    }
+
+    /**
+     * Returns the maximal multiple of the global time step, modules are allowed to advance.
+     *
+     * @return The maximal step multiplier.
+     */
+    public int getMaximalStepMultiplier() {
+        return maximalStepMultiplier;
+    }
+
+    /**
+     * Sets the maximal multiple of the global time step, modules are allowed to advance.
+     *
+     * @param maximalStepMultiplier The maximal step multiplier.
+     */
+    public void setMaximalStepMultiplier(int maximalStepMultiplier) {
+        if (maximalStepMultiplier < 1) {
+            throw new IllegalArgumentException("The maximal step multiplier must be positive.");
+        }
+        this.maximalStepMultiplier = maximalStepMultiplier;
+        stepControllers.values().forEach(controller -> controller.setMaximalStepMultiplier(maximalStepMultiplier));
+    }
+
+    /**
+     * Returns the step controller of each module, that is controlled by multi rate time stepping. The controllers
+     * provide statistics about the number of steps each module took.
+     *
+     * @return The step controllers.
+     */
+    public Collection<ModuleStepController> getStepControllers() {
+        return Collections.unmodifiableCollection(stepControllers.values());
+    }
+
+    /**
+     * Returns the step controller of the given module.
+     *
+     * @param module The module.
+     * @return The step controller or null if the module is not controlled by multi rate time stepping.
+     */
+    public ModuleStepController getStepController(UpdateModule module) {
+        return stepControllers.get(module);
+    }
+
     public void nextEpoch() {
         // initialize fields
         simulation.collectUpdatables();
         updatables = simulation.getUpdatables();
-        moduleIterator = modules.listIterator();
-        // until all models passed
-        module = moduleIterator.next();
+        // deltas retained for observation are either collected by now or stale
+        for (Updatable updatable : updatables) {
+            if (updatable.isObserved()) {
+                updatable.clearPotentialConcentrationDeltas();
+            }
+        }
+        if (tauLeaping != null) {
+            tauLeaping.partition(updatables);
+        }
+        determineSkippedModules();
         timestepRescaled = false;
+        wastedEvaluations = 0;
         do {
-            processedModules = 0;
+            // until all models passed
+            restartIteration();
             while (processedModules < modules.size()) {
                 processModuleByState(module.getState());
             }
-        } while (!spatialDisplacementIsValid());
+        } while (!localErrorsAreAccepted() || !spatialDisplacementIsValid());
 
         // resolve pending changes
         for (UpdateModule updateModule : modules) {
@@ -74,51 +225,242 @@ public class UpdateScheduler {
 
         logger.debug("Finished processing modules for epoch {}.", simulation.getEpoch());
         // wrap up
+        determineLargestError();
+        adaptModuleSteps();
+        if (tauLeaping != null) {
+            tauLeaping.leap(simulation.getEpoch());
+        }
         finalizeDeltas();
         modules.forEach(UpdateModule::resetState);
+        totalWastedEvaluations += wastedEvaluations;
+    }
+
+    /**
+     * Returns the number of module evaluations in the last epoch, that have been discarded, because the time step
+     * had to be decreased and the deltas of the module could not be adapted to the new time step.
+     *
+     * @return The number of wasted evaluations in the last epoch.
+     */
+    public int getWastedEvaluations() {
+        return wastedEvaluations;
+    }
+
+    /**
+     * Returns the number of module evaluations, that have been discarded since the start of the simulation.
+     *
+     * @return The total number of wasted evaluations.
+     */
+    public long getTotalWastedEvaluations() {
+        return totalWastedEvaluations;
     }
 
     private void processModuleByState(ModuleState state) {
         logger.debug("{} is {}", module.toString(), module.getState().name());
         switch (state) {
             case PENDING:
-                // calculate update
-                module.calculateUpdates();
+                if (skippedModules.contains(module)) {
+                    // the module has advanced beyond the current epoch
+                    nextModule();
+                } else {
+                    // calculate update
+                    simulation.getMetrics().calculateUpdates(module);
+                }
                 break;
             case SUCCEEDED:
             case SUCCEEDED_WITH_PENDING_CHANGES:
                 // continue with next module
-                if (moduleIterator.hasNext()) {
-                    module = moduleIterator.next();
-                }
-                processedModules++;
+                nextModule();
                 break;
             case REQUIRING_RECALCULATION:
+                if (module instanceof ConcentrationBasedModule) {
+                    // the time step is decreased after the errors of all modules are known
+                    nextModule();
+                    break;
+                }
+                long previousRejections = timeStepController.getRejectedSteps();
+                double previousTimeStep = UnitRegistry.getTimeScale();
                 // optimize time step
-                module.optimizeTimeStep();
-                // reset states
-                modules.stream()
-                        .filter(m -> m != module)
-                        .forEach(UpdateModule::resetState);
-                // clear deltas that have previously been calculated
-                updatables.forEach(updatable -> updatable.clearPotentialDeltasBut(module));
-                // start from the beginning
-                moduleIterator = modules.listIterator();
-                module = moduleIterator.next();
+                simulation.getMetrics().optimizeTimeStep(module);
+                // each rejected calculation has been discarded
+                wastedEvaluations += timeStepController.getRejectedSteps() - previousRejections;
+                // adapt or discard calculations of other modules
+                adaptEvaluatedModules(UnitRegistry.getTimeScale() / previousTimeStep, module);
+                // start from the beginning, skipping modules that are already done
+                restartIteration();
                 break;
             case ERRORED:
                 throw new IllegalStateException("Module " + module + " errored. Sorry.");
         }
     }
 
+    /**
+     * Decreases the time step, if the local error of any {@link ConcentrationBasedModule} was rejected during the
+     * current iteration. The errors of all modules have been determined with the same time step, therefore the module
+     * with the largest error requires the smallest time step. The time step is optimized for this module, such that
+     * its error is accepted. Afterwards the deltas of all modules, that accept their rescaled deltas (see
+     * {@link ConcentrationBasedModule#acceptsRescaledDeltas(double)}), are rescaled to the new time step, and only
+     * the remaining modules are calculated again.
+     *
+     * @return True if no error has been rejected.
+     */
+    private boolean localErrorsAreAccepted() {
+        ConcentrationBasedModule<?> rejectedModule = null;
+        double largestRejectedError = 0.0;
+        for (UpdateModule updateModule : modules) {
+            if (!(updateModule instanceof ConcentrationBasedModule) || updateModule.getState() != ModuleState.REQUIRING_RECALCULATION) {
+                continue;
+            }
+            ConcentrationBasedModule<?> concentrationModule = (ConcentrationBasedModule<?>) updateModule;
+            double localError = concentrationModule.getSupplier().getLargestLocalError().getValue();
+            if (rejectedModule == null || localError > largestRejectedError) {
+                rejectedModule = concentrationModule;
+                largestRejectedError = localError;
+            }
+        }
+        if (rejectedModule == null) {
+            return true;
+        }
+        long previousRejections = timeStepController.getRejectedSteps();
+        double previousTimeStep = UnitRegistry.getTimeScale();
+        // optimize time step for the largest error
+        simulation.getMetrics().optimizeTimeStep(rejectedModule);
+        // each rejected calculation has been discarded
+        wastedEvaluations += timeStepController.getRejectedSteps() - previousRejections;
+        // adapt or discard calculations of other modules
+        adaptEvaluatedModules(UnitRegistry.getTimeScale() / previousTimeStep, rejectedModule);
+        return false;
+    }
+
+    private void restartIteration() {
+        moduleIterator = modules.listIterator();
+        module = moduleIterator.next();
+        processedModules = 0;
+    }
+
+    /**
+     * Adapts the calculations of all modules, that have already been evaluated in the current epoch, to a changed time
+     * step. The deltas of {@link ConcentrationBasedModule}s, that accept their rescaled deltas, are scaled by the
+     * ratio of the time steps. All other modules, including modules, whose error has been rejected, are reset and
+     * their deltas are discarded, such that they are calculated again.
+     *
+     * @param timeStepRatio The ratio between the new and the previous time step.
+     * @param excludedModule The module, that has determined the new time step.
+     */
+    private void adaptEvaluatedModules(double timeStepRatio, UpdateModule excludedModule) {
+        boolean displacementDiscarded = false;
+        for (UpdateModule updateModule : modules) {
+            if (updateModule == excludedModule || updateModule.getState() == ModuleState.PENDING) {
+                continue;
+            }
+            if (updateModule instanceof ConcentrationBasedModule && ((ConcentrationBasedModule<?>) updateModule).acceptsRescaledDeltas(timeStepRatio)) {
+                ((ConcentrationBasedModule<?>) updateModule).rescaleDeltas(timeStepRatio);
+            } else {
+                updateModule.resetState();
+                for (Updatable updatable : updatables) {
+                    updatable.clearPotentialDeltas(updateModule);
+                }
+                if (updateModule instanceof DisplacementBasedModule) {
+                    displacementDiscarded = true;
+                }
+                wastedEvaluations++;
+            }
+        }
+        if (displacementDiscarded) {
+            // displacements are not attributed to modules when they are applied
+            simulation.getVesicleLayer().clearDisplacementUpdates();
+            for (UpdateModule updateModule : modules) {
+                if (updateModule instanceof DisplacementBasedModule && updateModule != excludedModule && updateModule.getState() != ModuleState.PENDING) {
+                    updateModule.resetState();
+                    wastedEvaluations++;
+                }
+            }
+        }
+    }
+
+    private void nextModule() {
+        if (moduleIterator.hasNext()) {
+            module = moduleIterator.next();
+        }
+        processedModules++;
+    }
+
+    /**
+     * Determines the modules, that are not evaluated in the current epoch, because their step size exceeds the
+     * current epoch. The time of the skipped epochs is caught up with, when they are evaluated the next time.
+     */
+    private void determineSkippedModules() {
+        skippedModules.clear();
+        if (!multiRate) {
+            return;
+        }
+        for (UpdateModule updateModule : modules) {
+            if (!(updateModule instanceof ConcentrationBasedModule)) {
+                continue;
+            }
+            ModuleStepController controller = stepControllers.computeIfAbsent(updateModule, key -> new ModuleStepController(key, maximalStepMultiplier));
+            if (!controller.isDue(simulation.getEpoch())) {
+                skippedModules.add(updateModule);
+            }
+        }
+    }
+
+    /**
+     * Determines the largest local error of all modules, that have been evaluated in the current epoch.
+     */
+    private void determineLargestError() {
+        largestError = LocalError.MINIMAL_EMPTY_ERROR;
+        for (UpdateModule updateModule : modules) {
+            if (!(updateModule instanceof ConcentrationBasedModule) || skippedModules.contains(updateModule)) {
+                continue;
+            }
+            LocalError localError = ((ConcentrationBasedModule<?>) updateModule).getSupplier().getLargestLocalError();
+            if (localError.getValue() > largestError.getValue()) {
+                largestError = localError;
+            }
+        }
+    }
+
+    /**
+     * Adapts the step sizes of all modules, that have been evaluated in the current epoch, and scales their deltas to
+     * the simulated time since their previous evaluation. If multi rate time stepping has been disabled, modules only
+     * catch up with the time they have skipped before.
+     */
+    private void adaptModuleSteps() {
+        if (stepControllers.isEmpty()) {
+            return;
+        }
+        double timeStep = UnitRegistry.getTime().to(SECOND).getValue().doubleValue();
+        for (ModuleStepController controller : stepControllers.values()) {
+            UpdateModule controlledModule = controller.getModule();
+            if (skippedModules.contains(controlledModule)) {
+                controller.skip(timeStep);
+                continue;
+            }
+            double factor;
+            if (multiRate) {
+                double localError = ((ConcentrationBasedModule<?>) controlledModule).getSupplier().getLargestLocalError().getValue();
+                factor = controller.evaluated(simulation.getEpoch(), timeStep, localError, recalculationCutoff);
+            } else {
+                factor = controller.catchUp(timeStep);
+            }
+            if (factor != 1.0) {
+                logger.trace("Scaling deltas of {} by {} to cover the skipped time.", controlledModule, factor);
+                for (Updatable updatable : updatables) {
+                    updatable.scalePotentialDeltas(controlledModule, factor);
+                }
+            }
+        }
+    }
+
     private boolean spatialDisplacementIsValid() {
         if (simulation.getVesicleLayer().getVesicles().isEmpty()) {
             return true;
         }
         if (!simulation.getVesicleLayer().deltasAreBelowDisplacementCutoff()) {
+            double previousTimeStep = UnitRegistry.getTimeScale();
             decreaseTimeStep();
-            simulation.getVesicleLayer().clearUpdates();
-            modules.forEach(UpdateModule::resetState);
+            simulation.getVesicleLayer().clearDisplacementUpdates();
+            adaptEvaluatedModules(UnitRegistry.getTimeScale() / previousTimeStep, null);
             return false;
         }
         return true;
@@ -150,17 +492,51 @@ public class UpdateScheduler {
     public void increaseTimeStep() {
         UnitRegistry.setTime(UnitRegistry.getTime().multiply(1.2));
         logger.debug("Increasing time step to {}.", UnitRegistry.getTime());
-        rescaleParameters();
         timestepRescaled = true;
     }
 
+    /**
+     * Decreases the time step after a calculation has been rejected, without knowing the error of the calculation.
+     */
     public void decreaseTimeStep() {
-        UnitRegistry.setTime(UnitRegistry.getTime().multiply(0.8));
+        decreaseTimeStep(Double.NaN);
+    }
+
+    /**
+     * Decreases the time step after a calculation has been rejected. The new time step is predicted by the
+     * {@link TimeStepController} from the given error, such that the repeated calculation is expected to succeed.
+     * Scalable features are rescaled lazily, when they are used the next time.
+     *
+     * @param localError The error of the rejected calculation.
+     */
+    public void decreaseTimeStep(double localError) {
+        double factor = timeStepController.rejected(localError, recalculationCutoff);
+        UnitRegistry.setTime(UnitRegistry.getTime().multiply(factor));
         logger.debug("Decreasing time step to {}.", UnitRegistry.getTime());
-        rescaleParameters();
         timestepRescaled = true;
     }
 
+    /**
+     * Adapts the time step for the next epoch to the largest error of the current epoch. The new time step is
+     * predicted by the {@link TimeStepController} and limited by the maximal time step.
+     *
+     * @param maximalTimeStep The maximal time step or null if the time step is not limited.
+     */
+    public void adaptTimeStep(Quantity<Time> maximalTimeStep) {
+        double factor = timeStepController.accepted(largestError.getValue(), recalculationCutoff);
+        Quantity<Time> timeStep = UnitRegistry.getTime().multiply(factor);
+        if (maximalTimeStep != null) {
+            Quantity<Time> convertedMaximum = maximalTimeStep.to(timeStep.getUnit());
+            if (timeStep.getValue().doubleValue() > convertedMaximum.getValue().doubleValue()) {
+                timeStep = convertedMaximum;
+            }
+        }
+        if (timeStep.getValue().doubleValue() != UnitRegistry.getTime().getValue().doubleValue()) {
+            UnitRegistry.setTime(timeStep);
+            logger.debug("Adapting time step to {}.", UnitRegistry.getTime());
+        }
+    }
+
     private void finalizeDeltas() {
         for (Updatable updatable : updatables) {
             updatable.shiftDeltas();
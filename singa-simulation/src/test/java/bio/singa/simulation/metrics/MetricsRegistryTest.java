@@ -0,0 +1,95 @@
+package bio.singa.simulation.metrics;
+
+import bio.singa.chemistry.entities.SmallMolecule;
+import bio.singa.chemistry.features.diffusivity.Diffusivity;
+import bio.singa.features.model.Evidence;
+import bio.singa.features.units.UnitRegistry;
+import bio.singa.mathematics.graphs.model.Graphs;
+import bio.singa.simulation.model.graphs.AutomatonGraph;
+import bio.singa.simulation.model.graphs.AutomatonGraphs;
+import bio.singa.simulation.model.graphs.AutomatonNode;
+import bio.singa.simulation.model.modules.concentration.imlementations.Diffusion;
+import bio.singa.simulation.model.simulation.Simulation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import tec.uom.se.quantity.Quantities;
+
+import static bio.singa.chemistry.features.diffusivity.Diffusivity.SQUARE_CENTIMETRE_PER_SECOND;
+import static bio.singa.features.units.UnitProvider.MOLE_PER_LITRE;
+import static bio.singa.simulation.model.sections.CellSubsections.EXTRACELLULAR_REGION;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author cl
+ */
+class MetricsRegistryTest {
+
+    private static final SmallMolecule ammonia = new SmallMolecule.Builder("ammonia")
+            .assignFeature(new Diffusivity(Quantities.getQuantity(2.28E-05, SQUARE_CENTIMETRE_PER_SECOND), Evidence.MANUALLY_ANNOTATED))
+            .build();
+
+    @BeforeAll
+    static void initialize() {
+        UnitRegistry.reinitialize();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        UnitRegistry.reinitialize();
+    }
+
+    @Test
+    void shouldRecordHistogram() {
+        Histogram histogram = new Histogram();
+        for (int value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050, histogram.getSum());
+        assertEquals(1, histogram.getMinimum());
+        assertEquals(100, histogram.getMaximum());
+        // percentiles are accurate within a factor of two
+        long median = histogram.getPercentile(0.5);
+        assertTrue(median >= 50 && median <= 100);
+        assertEquals(100, histogram.getPercentile(1.0));
+    }
+
+    @Test
+    void shouldInstrumentSimulation() {
+        AutomatonGraph graph = AutomatonGraphs.useStructureFrom(Graphs.buildGridGraph(5, 5));
+        for (AutomatonNode node : graph.getNodes()) {
+            double concentration = node.getIdentifier().getColumn() < 2 ? 1.0 : 0.0;
+            node.getConcentrationContainer().initialize(EXTRACELLULAR_REGION, ammonia, Quantities.getQuantity(concentration, MOLE_PER_LITRE));
+        }
+        Simulation simulation = new Simulation();
+        simulation.setGraph(graph);
+        Diffusion diffusion = Diffusion.inSimulation(simulation)
+                .identifier("ammonia diffusion")
+                .onlyFor(ammonia)
+                .build();
+        MetricsRegistry metrics = simulation.getMetrics();
+        metrics.setEnabled(true);
+        metrics.setSnapshotInterval(5);
+        for (int i = 0; i < 10; i++) {
+            simulation.nextEpoch();
+        }
+        OperationMetrics diffusionMetrics = metrics.getMetrics(diffusion);
+        assertNotNull(diffusionMetrics);
+        assertTrue(diffusionMetrics.getInvocations() >= 10);
+        assertTrue(diffusionMetrics.getDeltas() > 0);
+        double share = metrics.getShare(diffusionMetrics);
+        assertTrue(share > 0.0 && share <= 1.0);
+        assertEquals(10, metrics.getMetrics(MetricsRegistry.CONCENTRATION_DELTAS).getInvocations());
+        assertEquals(10, metrics.getHistorySize());
+        assertEquals(2, metrics.getSnapshots().size());
+        assertTrue(metrics.getTimeStep(0) > 0.0);
+        // export
+        String json = MetricsExporter.toJson(metrics);
+        assertTrue(json.startsWith("{\"epochs\":10"));
+        assertTrue(json.contains("\"name\":\"ammonia diffusion\""));
+        String[] lines = MetricsExporter.toCsv(metrics).split(System.lineSeparator());
+        assertEquals(metrics.getAllMetrics().size() + 1, lines.length);
+    }
+
+}
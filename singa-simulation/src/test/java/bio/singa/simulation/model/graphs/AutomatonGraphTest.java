@@ -0,0 +1,126 @@
+package bio.singa.simulation.model.graphs;
+
+import bio.singa.chemistry.entities.SmallMolecule;
+import bio.singa.chemistry.features.diffusivity.Diffusivity;
+import bio.singa.chemistry.features.reactions.RateConstant;
+import bio.singa.features.model.Evidence;
+import bio.singa.features.units.UnitRegistry;
+import bio.singa.mathematics.graphs.model.Graphs;
+import bio.singa.simulation.model.modules.concentration.imlementations.Diffusion;
+import bio.singa.simulation.model.modules.concentration.imlementations.NthOrderReaction;
+import bio.singa.simulation.model.simulation.Simulation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import tec.uom.se.quantity.Quantities;
+
+import static bio.singa.chemistry.features.diffusivity.Diffusivity.SQUARE_CENTIMETRE_PER_SECOND;
+import static bio.singa.features.units.UnitProvider.MOLE_PER_LITRE;
+import static bio.singa.simulation.model.sections.CellSubsections.EXTRACELLULAR_REGION;
+import static org.junit.jupiter.api.Assertions.*;
+import static tec.uom.se.unit.MetricPrefix.MICRO;
+import static tec.uom.se.unit.Units.SECOND;
+
+/**
+ * @author cl
+ */
+class AutomatonGraphTest {
+
+    @AfterEach
+    void cleanUp() {
+        UnitRegistry.reinitialize();
+    }
+
+    @Test
+    void shouldTrackActiveNodes() {
+        SmallMolecule molecule = new SmallMolecule.Builder("m")
+                .assignFeature(new Diffusivity(Quantities.getQuantity(4.40E-05, SQUARE_CENTIMETRE_PER_SECOND), Evidence.MANUALLY_ANNOTATED))
+                .build();
+        AutomatonGraph graph = AutomatonGraphs.useStructureFrom(Graphs.buildGridGraph(10, 10));
+        for (AutomatonNode node : graph.getNodes()) {
+            double concentration = node.getIdentifier().getColumn() == 0 && node.getIdentifier().getRow() == 0 ? 1.0 : 0.0;
+            node.getConcentrationContainer().initialize(EXTRACELLULAR_REGION, molecule, Quantities.getQuantity(concentration, MOLE_PER_LITRE));
+        }
+        graph.setActivityTracking(true);
+        Simulation simulation = new Simulation();
+        simulation.setGraph(graph);
+        Diffusion.inSimulation(simulation)
+                .onlyFor(molecule)
+                .build();
+        // all nodes are active initially
+        assertEquals(100, graph.getActiveNodes().size());
+        simulation.nextEpoch();
+        // only the corner and its neighbours changed, they remain active with their neighbours
+        assertEquals(6, graph.getActiveNodes().size());
+        AutomatonNode distantNode = graph.getNode(9, 9);
+        assertFalse(distantNode.isActive());
+        // the active region grows with the diffusion front
+        simulation.nextEpoch();
+        assertTrue(graph.getActiveNodes().size() > 6);
+        assertFalse(distantNode.isActive());
+        graph.activate(distantNode);
+        assertTrue(distantNode.isActive());
+        // disabling tracking activates all nodes
+        graph.setActivityTracking(false);
+        assertEquals(100, graph.getActiveNodes().size());
+    }
+
+    @Test
+    void shouldKeepSlowlyChangingNodesActive() {
+        SmallMolecule substrate = SmallMolecule.create("A").build();
+        SmallMolecule product = SmallMolecule.create("B").build();
+        AutomatonGraph graph = AutomatonGraphs.singularGraph();
+        AutomatonNode node = graph.getNode(0, 0);
+        node.getConcentrationContainer().set(EXTRACELLULAR_REGION, substrate, 1.0);
+        node.getConcentrationContainer().set(EXTRACELLULAR_REGION, product, 0.0);
+        graph.setActivityTracking(true);
+        // every epoch only changes the concentrations by 1e-16 mol/l, far below the cutoff of 1e-12 mol/l per second
+        Simulation simulation = new Simulation();
+        simulation.setGraph(graph);
+        simulation.setMaximalTimeStep(Quantities.getQuantity(1.0, MICRO(SECOND)));
+        UnitRegistry.setTime(Quantities.getQuantity(1.0, MICRO(SECOND)));
+        RateConstant rateConstant = RateConstant.create(1e-10)
+                .forward().zeroOrder()
+                .concentrationUnit(MOLE_PER_LITRE)
+                .timeUnit(SECOND)
+                .build();
+        NthOrderReaction.inSimulation(simulation)
+                .addSubstrate(substrate)
+                .addProduct(product)
+                .rateConstant(rateConstant)
+                .build();
+        for (int epoch = 0; epoch < 1000; epoch++) {
+            simulation.nextEpoch();
+            assertTrue(node.isActive());
+        }
+        double elapsedSeconds = simulation.getElapsedTime().to(SECOND).getValue().doubleValue();
+        double expectedProduct = 1e-10 * elapsedSeconds;
+        assertEquals(expectedProduct, node.getConcentrationContainer().get(EXTRACELLULAR_REGION, product).to(MOLE_PER_LITRE).getValue().doubleValue(), expectedProduct * 1e-6);
+    }
+
+    @Test
+    void shouldReactivateQuiescentNodesPeriodically() {
+        AutomatonGraph graph = AutomatonGraphs.useStructureFrom(Graphs.buildGridGraph(3, 3));
+        graph.setActivityTracking(true);
+        graph.setReactivationInterval(3);
+        // nothing changes
+        graph.updateActivity();
+        assertEquals(0, graph.getActiveNodes().size());
+        graph.updateActivity();
+        assertEquals(0, graph.getActiveNodes().size());
+        graph.updateActivity();
+        assertEquals(9, graph.getActiveNodes().size());
+    }
+
+    @Test
+    void shouldActivateNeighboursOfObservedNodes() {
+        AutomatonGraph graph = AutomatonGraphs.useStructureFrom(Graphs.buildGridGraph(3, 3));
+        graph.setActivityTracking(true);
+        graph.getNode(0, 0).setObserved(true);
+        // nothing changes, but the observed corner remains active together with its neighbours
+        graph.updateActivity();
+        assertEquals(3, graph.getActiveNodes().size());
+        assertTrue(graph.getNode(1, 0).isActive());
+        assertTrue(graph.getNode(0, 1).isActive());
+    }
+
+}
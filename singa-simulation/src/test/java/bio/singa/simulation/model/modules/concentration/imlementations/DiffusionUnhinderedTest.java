@@ -74,7 +74,7 @@ class DiffusionUnhinderedTest {
         Simulation simulation = setUpSimulation(10, hydrogen);
         Quantity<Time> actualHalfLifeTime = runSimulation(simulation, 10, hydrogen);
         // test results
-        assertEquals(Quantities.getQuantity(130, MICRO(SECOND)).getValue().doubleValue(), actualHalfLifeTime.getValue().doubleValue(), 1);
+        assertEquals(Quantities.getQuantity(135, MICRO(SECOND)).getValue().doubleValue(), actualHalfLifeTime.getValue().doubleValue(), 1);
         Environment.reset();
     }
 
@@ -84,7 +84,7 @@ class DiffusionUnhinderedTest {
         Simulation simulation = setUpSimulation(20, hydrogen);
         Quantity<Time> actualHalfLifeTime = runSimulation(simulation, 20, hydrogen);
         // test results
-        assertEquals(Quantities.getQuantity(134, MICRO(SECOND)).getValue().doubleValue(), actualHalfLifeTime.getValue().doubleValue(), 1);
+        assertEquals(Quantities.getQuantity(135, MICRO(SECOND)).getValue().doubleValue(), actualHalfLifeTime.getValue().doubleValue(), 1);
         Environment.reset();
     }
 
@@ -0,0 +1,137 @@
+package bio.singa.simulation.model.modules.concentration.imlementations;
+
+import bio.singa.chemistry.entities.SmallMolecule;
+import bio.singa.chemistry.features.diffusivity.Diffusivity;
+import bio.singa.features.model.Evidence;
+import bio.singa.features.parameters.Environment;
+import bio.singa.features.units.UnitRegistry;
+import bio.singa.mathematics.graphs.model.Graphs;
+import bio.singa.mathematics.topology.grids.rectangular.RectangularCoordinate;
+import bio.singa.simulation.model.graphs.AutomatonGraph;
+import bio.singa.simulation.model.graphs.AutomatonGraphs;
+import bio.singa.simulation.model.graphs.AutomatonNode;
+import bio.singa.simulation.model.simulation.Simulation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import tec.uom.se.quantity.Quantities;
+
+import javax.measure.Quantity;
+import javax.measure.quantity.Length;
+
+import static bio.singa.chemistry.features.diffusivity.Diffusivity.SQUARE_CENTIMETRE_PER_SECOND;
+import static bio.singa.features.units.UnitProvider.MOLE_PER_LITRE;
+import static bio.singa.simulation.model.sections.CellSubsections.EXTRACELLULAR_REGION;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static tec.uom.se.unit.MetricPrefix.MICRO;
+import static tec.uom.se.unit.MetricPrefix.NANO;
+import static tec.uom.se.unit.Units.METRE;
+import static tec.uom.se.unit.Units.SECOND;
+
+/**
+ * @author cl
+ */
+class ImplicitDiffusionTest {
+
+    private static final Quantity<Length> systemDiameter = Quantities.getQuantity(2500.0, NANO(METRE));
+
+    private static final SmallMolecule hydrogen = new SmallMolecule.Builder("h2")
+            .name("dihydrogen")
+            .assignFeature(new Diffusivity(Quantities.getQuantity(4.40E-05, SQUARE_CENTIMETRE_PER_SECOND), Evidence.MANUALLY_ANNOTATED))
+            .build();
+
+    @BeforeAll
+    static void initialize() {
+        UnitRegistry.reinitialize();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        UnitRegistry.reinitialize();
+        Environment.reset();
+    }
+
+    @Test
+    void shouldReachSameHalfLifeAsExplicitDiffusion() {
+        Simulation simulation = setUpSimulation(10);
+        simulation.setMaximalTimeStep(Quantities.getQuantity(1.0, MICRO(SECOND)));
+        RectangularCoordinate coordinate = new RectangularCoordinate(9, 4);
+        double currentConcentration = 0.0;
+        while (currentConcentration < 0.25) {
+            simulation.nextEpoch();
+            currentConcentration = getConcentration(simulation.getGraph().getNode(coordinate));
+        }
+        // see DiffusionUnhinderedTest
+        assertEquals(135.0, simulation.getElapsedTime().to(MICRO(SECOND)).getValue().doubleValue(), 2.0);
+    }
+
+    @Test
+    void shouldRemainStableForLargeTimeSteps() {
+        Simulation simulation = setUpSimulation(20);
+        // far beyond the stability limit of explicit diffusion
+        UnitRegistry.setTime(Quantities.getQuantity(20.0, MICRO(SECOND)));
+        simulation.setMaximalTimeStep(Quantities.getQuantity(20.0, MICRO(SECOND)));
+        double initialMass = getMass(simulation.getGraph());
+        for (int epoch = 0; epoch < 50; epoch++) {
+            simulation.nextEpoch();
+        }
+        AutomatonGraph graph = simulation.getGraph();
+        // mass is conserved
+        assertEquals(initialMass, getMass(graph), 1e-8);
+        // concentrations equilibrated
+        for (AutomatonNode node : graph.getNodes()) {
+            double concentration = getConcentration(node);
+            assertTrue(concentration > 0.45 && concentration < 0.55);
+        }
+    }
+
+    @Test
+    void shouldNotOscillateForSteepGradients() {
+        Simulation simulation = setUpSimulation(10);
+        AutomatonGraph graph = simulation.getGraph();
+        // a single peak in the center of the graph
+        RectangularCoordinate peak = new RectangularCoordinate(5, 5);
+        for (AutomatonNode node : graph.getNodes()) {
+            double concentration = node.getIdentifier().equals(peak) ? 1.0 : 0.0;
+            node.getConcentrationContainer().initialize(EXTRACELLULAR_REGION, hydrogen, Quantities.getQuantity(concentration, MOLE_PER_LITRE));
+        }
+        UnitRegistry.setTime(Quantities.getQuantity(20.0, MICRO(SECOND)));
+        simulation.setMaximalTimeStep(Quantities.getQuantity(20.0, MICRO(SECOND)));
+        simulation.nextEpoch();
+        // crank nicolson would overshoot at the peak and produce negative concentrations around it
+        double peakConcentration = getConcentration(graph.getNode(peak));
+        for (AutomatonNode node : graph.getNodes()) {
+            double concentration = getConcentration(node);
+            assertTrue(concentration >= 0.0);
+            assertTrue(concentration <= peakConcentration);
+        }
+        assertTrue(getConcentration(graph.getNode(new RectangularCoordinate(5, 4))) > getConcentration(graph.getNode(new RectangularCoordinate(5, 3))));
+    }
+
+    private Simulation setUpSimulation(int numberOfNodes) {
+        Environment.setNodeSpacingToDiameter(systemDiameter, numberOfNodes);
+        AutomatonGraph graph = AutomatonGraphs.useStructureFrom(Graphs.buildGridGraph(numberOfNodes, numberOfNodes));
+        for (AutomatonNode node : graph.getNodes()) {
+            double concentration = node.getIdentifier().getColumn() < (graph.getNumberOfColumns() / 2) ? 1.0 : 0.0;
+            node.getConcentrationContainer().initialize(EXTRACELLULAR_REGION, hydrogen, Quantities.getQuantity(concentration, MOLE_PER_LITRE));
+        }
+        Simulation simulation = new Simulation();
+        simulation.setGraph(graph);
+        ImplicitDiffusion.inSimulation(simulation)
+                .onlyFor(hydrogen)
+                .build();
+        return simulation;
+    }
+
+    private static double getConcentration(AutomatonNode node) {
+        return node.getConcentrationContainer().get(EXTRACELLULAR_REGION, hydrogen).to(MOLE_PER_LITRE).getValue().doubleValue();
+    }
+
+    private static double getMass(AutomatonGraph graph) {
+        return graph.getNodes().stream()
+                .mapToDouble(ImplicitDiffusionTest::getConcentration)
+                .sum();
+    }
+
+}
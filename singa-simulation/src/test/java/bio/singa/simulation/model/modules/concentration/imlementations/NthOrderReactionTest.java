@@ -32,6 +32,8 @@ import javax.measure.quantity.Time;
 import static bio.singa.features.units.UnitProvider.MOLE_PER_LITRE;
 import static bio.singa.simulation.model.sections.CellRegions.EXTRACELLULAR_REGION;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static tec.uom.se.unit.MetricPrefix.*;
 import static tec.uom.se.unit.Units.METRE;
 import static tec.uom.se.unit.Units.SECOND;
@@ -163,4 +165,104 @@ class NthOrderReactionTest {
         assertEquals(0, molecules.getValue().intValue());
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("rescaled deltas - only valid for zero order reactions")
+    void shouldRescaleDeltasOnlyIfLinearInTimeStep() {
+        RateConstant zeroOrderRate = RateConstant.create(0.001)
+                .forward().zeroOrder()
+                .concentrationUnit(MOLE_PER_LITRE)
+                .timeUnit(SECOND)
+                .build();
+        double[] zeroOrderDeltas = rescaleAndRecalculateDeltas(zeroOrderRate, true);
+        // rescaling is exact
+        assertEquals(zeroOrderDeltas[1], zeroOrderDeltas[0], Math.abs(zeroOrderDeltas[1]) * 1e-10);
+        UnitRegistry.reinitialize();
+        RateConstant firstOrderRate = RateConstant.create(0.07)
+                .forward().firstOrder()
+                .timeUnit(SECOND)
+                .build();
+        double[] firstOrderDeltas = rescaleAndRecalculateDeltas(firstOrderRate, false);
+        // the midpoint concentration depends on the time step
+        assertTrue(Math.abs(firstOrderDeltas[0] - firstOrderDeltas[1]) > Math.abs(firstOrderDeltas[1]) * 1e-10);
+    }
+
+    @Test
+    @DisplayName("rescaled deltas - accepted if the local error limits the deviation")
+    void shouldAcceptRescaledDeltasIfLocalErrorLimitsDeviation() {
+        Simulation simulation = new Simulation();
+        AutomatonGraph graph = AutomatonGraphs.singularGraph();
+        SmallMolecule substrate = SmallMolecule.create("A").build();
+        SmallMolecule product = SmallMolecule.create("B").build();
+        CellSubsection subsection = EXTRACELLULAR_REGION.getInnerSubsection();
+        AutomatonNode node = graph.getNode(0, 0);
+        node.getConcentrationContainer().set(subsection, substrate, 0.02);
+        node.getConcentrationContainer().set(subsection, product, 0.0);
+        RateConstant rateConstant = RateConstant.create(0.07)
+                .forward().firstOrder()
+                .timeUnit(SECOND)
+                .build();
+        NthOrderReaction reaction = NthOrderReaction.inSimulation(simulation)
+                .addSubstrate(substrate)
+                .addProduct(product)
+                .rateConstant(rateConstant)
+                .build();
+        simulation.setGraph(graph);
+        // initialize the simulation
+        simulation.nextEpoch();
+        node.clearPotentialConcentrationDeltas();
+        reaction.resetState();
+        reaction.calculateUpdates();
+        double localError = reaction.getSupplier().getLargestLocalError().getValue();
+        assertTrue(localError > 0.0);
+        // the deviation of rescaled deltas is estimated as 2 * (1 - ratio) * error
+        simulation.getScheduler().setRecalculationCutoff(1.5 * localError);
+        assertTrue(reaction.acceptsRescaledDeltas(1.0));
+        assertTrue(reaction.acceptsRescaledDeltas(0.5));
+        assertFalse(reaction.acceptsRescaledDeltas(0.2));
+    }
+
+    /**
+     * Calculates the deltas of a reaction, halves the time step and returns the rescaled and the recalculated delta of
+     * the substrate.
+     */
+    private double[] rescaleAndRecalculateDeltas(RateConstant rateConstant, boolean expectedLinear) {
+        Simulation simulation = new Simulation();
+        AutomatonGraph graph = AutomatonGraphs.singularGraph();
+        SmallMolecule substrate = SmallMolecule.create("A").build();
+        SmallMolecule product = SmallMolecule.create("B").build();
+        CellSubsection subsection = EXTRACELLULAR_REGION.getInnerSubsection();
+        AutomatonNode node = graph.getNode(0, 0);
+        node.getConcentrationContainer().set(subsection, substrate, 0.02);
+        node.getConcentrationContainer().set(subsection, product, 0.0);
+        NthOrderReaction reaction = NthOrderReaction.inSimulation(simulation)
+                .addSubstrate(substrate)
+                .addProduct(product)
+                .rateConstant(rateConstant)
+                .build();
+        simulation.setGraph(graph);
+        // initialize the simulation
+        simulation.nextEpoch();
+        assertEquals(expectedLinear, reaction.isLinearInTimeStep());
+        // calculate, halve the time step and rescale
+        node.clearPotentialConcentrationDeltas();
+        reaction.calculateUpdates();
+        UnitRegistry.setTime(UnitRegistry.getTime().multiply(0.5));
+        reaction.rescaleDeltas(0.5);
+        double rescaledDelta = getDelta(node, reaction, substrate);
+        // calculate again with the halved time step
+        node.clearPotentialDeltas(reaction);
+        reaction.resetState();
+        reaction.calculateUpdates();
+        double recalculatedDelta = getDelta(node, reaction, substrate);
+        assertTrue(recalculatedDelta < 0.0);
+        return new double[]{rescaledDelta, recalculatedDelta};
+    }
+
+    private double getDelta(AutomatonNode node, NthOrderReaction reaction, SmallMolecule entity) {
+        return node.getPotentialConcentrationDeltas().stream()
+                .filter(delta -> delta.getModule() == reaction && delta.getChemicalEntity().equals(entity))
+                .mapToDouble(delta -> delta.getQuantity().getValue().doubleValue())
+                .sum();
+    }
+
+}
@@ -91,7 +91,7 @@ class ReversibleReactionTest {
             simulation.nextEpoch();
             if (!firstCheckpointPassed && currentTime.getValue().doubleValue() > firstCheckpoint.getValue().doubleValue()) {
                 assertEquals(0.8901, node.getConcentrationContainer().get(subsection, speciesA).to(MOLE_PER_LITRE).getValue().doubleValue(), 1e-3);
-                assertEquals(0.1108, node.getConcentrationContainer().get(subsection, speciesB).to(MOLE_PER_LITRE).getValue().doubleValue(), 1e-3);
+                assertEquals(0.1096, node.getConcentrationContainer().get(subsection, speciesB).to(MOLE_PER_LITRE).getValue().doubleValue(), 1e-3);
                 firstCheckpointPassed = true;
             }
         }
@@ -7,6 +7,7 @@ import bio.singa.simulation.model.agents.pointlike.Vesicle;
 import bio.singa.simulation.model.agents.pointlike.VesicleLayer;
 import bio.singa.simulation.model.graphs.AutomatonGraph;
 import bio.singa.simulation.model.graphs.AutomatonGraphs;
+import bio.singa.simulation.model.modules.concentration.ModuleState;
 import bio.singa.simulation.model.simulation.Simulation;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,6 +15,8 @@ import tec.uom.se.ComparableQuantity;
 import tec.uom.se.quantity.Quantities;
 
 import javax.measure.quantity.Length;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
@@ -100,4 +103,64 @@ class VesicleCytoplasmDiffusionTest {
             initialPosition = currentPosition;
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("vesicle diffusion - batched displacements should be reproducible")
+    void shouldCalculateReproducibleBatchedDisplacements() {
+        List<Vector2D> first = calculateBatchedDisplacements(42);
+        List<Vector2D> second = calculateBatchedDisplacements(42);
+        List<Vector2D> other = calculateBatchedDisplacements(7);
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+    }
+
+    @Test
+    @DisplayName("vesicle diffusion - batched displacements should have the expected deviation")
+    void shouldDrawDisplacementsWithExpectedDeviation() {
+        Simulation simulation = setUpSimulation(3000);
+        VesicleCytoplasmDiffusion diffusion = createModule(simulation, 1);
+        diffusion.calculateUpdates();
+        double sumOfSquares = 0.0;
+        double expectedVariance = 0.0;
+        for (Vesicle vesicle : simulation.getVesicleLayer().getVesicles()) {
+            Vector2D displacement = vesicle.getSpatialDelta(diffusion).getDeltaVector();
+            sumOfSquares += displacement.getX() * displacement.getX() + displacement.getY() * displacement.getY();
+            double deviation = diffusion.calculateStandardDeviation(vesicle);
+            expectedVariance += 2.0 * deviation * deviation;
+        }
+        assertEquals(1.0, sumOfSquares / expectedVariance, 0.05);
+    }
+
+    private List<Vector2D> calculateBatchedDisplacements(long seed) {
+        Simulation simulation = setUpSimulation(2500);
+        VesicleCytoplasmDiffusion diffusion = createModule(simulation, seed);
+        diffusion.calculateUpdates();
+        assertNotEquals(ModuleState.PENDING, diffusion.getState());
+        List<Vector2D> displacements = new ArrayList<>();
+        for (Vesicle vesicle : simulation.getVesicleLayer().getVesicles()) {
+            displacements.add(vesicle.getSpatialDelta(diffusion).getDeltaVector());
+        }
+        return displacements;
+    }
+
+    private static VesicleCytoplasmDiffusion createModule(Simulation simulation, long seed) {
+        VesicleCytoplasmDiffusion diffusion = new VesicleCytoplasmDiffusion();
+        diffusion.setSimulation(simulation);
+        diffusion.setSeed(seed);
+        diffusion.setBatched(true);
+        return diffusion;
+    }
+
+    private static Simulation setUpSimulation(int numberOfVesicles) {
+        Environment.setSystemExtend(Quantities.getQuantity(20, MICRO(METRE)));
+        Environment.setSimulationExtend(500);
+        Simulation simulation = new Simulation();
+        VesicleLayer layer = new VesicleLayer(simulation);
+        for (int i = 0; i < numberOfVesicles; i++) {
+            layer.addVesicle(new Vesicle(String.valueOf(i), new Vector2D(250, 250), Quantities.getQuantity(100, NANO(METRE)).to(UnitRegistry.getSpaceUnit())));
+        }
+        simulation.setVesicleLayer(layer);
+        return simulation;
+    }
+
+}
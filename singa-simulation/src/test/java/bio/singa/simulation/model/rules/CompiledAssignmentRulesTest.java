@@ -0,0 +1,110 @@
+package bio.singa.simulation.model.rules;
+
+import bio.singa.chemistry.entities.SmallMolecule;
+import bio.singa.features.units.UnitRegistry;
+import bio.singa.simulation.model.graphs.AutomatonGraph;
+import bio.singa.simulation.model.graphs.AutomatonGraphs;
+import bio.singa.simulation.model.graphs.AutomatonNode;
+import bio.singa.simulation.model.sections.CellSubsection;
+import bio.singa.simulation.model.simulation.Simulation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static bio.singa.simulation.model.sections.CellRegions.EXTRACELLULAR_REGION;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author cl
+ */
+class CompiledAssignmentRulesTest {
+
+    private final SmallMolecule substrate = new SmallMolecule.Builder("substrate").build();
+    private final SmallMolecule intermediate = new SmallMolecule.Builder("intermediate").build();
+    private final SmallMolecule product = new SmallMolecule.Builder("product").build();
+
+    @BeforeAll
+    static void initialize() {
+        UnitRegistry.reinitialize();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        UnitRegistry.reinitialize();
+    }
+
+    @Test
+    @DisplayName("assignment rules - compiled rules should match rules applied to single nodes")
+    void shouldApplyRulesToAllNodes() {
+        CellSubsection subsection = EXTRACELLULAR_REGION.getInnerSubsection();
+        AutomatonGraph compiledGraph = createGraph();
+        AutomatonGraph referenceGraph = createGraph();
+        // the product depends on the intermediate, that is assigned by another rule
+        List<AssignmentRule> rules = AssignmentRules.sortAssignmentRulesByPriority(createRules());
+        CompiledAssignmentRules compiledRules = new CompiledAssignmentRules(rules, compiledGraph.getNodes());
+        assertEquals(9, compiledRules.getNumberOfNodes());
+        assertEquals(2, compiledRules.getNumberOfRules());
+        compiledRules.apply();
+        for (AssignmentRule rule : rules) {
+            referenceGraph.getNodes().forEach(rule::applyRule);
+        }
+        for (AutomatonNode compiledNode : compiledGraph.getNodes()) {
+            AutomatonNode referenceNode = referenceGraph.getNode(compiledNode.getIdentifier());
+            double substrateConcentration = compiledNode.getConcentrationContainer().get(subsection, substrate).getValue().doubleValue();
+            double intermediateConcentration = compiledNode.getConcentrationContainer().get(subsection, intermediate).getValue().doubleValue();
+            double productConcentration = compiledNode.getConcentrationContainer().get(subsection, product).getValue().doubleValue();
+            assertEquals(2.0 * substrateConcentration, intermediateConcentration, 1e-12);
+            assertEquals(intermediateConcentration + substrateConcentration, productConcentration, 1e-12);
+            assertEquals(referenceNode.getConcentrationContainer().get(subsection, product).getValue().doubleValue(), productConcentration, 1e-12);
+        }
+    }
+
+    @Test
+    @DisplayName("assignment rules - should be applied by the simulation")
+    void shouldApplyRulesInSimulation() {
+        CellSubsection subsection = EXTRACELLULAR_REGION.getInnerSubsection();
+        Simulation simulation = new Simulation();
+        AutomatonGraph graph = createGraph();
+        simulation.setGraph(graph);
+        simulation.setAssignmentRules(createRules());
+        simulation.applyAssignmentRules();
+        AutomatonNode node = graph.getNode(2, 1);
+        double substrateConcentration = node.getConcentrationContainer().get(subsection, substrate).getValue().doubleValue();
+        assertEquals(3.0 * substrateConcentration, node.getConcentrationContainer().get(subsection, product).getValue().doubleValue(), 1e-12);
+        // rules are applied to the current concentrations
+        node.getConcentrationContainer().set(subsection, substrate, UnitRegistry.concentration(1.0));
+        simulation.applyAssignmentRules();
+        assertEquals(3.0, node.getConcentrationContainer().get(subsection, product).getValue().doubleValue(), 1e-12);
+        // rules are applied to replaced concentration containers
+        node.setCellRegion(EXTRACELLULAR_REGION);
+        node.getConcentrationContainer().set(subsection, substrate, UnitRegistry.concentration(2.0));
+        simulation.applyAssignmentRules();
+        assertEquals(6.0, node.getConcentrationContainer().get(subsection, product).getValue().doubleValue(), 1e-12);
+    }
+
+    private List<AssignmentRule> createRules() {
+        AssignmentRule productRule = new AssignmentRule(product);
+        productRule.referenceChemicalEntityToParameter("S", substrate);
+        productRule.referenceChemicalEntityToParameter("I", intermediate);
+        productRule.setExpression(parameters -> parameters[0] + parameters[1], "I", "S");
+        AssignmentRule intermediateRule = new AssignmentRule(intermediate);
+        intermediateRule.referenceChemicalEntityToParameter("S", substrate);
+        intermediateRule.setExpression(parameters -> 2.0 * parameters[0], "S");
+        return new ArrayList<>(Arrays.asList(productRule, intermediateRule));
+    }
+
+    private AutomatonGraph createGraph() {
+        AutomatonGraph graph = AutomatonGraphs.createRectangularAutomatonGraph(3, 3);
+        CellSubsection subsection = EXTRACELLULAR_REGION.getInnerSubsection();
+        for (AutomatonNode node : graph.getNodes()) {
+            node.getConcentrationContainer().set(subsection, substrate, UnitRegistry.concentration(0.1 * (node.getIdentifier().getColumn() + 3 * node.getIdentifier().getRow() + 1)));
+        }
+        return graph;
+    }
+
+}
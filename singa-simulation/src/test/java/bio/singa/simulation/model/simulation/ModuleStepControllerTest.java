@@ -0,0 +1,82 @@
+package bio.singa.simulation.model.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author cl
+ */
+class ModuleStepControllerTest {
+
+    @Test
+    void shouldIncreaseStepMultiplierGradually() {
+        ModuleStepController controller = new ModuleStepController(null, 8);
+        assertTrue(controller.isDue(0));
+        // no error allows the maximal multiplier, but the multiplier at most doubles
+        controller.evaluated(0, 1.0, 0.0, 0.01);
+        assertEquals(2, controller.getStepMultiplier());
+        assertFalse(controller.isDue(1));
+        controller.skip(1.0);
+        assertTrue(controller.isDue(2));
+        controller.evaluated(2, 1.0, 0.0, 0.01);
+        assertEquals(4, controller.getStepMultiplier());
+        controller.evaluated(6, 1.0, 0.0, 0.01);
+        assertEquals(8, controller.getStepMultiplier());
+        controller.evaluated(14, 1.0, 0.0, 0.01);
+        assertEquals(8, controller.getStepMultiplier());
+        assertTrue(controller.isDue(22));
+        assertEquals(4, controller.getEvaluations());
+        assertEquals(1, controller.getSkippedEpochs());
+    }
+
+    @Test
+    void shouldDecreaseStepMultiplierWithError() {
+        ModuleStepController controller = new ModuleStepController(null, 8);
+        controller.evaluated(0, 1.0, 0.0, 0.01);
+        controller.evaluated(2, 1.0, 0.0, 0.01);
+        // half of the cutoff divided by the error is 2.5, the largest power of two below is 2
+        controller.evaluated(6, 1.0, 0.002, 0.01);
+        assertEquals(2, controller.getStepMultiplier());
+        // errors above the cutoff always fall back to the global time step
+        controller.evaluated(8, 1.0, 0.1, 0.01);
+        assertEquals(1, controller.getStepMultiplier());
+        assertTrue(controller.isDue(9));
+    }
+
+    @Test
+    void shouldCatchUpWithSkippedTimeIfTimeStepChanges() {
+        ModuleStepController controller = new ModuleStepController(null, 4);
+        // deltas of the first evaluation only cover the current time step
+        assertEquals(1.0, controller.evaluated(0, 2.0, 0.0, 0.01));
+        assertEquals(2, controller.getStepMultiplier());
+        // the time step is halved, while the module is skipped
+        controller.skip(1.0);
+        assertEquals(1.0, controller.getSkippedTime());
+        // one skipped time step and the current time step, both 1.0
+        assertEquals(2.0, controller.evaluated(2, 1.0, 0.0, 0.01));
+        assertEquals(4, controller.getStepMultiplier());
+        assertEquals(0.0, controller.getSkippedTime());
+        // the time step changes in every skipped epoch
+        controller.skip(1.0);
+        controller.skip(0.5);
+        controller.skip(0.25);
+        // skipped 1.75 in total, evaluated with 0.25, the deltas have to cover 2.0 in total
+        assertEquals(8.0, controller.evaluated(6, 0.25, 0.0, 0.01));
+        // a step multiplier would have scaled by 4, covering only 1.0
+        assertEquals(4, controller.getStepMultiplier());
+    }
+
+    @Test
+    void shouldRetainSkippedTimeOnReset() {
+        ModuleStepController controller = new ModuleStepController(null, 4);
+        controller.evaluated(0, 1.0, 0.0, 0.01);
+        controller.skip(1.0);
+        controller.reset();
+        assertTrue(controller.isDue(2));
+        assertEquals(1, controller.getStepMultiplier());
+        assertEquals(2.0, controller.catchUp(1.0));
+        assertEquals(1.0, controller.catchUp(1.0));
+    }
+
+}
@@ -0,0 +1,179 @@
+package bio.singa.simulation.model.simulation;
+
+import bio.singa.chemistry.entities.SmallMolecule;
+import bio.singa.chemistry.features.reactions.RateConstant;
+import bio.singa.features.quantities.MolarConcentration;
+import bio.singa.features.units.UnitRegistry;
+import bio.singa.mathematics.vectors.Vector2D;
+import bio.singa.simulation.model.agents.pointlike.Vesicle;
+import bio.singa.simulation.model.modules.concentration.ConcentrationDelta;
+import bio.singa.simulation.model.modules.concentration.imlementations.NthOrderReaction;
+import bio.singa.simulation.model.sections.CellSubsection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import tec.uom.se.quantity.Quantities;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static tec.uom.se.unit.MetricPrefix.NANO;
+import static tec.uom.se.unit.Units.METRE;
+import static tec.uom.se.unit.Units.SECOND;
+
+/**
+ * @author cl
+ */
+class TauLeapingTest {
+
+    private static final SmallMolecule substrate = SmallMolecule.create("A").build();
+    private static final SmallMolecule product = SmallMolecule.create("B").build();
+
+    @BeforeAll
+    static void initialize() {
+        UnitRegistry.reinitialize();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        UnitRegistry.reinitialize();
+    }
+
+    @Test
+    void shouldSamplePoissonDistribution() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (double expectedValue : new double[]{0.5, 3.0, 50.0, 1000.0}) {
+            int samples = 50000;
+            double sum = 0.0;
+            double squaredSum = 0.0;
+            for (int i = 0; i < samples; i++) {
+                long value = TauLeaping.samplePoisson(expectedValue, random);
+                assertTrue(value >= 0);
+                sum += value;
+                squaredSum += value * value;
+            }
+            double mean = sum / samples;
+            double variance = squaredSum / samples - mean * mean;
+            assertEquals(expectedValue, mean, 0.02 * expectedValue + 0.02);
+            assertEquals(expectedValue, variance, 0.05 * expectedValue + 0.05);
+        }
+    }
+
+    @Test
+    void shouldDetermineCopyNumbersFromVolumeOfVesicles() {
+        Vesicle vesicle = createVesicle(20.0);
+        double nodeMoleculesPerConcentration = MolarConcentration.concentrationToMolecules(UnitRegistry.concentration(1.0)).getValue().doubleValue();
+        double volumeRatio = vesicle.getVolume().to(UnitRegistry.getVolume().getUnit()).getValue().doubleValue()
+                / UnitRegistry.getVolume().getValue().doubleValue();
+        assertEquals(1.0, TauLeaping.getMoleculesPerConcentration(vesicle) / nodeMoleculesPerConcentration / volumeRatio, 1e-9);
+    }
+
+    @Test
+    void shouldSampleWholeFiringsAndRetainStoichiometry() {
+        // 2 A -> 3 B with 4.3 expected firings, the smallest delta (8.6 A) is not the number of firings
+        Vesicle vesicle = createVesicle(20.0);
+        double moleculesPerConcentration = TauLeaping.getMoleculesPerConcentration(vesicle);
+        CellSubsection subsection = vesicle.getConcentrationContainer().getMembraneSubsection();
+        NthOrderReaction reaction = createReaction();
+        vesicle.addPotentialDelta(new ConcentrationDelta(reaction, subsection, substrate, UnitRegistry.concentration(-8.6 / moleculesPerConcentration)));
+        vesicle.addPotentialDelta(new ConcentrationDelta(reaction, subsection, product, UnitRegistry.concentration(12.9 / moleculesPerConcentration)));
+        List<ConcentrationDelta> firstDeltas = leap(vesicle, 7);
+        assertFalse(firstDeltas.isEmpty());
+        double substrateDelta = getMolecules(firstDeltas, subsection, substrate, moleculesPerConcentration);
+        double productDelta = getMolecules(firstDeltas, subsection, product, moleculesPerConcentration);
+        // whole firings, each converting two substrates to three products
+        double firings = -substrateDelta / 2.0;
+        assertEquals(Math.rint(firings), firings, 1e-6);
+        assertEquals(3.0 * firings, productDelta, 1e-6);
+        // reproducible
+        Vesicle secondVesicle = createVesicle(20.0);
+        secondVesicle.addPotentialDelta(new ConcentrationDelta(reaction, subsection, substrate, UnitRegistry.concentration(-8.6 / moleculesPerConcentration)));
+        secondVesicle.addPotentialDelta(new ConcentrationDelta(reaction, subsection, product, UnitRegistry.concentration(12.9 / moleculesPerConcentration)));
+        List<ConcentrationDelta> secondDeltas = leap(secondVesicle, 7);
+        assertEquals(substrateDelta, getMolecules(secondDeltas, subsection, substrate, moleculesPerConcentration));
+    }
+
+    @Test
+    void shouldSampleProcessesOfModuleSeparately() {
+        Vesicle vesicle = createVesicle(90.0);
+        double moleculesPerConcentration = TauLeaping.getMoleculesPerConcentration(vesicle);
+        CellSubsection membrane = vesicle.getConcentrationContainer().getMembraneSubsection();
+        CellSubsection inner = vesicle.getConcentrationContainer().getInnerSubsection();
+        vesicle.getConcentrationContainer().set(inner, substrate, 10.0 / moleculesPerConcentration);
+        NthOrderReaction reaction = createReaction();
+        // the same reaction in two subsections with 30 and 0.5 expected firings
+        vesicle.addPotentialDelta(new ConcentrationDelta(reaction, membrane, substrate, UnitRegistry.concentration(-60.0 / moleculesPerConcentration)));
+        vesicle.addPotentialDelta(new ConcentrationDelta(reaction, membrane, product, UnitRegistry.concentration(90.0 / moleculesPerConcentration)));
+        vesicle.addPotentialDelta(new ConcentrationDelta(reaction, inner, substrate, UnitRegistry.concentration(-1.0 / moleculesPerConcentration)));
+        vesicle.addPotentialDelta(new ConcentrationDelta(reaction, inner, product, UnitRegistry.concentration(1.5 / moleculesPerConcentration)));
+        for (long seed = 0; seed < 20; seed++) {
+            List<ConcentrationDelta> deltas = leap(vesicle, seed);
+            // mass is conserved in each subsection
+            for (CellSubsection subsection : new CellSubsection[]{membrane, inner}) {
+                double firings = -getMolecules(deltas, subsection, substrate, moleculesPerConcentration) / 2.0;
+                assertEquals(Math.rint(firings), firings, 1e-6);
+                assertEquals(3.0 * firings, getMolecules(deltas, subsection, product, moleculesPerConcentration), 1e-6);
+            }
+            // restore the deterministic deltas
+            vesicle.clearPotentialConcentrationDeltas();
+            vesicle.addPotentialDelta(new ConcentrationDelta(reaction, membrane, substrate, UnitRegistry.concentration(-60.0 / moleculesPerConcentration)));
+            vesicle.addPotentialDelta(new ConcentrationDelta(reaction, membrane, product, UnitRegistry.concentration(90.0 / moleculesPerConcentration)));
+            vesicle.addPotentialDelta(new ConcentrationDelta(reaction, inner, substrate, UnitRegistry.concentration(-1.0 / moleculesPerConcentration)));
+            vesicle.addPotentialDelta(new ConcentrationDelta(reaction, inner, product, UnitRegistry.concentration(1.5 / moleculesPerConcentration)));
+        }
+    }
+
+    @Test
+    void shouldNotConsumeMoreMoleculesThanAvailable() {
+        // three molecules of A only suffice for a single firing of 2 A -> 3 B, while 50 firings are expected
+        Vesicle vesicle = createVesicle(3.0);
+        double moleculesPerConcentration = TauLeaping.getMoleculesPerConcentration(vesicle);
+        CellSubsection subsection = vesicle.getConcentrationContainer().getMembraneSubsection();
+        NthOrderReaction reaction = createReaction();
+        vesicle.addPotentialDelta(new ConcentrationDelta(reaction, subsection, substrate, UnitRegistry.concentration(-100.0 / moleculesPerConcentration)));
+        vesicle.addPotentialDelta(new ConcentrationDelta(reaction, subsection, product, UnitRegistry.concentration(150.0 / moleculesPerConcentration)));
+        List<ConcentrationDelta> deltas = leap(vesicle, 3);
+        assertEquals(-2.0, getMolecules(deltas, subsection, substrate, moleculesPerConcentration), 1e-6);
+        assertEquals(3.0, getMolecules(deltas, subsection, product, moleculesPerConcentration), 1e-6);
+    }
+
+    private static NthOrderReaction createReaction() {
+        RateConstant rateConstant = RateConstant.create(1.0)
+                .forward().firstOrder()
+                .timeUnit(SECOND)
+                .build();
+        return NthOrderReaction.inSimulation(new Simulation())
+                .addSubstrate(substrate, 2)
+                .addProduct(product, 3)
+                .rateConstant(rateConstant)
+                .build();
+    }
+
+    private static Vesicle createVesicle(double substrateMolecules) {
+        Vesicle vesicle = new Vesicle("vesicle", new Vector2D(0.0, 0.0), Quantities.getQuantity(50.0, NANO(METRE)));
+        CellSubsection subsection = vesicle.getConcentrationContainer().getMembraneSubsection();
+        vesicle.getConcentrationContainer().set(subsection, substrate, substrateMolecules / TauLeaping.getMoleculesPerConcentration(vesicle));
+        return vesicle;
+    }
+
+    private static List<ConcentrationDelta> leap(Vesicle vesicle, long seed) {
+        TauLeaping tauLeaping = new TauLeaping(seed);
+        tauLeaping.partition(Collections.singletonList(vesicle));
+        assertTrue(tauLeaping.isStochastic(vesicle));
+        tauLeaping.leap(1);
+        return vesicle.getPotentialConcentrationDeltas();
+    }
+
+    private static double getMolecules(List<ConcentrationDelta> deltas, CellSubsection subsection, SmallMolecule entity, double moleculesPerConcentration) {
+        double molecules = 0.0;
+        for (ConcentrationDelta delta : deltas) {
+            if (delta.getCellSubsection().equals(subsection) && delta.getChemicalEntity().equals(entity)) {
+                molecules += delta.getQuantity().getValue().doubleValue() * moleculesPerConcentration;
+            }
+        }
+        return molecules;
+    }
+
+}
@@ -0,0 +1,45 @@
+package bio.singa.simulation.model.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author cl
+ */
+class TimeStepControllerTest {
+
+    @Test
+    void shouldPredictAcceptableTimeStepAfterRejection() {
+        TimeStepController controller = new TimeStepController();
+        // error ten times the tolerance with linear error growth requires a tenth of the step size
+        double factor = controller.rejected(0.1, 0.01);
+        assertEquals(0.2, factor, 1e-10);
+        factor = controller.rejected(0.015, 0.01);
+        assertEquals(0.9 / 1.5, factor, 1e-10);
+        assertEquals(2, controller.getRejectedSteps());
+        // no increase directly after rejection
+        assertEquals(1.0, controller.accepted(0.001, 0.01), 1e-10);
+        assertEquals(1, controller.getAcceptedSteps());
+    }
+
+    @Test
+    void shouldLimitIncrease() {
+        TimeStepController controller = new TimeStepController();
+        assertEquals(2.0, controller.accepted(1e-8, 0.01), 1e-10);
+        // unknown errors fall back to constant factors
+        assertEquals(1.2, controller.accepted(-Double.MAX_VALUE, 0.01), 1e-10);
+        assertEquals(0.8, controller.rejected(Double.NaN, 0.01), 1e-10);
+    }
+
+    @Test
+    void shouldConsiderPreviousError() {
+        TimeStepController controller = new TimeStepController();
+        double first = controller.accepted(0.005, 0.01);
+        assertEquals(0.9 * Math.pow(2.0, 0.7), first, 1e-10);
+        // same error, but the previous error reduces the increase
+        double second = controller.accepted(0.005, 0.01);
+        assertEquals(first * Math.pow(0.5, 0.4), second, 1e-10);
+    }
+
+}
@@ -0,0 +1,189 @@
+package bio.singa.structure.algorithms.molecules;
+
+import bio.singa.mathematics.vectors.BitVector;
+import bio.singa.mathematics.vectors.RegularBitVector;
+import bio.singa.structure.model.molecules.MoleculeAtom;
+import bio.singa.structure.model.molecules.MoleculeBond;
+import bio.singa.structure.model.molecules.MoleculeGraph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Path based fingerprints of {@link MoleculeGraph}s. Every linear path of up to {@link #MAXIMAL_PATH_LENGTH} atoms is
+ * hashed from the elements of its atoms and the types of its bonds and sets a single bit in a fingerprint of {@link
+ * #NUMBER_OF_BITS} bits, that is packed into an array of longs. Paths are hashed independent of their direction.
+ * <p>
+ * Every path of a substructure is also a path of the molecule containing it, therefore the fingerprint of a molecule
+ * is a superset of the fingerprints of all its substructures (with respect to identical elements and bond types). This
+ * allows to discard most molecules before an isomorphism search, using {@link #isSubset(long[], long[])}.
+ *
+ * @author cl
+ */
+public class MoleculeFingerprints {
+
+    /**
+     * The number of bits of each fingerprint.
+     */
+    public static final int NUMBER_OF_BITS = 1024;
+
+    /**
+     * The number of longs of each fingerprint.
+     */
+    public static final int NUMBER_OF_WORDS = NUMBER_OF_BITS >>> 6;
+
+    /**
+     * The maximal number of atoms of each path.
+     */
+    public static final int MAXIMAL_PATH_LENGTH = 7;
+
+    private static final int NO_BOND_TYPE = -1;
+
+    private final int[] atomLabels;
+    private final int[][] neighbours;
+    private final int[][] bondLabels;
+    private final long[] fingerprint;
+
+    private final boolean[] visited;
+    // alternating atom and bond labels of the current path
+    private final int[] path;
+
+    private MoleculeFingerprints(MoleculeGraph molecule) {
+        List<MoleculeAtom> atoms = new ArrayList<>(molecule.getNodes());
+        Map<MoleculeAtom, Integer> indices = new HashMap<>();
+        atomLabels = new int[atoms.size()];
+        for (int atom = 0; atom < atoms.size(); atom++) {
+            indices.put(atoms.get(atom), atom);
+            atomLabels[atom] = atoms.get(atom).getElement().hashCode();
+        }
+        List<List<int[]>> adjacency = new ArrayList<>();
+        for (int atom = 0; atom < atoms.size(); atom++) {
+            adjacency.add(new ArrayList<>());
+        }
+        for (MoleculeBond bond : molecule.getEdges()) {
+            Integer source = indices.get(bond.getSource());
+            Integer target = indices.get(bond.getTarget());
+            if (source == null || target == null || source.equals(target)) {
+                continue;
+            }
+            int bondLabel = bond.getType() != null ? bond.getType().ordinal() : NO_BOND_TYPE;
+            adjacency.get(source).add(new int[]{target, bondLabel});
+            adjacency.get(target).add(new int[]{source, bondLabel});
+        }
+        neighbours = new int[atoms.size()][];
+        bondLabels = new int[atoms.size()][];
+        for (int atom = 0; atom < atoms.size(); atom++) {
+            List<int[]> bonds = adjacency.get(atom);
+            neighbours[atom] = new int[bonds.size()];
+            bondLabels[atom] = new int[bonds.size()];
+            for (int bond = 0; bond < bonds.size(); bond++) {
+                neighbours[atom][bond] = bonds.get(bond)[0];
+                bondLabels[atom][bond] = bonds.get(bond)[1];
+            }
+        }
+        fingerprint = new long[NUMBER_OF_WORDS];
+        visited = new boolean[atoms.size()];
+        path = new int[2 * MAXIMAL_PATH_LENGTH - 1];
+    }
+
+    /**
+     * Calculates the path based fingerprint of the given molecule.
+     *
+     * @param molecule The molecule.
+     * @return The fingerprint, packed into {@link #NUMBER_OF_WORDS} longs.
+     */
+    public static long[] calculatePathFingerprint(MoleculeGraph molecule) {
+        MoleculeFingerprints fingerprints = new MoleculeFingerprints(molecule);
+        for (int atom = 0; atom < fingerprints.atomLabels.length; atom++) {
+            fingerprints.path[0] = fingerprints.atomLabels[atom];
+            fingerprints.visited[atom] = true;
+            fingerprints.extendPath(atom, 1);
+            fingerprints.visited[atom] = false;
+        }
+        return fingerprints.fingerprint;
+    }
+
+    /**
+     * Sets the bit of the current path and extends it by all unvisited neighbours of its last atom.
+     *
+     * @param lastAtom The last atom of the path.
+     * @param length The number of labels in the path.
+     */
+    private void extendPath(int lastAtom, int length) {
+        int bit = hashPath(length) & (NUMBER_OF_BITS - 1);
+        fingerprint[bit >>> 6] |= 1L << bit;
+        if (length == path.length) {
+            return;
+        }
+        for (int neighbour = 0; neighbour < neighbours[lastAtom].length; neighbour++) {
+            int nextAtom = neighbours[lastAtom][neighbour];
+            if (visited[nextAtom]) {
+                continue;
+            }
+            path[length] = bondLabels[lastAtom][neighbour];
+            path[length + 1] = atomLabels[nextAtom];
+            visited[nextAtom] = true;
+            extendPath(nextAtom, length + 2);
+            visited[nextAtom] = false;
+        }
+    }
+
+    /**
+     * Hashes the current path in both directions and keeps the smaller hash, such that both directions result in the
+     * same bit.
+     */
+    private int hashPath(int length) {
+        long forward = length;
+        long reverse = length;
+        for (int i = 0; i < length; i++) {
+            forward = forward * 31 + path[i];
+            reverse = reverse * 31 + path[length - i - 1];
+        }
+        return (int) mix(Math.min(forward, reverse));
+    }
+
+    /**
+     * The finalization step of MurmurHash3, to distribute similar paths over the fingerprint.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Returns true if all bits set in the subset are also set in the superset.
+     *
+     * @param subset The fingerprint of the potential substructure.
+     * @param superset The fingerprint of the potential superstructure.
+     * @return True, if the subset fingerprint is contained in the superset fingerprint.
+     */
+    public static boolean isSubset(long[] subset, long[] superset) {
+        for (int word = 0; word < subset.length; word++) {
+            if ((subset[word] & ~superset[word]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Converts the packed fingerprint to a {@link BitVector}.
+     *
+     * @param fingerprint The fingerprint.
+     * @return The {@link BitVector}.
+     */
+    public static BitVector toBitVector(long[] fingerprint) {
+        boolean[] elements = new boolean[fingerprint.length * 64];
+        for (int bit = 0; bit < elements.length; bit++) {
+            elements[bit] = (fingerprint[bit >>> 6] & (1L << bit)) != 0;
+        }
+        return new RegularBitVector(elements);
+    }
+
+}
@@ -28,7 +28,7 @@ public class MoleculeIsomorphismFinder {
     private MoleculeGraph target;
 
     private MoleculeIsomorphismFinder(MoleculeGraph pattern, MoleculeGraph target, BiFunction<MoleculeAtom, MoleculeAtom, Boolean> atomCondition, BiFunction<MoleculeBond, MoleculeBond, Boolean> bondCondition) {
-        logger.info("molecule isomorphism finder initialized with pattern {} against target {}", pattern, target);
+        logger.debug("molecule isomorphism finder initialized with pattern {} against target {}", pattern, target);
         this.pattern = pattern;
         this.target = target;
         this.atomCondition = atomCondition;
@@ -43,6 +43,35 @@ public class MoleculeIsomorphismFinder {
         return new MoleculeIsomorphismFinder(pattern, target, atomCondition, bondCondition).findIsomorphism();
     }
 
+    /**
+     * Determines whether the pattern is a substructure of the target, the search is terminated after the first match.
+     *
+     * @param pattern The pattern.
+     * @param target The target.
+     * @return True if the target contains the pattern.
+     */
+    public static boolean isSubstructure(MoleculeGraph pattern, MoleculeGraph target) {
+        return isSubstructure(pattern, target, DEFAULT_ATOM_CONDITION, DEFAULT_BOND_CONDITION);
+    }
+
+    /**
+     * Determines whether the pattern is a substructure of the target, the search is terminated after the first match.
+     *
+     * @param pattern The pattern.
+     * @param target The target.
+     * @param atomCondition The condition for atoms to be matched.
+     * @param bondCondition The condition for bonds to be matched.
+     * @return True if the target contains the pattern.
+     */
+    public static boolean isSubstructure(MoleculeGraph pattern, MoleculeGraph target, BiFunction<MoleculeAtom, MoleculeAtom, Boolean> atomCondition, BiFunction<MoleculeBond, MoleculeBond, Boolean> bondCondition) {
+        if (pattern.getNodes().size() > target.getNodes().size() || pattern.getEdges().size() > target.getEdges().size()) {
+            return false;
+        }
+        RISubgraphFinder<MoleculeAtom, MoleculeBond, Vector2D, Integer, MoleculeGraph> finder =
+                new RISubgraphFinder<>(pattern, target, atomCondition, bondCondition, pattern.getNodes().size(), 1);
+        return !finder.getFullMatches().isEmpty();
+    }
+
     private MoleculeIsomorphism findIsomorphism() {
         RISubgraphFinder<MoleculeAtom, MoleculeBond, Vector2D, Integer, MoleculeGraph> finder =
                 new RISubgraphFinder<>(pattern, target, atomCondition, bondCondition);
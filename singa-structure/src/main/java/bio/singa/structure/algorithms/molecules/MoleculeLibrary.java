@@ -0,0 +1,124 @@
+package bio.singa.structure.algorithms.molecules;
+
+import bio.singa.mathematics.metrics.implementations.TanimotoCoefficient;
+import bio.singa.structure.model.molecules.MoleculeGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * An index over a collection of {@link MoleculeGraph}s, that allows to search for substructures and similar molecules.
+ * The path based fingerprints ({@link MoleculeFingerprints}) of all molecules are calculated once. Substructure
+ * searches discard all molecules, whose fingerprint does not contain the fingerprint of the pattern, and only run the
+ * isomorphism search ({@link MoleculeIsomorphismFinder#isSubstructure(MoleculeGraph, MoleculeGraph)}) for the
+ * remaining candidates, in parallel. Similarity is determined by the {@link TanimotoCoefficient} of the same
+ * fingerprints.
+ * <p>
+ * Substructures are matched with the default conditions of the {@link MoleculeIsomorphismFinder} (identical elements
+ * and bond types), since the screening depends on them.
+ *
+ * @author cl
+ */
+public class MoleculeLibrary {
+
+    private static final Logger logger = LoggerFactory.getLogger(MoleculeLibrary.class);
+
+    private final List<MoleculeGraph> molecules;
+    private final long[][] fingerprints;
+    private final int[] numberOfAtoms;
+    private final int[] numberOfBonds;
+
+    /**
+     * Creates a new library and calculates the fingerprints of all molecules in parallel.
+     *
+     * @param molecules The molecules.
+     */
+    public MoleculeLibrary(Collection<MoleculeGraph> molecules) {
+        this.molecules = new ArrayList<>(molecules);
+        int size = this.molecules.size();
+        fingerprints = new long[size][];
+        numberOfAtoms = new int[size];
+        numberOfBonds = new int[size];
+        IntStream.range(0, size).parallel().forEach(index -> {
+            MoleculeGraph molecule = this.molecules.get(index);
+            fingerprints[index] = MoleculeFingerprints.calculatePathFingerprint(molecule);
+            numberOfAtoms[index] = molecule.getNodes().size();
+            numberOfBonds[index] = molecule.getEdges().size();
+        });
+        logger.debug("indexed {} molecules", size);
+    }
+
+    public List<MoleculeGraph> getMolecules() {
+        return Collections.unmodifiableList(molecules);
+    }
+
+    public int size() {
+        return molecules.size();
+    }
+
+    /**
+     * Returns a copy of the fingerprint of the molecule with the given index.
+     *
+     * @param index The index of the molecule.
+     * @return The fingerprint.
+     */
+    public long[] getFingerprint(int index) {
+        return fingerprints[index].clone();
+    }
+
+    /**
+     * Returns the indices of all molecules, that might contain the pattern, according to their size and fingerprint.
+     *
+     * @param pattern The pattern.
+     * @return The indices of the candidates.
+     */
+    public int[] screen(MoleculeGraph pattern) {
+        long[] patternFingerprint = MoleculeFingerprints.calculatePathFingerprint(pattern);
+        int patternAtoms = pattern.getNodes().size();
+        int patternBonds = pattern.getEdges().size();
+        return IntStream.range(0, molecules.size())
+                .parallel()
+                .filter(index -> numberOfAtoms[index] >= patternAtoms && numberOfBonds[index] >= patternBonds
+                        && MoleculeFingerprints.isSubset(patternFingerprint, fingerprints[index]))
+                .toArray();
+    }
+
+    /**
+     * Returns all molecules, that contain the given pattern, in the order of the library.
+     *
+     * @param pattern The pattern.
+     * @return The molecules containing the pattern.
+     */
+    public List<MoleculeGraph> findSubstructureMatches(MoleculeGraph pattern) {
+        int[] candidates = screen(pattern);
+        logger.debug("{} of {} molecules passed the fingerprint screen", candidates.length, molecules.size());
+        return Arrays.stream(candidates)
+                .parallel()
+                .filter(index -> MoleculeIsomorphismFinder.isSubstructure(pattern, molecules.get(index)))
+                .mapToObj(molecules::get)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the molecules, that are at least as similar to the query as the given threshold, sorted by decreasing
+     * similarity. The similarity is determined by the {@link TanimotoCoefficient} of the fingerprints.
+     *
+     * @param query The query molecule.
+     * @param minimalSimilarity The minimal similarity.
+     * @return The similar molecules associated to their similarity.
+     */
+    public List<Map.Entry<MoleculeGraph, Double>> findSimilarMolecules(MoleculeGraph query, double minimalSimilarity) {
+        long[] queryFingerprint = MoleculeFingerprints.calculatePathFingerprint(query);
+        return IntStream.range(0, molecules.size())
+                .parallel()
+                .<Map.Entry<MoleculeGraph, Double>>mapToObj(index -> new AbstractMap.SimpleEntry<>(molecules.get(index),
+                        TanimotoCoefficient.calculateCoefficient(queryFingerprint, fingerprints[index])))
+                .filter(entry -> entry.getValue() >= minimalSimilarity)
+                .sorted(Map.Entry.<MoleculeGraph, Double>comparingByValue().reversed())
+                .collect(Collectors.toList());
+    }
+
+}
@@ -66,11 +66,11 @@ public class FragmentSubstructureSuperimposer extends SubstructureSuperimposer {
 
                 RISubgraphFinder<MoleculeAtom, MoleculeBond, Vector2D, Integer, MoleculeGraph> subGraphFinder;
 
-                // decide which substructure to use as pattern graph
+                // decide which substructure to use as pattern graph, a second match suffices to detect ambiguity
                 if (referenceGraph.getNodes().size() <= candidateGraph.getNodes().size()) {
-                    subGraphFinder = new RISubgraphFinder<>(referenceGraph, candidateGraph, atomCondition, bondCondition);
+                    subGraphFinder = new RISubgraphFinder<>(referenceGraph, candidateGraph, atomCondition, bondCondition, referenceGraph.getNodes().size(), 2);
                 } else {
-                    subGraphFinder = new RISubgraphFinder<>(candidateGraph, referenceGraph, atomCondition, bondCondition);
+                    subGraphFinder = new RISubgraphFinder<>(candidateGraph, referenceGraph, atomCondition, bondCondition, candidateGraph.getNodes().size(), 2);
                 }
                 if (subGraphFinder.getFullMatches().size() > 1) {
                     logger.warn("ambiguous solution found, choosing first one");
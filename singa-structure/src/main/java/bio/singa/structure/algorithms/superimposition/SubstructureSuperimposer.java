@@ -3,7 +3,7 @@ package bio.singa.structure.algorithms.superimposition;
 import bio.singa.core.utility.Pair;
 import bio.singa.mathematics.algorithms.optimization.KuhnMunkres;
 import bio.singa.mathematics.algorithms.superimposition.Superimposition;
-import bio.singa.mathematics.algorithms.superimposition.VectorQuaternionSuperimposer;
+import bio.singa.mathematics.algorithms.superimposition.QCPSuperimposer;
 import bio.singa.mathematics.algorithms.superimposition.VectorSuperimposition;
 import bio.singa.mathematics.combinatorics.StreamPermutations;
 import bio.singa.mathematics.matrices.LabeledMatrix;
@@ -197,23 +197,89 @@ public class SubstructureSuperimposer {
     }
 
     /**
-     * Finds the superimposition for a list of {@link LeafSubstructure} according to their input order
+     * Calculates only the RMSD of the superimposition of the given {@link LeafSubstructure}s according to their input
+     * order, without determining the rotation or mapping any candidate. This is considerably faster than computing the
+     * full superimposition and should be used if only the RMSD is of interest, e.g. to compare it against a cutoff.
      *
-     * @return the superimposition according to their order
+     * @param reference The reference.
+     * @param candidate The candidate.
+     * @param atomFilter The filter for atoms considered in the superimposition.
+     * @return The RMSD of the superimposition.
      */
-    protected SubstructureSuperimposition calculateSuperimposition() throws SubstructureSuperimpositionException {
+    public static double calculateSubstructureRmsd(List<LeafSubstructure<?>> reference,
+                                                   List<LeafSubstructure<?>> candidate,
+                                                   Predicate<Atom> atomFilter) throws SubstructureSuperimpositionException {
+        return new SubstructureSuperimposer(reference, candidate, atomFilter, null).calculateRmsd();
+    }
+
+    /**
+     * Calculates only the RMSD of the superimposition of the given {@link LeafSubstructure}s according to their input
+     * order, without determining the rotation or mapping any candidate.
+     *
+     * @param reference The reference.
+     * @param candidate The candidate.
+     * @param representationScheme The scheme determining the representing atom of every leaf.
+     * @return The RMSD of the superimposition.
+     * @see #calculateSubstructureRmsd(List, List, Predicate)
+     */
+    public static double calculateSubstructureRmsd(List<LeafSubstructure<?>> reference,
+                                                   List<LeafSubstructure<?>> candidate,
+                                                   RepresentationScheme representationScheme) throws SubstructureSuperimpositionException {
+        return new SubstructureSuperimposer(reference, candidate, DEFAULT_ATOM_FILTER, representationScheme).calculateRmsd();
+    }
 
+    /**
+     * Calculates only the RMSD of the superimposition for a list of {@link LeafSubstructure} according to their input
+     * order.
+     *
+     * @return the RMSD of the superimposition according to their order
+     */
+    protected double calculateRmsd() throws SubstructureSuperimpositionException {
+        Pair<List<Atom>> alignmentAtoms = defineAlignmentAtoms();
+        return QCPSuperimposer.calculateRmsd(toCoordinates(alignmentAtoms.getFirst()), toCoordinates(alignmentAtoms.getSecond()));
+    }
+
+    /**
+     * Defines the alignment atoms and ensures both sets are not empty.
+     *
+     * @return The paired {@link Atom}s that constitute the alignment.
+     */
+    private Pair<List<Atom>> defineAlignmentAtoms() throws SubstructureSuperimpositionException {
         Pair<List<Atom>> alignmentAtoms = defineAtoms();
         List<Atom> referenceAtoms = alignmentAtoms.getFirst();
         List<Atom> candidateAtoms = alignmentAtoms.getSecond();
-
         if (referenceAtoms.isEmpty() || candidateAtoms.isEmpty()) {
             logger.error("reference {} against candidate {} has no compatible atom sets: {} {}", reference, candidate, referenceAtoms, candidateAtoms);
             throw new SubstructureSuperimpositionException("failed to collect per atom alignment sets, no compatible atoms");
         }
+        return alignmentAtoms;
+    }
+
+    private static double[] toCoordinates(List<Atom> atoms) {
+        double[] coordinates = new double[atoms.size() * 3];
+        int index = 0;
+        for (Atom atom : atoms) {
+            Vector3D position = atom.getPosition();
+            coordinates[index++] = position.getX();
+            coordinates[index++] = position.getY();
+            coordinates[index++] = position.getZ();
+        }
+        return coordinates;
+    }
+
+    /**
+     * Finds the superimposition for a list of {@link LeafSubstructure} according to their input order
+     *
+     * @return the superimposition according to their order
+     */
+    protected SubstructureSuperimposition calculateSuperimposition() throws SubstructureSuperimpositionException {
+
+        Pair<List<Atom>> alignmentAtoms = defineAlignmentAtoms();
+        List<Atom> referenceAtoms = alignmentAtoms.getFirst();
+        List<Atom> candidateAtoms = alignmentAtoms.getSecond();
 
         // calculate superimposition
-        VectorSuperimposition<Vector3D> vectorSuperimposition = VectorQuaternionSuperimposer.calculateVectorSuperimposition(
+        VectorSuperimposition<Vector3D> vectorSuperimposition = QCPSuperimposer.calculateVectorSuperimposition(
                 referenceAtoms.stream()
                         .map(Atom::getPosition)
                         .collect(Collectors.toList()),
@@ -370,24 +436,29 @@ public class SubstructureSuperimposer {
      * @return the pseudo-ideal superimposition
      */
     private SubstructureSuperimposition calculateIdealSuperimposition() throws SubstructureSuperimpositionException {
-        Optional<SubstructureSuperimposition> optionalSuperimposition = StreamPermutations.of(
+        // only determine the RMSD of every permutation and the full superimposition of the best one
+        Optional<AbstractMap.SimpleImmutableEntry<List<LeafSubstructure<?>>, Double>> optionalPermutation = StreamPermutations.of(
                 candidate.toArray(new LeafSubstructure<?>[0]))
                 .parallel()
                 .map(s -> s.collect(Collectors.toList()))
                 .map(permutedCandidates -> {
                     try {
-                        return new SubstructureSuperimposer(reference,
+                        double rmsd = new SubstructureSuperimposer(reference,
                                 permutedCandidates, atomFilter, representationScheme)
-                                .calculateSuperimposition();
+                                .calculateRmsd();
+                        return new AbstractMap.SimpleImmutableEntry<List<LeafSubstructure<?>>, Double>(permutedCandidates, rmsd);
                     } catch (SubstructureSuperimpositionException e) {
                         logger.error("failed to calculate substructure superimposition", e);
                         return null;
                     }
                 })
                 .filter(Objects::nonNull)
-                .reduce((SubstructureSuperimposition s1, SubstructureSuperimposition s2) ->
-                        s1.getRmsd() < s2.getRmsd() ? s1 : s2);
-        return optionalSuperimposition.orElseThrow(() -> new SubstructureSuperimpositionException("no ideal superimposition found"));
+                .reduce((p1, p2) -> p1.getValue() < p2.getValue() ? p1 : p2);
+        List<LeafSubstructure<?>> idealCandidate = optionalPermutation
+                .orElseThrow(() -> new SubstructureSuperimpositionException("no ideal superimposition found"))
+                .getKey();
+        return new SubstructureSuperimposer(reference, idealCandidate, atomFilter, representationScheme)
+                .calculateSuperimposition();
     }
 
     private SubstructureSuperimposition calculateKuhnMunkresSuperimposition(SubstitutionMatrix substitutionMatrix, boolean considerExchanges) {
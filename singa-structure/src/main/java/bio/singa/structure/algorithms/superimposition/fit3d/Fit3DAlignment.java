@@ -258,36 +258,49 @@ public class Fit3DAlignment implements Fit3D {
             logger.trace("redundant candidate {} skipped", candidate);
             return;
         }
-        // apply representation scheme if defined
-        SubstructureSuperimposition superimposition;
+        // determine only the RMSD first, applying the representation scheme if defined
+        double rmsd;
         if (representationScheme != null) {
-            superimposition = SubstructureSuperimposer
-                    .calculateSubstructureSuperimposition(queryMotif.getAllLeafSubstructures(),
-                            candidate, representationScheme);
+            rmsd = SubstructureSuperimposer.calculateSubstructureRmsd(queryMotif.getAllLeafSubstructures(),
+                    candidate, representationScheme);
         } else {
-            superimposition = SubstructureSuperimposer
-                    .calculateSubstructureSuperimposition(queryMotif.getAllLeafSubstructures(),
-                            candidate, atomFilter);
+            rmsd = SubstructureSuperimposer.calculateSubstructureRmsd(queryMotif.getAllLeafSubstructures(),
+                    candidate, atomFilter);
         }
-        if (superimposition.getRmsd() <= rmsdCutoff) {
+        if (rmsd <= rmsdCutoff) {
             // decide if match RMSD is beyond statistical model correctness cutoff
             if (statisticalModel instanceof FofanovEstimation) {
-                if (superimposition.getRmsd() <= ((FofanovEstimation) statisticalModel).getModelCorrectnessCutoff()) {
-                    matches.add(Fit3DMatch.of(superimposition.getRmsd(), superimposition));
+                if (rmsd <= ((FofanovEstimation) statisticalModel).getModelCorrectnessCutoff()) {
+                    matches.add(Fit3DMatch.of(rmsd, calculateSuperimposition(candidate)));
                 } else {
                     // only store RMSD values if match RMSD is beyond model correctness cutoff and which were not already sampled
                     boolean redundantRmsd = matches.stream()
-                            .anyMatch(match -> match.getRmsd() == superimposition.getRmsd());
+                            .anyMatch(match -> match.getRmsd() == rmsd);
                     if (!redundantRmsd) {
-                        matches.add(Fit3DMatch.of(superimposition.getRmsd()));
+                        matches.add(Fit3DMatch.of(rmsd));
                     }
                 }
             } else {
-                matches.add(Fit3DMatch.of(superimposition.getRmsd(), superimposition));
+                matches.add(Fit3DMatch.of(rmsd, calculateSuperimposition(candidate)));
             }
         }
     }
 
+    /**
+     * Computes the full superimposition of the query motif and an accepted candidate.
+     *
+     * @param candidate the candidate
+     * @return the superimposition
+     */
+    private SubstructureSuperimposition calculateSuperimposition(List<LeafSubstructure<?>> candidate) {
+        if (representationScheme != null) {
+            return SubstructureSuperimposer.calculateSubstructureSuperimposition(queryMotif.getAllLeafSubstructures(),
+                    candidate, representationScheme);
+        }
+        return SubstructureSuperimposer.calculateSubstructureSuperimposition(queryMotif.getAllLeafSubstructures(),
+                candidate, atomFilter);
+    }
+
     /**
      * Generates all candidates based on the pre-computed environments.
      */
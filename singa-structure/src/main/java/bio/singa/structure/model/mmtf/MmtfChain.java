@@ -29,6 +29,11 @@ public class MmtfChain implements Chain {
      */
     private final StructureDataInterface data;
 
+    /**
+     * The offsets of chains and groups in the data arrays.
+     */
+    private final MmtfOffsets offsets;
+
     /**
      * The identifier of this chain.
      */
@@ -49,53 +54,63 @@ public class MmtfChain implements Chain {
      */
     private final Map<Integer, LeafIdentifier> leafIdentifiers;
 
+    /**
+     * The indices of all relevant leaves referenced by their leaf identifiers.
+     */
+    private final Map<LeafIdentifier, Integer> groupIndices;
+
     /**
      * Contains the relevant atom ranges for all relevant leaves.
      */
     private final Map<Integer, Range<Integer>> atomRanges;
 
+    /**
+     * The model containing this chain, whose cached views are invalidated if this chain changes, or null for copies.
+     */
+    private MmtfModel containingModel;
+
+    /**
+     * A cached, unmodifiable view of all leaves.
+     */
+    private List<LeafSubstructure<?>> leafSubstructureView;
+
+    /**
+     * A cached, unmodifiable view of all atoms.
+     */
+    private List<Atom> atomView;
+
     /**
      * Creates a new {@link MmtfChain}.
      *
      * @param data The original data.
+     * @param offsets The offsets of chains and groups in the data arrays.
      * @param chainIdentifier The chain identifier.
      * @param internalChainIndices All internal chain indices relevant for this chain.
      * @param modelIndex The index of the parent model (the model identifier is the model index + 1).
      */
-    MmtfChain(StructureDataInterface data, byte[] bytes, String chainIdentifier, List<Integer> internalChainIndices, int modelIndex) {
+    MmtfChain(StructureDataInterface data, byte[] bytes, MmtfOffsets offsets, String chainIdentifier, List<Integer> internalChainIndices, int modelIndex) {
         this.data = data;
         this.bytes = bytes;
+        this.offsets = offsets;
         this.chainIdentifier = chainIdentifier;
         relevantGroups = new ArrayList<>();
         leafIdentifiers = new HashMap<>();
+        groupIndices = new HashMap<>();
         atomRanges = new HashMap<>();
         cachedLeaves = new HashMap<>();
 
-        // number of groups (leaves) per chain
-        int[] groupsPerChain = data.getGroupsPerChain();
-        int currentGroupIndex = 0;
-        // get group indices relevant for this chain
-        for (int groupsPerChainIndex = 0; groupsPerChainIndex < groupsPerChain.length; groupsPerChainIndex++) {
-            int endRange = currentGroupIndex + groupsPerChain[groupsPerChainIndex];
-            if (internalChainIndices.contains(groupsPerChainIndex)) {
-                for (int groupIndex = currentGroupIndex; groupIndex <= endRange - 1; groupIndex++) {
-                    relevantGroups.add(groupIndex);
-                    leafIdentifiers.put(groupIndex, new LeafIdentifier(data.getStructureId(), modelIndex + 1, chainIdentifier, data.getGroupIds()[groupIndex], data.getInsCodes()[groupIndex]));
-                }
+        // get group indices relevant for this chain (in the order of the data arrays)
+        List<Integer> sortedChainIndices = new ArrayList<>(internalChainIndices);
+        Collections.sort(sortedChainIndices);
+        for (int internalChainIndex : sortedChainIndices) {
+            for (int groupIndex = offsets.getFirstGroupIndex(internalChainIndex); groupIndex <= offsets.getLastGroupIndex(internalChainIndex); groupIndex++) {
+                relevantGroups.add(groupIndex);
+                LeafIdentifier leafIdentifier = new LeafIdentifier(data.getStructureId(), modelIndex + 1, chainIdentifier, data.getGroupIds()[groupIndex], data.getInsCodes()[groupIndex]);
+                leafIdentifiers.put(groupIndex, leafIdentifier);
+                groupIndices.put(leafIdentifier, groupIndex);
+                atomRanges.put(groupIndex, new Range<>(offsets.getFirstAtomIndex(groupIndex), offsets.getLastAtomIndex(groupIndex)));
             }
-            currentGroupIndex = endRange;
         }
-
-        int currentAtomIndex = 0;
-        for (int groupIndex = 0; groupIndex < data.getNumGroups(); groupIndex++) {
-            // get number of relevant atoms for the current group type
-            int lastAtom = currentAtomIndex + data.getNumAtomsInGroup(data.getGroupTypeIndices()[groupIndex]);
-            if (relevantGroups.contains(groupIndex)) {
-                atomRanges.put(groupIndex, new Range<>(currentAtomIndex, lastAtom - 1));
-            }
-            currentAtomIndex = lastAtom;
-        }
-
     }
 
     /**
@@ -106,10 +121,16 @@ public class MmtfChain implements Chain {
     private MmtfChain(MmtfChain mmtfChain) {
         bytes = mmtfChain.bytes;
         data = mmtfChain.data;
+        offsets = mmtfChain.offsets;
         chainIdentifier = mmtfChain.chainIdentifier;
         cachedLeaves = new HashMap<>(mmtfChain.cachedLeaves);
+        // the requested leaves are shared with the original chain
+        for (MmtfLeafSubstructure<?> leafSubstructure : cachedLeaves.values()) {
+            leafSubstructure.addContainingChain(this);
+        }
         relevantGroups = new ArrayList<>(mmtfChain.relevantGroups);
         leafIdentifiers = new HashMap<>(mmtfChain.leafIdentifiers);
+        groupIndices = new HashMap<>(mmtfChain.groupIndices);
         atomRanges = new HashMap<>(mmtfChain.atomRanges);
     }
 
@@ -120,34 +141,72 @@ public class MmtfChain implements Chain {
 
     @Override
     public List<LeafSubstructure<?>> getAllLeafSubstructures() {
-        List<LeafSubstructure<?>> results = new ArrayList<>();
-        for (Integer relevantGroup : relevantGroups) {
-            if (cachedLeaves.containsKey(relevantGroup)) {
-                results.add(cachedLeaves.get(relevantGroup));
-            } else {
-                final Range<Integer> atomRange = atomRanges.get(relevantGroup);
-                MmtfLeafSubstructure<?> leaf = MmtfLeafFactory.createLeaf(data, bytes, leafIdentifiers.get(relevantGroup), relevantGroup, atomRange.getLowerBound(), atomRange.getUpperBound());
-                cachedLeaves.put(relevantGroup, leaf);
-                results.add(leaf);
+        if (leafSubstructureView == null) {
+            List<LeafSubstructure<?>> results = new ArrayList<>();
+            for (Integer relevantGroup : relevantGroups) {
+                results.add(getLeaf(relevantGroup));
             }
+            leafSubstructureView = Collections.unmodifiableList(results);
         }
-        return results;
+        return leafSubstructureView;
+    }
+
+    @Override
+    public List<Atom> getAllAtoms() {
+        if (atomView == null) {
+            List<Atom> atoms = new ArrayList<>();
+            for (LeafSubstructure<?> leafSubstructure : getAllLeafSubstructures()) {
+                atoms.addAll(leafSubstructure.getAllAtoms());
+            }
+            atomView = Collections.unmodifiableList(atoms);
+        }
+        return atomView;
+    }
+
+    /**
+     * Sets the model containing this chain.
+     *
+     * @param model The model or null if the chain is detached.
+     */
+    void setContainingModel(MmtfModel model) {
+        containingModel = model;
+    }
+
+    /**
+     * Invalidates all cached views of this chain and the model containing it, after leaves or atoms have been removed.
+     */
+    void invalidate() {
+        leafSubstructureView = null;
+        atomView = null;
+        if (containingModel != null) {
+            containingModel.invalidate();
+        }
+    }
+
+    /**
+     * Returns the (cached) leaf for the given group index.
+     *
+     * @param groupIndex The index of the leaf in the group data arrays.
+     * @return The leaf.
+     */
+    private MmtfLeafSubstructure<?> getLeaf(int groupIndex) {
+        MmtfLeafSubstructure<?> leaf = cachedLeaves.get(groupIndex);
+        if (leaf == null) {
+            final Range<Integer> atomRange = atomRanges.get(groupIndex);
+            leaf = MmtfLeafFactory.createLeaf(data, bytes, leafIdentifiers.get(groupIndex), groupIndex, atomRange.getLowerBound(), atomRange.getUpperBound());
+            leaf.addContainingChain(this);
+            cachedLeaves.put(groupIndex, leaf);
+        }
+        return leaf;
     }
 
     @Override
     public Optional<LeafSubstructure<?>> getLeafSubstructure(LeafIdentifier leafIdentifier) {
-        final int internalIndex = getInternalIndexForLeafIdentifier(leafIdentifier);
-        if (internalIndex == -1) {
+        final Integer internalIndex = groupIndices.get(leafIdentifier);
+        if (internalIndex == null) {
             return Optional.empty();
         }
-        if (cachedLeaves.containsKey(internalIndex)) {
-            return Optional.of(cachedLeaves.get(internalIndex));
-        } else {
-            final Range<Integer> atomRange = atomRanges.get(internalIndex);
-            MmtfLeafSubstructure<?> leaf = MmtfLeafFactory.createLeaf(data, bytes, leafIdentifiers.get(internalIndex), internalIndex, atomRange.getLowerBound(), atomRange.getUpperBound());
-            cachedLeaves.put(internalIndex, leaf);
-            return Optional.of(leaf);
-        }
+        return Optional.of(getLeaf(internalIndex));
     }
 
     @Override
@@ -157,15 +216,18 @@ public class MmtfChain implements Chain {
 
     @Override
     public boolean removeLeafSubstructure(LeafIdentifier leafIdentifier) {
-        final int internalIndex = getInternalIndexForLeafIdentifier(leafIdentifier);
-        if (internalIndex == -1) {
+        final Integer internalIndex = groupIndices.remove(leafIdentifier);
+        if (internalIndex == null) {
             return false;
         }
         leafIdentifiers.remove(internalIndex);
-        cachedLeaves.remove(internalIndex);
-        // the Integer cast has to be there
-        relevantGroups.remove((Integer) internalIndex);
+        MmtfLeafSubstructure<?> removedLeaf = cachedLeaves.remove(internalIndex);
+        if (removedLeaf != null) {
+            removedLeaf.removeContainingChain(this);
+        }
+        relevantGroups.remove(internalIndex);
         atomRanges.remove(internalIndex);
+        invalidate();
         return true;
     }
 
@@ -193,11 +255,16 @@ public class MmtfChain implements Chain {
             int internalIndex = relevantGroupIterator.next();
             final String groupFamily = data.getGroupName(data.getGroupTypeIndices()[internalIndex]);
             if (!relevantFamilies.contains(groupFamily)) {
-                leafIdentifiers.remove(internalIndex);
+                groupIndices.remove(leafIdentifiers.remove(internalIndex));
                 atomRanges.remove(internalIndex);
+                MmtfLeafSubstructure<?> removedLeaf = cachedLeaves.remove(internalIndex);
+                if (removedLeaf != null) {
+                    removedLeaf.removeContainingChain(this);
+                }
                 relevantGroupIterator.remove();
             }
         }
+        invalidate();
     }
 
     @Override
@@ -205,31 +272,34 @@ public class MmtfChain implements Chain {
         return leafIdentifiers.size();
     }
 
-    private int getInternalIndexForLeafIdentifier(LeafIdentifier leafIdentifier) {
-        for (Map.Entry<Integer, LeafIdentifier> leafIdentifierEntry : leafIdentifiers.entrySet()) {
-            if (leafIdentifierEntry.getValue().equals(leafIdentifier)) {
-                return leafIdentifierEntry.getKey();
-            }
+    /**
+     * Returns the leaf of this chain containing the atom with the given identifier.
+     *
+     * @param atomIdentifier The atom identifier.
+     * @return The leaf or null if no leaf of this chain contains the atom.
+     */
+    MmtfLeafSubstructure<?> getLeafSubstructureContainingAtom(int atomIdentifier) {
+        final int groupIndex = offsets.getGroupIndex(atomIdentifier - 1);
+        if (groupIndex == -1 || !atomRanges.containsKey(groupIndex)) {
+            return null;
         }
-        return -1;
+        return getLeaf(groupIndex);
     }
 
     @Override
     public Optional<Atom> getAtom(Integer atomIdentifier) {
-        for (LeafSubstructure leafSubstructure : getAllLeafSubstructures()) {
-            final Optional<Atom> atomOptional = leafSubstructure.getAtom(atomIdentifier);
-            if (atomOptional.isPresent()) {
-                return atomOptional;
-            }
+        final MmtfLeafSubstructure<?> leafSubstructure = getLeafSubstructureContainingAtom(atomIdentifier);
+        if (leafSubstructure == null) {
+            return Optional.empty();
         }
-        return Optional.empty();
+        return leafSubstructure.getAtom(atomIdentifier);
     }
 
     @Override
     public void removeAtom(Integer atomIdentifier) {
-        for (LeafSubstructure leafSubstructure : getAllLeafSubstructures()) {
-            final Optional<Atom> atomOptional = leafSubstructure.getAtom(atomIdentifier);
-            atomOptional.ifPresent(atom -> leafSubstructure.removeAtom(atomIdentifier));
+        final MmtfLeafSubstructure<?> leafSubstructure = getLeafSubstructureContainingAtom(atomIdentifier);
+        if (leafSubstructure != null && leafSubstructure.getAtom(atomIdentifier).isPresent()) {
+            leafSubstructure.removeAtom(atomIdentifier);
         }
     }
 
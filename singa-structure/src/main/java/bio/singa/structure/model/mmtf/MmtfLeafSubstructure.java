@@ -49,6 +49,11 @@ public abstract class MmtfLeafSubstructure<FamilyType extends StructuralFamily>
      */
     private final Set<Integer> removedAtoms;
 
+    /**
+     * The chains containing this leaf, whose cached views are invalidated if atoms are removed.
+     */
+    private final List<MmtfChain> containingChains = new ArrayList<>(1);
+
     /**
      * The structural family of this entity
      */
@@ -154,7 +159,34 @@ public abstract class MmtfLeafSubstructure<FamilyType extends StructuralFamily>
 
     @Override
     public void removeAtom(Integer atomIdentifier) {
-        removedAtoms.add(atomIdentifier - 1);
+        if (removedAtoms.add(atomIdentifier - 1)) {
+            for (MmtfChain containingChain : containingChains) {
+                containingChain.invalidate();
+            }
+        }
+    }
+
+    /**
+     * Registers a chain containing this leaf.
+     *
+     * @param chain The chain.
+     */
+    void addContainingChain(MmtfChain chain) {
+        for (MmtfChain containingChain : containingChains) {
+            if (containingChain == chain) {
+                return;
+            }
+        }
+        containingChains.add(chain);
+    }
+
+    /**
+     * Unregisters a chain, that no longer contains this leaf.
+     *
+     * @param chain The chain.
+     */
+    void removeContainingChain(MmtfChain chain) {
+        containingChains.removeIf(containingChain -> containingChain == chain);
     }
 
     @Override
@@ -23,6 +23,10 @@ public class MmtfModel implements Model {
      * The original bytes kept to copy.
      */
     private final byte[] bytes;
+    /**
+     * The offsets of models, chains and groups in the data arrays.
+     */
+    private final MmtfOffsets offsets;
     /**
      * The chains that have already been requested.
      */
@@ -36,16 +40,31 @@ public class MmtfModel implements Model {
      * arrays.
      */
     private final Map<String, List<Integer>> chainMap;
+    /**
+     * The structure containing this model, whose cached views are invalidated if this model changes, or null for
+     * copies.
+     */
+    private MmtfStructure containingStructure;
+    /**
+     * A cached, unmodifiable view of all chains.
+     */
+    private List<Chain> chainView;
+    /**
+     * A cached, unmodifiable view of all leaves.
+     */
+    private List<LeafSubstructure<?>> leafSubstructureView;
 
     /**
      * Creates a new {@link MmtfModel}.
      *
      * @param data The original data.
+     * @param offsets The offsets of models, chains and groups in the data arrays.
      * @param modelIndex The index of the model in the model data array.
      */
-    MmtfModel(StructureDataInterface data, byte[] bytes, int modelIndex) {
+    MmtfModel(StructureDataInterface data, byte[] bytes, MmtfOffsets offsets, int modelIndex) {
         this.data = data;
         this.bytes = bytes;
+        this.offsets = offsets;
         this.modelIndex = modelIndex;
         chainMap = new TreeMap<>();
         cachedChains = new HashMap<>();
@@ -54,25 +73,11 @@ public class MmtfModel implements Model {
             throw new IllegalArgumentException("Unable to access model with identifier: " + modelIndex);
         }
 
-        // number of chains per model (soring according to assignment)
-        int[] chainsPerModel = data.getChainsPerModel();
-        int currentChainIndex = 0;
-        // get group indices relevant for this chain
-        for (int chainsPerModelIndex = 0; chainsPerModelIndex < chainsPerModel.length; chainsPerModelIndex++) {
-            int endRange = currentChainIndex + chainsPerModel[chainsPerModelIndex];
-            if (chainsPerModelIndex == modelIndex) {
-                for (int groupIndex = currentChainIndex; groupIndex <= endRange - 1; groupIndex++) {
-                    final String chainName = data.getChainNames()[groupIndex];
-                    if (!chainMap.containsKey(chainName)) {
-                        chainMap.put(chainName, new ArrayList<>());
-                        chainMap.get(chainName).add(groupIndex);
-                    } else {
-                        chainMap.get(chainName).add(groupIndex);
-                    }
-                }
-            }
+        // get chain indices relevant for this model
+        for (int chainIndex = offsets.getFirstChainIndex(modelIndex); chainIndex <= offsets.getLastChainIndex(modelIndex); chainIndex++) {
+            final String chainName = data.getChainNames()[chainIndex];
+            chainMap.computeIfAbsent(chainName, name -> new ArrayList<>()).add(chainIndex);
         }
-
     }
 
     /**
@@ -83,8 +88,9 @@ public class MmtfModel implements Model {
     private MmtfModel(MmtfModel mmtfModel) {
         bytes = mmtfModel.bytes;
         data = mmtfModel.data;
+        offsets = mmtfModel.offsets;
         modelIndex = mmtfModel.modelIndex;
-        chainMap = new HashMap<>(mmtfModel.chainMap);
+        chainMap = new TreeMap<>(mmtfModel.chainMap);
         cachedChains = new HashMap<>();
     }
 
@@ -93,20 +99,57 @@ public class MmtfModel implements Model {
         return modelIndex + 1;
     }
 
+    /**
+     * Returns the (cached) chain for the given chain identifier.
+     *
+     * @param chainIdentifier The chain identifier.
+     * @return The chain or null if this model does not contain the chain.
+     */
+    private MmtfChain getCachedChain(String chainIdentifier) {
+        MmtfChain mmtfChain = cachedChains.get(chainIdentifier);
+        if (mmtfChain == null) {
+            final List<Integer> internalChainIndices = chainMap.get(chainIdentifier);
+            if (internalChainIndices == null) {
+                return null;
+            }
+            mmtfChain = new MmtfChain(data, bytes, offsets, chainIdentifier, internalChainIndices, modelIndex);
+            mmtfChain.setContainingModel(this);
+            cachedChains.put(chainIdentifier, mmtfChain);
+        }
+        return mmtfChain;
+    }
+
     @Override
     public List<Chain> getAllChains() {
-        List<Chain> chains = new ArrayList<>();
-        for (String chainIdentifier : chainMap.keySet()) {
-            // cache
-            if (cachedChains.containsKey(chainIdentifier)) {
-                chains.add(cachedChains.get(chainIdentifier));
-            } else {
-                MmtfChain mmtfChain = new MmtfChain(data, bytes, chainIdentifier, chainMap.get(chainIdentifier), modelIndex);
-                cachedChains.put(chainIdentifier, mmtfChain);
-                chains.add(mmtfChain);
+        if (chainView == null) {
+            List<Chain> chains = new ArrayList<>();
+            for (String chainIdentifier : chainMap.keySet()) {
+                chains.add(getCachedChain(chainIdentifier));
             }
+            chainView = Collections.unmodifiableList(chains);
+        }
+        return chainView;
+    }
+
+    /**
+     * Sets the structure containing this model.
+     *
+     * @param structure The structure or null if the model is detached.
+     */
+    void setContainingStructure(MmtfStructure structure) {
+        containingStructure = structure;
+    }
+
+    /**
+     * Invalidates all cached views of this model and the structure containing it, after chains, leaves or atoms have
+     * been removed.
+     */
+    void invalidate() {
+        chainView = null;
+        leafSubstructureView = null;
+        if (containingStructure != null) {
+            containingStructure.invalidate();
         }
-        return chains;
     }
 
     public Set<String> getAllChainIdentifiers() {
@@ -115,45 +158,34 @@ public class MmtfModel implements Model {
 
     @Override
     public Chain getFirstChain() {
-        final Map.Entry<String, List<Integer>> first = chainMap.entrySet().iterator().next();
-        String chainIdentifier = first.getKey();
-        if (cachedChains.containsKey(chainIdentifier)) {
-            return cachedChains.get(chainIdentifier);
-        } else {
-            MmtfChain mmtfChain = new MmtfChain(data, bytes, chainIdentifier, first.getValue(), modelIndex);
-            cachedChains.put(chainIdentifier, mmtfChain);
-            return mmtfChain;
-        }
+        return getCachedChain(chainMap.keySet().iterator().next());
     }
 
     @Override
     public Optional<Chain> getChain(String chainIdentifier) {
-        if (!chainMap.containsKey(chainIdentifier)) {
-            return Optional.empty();
-        }
-        if (cachedChains.containsKey(chainIdentifier)) {
-            return Optional.of(cachedChains.get(chainIdentifier));
-        } else {
-            MmtfChain mmtfChain = new MmtfChain(data, bytes, chainIdentifier, chainMap.get(chainIdentifier), modelIndex);
-            cachedChains.put(chainIdentifier, mmtfChain);
-            return Optional.of(mmtfChain);
-        }
+        return Optional.ofNullable(getCachedChain(chainIdentifier));
     }
 
     @Override
     public void removeChain(String chainIdentifier) {
         chainMap.remove(chainIdentifier);
-        cachedChains.remove(chainIdentifier);
+        MmtfChain removedChain = cachedChains.remove(chainIdentifier);
+        if (removedChain != null) {
+            removedChain.setContainingModel(null);
+        }
+        invalidate();
     }
 
     @Override
     public List<LeafSubstructure<?>> getAllLeafSubstructures() {
-        List<LeafSubstructure<?>> leafSubstructures = new ArrayList<>();
-        List<Chain> allChains = getAllChains();
-        for (Chain chain : allChains) {
-            leafSubstructures.addAll(chain.getAllLeafSubstructures());
+        if (leafSubstructureView == null) {
+            List<LeafSubstructure<?>> leafSubstructures = new ArrayList<>();
+            for (Chain chain : getAllChains()) {
+                leafSubstructures.addAll(chain.getAllLeafSubstructures());
+            }
+            leafSubstructureView = Collections.unmodifiableList(leafSubstructures);
         }
-        return leafSubstructures;
+        return leafSubstructureView;
     }
 
     @Override
@@ -189,22 +221,42 @@ public class MmtfModel implements Model {
         return sum;
     }
 
+    /**
+     * Returns the chain of this model containing the atom with the given identifier.
+     *
+     * @param atomIdentifier The atom identifier.
+     * @return The chain or null if no chain of this model contains the atom.
+     */
+    MmtfChain getChainContainingAtom(int atomIdentifier) {
+        final int groupIndex = offsets.getGroupIndex(atomIdentifier - 1);
+        if (groupIndex == -1) {
+            return null;
+        }
+        final int chainIndex = offsets.getChainIndex(groupIndex);
+        if (chainIndex < offsets.getFirstChainIndex(modelIndex) || chainIndex > offsets.getLastChainIndex(modelIndex)) {
+            return null;
+        }
+        final String chainIdentifier = data.getChainNames()[chainIndex];
+        if (!chainMap.containsKey(chainIdentifier)) {
+            return null;
+        }
+        return getCachedChain(chainIdentifier);
+    }
+
     @Override
     public Optional<Atom> getAtom(Integer atomIdentifier) {
-        for (LeafSubstructure leafSubstructure : getAllLeafSubstructures()) {
-            final Optional<Atom> optionalAtom = leafSubstructure.getAtom(atomIdentifier);
-            if (optionalAtom.isPresent()) {
-                return optionalAtom;
-            }
+        final MmtfChain chain = getChainContainingAtom(atomIdentifier);
+        if (chain == null) {
+            return Optional.empty();
         }
-        return Optional.empty();
+        return chain.getAtom(atomIdentifier);
     }
 
     @Override
     public void removeAtom(Integer atomIdentifier) {
-        for (LeafSubstructure leafSubstructure : getAllLeafSubstructures()) {
-            final Optional<Atom> optionalAtom = leafSubstructure.getAtom(atomIdentifier);
-            optionalAtom.ifPresent(atom -> leafSubstructure.removeAtom(atomIdentifier));
+        final MmtfChain chain = getChainContainingAtom(atomIdentifier);
+        if (chain != null) {
+            chain.removeAtom(atomIdentifier);
         }
     }
 
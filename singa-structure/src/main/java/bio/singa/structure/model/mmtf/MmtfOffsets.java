@@ -0,0 +1,166 @@
+package bio.singa.structure.model.mmtf;
+
+import org.rcsb.mmtf.api.StructureDataInterface;
+
+import java.util.Arrays;
+
+/**
+ * The offsets of models, chains and groups in the flat data arrays of mmtf structures. The offsets are computed once
+ * per structure and shared by all models, chains and leaves, allowing to determine the group, chain and model of any
+ * atom by binary search instead of traversing the structure.
+ *
+ * @author cl
+ */
+class MmtfOffsets {
+
+    /**
+     * The index of the first atom of each group, the last entry is the total number of atoms.
+     */
+    private final int[] groupAtomOffsets;
+
+    /**
+     * The index of the first group of each chain, the last entry is the total number of groups.
+     */
+    private final int[] chainGroupOffsets;
+
+    /**
+     * The index of the first chain of each model, the last entry is the total number of chains.
+     */
+    private final int[] modelChainOffsets;
+
+    /**
+     * Computes the offsets for the given data.
+     *
+     * @param data The original mmtf data.
+     */
+    MmtfOffsets(StructureDataInterface data) {
+        final int[] groupTypeIndices = data.getGroupTypeIndices();
+        groupAtomOffsets = new int[data.getNumGroups() + 1];
+        for (int groupIndex = 0; groupIndex < data.getNumGroups(); groupIndex++) {
+            groupAtomOffsets[groupIndex + 1] = groupAtomOffsets[groupIndex] + data.getNumAtomsInGroup(groupTypeIndices[groupIndex]);
+        }
+        chainGroupOffsets = cumulate(data.getGroupsPerChain());
+        modelChainOffsets = cumulate(data.getChainsPerModel());
+    }
+
+    private static int[] cumulate(int[] counts) {
+        int[] offsets = new int[counts.length + 1];
+        for (int index = 0; index < counts.length; index++) {
+            offsets[index + 1] = offsets[index] + counts[index];
+        }
+        return offsets;
+    }
+
+    /**
+     * Returns the index of the entry in the offsets, whose range contains the given value.
+     *
+     * @param offsets The offsets.
+     * @param value The value.
+     * @return The index of the range or -1 if the value is out of all ranges.
+     */
+    private static int findRange(int[] offsets, int value) {
+        if (value < 0 || value >= offsets[offsets.length - 1]) {
+            return -1;
+        }
+        int position = Arrays.binarySearch(offsets, value);
+        if (position < 0) {
+            return -position - 2;
+        }
+        // empty ranges share their offset with the following range
+        while (position < offsets.length - 2 && offsets[position + 1] == value) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Returns the index of the group containing the given atom.
+     *
+     * @param internalAtomIndex The index of the atom in the atom data arrays.
+     * @return The group index or -1 if the atom index is out of range.
+     */
+    int getGroupIndex(int internalAtomIndex) {
+        return findRange(groupAtomOffsets, internalAtomIndex);
+    }
+
+    /**
+     * Returns the index of the chain containing the given group.
+     *
+     * @param groupIndex The index of the group in the group data arrays.
+     * @return The chain index or -1 if the group index is out of range.
+     */
+    int getChainIndex(int groupIndex) {
+        return findRange(chainGroupOffsets, groupIndex);
+    }
+
+    /**
+     * Returns the index of the model containing the given chain.
+     *
+     * @param chainIndex The index of the chain in the chain data arrays.
+     * @return The model index or -1 if the chain index is out of range.
+     */
+    int getModelIndex(int chainIndex) {
+        return findRange(modelChainOffsets, chainIndex);
+    }
+
+    /**
+     * Returns the index of the first atom of the given group.
+     *
+     * @param groupIndex The index of the group.
+     * @return The index of the first atom.
+     */
+    int getFirstAtomIndex(int groupIndex) {
+        return groupAtomOffsets[groupIndex];
+    }
+
+    /**
+     * Returns the index of the last atom of the given group.
+     *
+     * @param groupIndex The index of the group.
+     * @return The index of the last atom.
+     */
+    int getLastAtomIndex(int groupIndex) {
+        return groupAtomOffsets[groupIndex + 1] - 1;
+    }
+
+    /**
+     * Returns the index of the first group of the given chain.
+     *
+     * @param chainIndex The index of the chain.
+     * @return The index of the first group.
+     */
+    int getFirstGroupIndex(int chainIndex) {
+        return chainGroupOffsets[chainIndex];
+    }
+
+    /**
+     * Returns the index of the last group of the given chain.
+     *
+     * @param chainIndex The index of the chain.
+     * @return The index of the last group.
+     */
+    int getLastGroupIndex(int chainIndex) {
+        return chainGroupOffsets[chainIndex + 1] - 1;
+    }
+
+    /**
+     * Returns the index of the first chain of the given model.
+     *
+     * @param modelIndex The index of the model.
+     * @return The index of the first chain.
+     */
+    int getFirstChainIndex(int modelIndex) {
+        return modelChainOffsets[modelIndex];
+    }
+
+    /**
+     * Returns the index of the last chain of the given model.
+     *
+     * @param modelIndex The index of the model.
+     * @return The index of the last chain.
+     */
+    int getLastChainIndex(int modelIndex) {
+        return modelChainOffsets[modelIndex + 1] - 1;
+    }
+
+}
@@ -39,6 +39,21 @@ public class MmtfStructure implements Structure {
      */
     private final Map<Integer, MmtfModel> cachedModels;
 
+    /**
+     * The offsets of models, chains and groups in the data arrays.
+     */
+    private final MmtfOffsets offsets;
+
+    /**
+     * A cached, unmodifiable view of all chains.
+     */
+    private List<Chain> chainView;
+
+    /**
+     * A cached, unmodifiable view of all leaves.
+     */
+    private List<LeafSubstructure<?>> leafSubstructureView;
+
     /**
      * Creates a new {@link MmtfStructure}
      *
@@ -57,6 +72,7 @@ public class MmtfStructure implements Structure {
     public MmtfStructure(byte[] bytes, boolean deflate) {
         this.bytes = bytes;
         data = bytesToStructureData(bytes, deflate);
+        offsets = new MmtfOffsets(data);
         cachedModels = new HashMap<>();
         removedModels = new HashSet<>();
     }
@@ -85,6 +101,28 @@ public class MmtfStructure implements Structure {
         }
     }
 
+    /**
+     * Returns a lightweight, read only view of this structure, that shares the decoded data. The view does not reflect
+     * any modifications (e.g. removed atoms or leaves) of this structure.
+     *
+     * @return A view of the data.
+     */
+    public MmtfStructureView getView() {
+        return new MmtfStructureView(data, offsets);
+    }
+
+    /**
+     * Creates the model with the given index, that notifies this structure about modifications.
+     *
+     * @param internalModelIndex The index of the model in the model data array.
+     * @return The model.
+     */
+    private MmtfModel createModel(int internalModelIndex) {
+        MmtfModel mmtfModel = new MmtfModel(data, bytes, offsets, internalModelIndex);
+        mmtfModel.setContainingStructure(this);
+        return mmtfModel;
+    }
+
     @Override
     public String getPdbIdentifier() {
         return data.getStructureId().toLowerCase();
@@ -103,7 +141,7 @@ public class MmtfStructure implements Structure {
                 models.add(cachedModels.get(internalModelIndex));
             } else {
                 if (!removedModels.contains(internalModelIndex)) {
-                    MmtfModel mmtfModel = new MmtfModel(data, bytes, internalModelIndex);
+                    MmtfModel mmtfModel = createModel(internalModelIndex);
                     cachedModels.put(internalModelIndex, mmtfModel);
                     models.add(mmtfModel);
                 }
@@ -132,7 +170,7 @@ public class MmtfStructure implements Structure {
             for (Integer modelIdentifier : sortedModelIdentifiers) {
                 int internalModelIndex = modelIdentifier - 1;
                 if (!removedModels.contains(internalModelIndex)) {
-                    MmtfModel mmtfModel = new MmtfModel(data, bytes, internalModelIndex);
+                    MmtfModel mmtfModel = createModel(internalModelIndex);
                     cachedModels.put(internalModelIndex, mmtfModel);
                     return mmtfModel;
                 }
@@ -150,7 +188,7 @@ public class MmtfStructure implements Structure {
         if (cachedModels.containsKey(internalModelIndex)) {
             return Optional.of(cachedModels.get(internalModelIndex));
         } else {
-            MmtfModel mmtfModel = new MmtfModel(data, bytes, internalModelIndex);
+            MmtfModel mmtfModel = createModel(internalModelIndex);
             cachedModels.put(internalModelIndex, mmtfModel);
             return Optional.of(mmtfModel);
         }
@@ -159,18 +197,32 @@ public class MmtfStructure implements Structure {
     @Override
     public void removeModel(int modelIdentifier) {
         int internalModelIndex = modelIdentifier - 1;
-        cachedModels.remove(internalModelIndex);
+        MmtfModel removedModel = cachedModels.remove(internalModelIndex);
+        if (removedModel != null) {
+            removedModel.setContainingStructure(null);
+        }
         removedModels.add(internalModelIndex);
+        invalidate();
+    }
+
+    /**
+     * Invalidates all cached views after models, chains, leaves or atoms have been removed.
+     */
+    void invalidate() {
+        chainView = null;
+        leafSubstructureView = null;
     }
 
     @Override
     public List<Chain> getAllChains() {
-        List<Chain> chains = new ArrayList<>();
-        List<Model> allModels = getAllModels();
-        for (Model model : allModels) {
-            chains.addAll(model.getAllChains());
+        if (chainView == null) {
+            List<Chain> chains = new ArrayList<>();
+            for (Model model : getAllModels()) {
+                chains.addAll(model.getAllChains());
+            }
+            chainView = Collections.unmodifiableList(chains);
         }
-        return chains;
+        return chainView;
     }
 
     @Override
@@ -186,12 +238,14 @@ public class MmtfStructure implements Structure {
 
     @Override
     public List<LeafSubstructure<?>> getAllLeafSubstructures() {
-        List<LeafSubstructure<?>> leafSubstructures = new ArrayList<>();
-        List<Chain> allChains = getAllChains();
-        for (Chain chain : allChains) {
-            leafSubstructures.addAll(chain.getAllLeafSubstructures());
+        if (leafSubstructureView == null) {
+            List<LeafSubstructure<?>> leafSubstructures = new ArrayList<>();
+            for (Chain chain : getAllChains()) {
+                leafSubstructures.addAll(chain.getAllLeafSubstructures());
+            }
+            leafSubstructureView = Collections.unmodifiableList(leafSubstructures);
         }
-        return leafSubstructures;
+        return leafSubstructureView;
     }
 
     @Override
@@ -207,12 +261,8 @@ public class MmtfStructure implements Structure {
 
     @Override
     public boolean removeLeafSubstructure(LeafIdentifier leafIdentifier) {
-        for (Chain chain : getAllChains()) {
-            if (chain.removeLeafSubstructure(leafIdentifier)) {
-                return true;
-            }
-        }
-        return false;
+        Optional<Chain> chainOptional = getChain(leafIdentifier.getModelIdentifier(), leafIdentifier.getChainIdentifier());
+        return chainOptional.map(chain -> chain.removeLeafSubstructure(leafIdentifier)).orElse(false);
     }
 
     @Override
@@ -232,22 +282,38 @@ public class MmtfStructure implements Structure {
         return sum;
     }
 
+    /**
+     * Returns the model containing the atom with the given identifier.
+     *
+     * @param atomIdentifier The atom identifier.
+     * @return The model or null if no model contains the atom.
+     */
+    private MmtfModel getModelContainingAtom(int atomIdentifier) {
+        final int groupIndex = offsets.getGroupIndex(atomIdentifier - 1);
+        if (groupIndex == -1) {
+            return null;
+        }
+        final int modelIndex = offsets.getModelIndex(offsets.getChainIndex(groupIndex));
+        if (modelIndex == -1) {
+            return null;
+        }
+        return (MmtfModel) getModel(modelIndex + 1).orElse(null);
+    }
+
     @Override
     public Optional<Atom> getAtom(Integer atomIdentifier) {
-        for (LeafSubstructure leafSubstructure : getAllLeafSubstructures()) {
-            final Optional<Atom> optionalAtom = leafSubstructure.getAtom(atomIdentifier);
-            if (optionalAtom.isPresent()) {
-                return optionalAtom;
-            }
+        final MmtfModel model = getModelContainingAtom(atomIdentifier);
+        if (model == null) {
+            return Optional.empty();
         }
-        return Optional.empty();
+        return model.getAtom(atomIdentifier);
     }
 
     @Override
     public void removeAtom(Integer atomIdentifier) {
-        for (LeafSubstructure leafSubstructure : getAllLeafSubstructures()) {
-            final Optional<Atom> optionalAtom = leafSubstructure.getAtom(atomIdentifier);
-            optionalAtom.ifPresent(atom -> leafSubstructure.removeAtom(atomIdentifier));
+        final MmtfModel model = getModelContainingAtom(atomIdentifier);
+        if (model != null) {
+            model.removeAtom(atomIdentifier);
         }
     }
 
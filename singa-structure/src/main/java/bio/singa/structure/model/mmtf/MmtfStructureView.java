@@ -0,0 +1,554 @@
+package bio.singa.structure.model.mmtf;
+
+import org.rcsb.mmtf.api.StructureDataInterface;
+
+import java.util.function.IntConsumer;
+
+/**
+ * A lightweight, read only view of mmtf structures. In contrast to {@link MmtfStructure}, no objects are created for
+ * models, chains, leaves, and atoms. Instead each of them is addressed by its index in the decoded data arrays and all
+ * attributes are read directly from the arrays. Positions are accessible as primitive coordinates. This is useful to
+ * scan large numbers of structures, e.g. to collect residue level statistics.
+ * <pre>
+ *  MmtfStructureView view = new MmtfStructureView(bytes);
+ *  MmtfStructureView.LeafCursor leaf = view.leafCursor();
+ *  for (int chainIndex = 0; chainIndex &lt; view.getNumberOfChains(); chainIndex++) {
+ *      leaf.resetToChain(chainIndex);
+ *      while (leaf.next()) {
+ *          String threeLetterCode = leaf.getThreeLetterCode();
+ *          double x = view.x(leaf.getFirstAtomIndex());
+ *      }
+ *  }
+ * </pre>
+ * Atom identifiers are consistent with {@link MmtfAtom#getAtomIdentifier()}, i.e. the atom index + 1.
+ *
+ * @author cl
+ */
+public class MmtfStructureView {
+
+    /**
+     * The original mmtf data.
+     */
+    private final StructureDataInterface data;
+
+    /**
+     * The offsets of models, chains and groups in the data arrays.
+     */
+    private final MmtfOffsets offsets;
+
+    /**
+     * The group type of each group.
+     */
+    private final int[] groupTypeIndices;
+
+    /**
+     * The x coordinates of all atoms.
+     */
+    private final float[] xCoordinates;
+
+    /**
+     * The y coordinates of all atoms.
+     */
+    private final float[] yCoordinates;
+
+    /**
+     * The z coordinates of all atoms.
+     */
+    private final float[] zCoordinates;
+
+    /**
+     * Creates a new view by decoding the given gzipped bytes.
+     *
+     * @param bytes The original undecoded bytes.
+     */
+    public MmtfStructureView(byte[] bytes) {
+        this(bytes, true);
+    }
+
+    /**
+     * Creates a new view by decoding the given bytes.
+     *
+     * @param bytes The original undecoded bytes.
+     * @param deflate Signifies if the byte array should be deflated.
+     */
+    public MmtfStructureView(byte[] bytes, boolean deflate) {
+        this(MmtfStructure.bytesToStructureData(bytes, deflate));
+    }
+
+    /**
+     * Creates a new view of already decoded data.
+     *
+     * @param data The decoded data.
+     */
+    MmtfStructureView(StructureDataInterface data) {
+        this(data, new MmtfOffsets(data));
+    }
+
+    /**
+     * Creates a new view of already decoded data, sharing the given offsets.
+     *
+     * @param data The decoded data.
+     * @param offsets The offsets.
+     */
+    MmtfStructureView(StructureDataInterface data, MmtfOffsets offsets) {
+        this.data = data;
+        this.offsets = offsets;
+        groupTypeIndices = data.getGroupTypeIndices();
+        xCoordinates = data.getxCoords();
+        yCoordinates = data.getyCoords();
+        zCoordinates = data.getzCoords();
+    }
+
+    /**
+     * Returns the PDB identifier of the structure.
+     *
+     * @return The PDB identifier.
+     */
+    public String getPdbIdentifier() {
+        return data.getStructureId().toLowerCase();
+    }
+
+    /**
+     * Returns the title of the structure.
+     *
+     * @return The title.
+     */
+    public String getTitle() {
+        return data.getTitle();
+    }
+
+    public int getNumberOfModels() {
+        return data.getNumModels();
+    }
+
+    public int getNumberOfChains() {
+        return data.getNumChains();
+    }
+
+    public int getNumberOfLeafSubstructures() {
+        return data.getNumGroups();
+    }
+
+    public int getNumberOfAtoms() {
+        return data.getNumAtoms();
+    }
+
+    /**
+     * Returns the index of the first chain of the model.
+     *
+     * @param modelIndex The model index (the model identifier - 1).
+     * @return The index of the first chain.
+     */
+    public int getFirstChainIndex(int modelIndex) {
+        return offsets.getFirstChainIndex(modelIndex);
+    }
+
+    /**
+     * Returns the index of the last chain of the model.
+     *
+     * @param modelIndex The model index (the model identifier - 1).
+     * @return The index of the last chain.
+     */
+    public int getLastChainIndex(int modelIndex) {
+        return offsets.getLastChainIndex(modelIndex);
+    }
+
+    /**
+     * Returns the (author assigned) chain identifier of the chain.
+     *
+     * @param chainIndex The chain index.
+     * @return The chain identifier.
+     */
+    public String getChainIdentifier(int chainIndex) {
+        return data.getChainNames()[chainIndex];
+    }
+
+    /**
+     * Returns the index of the model containing the chain.
+     *
+     * @param chainIndex The chain index.
+     * @return The model index.
+     */
+    public int getModelIndex(int chainIndex) {
+        return offsets.getModelIndex(chainIndex);
+    }
+
+    /**
+     * Returns the index of the first leaf of the chain.
+     *
+     * @param chainIndex The chain index.
+     * @return The index of the first leaf.
+     */
+    public int getFirstLeafIndex(int chainIndex) {
+        return offsets.getFirstGroupIndex(chainIndex);
+    }
+
+    /**
+     * Returns the index of the last leaf of the chain.
+     *
+     * @param chainIndex The chain index.
+     * @return The index of the last leaf.
+     */
+    public int getLastLeafIndex(int chainIndex) {
+        return offsets.getLastGroupIndex(chainIndex);
+    }
+
+    /**
+     * Returns the index of the chain containing the leaf.
+     *
+     * @param leafIndex The leaf index.
+     * @return The chain index.
+     */
+    public int getChainIndex(int leafIndex) {
+        return offsets.getChainIndex(leafIndex);
+    }
+
+    /**
+     * Returns the three letter code of the leaf.
+     *
+     * @param leafIndex The leaf index.
+     * @return The three letter code.
+     */
+    public String getThreeLetterCode(int leafIndex) {
+        return data.getGroupName(groupTypeIndices[leafIndex]);
+    }
+
+    /**
+     * Returns the one letter code of the leaf.
+     *
+     * @param leafIndex The leaf index.
+     * @return The one letter code.
+     */
+    public char getOneLetterCode(int leafIndex) {
+        return data.getGroupSingleLetterCode(groupTypeIndices[leafIndex]);
+    }
+
+    /**
+     * Returns the chemical component type of the leaf, e.g. "L-PEPTIDE LINKING".
+     *
+     * @param leafIndex The leaf index.
+     * @return The chemical component type.
+     */
+    public String getChemicalComponentType(int leafIndex) {
+        return data.getGroupChemCompType(groupTypeIndices[leafIndex]);
+    }
+
+    /**
+     * Returns the serial (residue number) of the leaf.
+     *
+     * @param leafIndex The leaf index.
+     * @return The serial.
+     */
+    public int getSerial(int leafIndex) {
+        return data.getGroupIds()[leafIndex];
+    }
+
+    /**
+     * Returns the insertion code of the leaf.
+     *
+     * @param leafIndex The leaf index.
+     * @return The insertion code.
+     */
+    public char getInsertionCode(int leafIndex) {
+        return data.getInsCodes()[leafIndex];
+    }
+
+    /**
+     * Returns the index of the first atom of the leaf.
+     *
+     * @param leafIndex The leaf index.
+     * @return The index of the first atom.
+     */
+    public int getFirstAtomIndex(int leafIndex) {
+        return offsets.getFirstAtomIndex(leafIndex);
+    }
+
+    /**
+     * Returns the index of the last atom of the leaf.
+     *
+     * @param leafIndex The leaf index.
+     * @return The index of the last atom.
+     */
+    public int getLastAtomIndex(int leafIndex) {
+        return offsets.getLastAtomIndex(leafIndex);
+    }
+
+    /**
+     * Returns the index of the leaf containing the atom.
+     *
+     * @param atomIndex The atom index.
+     * @return The leaf index.
+     */
+    public int getLeafIndex(int atomIndex) {
+        return offsets.getGroupIndex(atomIndex);
+    }
+
+    /**
+     * Returns the atom name of the atom.
+     *
+     * @param atomIndex The atom index.
+     * @return The atom name.
+     */
+    public String getAtomName(int atomIndex) {
+        final int leafIndex = getLeafIndex(atomIndex);
+        return data.getGroupAtomNames(groupTypeIndices[leafIndex])[atomIndex - offsets.getFirstAtomIndex(leafIndex)];
+    }
+
+    /**
+     * Returns the element symbol of the atom.
+     *
+     * @param atomIndex The atom index.
+     * @return The element symbol.
+     */
+    public String getElementSymbol(int atomIndex) {
+        final int leafIndex = getLeafIndex(atomIndex);
+        return data.getGroupElementNames(groupTypeIndices[leafIndex])[atomIndex - offsets.getFirstAtomIndex(leafIndex)];
+    }
+
+    /**
+     * Returns the alternative location code of the atom, or the null character if none was assigned.
+     *
+     * @param atomIndex The atom index.
+     * @return The alternative location code.
+     */
+    public char getAlternativeLocationCode(int atomIndex) {
+        return data.getAltLocIds()[atomIndex];
+    }
+
+    /**
+     * Returns the x coordinate of the atom.
+     *
+     * @param atomIndex The atom index.
+     * @return The x coordinate.
+     */
+    public double x(int atomIndex) {
+        return xCoordinates[atomIndex];
+    }
+
+    /**
+     * Returns the y coordinate of the atom.
+     *
+     * @param atomIndex The atom index.
+     * @return The y coordinate.
+     */
+    public double y(int atomIndex) {
+        return yCoordinates[atomIndex];
+    }
+
+    /**
+     * Returns the z coordinate of the atom.
+     *
+     * @param atomIndex The atom index.
+     * @return The z coordinate.
+     */
+    public double z(int atomIndex) {
+        return zCoordinates[atomIndex];
+    }
+
+    /**
+     * Passes the index of every leaf of the chain to the given consumer.
+     *
+     * @param chainIndex The chain index.
+     * @param leafIndexConsumer The consumer.
+     */
+    public void forEachLeaf(int chainIndex, IntConsumer leafIndexConsumer) {
+        final int lastLeafIndex = offsets.getLastGroupIndex(chainIndex);
+        for (int leafIndex = offsets.getFirstGroupIndex(chainIndex); leafIndex <= lastLeafIndex; leafIndex++) {
+            leafIndexConsumer.accept(leafIndex);
+        }
+    }
+
+    /**
+     * Passes the index of every atom of the leaf to the given consumer.
+     *
+     * @param leafIndex The leaf index.
+     * @param atomIndexConsumer The consumer.
+     */
+    public void forEachAtom(int leafIndex, IntConsumer atomIndexConsumer) {
+        final int lastAtomIndex = offsets.getLastAtomIndex(leafIndex);
+        for (int atomIndex = offsets.getFirstAtomIndex(leafIndex); atomIndex <= lastAtomIndex; atomIndex++) {
+            atomIndexConsumer.accept(atomIndex);
+        }
+    }
+
+    /**
+     * Returns a new cursor over leaves. The cursor is positioned before the first leaf of the structure.
+     *
+     * @return A new cursor.
+     */
+    public LeafCursor leafCursor() {
+        return new LeafCursor();
+    }
+
+    /**
+     * Returns a new cursor over atoms. The cursor is positioned before the first atom of the structure.
+     *
+     * @return A new cursor.
+     */
+    public AtomCursor atomCursor() {
+        return new AtomCursor();
+    }
+
+    /**
+     * A reusable cursor iterating a range of leaves. The cursor is either reset to all leaves of the structure or to
+     * the leaves of a single chain and moved using {@link #next()}.
+     */
+    public class LeafCursor {
+
+        private int leafIndex;
+        private int lastLeafIndex;
+
+        private LeafCursor() {
+            resetToStructure();
+        }
+
+        /**
+         * Positions the cursor before the first leaf of the structure.
+         */
+        public void resetToStructure() {
+            leafIndex = -1;
+            lastLeafIndex = getNumberOfLeafSubstructures() - 1;
+        }
+
+        /**
+         * Positions the cursor before the first leaf of the given chain.
+         *
+         * @param chainIndex The chain index.
+         */
+        public void resetToChain(int chainIndex) {
+            leafIndex = offsets.getFirstGroupIndex(chainIndex) - 1;
+            lastLeafIndex = offsets.getLastGroupIndex(chainIndex);
+        }
+
+        /**
+         * Moves the cursor to the next leaf.
+         *
+         * @return True if the cursor points to a leaf, false if the range is exhausted.
+         */
+        public boolean next() {
+            if (leafIndex >= lastLeafIndex) {
+                return false;
+            }
+            leafIndex++;
+            return true;
+        }
+
+        public int getLeafIndex() {
+            return leafIndex;
+        }
+
+        public String getThreeLetterCode() {
+            return MmtfStructureView.this.getThreeLetterCode(leafIndex);
+        }
+
+        public int getSerial() {
+            return MmtfStructureView.this.getSerial(leafIndex);
+        }
+
+        public char getInsertionCode() {
+            return MmtfStructureView.this.getInsertionCode(leafIndex);
+        }
+
+        public int getFirstAtomIndex() {
+            return offsets.getFirstAtomIndex(leafIndex);
+        }
+
+        public int getLastAtomIndex() {
+            return offsets.getLastAtomIndex(leafIndex);
+        }
+
+    }
+
+    /**
+     * A reusable cursor iterating a range of atoms. The cursor is either reset to all atoms of the structure or to the
+     * atoms of a single leaf and moved using {@link #next()}.
+     */
+    public class AtomCursor {
+
+        private int atomIndex;
+        private int lastAtomIndex;
+        private int leafIndex;
+        private int leafAtomOffset;
+        private int leafLastAtomIndex;
+
+        private AtomCursor() {
+            resetToStructure();
+        }
+
+        /**
+         * Positions the cursor before the first atom of the structure.
+         */
+        public void resetToStructure() {
+            atomIndex = -1;
+            lastAtomIndex = getNumberOfAtoms() - 1;
+            leafIndex = -1;
+            leafLastAtomIndex = -1;
+        }
+
+        /**
+         * Positions the cursor before the first atom of the given leaf.
+         *
+         * @param leafIndex The leaf index.
+         */
+        public void resetToLeaf(int leafIndex) {
+            atomIndex = offsets.getFirstAtomIndex(leafIndex) - 1;
+            lastAtomIndex = offsets.getLastAtomIndex(leafIndex);
+            this.leafIndex = leafIndex;
+            leafAtomOffset = offsets.getFirstAtomIndex(leafIndex);
+            leafLastAtomIndex = lastAtomIndex;
+        }
+
+        /**
+         * Moves the cursor to the next atom.
+         *
+         * @return True if the cursor points to an atom, false if the range is exhausted.
+         */
+        public boolean next() {
+            if (atomIndex >= lastAtomIndex) {
+                return false;
+            }
+            atomIndex++;
+            // track the current leaf without searching
+            while (atomIndex > leafLastAtomIndex) {
+                leafIndex++;
+                leafAtomOffset = offsets.getFirstAtomIndex(leafIndex);
+                leafLastAtomIndex = offsets.getLastAtomIndex(leafIndex);
+            }
+            return true;
+        }
+
+        public int getAtomIndex() {
+            return atomIndex;
+        }
+
+        public int getAtomIdentifier() {
+            return atomIndex + 1;
+        }
+
+        public int getLeafIndex() {
+            return leafIndex;
+        }
+
+        public String getAtomName() {
+            return data.getGroupAtomNames(groupTypeIndices[leafIndex])[atomIndex - leafAtomOffset];
+        }
+
+        public String getElementSymbol() {
+            return data.getGroupElementNames(groupTypeIndices[leafIndex])[atomIndex - leafAtomOffset];
+        }
+
+        public double x() {
+            return xCoordinates[atomIndex];
+        }
+
+        public double y() {
+            return yCoordinates[atomIndex];
+        }
+
+        public double z() {
+            return zCoordinates[atomIndex];
+        }
+
+    }
+
+}
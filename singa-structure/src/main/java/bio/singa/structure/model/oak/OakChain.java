@@ -17,6 +17,26 @@ public class OakChain implements Chain {
 
     private final Set<LeafIdentifier> consecutiveIdentifiers;
 
+    /**
+     * The models containing this chain, whose cached views and indices are invalidated if this chain changes.
+     */
+    private final List<OakModel> containingModels = new ArrayList<>(1);
+
+    /**
+     * A cached, unmodifiable view of all leaves.
+     */
+    private List<LeafSubstructure<?>> leafSubstructureView;
+
+    /**
+     * A cached, unmodifiable view of all atoms.
+     */
+    private List<Atom> atomView;
+
+    /**
+     * The leaves containing the atoms, referenced by atom identifier.
+     */
+    private Map<Integer, OakLeafSubstructure<?>> atomIndex;
+
     public OakChain(String chainIdentifier) {
         identifier = chainIdentifier;
         leafSubstructures = new TreeMap<>();
@@ -27,7 +47,9 @@ public class OakChain implements Chain {
         identifier = chain.identifier;
         leafSubstructures = new TreeMap<>();
         for (OakLeafSubstructure<?> leafSubstructure : chain.leafSubstructures.values()) {
-            leafSubstructures.put(leafSubstructure.getIdentifier(), leafSubstructure.getCopy());
+            OakLeafSubstructure<?> leafSubstructureCopy = leafSubstructure.getCopy();
+            leafSubstructureCopy.addContainingChain(this);
+            leafSubstructures.put(leafSubstructureCopy.getIdentifier(), leafSubstructureCopy);
         }
         consecutiveIdentifiers = new HashSet<>(chain.consecutiveIdentifiers);
     }
@@ -39,7 +61,78 @@ public class OakChain implements Chain {
 
     @Override
     public List<LeafSubstructure<?>> getAllLeafSubstructures() {
-        return new ArrayList<>(leafSubstructures.values());
+        if (leafSubstructureView == null) {
+            leafSubstructureView = Collections.unmodifiableList(new ArrayList<>(leafSubstructures.values()));
+        }
+        return leafSubstructureView;
+    }
+
+    @Override
+    public List<Atom> getAllAtoms() {
+        if (atomView == null) {
+            List<Atom> atoms = new ArrayList<>();
+            for (OakLeafSubstructure<?> leafSubstructure : leafSubstructures.values()) {
+                atoms.addAll(leafSubstructure.getAllAtoms());
+            }
+            atomView = Collections.unmodifiableList(atoms);
+        }
+        return atomView;
+    }
+
+    /**
+     * Registers a model containing this chain.
+     *
+     * @param model The model.
+     */
+    void addContainingModel(OakModel model) {
+        for (OakModel containingModel : containingModels) {
+            if (containingModel == model) {
+                return;
+            }
+        }
+        containingModels.add(model);
+    }
+
+    /**
+     * Unregisters a model, that no longer contains this chain.
+     *
+     * @param model The model.
+     */
+    void removeContainingModel(OakModel model) {
+        containingModels.removeIf(containingModel -> containingModel == model);
+    }
+
+    /**
+     * Invalidates all cached views and indices of this chain and the models containing it, after leaves or atoms have
+     * been changed.
+     */
+    void invalidate() {
+        leafSubstructureView = null;
+        atomView = null;
+        atomIndex = null;
+        for (OakModel containingModel : containingModels) {
+            containingModel.invalidate();
+        }
+    }
+
+    /**
+     * Returns the leaf containing the atom with the given identifier. The index is built lazily.
+     *
+     * @param atomIdentifier The atom identifier.
+     * @return The leaf containing the atom or null if no leaf contains the atom.
+     */
+    OakLeafSubstructure<?> getLeafSubstructureContainingAtom(int atomIdentifier) {
+        if (atomIndex == null) {
+            Map<Integer, OakLeafSubstructure<?>> index = new HashMap<>();
+            for (OakLeafSubstructure<?> leafSubstructure : leafSubstructures.values()) {
+                for (Atom atom : leafSubstructure.getAllAtoms()) {
+                    // the first occurrence is retained
+                    index.putIfAbsent(atom.getAtomIdentifier(), leafSubstructure);
+                }
+            }
+            atomIndex = index;
+        }
+        return atomIndex.get(atomIdentifier);
     }
 
     @Override
@@ -64,21 +157,29 @@ public class OakChain implements Chain {
     }
 
     public void addLeafSubstructure(OakLeafSubstructure leafSubstructure) {
-        leafSubstructures.put(leafSubstructure.getIdentifier(), leafSubstructure);
+        OakLeafSubstructure<?> replacedLeafSubstructure = leafSubstructures.put(leafSubstructure.getIdentifier(), leafSubstructure);
+        if (replacedLeafSubstructure != null && replacedLeafSubstructure != leafSubstructure) {
+            replacedLeafSubstructure.removeContainingChain(this);
+        }
+        leafSubstructure.addContainingChain(this);
+        invalidate();
     }
 
     @Override
     public boolean removeLeafSubstructure(LeafIdentifier leafIdentifier) {
-        if (leafSubstructures.containsKey(leafIdentifier)) {
+        OakLeafSubstructure<?> leafSubstructure = leafSubstructures.get(leafIdentifier);
+        if (leafSubstructure != null) {
             // collect all atoms that should be removed
-            List<Integer> atomsToBeRemoved = leafSubstructures.get(leafIdentifier).getAllAtoms().stream()
+            List<Integer> atomsToBeRemoved = leafSubstructure.getAllAtoms().stream()
                     .map(Atom::getAtomIdentifier)
                     .collect(Collectors.toList());
             // remove them
-            atomsToBeRemoved.forEach(this::removeAtom);
+            atomsToBeRemoved.forEach(leafSubstructure::removeAtom);
             // remove the leaf
             leafSubstructures.remove(leafIdentifier);
             consecutiveIdentifiers.remove(leafIdentifier);
+            leafSubstructure.removeContainingChain(this);
+            invalidate();
             return true;
         } else {
             return false;
@@ -87,23 +188,18 @@ public class OakChain implements Chain {
 
     @Override
     public Optional<Atom> getAtom(Integer atomIdentifier) {
-        for (LeafSubstructure<?> leafSubstructure : leafSubstructures.values()) {
-            final Optional<Atom> optionalAtom = leafSubstructure.getAtom(atomIdentifier);
-            if (optionalAtom.isPresent()) {
-                return optionalAtom;
-            }
+        final OakLeafSubstructure<?> leafSubstructure = getLeafSubstructureContainingAtom(atomIdentifier);
+        if (leafSubstructure == null) {
+            return Optional.empty();
         }
-        return Optional.empty();
+        return Optional.of(leafSubstructure.getAtomDirectly(atomIdentifier));
     }
 
     @Override
     public void removeAtom(Integer atomIdentifier) {
-        for (LeafSubstructure<?> leafSubstructure : leafSubstructures.values()) {
-            final Optional<Atom> optionalAtom = leafSubstructure.getAtom(atomIdentifier);
-            if (optionalAtom.isPresent()) {
-                leafSubstructure.removeAtom(optionalAtom.get().getAtomIdentifier());
-                return;
-            }
+        final OakLeafSubstructure<?> leafSubstructure = getLeafSubstructureContainingAtom(atomIdentifier);
+        if (leafSubstructure != null) {
+            leafSubstructure.removeAtom(atomIdentifier);
         }
     }
 
@@ -49,6 +49,11 @@ public abstract class OakLeafSubstructure<FamilyType extends StructuralFamily> i
      */
     private boolean annotatedAsHetAtom;
 
+    /**
+     * The chains containing this leaf, whose cached views and indices are invalidated if the atoms change.
+     */
+    private final List<OakChain> containingChains = new ArrayList<>(1);
+
     public OakLeafSubstructure(LeafIdentifier leafIdentifier, FamilyType family) {
         this.leafIdentifier = leafIdentifier;
         divergingThreeLetterCode = "";
@@ -153,6 +158,46 @@ public abstract class OakLeafSubstructure<FamilyType extends StructuralFamily> i
 
     public void addAtom(OakAtom atom) {
         atoms.put(atom.getAtomIdentifier(), atom);
+        invalidateContainingChains();
+    }
+
+    /**
+     * Registers a chain containing this leaf.
+     *
+     * @param chain The chain.
+     */
+    void addContainingChain(OakChain chain) {
+        for (OakChain containingChain : containingChains) {
+            if (containingChain == chain) {
+                return;
+            }
+        }
+        containingChains.add(chain);
+    }
+
+    /**
+     * Unregisters a chain, that no longer contains this leaf.
+     *
+     * @param chain The chain.
+     */
+    void removeContainingChain(OakChain chain) {
+        containingChains.removeIf(containingChain -> containingChain == chain);
+    }
+
+    private void invalidateContainingChains() {
+        for (OakChain containingChain : containingChains) {
+            containingChain.invalidate();
+        }
+    }
+
+    /**
+     * Returns the atom with the given identifier without wrapping it into an {@link Optional}.
+     *
+     * @param atomIdentifier The atom identifier.
+     * @return The atom or null if no such atom is present.
+     */
+    OakAtom getAtomDirectly(int atomIdentifier) {
+        return atoms.get(atomIdentifier);
     }
 
     @Override
@@ -165,6 +210,7 @@ public abstract class OakLeafSubstructure<FamilyType extends StructuralFamily> i
 
             atoms.remove(atom.getAtomIdentifier());
             bonds.entrySet().removeIf(edge -> edge.getValue().connectsAtom(atom));
+            invalidateContainingChains();
         }
     }
 
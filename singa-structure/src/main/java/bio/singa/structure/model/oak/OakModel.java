@@ -23,6 +23,31 @@ public class OakModel implements Model {
      */
     private final TreeMap<String, OakChain> chains;
 
+    /**
+     * The structures containing this model, whose cached views and indices are invalidated if this model changes.
+     */
+    private final List<OakStructure> containingStructures = new ArrayList<>(1);
+
+    /**
+     * A cached, unmodifiable view of all chains.
+     */
+    private List<Chain> chainView;
+
+    /**
+     * A cached, unmodifiable view of all leaves.
+     */
+    private List<LeafSubstructure<?>> leafSubstructureView;
+
+    /**
+     * A cached, unmodifiable view of all atoms.
+     */
+    private List<Atom> atomView;
+
+    /**
+     * The chains containing the atoms, referenced by atom identifier.
+     */
+    private Map<Integer, OakChain> atomIndex;
+
     /**
      * Creates a new BranchSubstructure. The identifier is considered in the superordinate BranchSubstructure.
      *
@@ -37,7 +62,9 @@ public class OakModel implements Model {
         identifier = model.getModelIdentifier();
         chains = new TreeMap<>();
         for (OakChain chain : model.chains.values()) {
-            chains.put(chain.getChainIdentifier(), chain.getCopy());
+            OakChain chainCopy = chain.getCopy();
+            chainCopy.addContainingModel(this);
+            chains.put(chainCopy.getChainIdentifier(), chainCopy);
         }
 
     }
@@ -52,7 +79,10 @@ public class OakModel implements Model {
     }
 
     public List<Chain> getAllChains() {
-        return new ArrayList<>(chains.values());
+        if (chainView == null) {
+            chainView = Collections.unmodifiableList(new ArrayList<>(chains.values()));
+        }
+        return chainView;
     }
 
     @Override
@@ -69,26 +99,94 @@ public class OakModel implements Model {
     }
 
     public void addChain(OakChain chain) {
-        chains.put(chain.getChainIdentifier(), chain);
+        OakChain replacedChain = chains.put(chain.getChainIdentifier(), chain);
+        if (replacedChain != null && replacedChain != chain) {
+            replacedChain.removeContainingModel(this);
+        }
+        chain.addContainingModel(this);
+        invalidate();
     }
 
     @Override
     public void removeChain(String chainIdentifier) {
-        chains.remove(chainIdentifier);
+        OakChain removedChain = chains.remove(chainIdentifier);
+        if (removedChain != null) {
+            removedChain.removeContainingModel(this);
+            invalidate();
+        }
+    }
+
+    /**
+     * Registers a structure containing this model.
+     *
+     * @param structure The structure.
+     */
+    void addContainingStructure(OakStructure structure) {
+        for (OakStructure containingStructure : containingStructures) {
+            if (containingStructure == structure) {
+                return;
+            }
+        }
+        containingStructures.add(structure);
+    }
+
+    /**
+     * Unregisters a structure, that no longer contains this model.
+     *
+     * @param structure The structure.
+     */
+    void removeContainingStructure(OakStructure structure) {
+        containingStructures.removeIf(containingStructure -> containingStructure == structure);
+    }
+
+    /**
+     * Invalidates all cached views and indices of this model and the structures containing it, after chains, leaves
+     * or atoms have been changed.
+     */
+    void invalidate() {
+        chainView = null;
+        leafSubstructureView = null;
+        atomView = null;
+        atomIndex = null;
+        for (OakStructure containingStructure : containingStructures) {
+            containingStructure.invalidate();
+        }
     }
 
     @Override
     public List<LeafSubstructure<?>> getAllLeafSubstructures() {
-        List<LeafSubstructure<?>> allLeafSubstructures = new ArrayList<>();
-        for (Chain chain : chains.values()) {
-            final List<LeafSubstructure<?>> leafSubstructures = chain.getAllLeafSubstructures();
-            allLeafSubstructures.addAll(leafSubstructures);
+        if (leafSubstructureView == null) {
+            List<LeafSubstructure<?>> allLeafSubstructures = new ArrayList<>();
+            for (Chain chain : chains.values()) {
+                allLeafSubstructures.addAll(chain.getAllLeafSubstructures());
+            }
+            leafSubstructureView = Collections.unmodifiableList(allLeafSubstructures);
         }
-        return allLeafSubstructures;
+        return leafSubstructureView;
+    }
+
+    @Override
+    public List<Atom> getAllAtoms() {
+        if (atomView == null) {
+            List<Atom> atoms = new ArrayList<>();
+            for (Chain chain : chains.values()) {
+                atoms.addAll(chain.getAllAtoms());
+            }
+            atomView = Collections.unmodifiableList(atoms);
+        }
+        return atomView;
     }
 
     @Override
     public Optional<LeafSubstructure<?>> getLeafSubstructure(LeafIdentifier leafIdentifier) {
+        // leaves are usually stored in the chain they reference
+        OakChain referencedChain = chains.get(leafIdentifier.getChainIdentifier());
+        if (referencedChain != null) {
+            final Optional<LeafSubstructure<?>> optionalLeafSubstructure = referencedChain.getLeafSubstructure(leafIdentifier);
+            if (optionalLeafSubstructure.isPresent()) {
+                return optionalLeafSubstructure;
+            }
+        }
         for (Chain chain : chains.values()) {
             final Optional<LeafSubstructure<?>> optionalLeafSubstructure = chain.getLeafSubstructure(leafIdentifier);
             if (optionalLeafSubstructure.isPresent()) {
@@ -105,6 +203,10 @@ public class OakModel implements Model {
 
     @Override
     public boolean removeLeafSubstructure(LeafIdentifier leafIdentifier) {
+        OakChain referencedChain = chains.get(leafIdentifier.getChainIdentifier());
+        if (referencedChain != null && referencedChain.removeLeafSubstructure(leafIdentifier)) {
+            return true;
+        }
         for (Chain chain : chains.values()) {
             final Optional<LeafSubstructure<?>> optionalLeafSubstructure = chain.getLeafSubstructure(leafIdentifier);
             if (optionalLeafSubstructure.isPresent()) {
@@ -115,28 +217,40 @@ public class OakModel implements Model {
         return false;
     }
 
-    @Override
-    public Optional<Atom> getAtom(Integer atomIdentifier) {
-        for (Chain chain : chains.values()) {
-            final List<LeafSubstructure<?>> allLeafSubstructures = chain.getAllLeafSubstructures();
-            for (LeafSubstructure leafSubstructure : allLeafSubstructures) {
-                final Optional<Atom> optionalAtom = leafSubstructure.getAtom(atomIdentifier);
-                if (optionalAtom.isPresent()) {
-                    return optionalAtom;
+    /**
+     * Returns the chain containing the atom with the given identifier. The index is built lazily.
+     *
+     * @param atomIdentifier The atom identifier.
+     * @return The chain containing the atom or null if no chain contains the atom.
+     */
+    OakChain getChainContainingAtom(int atomIdentifier) {
+        if (atomIndex == null) {
+            Map<Integer, OakChain> index = new HashMap<>();
+            for (OakChain chain : chains.values()) {
+                for (Atom atom : chain.getAllAtoms()) {
+                    // the first occurrence is retained
+                    index.putIfAbsent(atom.getAtomIdentifier(), chain);
                 }
             }
+            atomIndex = index;
         }
-        return Optional.empty();
+        return atomIndex.get(atomIdentifier);
+    }
+
+    @Override
+    public Optional<Atom> getAtom(Integer atomIdentifier) {
+        final OakChain chain = getChainContainingAtom(atomIdentifier);
+        if (chain == null) {
+            return Optional.empty();
+        }
+        return chain.getAtom(atomIdentifier);
     }
 
     @Override
     public void removeAtom(Integer atomIdentifier) {
-        for (Chain chain : chains.values()) {
-            final List<LeafSubstructure<?>> allLeafSubstructures = chain.getAllLeafSubstructures();
-            for (LeafSubstructure leafSubstructure : allLeafSubstructures) {
-                final Optional<Atom> optionalAtom = leafSubstructure.getAtom(atomIdentifier);
-                optionalAtom.ifPresent(atom -> leafSubstructure.removeAtom(atomIdentifier));
-            }
+        final OakChain chain = getChainContainingAtom(atomIdentifier);
+        if (chain != null) {
+            chain.removeAtom(atomIdentifier);
         }
     }
 
@@ -32,6 +32,26 @@ public class OakStructure implements Structure {
 
     private int lastAddedAtomIdentifier;
 
+    /**
+     * A cached, unmodifiable view of all chains.
+     */
+    private List<Chain> chainView;
+
+    /**
+     * A cached, unmodifiable view of all leaves.
+     */
+    private List<LeafSubstructure<?>> leafSubstructureView;
+
+    /**
+     * A cached, unmodifiable view of all atoms.
+     */
+    private List<Atom> atomView;
+
+    /**
+     * The models containing the atoms, referenced by atom identifier.
+     */
+    private Map<Integer, OakModel> atomIndex;
+
     public OakStructure() {
         models = new TreeMap<>();
     }
@@ -42,7 +62,9 @@ public class OakStructure implements Structure {
         models = new TreeMap<>();
         lastAddedAtomIdentifier = structure.lastAddedAtomIdentifier;
         for (OakModel model : structure.models.values()) {
-            models.put(model.getModelIdentifier(), model.getCopy());
+            OakModel modelCopy = model.getCopy();
+            modelCopy.addContainingStructure(this);
+            models.put(modelCopy.getModelIdentifier(), modelCopy);
         }
     }
 
@@ -93,11 +115,51 @@ public class OakStructure implements Structure {
 
     @Override
     public void removeModel(int modelIdentifier) {
-        models.remove(modelIdentifier);
+        OakModel removedModel = models.remove(modelIdentifier);
+        if (removedModel != null) {
+            removedModel.removeContainingStructure(this);
+            invalidate();
+        }
     }
 
     public void addModel(OakModel model) {
-        models.put(model.getModelIdentifier(), model);
+        OakModel replacedModel = models.put(model.getModelIdentifier(), model);
+        if (replacedModel != null && replacedModel != model) {
+            replacedModel.removeContainingStructure(this);
+        }
+        model.addContainingStructure(this);
+        invalidate();
+    }
+
+    /**
+     * Invalidates all cached views and indices after models, chains, leaves or atoms of this structure have been
+     * changed.
+     */
+    void invalidate() {
+        chainView = null;
+        leafSubstructureView = null;
+        atomView = null;
+        atomIndex = null;
+    }
+
+    /**
+     * Returns the model containing the atom with the given identifier. The index is built lazily.
+     *
+     * @param atomIdentifier The atom identifier.
+     * @return The model containing the atom or null if no model contains the atom.
+     */
+    private OakModel getModelContainingAtom(int atomIdentifier) {
+        if (atomIndex == null) {
+            Map<Integer, OakModel> index = new HashMap<>();
+            for (OakModel model : models.values()) {
+                for (Atom atom : model.getAllAtoms()) {
+                    // the first occurrence is retained
+                    index.putIfAbsent(atom.getAtomIdentifier(), model);
+                }
+            }
+            atomIndex = index;
+        }
+        return atomIndex.get(atomIdentifier);
     }
 
     @Override
@@ -108,11 +170,14 @@ public class OakStructure implements Structure {
 
     @Override
     public List<Chain> getAllChains() {
-        List<Chain> allChains = new ArrayList<>();
-        for (OakModel model : models.values()) {
-            allChains.addAll(model.getAllChains());
+        if (chainView == null) {
+            List<Chain> allChains = new ArrayList<>();
+            for (OakModel model : models.values()) {
+                allChains.addAll(model.getAllChains());
+            }
+            chainView = Collections.unmodifiableList(allChains);
         }
-        return allChains;
+        return chainView;
     }
 
     @Override
@@ -122,11 +187,26 @@ public class OakStructure implements Structure {
 
     @Override
     public List<LeafSubstructure<?>> getAllLeafSubstructures() {
-        List<LeafSubstructure<?>> allLeafSubstructures = new ArrayList<>();
-        for (OakModel model : models.values()) {
-            allLeafSubstructures.addAll(model.getAllLeafSubstructures());
+        if (leafSubstructureView == null) {
+            List<LeafSubstructure<?>> allLeafSubstructures = new ArrayList<>();
+            for (OakModel model : models.values()) {
+                allLeafSubstructures.addAll(model.getAllLeafSubstructures());
+            }
+            leafSubstructureView = Collections.unmodifiableList(allLeafSubstructures);
+        }
+        return leafSubstructureView;
+    }
+
+    @Override
+    public List<Atom> getAllAtoms() {
+        if (atomView == null) {
+            List<Atom> atoms = new ArrayList<>();
+            for (OakModel model : models.values()) {
+                atoms.addAll(model.getAllAtoms());
+            }
+            atomView = Collections.unmodifiableList(atoms);
         }
-        return allLeafSubstructures;
+        return atomView;
     }
 
     @Override
@@ -143,43 +223,29 @@ public class OakStructure implements Structure {
     @Override
     public boolean removeLeafSubstructure(LeafIdentifier leafIdentifier) {
         final Optional<Chain> chain = getChain(leafIdentifier.getModelIdentifier(), leafIdentifier.getChainIdentifier());
-        if (chain.isPresent()) {
-            if (chain.get().getLeafSubstructure(leafIdentifier).isPresent()) {
-                chain.get().removeLeafSubstructure(leafIdentifier);
-                return true;
-            }
-        }
-        getAllAtoms();
-        return false;
+        return chain.map(value -> value.removeLeafSubstructure(leafIdentifier)).orElse(false);
     }
 
     @Override
     public Optional<Atom> getAtom(Integer atomIdentifier) {
-        for (LeafSubstructure leafSubstructure : getAllLeafSubstructures()) {
-            final Optional<Atom> atom = leafSubstructure.getAtom(atomIdentifier);
-            if (atom.isPresent()) {
-                return atom;
-            }
+        final OakModel model = getModelContainingAtom(atomIdentifier);
+        if (model == null) {
+            return Optional.empty();
         }
-        return Optional.empty();
+        return model.getAtom(atomIdentifier);
     }
 
     public Optional<Map.Entry<UniqueAtomIdentifer, Atom>> getUniqueAtomEntry(int atomSerial) {
-        for (Model model : getAllModels()) {
-            for (Chain chain : model.getAllChains()) {
-                for (LeafSubstructure leafSubstructure : chain.getAllLeafSubstructures()) {
-                    for (Atom atom : leafSubstructure.getAllAtoms()) {
-                        if (atom.getAtomIdentifier().equals(atomSerial)) {
-                            UniqueAtomIdentifer identifier = new UniqueAtomIdentifer(pdbIdentifier, model.getModelIdentifier(),
-                                    chain.getChainIdentifier(), leafSubstructure.getIdentifier().getSerial(), leafSubstructure.getIdentifier().getInsertionCode(),
-                                    atomSerial);
-                            return Optional.of(new AbstractMap.SimpleEntry<>(identifier, atom));
-                        }
-                    }
-                }
-            }
+        final OakModel model = getModelContainingAtom(atomSerial);
+        if (model == null) {
+            return Optional.empty();
         }
-        return Optional.empty();
+        final OakChain chain = model.getChainContainingAtom(atomSerial);
+        final OakLeafSubstructure<?> leafSubstructure = chain.getLeafSubstructureContainingAtom(atomSerial);
+        UniqueAtomIdentifer identifier = new UniqueAtomIdentifer(pdbIdentifier, model.getModelIdentifier(),
+                chain.getChainIdentifier(), leafSubstructure.getIdentifier().getSerial(), leafSubstructure.getIdentifier().getInsertionCode(),
+                atomSerial);
+        return Optional.of(new AbstractMap.SimpleEntry<>(identifier, leafSubstructure.getAtomDirectly(atomSerial)));
     }
 
 
@@ -207,12 +273,9 @@ public class OakStructure implements Structure {
 
     @Override
     public void removeAtom(Integer atomIdentifier) {
-        for (LeafSubstructure leafSubstructure : getAllLeafSubstructures()) {
-            final Optional<Atom> atom = leafSubstructure.getAtom(atomIdentifier);
-            if (atom.isPresent()) {
-                leafSubstructure.removeAtom(atomIdentifier);
-                return;
-            }
+        final OakModel model = getModelContainingAtom(atomIdentifier);
+        if (model != null) {
+            model.removeAtom(atomIdentifier);
         }
     }
 
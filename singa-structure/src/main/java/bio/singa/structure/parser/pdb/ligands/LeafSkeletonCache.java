@@ -0,0 +1,238 @@
+package bio.singa.structure.parser.pdb.ligands;
+
+import bio.singa.structure.parser.pdb.structures.tokens.LeafSkeleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A process wide, thread safe cache of {@link LeafSkeleton}s, that is shared between all structure parsers. Skeletons
+ * are retrieved in the following order:
+ * <ol>
+ * <li>from memory, if the skeleton has already been built,</li>
+ * <li>from the persistent store, a directory containing one cif file per ligand (if it has been set),</li>
+ * <li>from the RCSB ligand service, storing the fetched cif file in the persistent store.</li>
+ * </ol>
+ * The cache can be filled in bulk using the chemical component dictionary (components.cif) provided by the wwPDB, such
+ * that structures can be parsed without accessing the network.
+ *
+ * @author cl
+ */
+public class LeafSkeletonCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeafSkeletonCache.class);
+
+    /**
+     * The prefix of data blocks in cif files.
+     */
+    private static final String DATA_BLOCK_PREFIX = "data_";
+
+    /**
+     * The skeletons referenced by their three letter code.
+     */
+    private static final Map<String, LeafSkeleton> skeletons = new ConcurrentHashMap<>();
+
+    /**
+     * The directory of the persistent store.
+     */
+    private static volatile Path persistentStore;
+
+    private LeafSkeletonCache() {
+        // prevent instantiation
+    }
+
+    /**
+     * Returns the {@link LeafSkeleton} for the given three letter code. The skeleton is built only once for each
+     * three letter code.
+     *
+     * @param threeLetterCode The three letter code of the ligand.
+     * @return The skeleton.
+     */
+    public static LeafSkeleton get(String threeLetterCode) {
+        LeafSkeleton skeleton = skeletons.get(threeLetterCode);
+        if (skeleton != null) {
+            return skeleton;
+        }
+        // creation is done outside of the map to avoid blocking other keys during network access
+        skeleton = create(threeLetterCode);
+        LeafSkeleton previous = skeletons.putIfAbsent(threeLetterCode, skeleton);
+        return previous != null ? previous : skeleton;
+    }
+
+    /**
+     * Returns true if a skeleton for the three letter code is present in memory.
+     *
+     * @param threeLetterCode The three letter code of the ligand.
+     * @return True if a skeleton for the three letter code is present in memory.
+     */
+    public static boolean contains(String threeLetterCode) {
+        return skeletons.containsKey(threeLetterCode);
+    }
+
+    /**
+     * Adds a skeleton to the cache, replacing any previous skeleton with the same three letter code.
+     *
+     * @param skeleton The skeleton.
+     */
+    public static void put(LeafSkeleton skeleton) {
+        skeletons.put(skeleton.getThreeLetterCode(), skeleton);
+    }
+
+    /**
+     * Returns the number of skeletons in memory.
+     *
+     * @return The number of skeletons in memory.
+     */
+    public static int size() {
+        return skeletons.size();
+    }
+
+    /**
+     * Removes all skeletons from memory. The persistent store is not affected.
+     */
+    public static void clear() {
+        skeletons.clear();
+    }
+
+    /**
+     * Returns the directory of the persistent store.
+     *
+     * @return The directory of the persistent store or null if none is used.
+     */
+    public static Path getPersistentStore() {
+        return persistentStore;
+    }
+
+    /**
+     * Sets the directory of the persistent store. The store contains one cif file per ligand, named after the three
+     * letter code. Set to null to disable the persistent store.
+     *
+     * @param directory The directory of the persistent store.
+     */
+    public static void setPersistentStore(Path directory) {
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not create persistent ligand store " + directory + ".", e);
+            }
+        }
+        persistentStore = directory;
+    }
+
+    /**
+     * Loads all chemical components from the given chemical component dictionary (components.cif or its gzipped form
+     * components.cif.gz). Each data block is parsed into a skeleton. If a persistent store is set, each block is also
+     * written to the store.
+     *
+     * @param componentsFile The chemical component dictionary.
+     * @return The number of loaded skeletons.
+     * @throws IOException If the file could not be read.
+     */
+    public static int loadComponents(Path componentsFile) throws IOException {
+        logger.info("Loading chemical components from {}.", componentsFile);
+        try (InputStream inputStream = openComponents(componentsFile)) {
+            return loadComponents(inputStream);
+        }
+    }
+
+    /**
+     * Loads all chemical components from the given stream of a chemical component dictionary.
+     *
+     * @param inputStream The stream of the chemical component dictionary.
+     * @return The number of loaded skeletons.
+     * @throws IOException If the stream could not be read.
+     * @see #loadComponents(Path)
+     */
+    public static int loadComponents(InputStream inputStream) throws IOException {
+        int loaded = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            List<String> block = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(DATA_BLOCK_PREFIX) && !block.isEmpty()) {
+                    loaded += loadBlock(block);
+                    block = new ArrayList<>();
+                }
+                block.add(line);
+            }
+            if (!block.isEmpty()) {
+                loaded += loadBlock(block);
+            }
+        }
+        logger.info("Loaded {} chemical components.", loaded);
+        return loaded;
+    }
+
+    private static int loadBlock(List<String> block) {
+        if (!block.get(0).startsWith(DATA_BLOCK_PREFIX)) {
+            return 0;
+        }
+        String threeLetterCode = block.get(0).substring(DATA_BLOCK_PREFIX.length()).trim();
+        try {
+            LeafSkeleton skeleton = CifFileParser.parseLeafSkeleton(block);
+            skeletons.put(threeLetterCode, skeleton);
+            store(threeLetterCode, block);
+            return 1;
+        } catch (RuntimeException e) {
+            logger.warn("Could not parse chemical component {}.", threeLetterCode, e);
+            return 0;
+        }
+    }
+
+    private static InputStream openComponents(Path componentsFile) throws IOException {
+        InputStream inputStream = new BufferedInputStream(Files.newInputStream(componentsFile));
+        if (componentsFile.getFileName().toString().endsWith(".gz")) {
+            return new GZIPInputStream(inputStream);
+        }
+        return inputStream;
+    }
+
+    private static LeafSkeleton create(String threeLetterCode) {
+        Path store = persistentStore;
+        if (store != null) {
+            Path storedFile = resolveStoredFile(store, threeLetterCode);
+            if (Files.isRegularFile(storedFile)) {
+                try {
+                    return CifFileParser.parseLeafSkeleton(Files.readAllLines(storedFile, StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    logger.warn("Could not read stored ligand {}, fetching it instead.", threeLetterCode, e);
+                }
+            }
+        }
+        List<String> lines = LigandParserService.fetchCifLines(threeLetterCode);
+        store(threeLetterCode, lines);
+        return CifFileParser.parseLeafSkeleton(lines);
+    }
+
+    private static void store(String threeLetterCode, List<String> lines) {
+        Path store = persistentStore;
+        if (store == null) {
+            return;
+        }
+        Path storedFile = resolveStoredFile(store, threeLetterCode);
+        try {
+            // write to temporary file first, so concurrent readers never see partial files
+            Path temporaryFile = Files.createTempFile(store, threeLetterCode, ".tmp");
+            Files.write(temporaryFile, lines, StandardCharsets.UTF_8);
+            Files.move(temporaryFile, storedFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not store ligand {}.", threeLetterCode, e);
+        }
+    }
+
+    private static Path resolveStoredFile(Path store, String threeLetterCode) {
+        return store.resolve(threeLetterCode + ".cif");
+    }
+
+}
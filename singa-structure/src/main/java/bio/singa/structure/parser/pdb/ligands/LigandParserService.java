@@ -1,12 +1,13 @@
 package bio.singa.structure.parser.pdb.ligands;
 
+import bio.singa.core.parser.AbstractHTMLParser;
 import bio.singa.structure.model.interfaces.LeafSubstructure;
 import bio.singa.structure.parser.pdb.structures.tokens.LeafSkeleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.net.URL;
+import java.util.List;
 import java.util.stream.Collectors;
 
 /**
@@ -19,7 +20,7 @@ public class LigandParserService {
 
     public static LeafSubstructure<?> parseLeafSubstructureById(String ligandId) throws IOException {
         logger.debug("parsing structure {}", ligandId);
-        return parseLeafSubstructure(new URL(String.format(CIF_FETCH_URL, ligandId)).openStream());
+        return parseLeafSubstructure(AbstractHTMLParser.openResource(String.format(CIF_FETCH_URL, ligandId)));
     }
 
     public static LeafSubstructure<?> parseLeafSubstructure(InputStream inputStream) throws IOException {
@@ -32,8 +33,20 @@ public class LigandParserService {
 
     public static LeafSkeleton parseLeafSkeleton(String ligandId) {
         logger.debug("parsing structure {} using the supplied atoms", ligandId);
-        try {
-            return parseLeafSkeleton(new URL(String.format(CIF_FETCH_URL, ligandId)).openStream());
+        return CifFileParser.parseLeafSkeleton(fetchCifLines(ligandId));
+    }
+
+    /**
+     * Fetches the lines of the cif file for the given ligand.
+     *
+     * @param ligandId The three letter code of the ligand.
+     * @return The lines of the cif file.
+     */
+    public static List<String> fetchCifLines(String ligandId) {
+        try (InputStreamReader inputStreamReader = new InputStreamReader(AbstractHTMLParser.openResource(String.format(CIF_FETCH_URL, ligandId)))) {
+            try (BufferedReader bufferedReader = new BufferedReader(inputStreamReader)) {
+                return bufferedReader.lines().collect(Collectors.toList());
+            }
         } catch (IOException e) {
             throw new UncheckedIOException("Could not parse cif file for ligand " + ligandId + ".", e);
         }
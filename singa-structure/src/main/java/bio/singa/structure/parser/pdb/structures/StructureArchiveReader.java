@@ -0,0 +1,322 @@
+package bio.singa.structure.parser.pdb.structures;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the content of local structure files, such as the files of a local PDB installation. Files are memory mapped
+ * and decompressed (if they are gzipped) by a pool of workers, that read ahead of the current position. The line
+ * boundaries of PDB files are additionally determined by the workers, but lines are only decoded once they are
+ * requested by the consuming thread. Contents are returned in the order of the given paths.
+ *
+ * @author cl
+ */
+class StructureArchiveReader implements Iterator<StructureArchiveReader.StructureContent> {
+
+    /**
+     * The first two bytes of every gzip file.
+     */
+    private static final int GZIP_MAGIC = 0x8b1f;
+
+    /**
+     * The number of files that are read ahead per thread.
+     */
+    private static final int READ_AHEAD_PER_THREAD = 2;
+
+    /**
+     * The paths that have not been submitted.
+     */
+    private final Iterator<Path> paths;
+
+    /**
+     * The workers.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The contents that are currently read, in the order of the paths.
+     */
+    private final Deque<Future<StructureContent>> pendingContents;
+
+    /**
+     * Creates a new reader for the given paths.
+     *
+     * @param paths The paths.
+     * @param numberOfThreads The number of reading threads.
+     */
+    StructureArchiveReader(List<Path> paths, int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("The number of threads must be positive.");
+        }
+        this.paths = paths.iterator();
+        AtomicInteger threadCounter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(numberOfThreads, runnable -> {
+            Thread thread = new Thread(runnable, "structure-reader-" + threadCounter.incrementAndGet());
+            // abandoned readers should not prevent the application from terminating
+            thread.setDaemon(true);
+            return thread;
+        });
+        pendingContents = new ArrayDeque<>();
+        for (int i = 0; i < numberOfThreads * READ_AHEAD_PER_THREAD; i++) {
+            submitNext();
+        }
+    }
+
+    private void submitNext() {
+        if (paths.hasNext()) {
+            Path path = paths.next();
+            pendingContents.add(executor.submit(() -> read(path)));
+        } else if (pendingContents.isEmpty()) {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !pendingContents.isEmpty();
+    }
+
+    @Override
+    public StructureContent next() {
+        Future<StructureContent> future = pendingContents.poll();
+        if (future == null) {
+            throw new NoSuchElementException();
+        }
+        submitNext();
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+            throw new IllegalStateException("Reading of structure files was interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException("Could not read structure file.", (IOException) e.getCause());
+            }
+            throw new IllegalStateException("Could not read structure file.", e.getCause());
+        }
+    }
+
+    /**
+     * Stops all workers. Pending contents are discarded.
+     */
+    void close() {
+        executor.shutdownNow();
+        pendingContents.clear();
+    }
+
+    /**
+     * Reads the content of a single file. MMTF files (ending with ".mmtf" or ".mmtf.gz") are returned as bytes, all
+     * other files are returned as a {@link LineView} of the bytes.
+     *
+     * @param path The path.
+     * @return The content.
+     * @throws IOException if the file could not be read.
+     */
+    static StructureContent read(Path path) throws IOException {
+        byte[] bytes = decompress(map(path));
+        String fileName = path.getFileName().toString();
+        if (fileName.endsWith(".mmtf") || fileName.endsWith(".mmtf.gz")) {
+            return new StructureContent(path, bytes, null);
+        }
+        return new StructureContent(path, null, new LineView(bytes));
+    }
+
+    /**
+     * Maps the complete file into memory.
+     *
+     * @param path The path.
+     * @return The mapped buffer.
+     * @throws IOException if the file could not be mapped.
+     */
+    private static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Returns the decompressed content of the buffer, if it is gzipped, or else a copy of the content.
+     *
+     * @param buffer The buffer.
+     * @return The decompressed content.
+     * @throws IOException if the content could not be decompressed.
+     */
+    static byte[] decompress(ByteBuffer buffer) throws IOException {
+        if (!isGzipped(buffer)) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(bytes);
+            return bytes;
+        }
+        // the last four bytes contain the size of the uncompressed content (modulo 2^32)
+        int expectedSize = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).getInt(buffer.limit() - 4);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(expectedSize > 0 ? expectedSize : buffer.remaining() * 4);
+        try (InputStream inputStream = new GZIPInputStream(new ByteBufferInputStream(buffer.duplicate()), 1 << 16)) {
+            byte[] chunk = new byte[1 << 16];
+            int read;
+            while ((read = inputStream.read(chunk)) != -1) {
+                outputStream.write(chunk, 0, read);
+            }
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static boolean isGzipped(ByteBuffer buffer) {
+        if (buffer.remaining() < 18) {
+            return false;
+        }
+        int position = buffer.position();
+        return ((buffer.get(position) & 0xff) | ((buffer.get(position + 1) & 0xff) << 8)) == GZIP_MAGIC;
+    }
+
+    /**
+     * The content of a structure file, either raw bytes (for mmtf files) or lines (for pdb files).
+     */
+    static class StructureContent {
+
+        private final Path path;
+        private final byte[] bytes;
+        private final List<String> lines;
+
+        StructureContent(Path path, byte[] bytes, List<String> lines) {
+            this.path = path;
+            this.bytes = bytes;
+            this.lines = lines;
+        }
+
+        Path getPath() {
+            return path;
+        }
+
+        byte[] getBytes() {
+            return bytes;
+        }
+
+        List<String> getLines() {
+            return lines;
+        }
+
+    }
+
+    /**
+     * An unmodifiable list of the lines of a text file. The positions of the lines are determined in a single pass
+     * over the bytes when the view is created, but each line is only decoded when it is retrieved. Lines may be
+     * terminated by "\n", "\r" or "\r\n", that are not part of the lines, as for {@link BufferedReader#readLine()}.
+     * Hence, only the lines that are kept by the consumer are retained, instead of all lines of the file.
+     */
+    static class LineView extends AbstractList<String> implements RandomAccess {
+
+        /**
+         * The content of the file.
+         */
+        private final byte[] bytes;
+
+        /**
+         * The index of the first byte of each line.
+         */
+        private int[] lineStarts;
+
+        /**
+         * The index after the last byte of each line, excluding the line terminator.
+         */
+        private int[] lineEnds;
+
+        /**
+         * The number of lines.
+         */
+        private int numberOfLines;
+
+        LineView(byte[] bytes) {
+            this.bytes = bytes;
+            // pdb lines are 80 characters long and a line terminator
+            int initialCapacity = bytes.length / 81 + 1;
+            lineStarts = new int[initialCapacity];
+            lineEnds = new int[initialCapacity];
+            int lineStart = 0;
+            int position = 0;
+            while (position < bytes.length) {
+                byte currentByte = bytes[position];
+                if (currentByte == '\n' || currentByte == '\r') {
+                    addLine(lineStart, position);
+                    position++;
+                    if (currentByte == '\r' && position < bytes.length && bytes[position] == '\n') {
+                        position++;
+                    }
+                    lineStart = position;
+                } else {
+                    position++;
+                }
+            }
+            if (lineStart < bytes.length) {
+                addLine(lineStart, bytes.length);
+            }
+        }
+
+        private void addLine(int start, int end) {
+            if (numberOfLines == lineStarts.length) {
+                lineStarts = Arrays.copyOf(lineStarts, numberOfLines * 2);
+                lineEnds = Arrays.copyOf(lineEnds, numberOfLines * 2);
+            }
+            lineStarts[numberOfLines] = start;
+            lineEnds[numberOfLines] = end;
+            numberOfLines++;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= numberOfLines) {
+                throw new IndexOutOfBoundsException("Line " + index + " does not exist, there are " + numberOfLines + " lines.");
+            }
+            return new String(bytes, lineStarts[index], lineEnds[index] - lineStarts[index], StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int size() {
+            return numberOfLines;
+        }
+
+    }
+
+    /**
+     * An input stream reading from a byte buffer.
+     */
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+    }
+
+}
@@ -9,7 +9,7 @@ import bio.singa.structure.model.identifiers.UniqueAtomIdentifer;
 import bio.singa.structure.model.interfaces.LeafSubstructure;
 import bio.singa.structure.model.interfaces.Structure;
 import bio.singa.structure.model.oak.*;
-import bio.singa.structure.parser.pdb.ligands.LigandParserService;
+import bio.singa.structure.parser.pdb.ligands.LeafSkeletonCache;
 import bio.singa.structure.parser.pdb.structures.tokens.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,9 +49,13 @@ public class StructureCollector {
      */
     private final Set<LeafIdentifier> notInConsecutiveChain;
     /**
-     * Chains that have already been terminated by a terminate record.
+     * Chains of the current model that have already been terminated by a terminate record.
      */
     private final Set<String> closedChains;
+    /**
+     * The tokenizer reading atom records.
+     */
+    private final AtomRecordTokenizer tokenizer;
     /**
      * The reducer containing the information of what should be parsed and how it should be done.
      */
@@ -91,6 +95,7 @@ public class StructureCollector {
         hetAtoms = new HashSet<>();
         notInConsecutiveChain = new HashSet<>();
         closedChains = new HashSet<>();
+        tokenizer = new AtomRecordTokenizer();
     }
 
     /**
@@ -200,7 +205,7 @@ public class StructureCollector {
         // for each line
         for (String currentLine : pdbLines) {
             // check if the correct model has begun
-            if (ModelToken.RECORD_PATTERN.matcher(currentLine).matches()) {
+            if (AtomRecordTokenizer.isRecord(currentLine, "MODEL")) {
                 int currentModel = Integer.valueOf(ModelToken.MODEL_SERIAL.extract(currentLine));
                 // turn on collection of lines
                 if (currentModel == modelIdentifier) {
@@ -210,7 +215,7 @@ public class StructureCollector {
                 }
             }
             // check if the terminator is hit prevent further parsing
-            if (collectLines && TerminatorTokens.MODEL_TERMINATOR.matcher(currentLine).matches()) {
+            if (collectLines && AtomRecordTokenizer.isRecord(currentLine, "ENDMDL")) {
                 break;
             }
             // collect lines if we are in the correct model
@@ -231,16 +236,16 @@ public class StructureCollector {
         // for each line
         for (String currentLine : pdbLines) {
             // check if this is a atom line
-            if (AtomToken.RECORD_PATTERN.matcher(currentLine).matches()) {
-                String currentChain = AtomToken.CHAIN_IDENTIFIER.extract(currentLine);
+            if (AtomRecordTokenizer.isAtomRecord(currentLine)) {
+                tokenizer.setLine(currentLine);
                 // collect line if it has the correct chainIdentifier
-                if (currentChain.equals(chainIdentifier)) {
+                if (tokenizer.getChainIdentifier().equals(chainIdentifier)) {
                     reducedList.add(currentLine);
                 }
-            } else if (ModelToken.RECORD_PATTERN.matcher(currentLine).matches()) {
+            } else if (AtomRecordTokenizer.isRecord(currentLine, "MODEL")) {
                 // keep lines that indicate models
                 reducedList.add(currentLine);
-            } else if (ChainTerminatorToken.RECORD_PATTERN.matcher(currentLine).matches()) {
+            } else if (AtomRecordTokenizer.isRecord(currentLine, "TER")) {
                 if (ChainTerminatorToken.CHAIN_IDENTIFIER.extract(currentLine).equals(chainIdentifier)) {
                     // keep lines that indicate models
                     reducedList.add(currentLine);
@@ -301,30 +306,32 @@ public class StructureCollector {
     private void collectAtomInformation() {
         logger.debug("Collecting information from {} PDB lines", pdbLines.size());
         for (String currentLine : pdbLines) {
-            String currentRecordType = AtomToken.RECORD_TYPE.extract(currentLine);
-            if (AtomToken.RECORD_PATTERN.matcher(currentRecordType).matches()) {
+            if (AtomRecordTokenizer.isAtomRecord(currentLine)) {
+                boolean heteroAtom = AtomRecordTokenizer.isHeteroAtomRecord(currentLine);
                 // TODO move this to reducer?
-                if (!reducer.options.isHeteroAtoms() && currentRecordType.equals("HETATM")) {
+                if (!reducer.options.isHeteroAtoms() && heteroAtom) {
                     continue;
                 }
-                UniqueAtomIdentifer identifier = createUniqueAtomIdentifier(currentLine);
-                atoms.put(identifier, AtomToken.assembleAtom(currentLine));
-                LeafIdentifier leafIdentifier = new LeafIdentifier(identifier.getPdbIdentifier(),
-                        identifier.getModelIdentifier(), identifier.getChainIdentifier(),
-                        identifier.getLeafSerial(), identifier.getLeafInsertionCode());
-                currentChain = leafIdentifier.getChainIdentifier();
-                if (currentRecordType.equals("HETATM")) {
+                tokenizer.setLine(currentLine);
+                OakAtom atom = tokenizer.createAtom();
+                currentChain = tokenizer.getChainIdentifier();
+                LeafIdentifier leafIdentifier = new LeafIdentifier(currentPDB, currentModel, currentChain,
+                        tokenizer.getResidueSerial(), tokenizer.getInsertionCode());
+                atoms.put(new UniqueAtomIdentifer(currentPDB, currentModel, currentChain, leafIdentifier.getSerial(),
+                        leafIdentifier.getInsertionCode(), atom.getAtomIdentifier()), atom);
+                if (heteroAtom) {
                     hetAtoms.add(leafIdentifier);
                 }
                 // add everything before termination record to consecutive chain
-                if (closedChains.contains(currentModel + "-" + currentChain)) {
+                if (closedChains.contains(currentChain)) {
                     notInConsecutiveChain.add(leafIdentifier);
                 }
-                leafCodes.put(leafIdentifier, AtomToken.RESIDUE_NAME.extract(currentLine));
-            } else if (currentRecordType.equals("MODEL")) {
+                leafCodes.put(leafIdentifier, tokenizer.getResidueName());
+            } else if (AtomRecordTokenizer.isRecord(currentLine, "MODEL")) {
                 currentModel = Integer.valueOf(ModelToken.MODEL_SERIAL.extract(currentLine));
-            } else if (currentRecordType.equals("TER")) {
-                closedChains.add(currentModel + "-" + currentChain);
+                closedChains.clear();
+            } else if (AtomRecordTokenizer.isRecord(currentLine, "TER")) {
+                closedChains.add(currentChain);
             }
         }
     }
@@ -341,21 +348,6 @@ public class StructureCollector {
         }
     }
 
-    /**
-     * Creates a unique atom identifier for the given atom line.
-     *
-     * @param atomLine The atom line.
-     * @return An unique atom identifier.
-     */
-    private UniqueAtomIdentifer createUniqueAtomIdentifier(String atomLine) {
-        int atomSerial = Integer.valueOf(AtomToken.ATOM_SERIAL.extract(atomLine));
-        String chain = AtomToken.CHAIN_IDENTIFIER.extract(atomLine);
-        int leaf = Integer.valueOf(AtomToken.RESIDUE_SERIAL.extract(atomLine));
-        String insertion = AtomToken.RESIDUE_INSERTION.extract(atomLine);
-        char insertionCode = insertion.isEmpty() ? LeafIdentifier.DEFAULT_INSERTION_CODE : insertion.charAt(0);
-        return new UniqueAtomIdentifer(currentPDB, currentModel, chain, leaf, insertionCode, atomSerial);
-    }
-
     /**
      * Chooses which kind of leaf to create and returns the assembled {@link LeafSubstructure}.
      *
@@ -452,7 +444,7 @@ public class StructureCollector {
 
     /**
      * Creating a leaf using additional information from parsing the corresponding cif file or using already parsed
-     * {@link LeafSkeleton}s from the cache.
+     * {@link LeafSkeleton}s from the shared {@link LeafSkeletonCache}.
      *
      * @param identifier The identifier of the leaf.
      * @param leafName Its three letter code.
@@ -460,13 +452,7 @@ public class StructureCollector {
      * @return The Leaf.
      */
     private OakLeafSubstructure<?> createLeafWithAdditionalInformation(LeafIdentifier identifier, String leafName, Map<String, OakAtom> atoms) {
-        LeafSkeleton leafSkeleton;
-        if (!reducer.skeletons.containsKey(leafName)) {
-            leafSkeleton = LigandParserService.parseLeafSkeleton(leafName);
-            reducer.skeletons.put(leafName, leafSkeleton);
-        } else {
-            leafSkeleton = reducer.skeletons.get(leafName);
-        }
+        LeafSkeleton leafSkeleton = LeafSkeletonCache.get(leafName);
         return leafSkeleton.toRealLeafSubstructure(identifier, atoms);
     }
 
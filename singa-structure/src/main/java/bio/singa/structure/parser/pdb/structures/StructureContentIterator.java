@@ -7,14 +7,12 @@ import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
-import java.util.zip.GZIPInputStream;
 
 import static bio.singa.structure.parser.pdb.structures.SourceLocation.*;
 
@@ -90,6 +88,19 @@ class StructureContentIterator implements Iterator<List<String>> {
      * The number of structures that have already be processed.
      */
     private int progressCounter;
+    /**
+     * The number of threads used to read local files ahead, files are read on the consuming thread if only one
+     * thread is used.
+     */
+    private int numberOfReadingThreads = 1;
+    /**
+     * Reads local files ahead, if multiple paths are to be parsed.
+     */
+    private StructureArchiveReader archiveReader;
+    /**
+     * The raw content of the current mmtf file.
+     */
+    private byte[] currentBytes;
 
     /**
      * Creates a new structure content iterator for a single identifier.
@@ -308,14 +319,58 @@ class StructureContentIterator implements Iterator<List<String>> {
     }
 
     /**
-     * Extracts the content form a packed file to an input stream.
+     * Sets the number of threads used to read local files ahead. By default files are not read ahead. Has no effect
+     * after the first structure has been retrieved.
      *
-     * @param path The path to a file to be parsed.
-     * @return The files a stream.
-     * @throws IOException if the file could not be unpacked or found.
+     * @param numberOfReadingThreads The number of threads.
      */
-    private InputStream readPacked(Path path) throws IOException {
-        return new GZIPInputStream(new FileInputStream(path.toFile()));
+    void setNumberOfReadingThreads(int numberOfReadingThreads) {
+        if (numberOfReadingThreads < 1) {
+            throw new IllegalArgumentException("The number of threads must be positive.");
+        }
+        this.numberOfReadingThreads = numberOfReadingThreads;
+    }
+
+    /**
+     * Reads the content of the next local file. If more than one file is queued and multiple reading threads are
+     * set, files are read ahead by the {@link StructureArchiveReader}, that is closed once the last file has been
+     * read.
+     *
+     * @param path The path to the file that is to be read.
+     * @return The content of the file.
+     * @throws IOException if the file could not be read.
+     */
+    private StructureArchiveReader.StructureContent readLocal(Path path) throws IOException {
+        if (paths.size() < 2 || numberOfReadingThreads < 2) {
+            return StructureArchiveReader.read(path);
+        }
+        if (archiveReader == null) {
+            archiveReader = new StructureArchiveReader(paths.subList(progressCounter, paths.size()), numberOfReadingThreads);
+        }
+        try {
+            StructureArchiveReader.StructureContent content = archiveReader.next();
+            if (!content.getPath().equals(path)) {
+                close();
+                throw new IllegalStateException("Read ahead content of " + content.getPath() + " does not belong to " + path + ".");
+            }
+            return content;
+        } finally {
+            if (archiveReader != null && !archiveReader.hasNext()) {
+                close();
+            }
+        }
+    }
+
+    /**
+     * Stops reading files ahead and discards all contents that have been read ahead. Structures that are retrieved
+     * afterwards are read on the consuming thread.
+     */
+    void close() {
+        if (archiveReader != null) {
+            archiveReader.close();
+            archiveReader = null;
+        }
+        numberOfReadingThreads = 1;
     }
 
     /**
@@ -370,6 +425,19 @@ class StructureContentIterator implements Iterator<List<String>> {
         }
     }
 
+    /**
+     * Returns the decompressed bytes of the current mmtf file.
+     *
+     * @return The decompressed bytes of the current mmtf file.
+     */
+    byte[] getCurrentBytes() {
+        if (currentBytes != null) {
+            return currentBytes;
+        } else {
+            throw new IllegalStateException("The current structure is not a local mmtf file.");
+        }
+    }
+
     /**
      * returns the current source.
      *
@@ -408,13 +476,13 @@ class StructureContentIterator implements Iterator<List<String>> {
                     final Path path = currentPath.next();
                     // remove extension
                     currentSource = path.getFileName().toString().replaceFirst("[.][^.]+$", "");
-                    if (path.toString().endsWith(".ent.gz")) {
-                        return fetchLines(readPacked(path));
-                    } else if (path.toString().endsWith(".mmtf.gz")) {
+                    final StructureArchiveReader.StructureContent content = readLocal(path);
+                    if (content.getBytes() != null) {
+                        currentBytes = content.getBytes();
                         return Collections.singletonList(path.toString());
-                    } else {
-                        return fetchLines(Files.newInputStream(path));
                     }
+                    currentBytes = null;
+                    return content.getLines();
                 } catch (IOException e) {
                     throw new UncheckedIOException("Could not open input stream for path.", e);
                 } finally {
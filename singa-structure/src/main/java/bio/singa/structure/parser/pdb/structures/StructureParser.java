@@ -3,6 +3,7 @@ package bio.singa.structure.parser.pdb.structures;
 import bio.singa.core.utility.Pair;
 import bio.singa.structure.model.interfaces.Structure;
 import bio.singa.structure.model.mmtf.MmtfStructure;
+import bio.singa.structure.parser.pdb.ligands.LeafSkeletonCache;
 import bio.singa.structure.parser.pdb.structures.tokens.LeafSkeleton;
 import org.rcsb.mmtf.decoder.ReaderUtils;
 import org.slf4j.Logger;
@@ -350,7 +351,8 @@ public class StructureParser {
                     MmtfReducer.reduceMMTFStructure(mmtfStructure, selector);
                     return mmtfStructure;
                 } else if (selector.sourceSelector.sourceLocation == SourceLocation.OFFLINE_MMTF) {
-                    return new MmtfStructure(Files.readAllBytes(Paths.get(selector.sourceSelector.contentIterator.next().get(0))), false);
+                    selector.sourceSelector.contentIterator.next();
+                    return new MmtfStructure(selector.sourceSelector.contentIterator.getCurrentBytes(), false);
                 }
             } catch (IOException e) {
                 logger.warn("failed to parse structure", e);
@@ -365,8 +367,8 @@ public class StructureParser {
      * the structures can be parsed and processed individually. Each specified structure will be parsed lazily so
      * parsing until a certain condition is met can be done without parsing unused structures. Additionally some
      * speedups are provided parsing multiple structures. Every ligand is only parsed once, the first time it is
-     * encountered, afterwards it is stored as a {@link LeafSkeleton} that is completed with the the concrete atom
-     * positions for each new occurrence.
+     * encountered, afterwards it is stored as a {@link LeafSkeleton} in the {@link LeafSkeletonCache} (that is shared
+     * by all parsers) and completed with the the concrete atom positions for each new occurrence.
      */
     public static class MultiParser implements Iterator<Structure> {
 
@@ -433,6 +435,28 @@ public class StructureParser {
             return this;
         }
 
+        /**
+         * Sets the number of threads, that read and decompress local files ahead of parsing. Has no effect once the
+         * first structure has been parsed. By default files are read by the parsing thread without reading ahead. If
+         * the iteration is abandoned before all structures have been parsed, {@link #close()} should be called to
+         * stop the reading threads.
+         *
+         * @param numberOfReadingThreads The number of threads.
+         * @return The parser with the set number of threads.
+         */
+        public MultiParser setNumberOfReadingThreads(int numberOfReadingThreads) {
+            selector.sourceSelector.contentIterator.setNumberOfReadingThreads(numberOfReadingThreads);
+            return this;
+        }
+
+        /**
+         * Stops reading local files ahead and discards the contents that have been read ahead. Reading threads are
+         * stopped automatically, once all structures have been parsed.
+         */
+        public synchronized void close() {
+            selector.sourceSelector.contentIterator.close();
+        }
+
         /**
          * Parses all structures that are queued for this {@link MultiParser}.
          *
@@ -451,7 +475,7 @@ public class StructureParser {
                             structures.add(structureOnline);
                             break;
                         case OFFLINE_MMTF:
-                            MmtfStructure structureOffline = new MmtfStructure(Files.readAllBytes(Paths.get(lines.get(0))), false);
+                            MmtfStructure structureOffline = new MmtfStructure(selector.sourceSelector.contentIterator.getCurrentBytes(), false);
                             MmtfReducer.reduceMMTFStructure(structureOffline, selector);
                             structures.add(structureOffline);
                             break;
@@ -481,7 +505,8 @@ public class StructureParser {
                     MmtfReducer.reduceMMTFStructure(mmtfStructure, selector);
                     return mmtfStructure;
                 } else if (selector.sourceSelector.sourceLocation == SourceLocation.OFFLINE_MMTF) {
-                    MmtfStructure mmtfStructure = new MmtfStructure(Files.readAllBytes(Paths.get(selector.sourceSelector.contentIterator.next().get(0))), true);
+                    selector.sourceSelector.contentIterator.next();
+                    MmtfStructure mmtfStructure = new MmtfStructure(selector.sourceSelector.contentIterator.getCurrentBytes(), false);
                     MmtfReducer.reduceMMTFStructure(mmtfStructure, selector);
                     return mmtfStructure;
                 }
@@ -616,11 +641,6 @@ public class StructureParser {
          */
         final SourceSelector sourceSelector;
 
-        /**
-         * A cache of {@link LeafSkeleton}s that are reused during parsing of ligands.
-         */
-        final Map<String, LeafSkeleton> skeletons;
-
         /**
          * The current pdb identifier. This is updated by the content iterator whenever possible.
          */
@@ -668,7 +688,6 @@ public class StructureParser {
          */
         Reducer(SourceSelector sourceSelector) {
             this.sourceSelector = sourceSelector;
-            skeletons = new HashMap<>();
         }
 
         /**
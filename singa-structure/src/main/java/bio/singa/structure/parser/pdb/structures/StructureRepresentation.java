@@ -155,10 +155,11 @@ public class StructureRepresentation {
      * @return A string representing the information of the leaves in pdb format.
      */
     private static String composePdbRepresentationOfNonConsecutiveRecords(List<LeafSubstructure<?>> nonConsecutiveLeafs) {
-        // sorts the leafy by their atom identifier
+        // sorts the leafy by their atom identifier (the given list may be an unmodifiable view)
         if (!nonConsecutiveLeafs.isEmpty()) {
-            nonConsecutiveLeafs.sort(Comparator.comparingInt(nonConsecutiveLeaf -> nonConsecutiveLeaf.getAllAtoms().get(0).getAtomIdentifier()));
-            return nonConsecutiveLeafs.stream()
+            List<LeafSubstructure<?>> sortedLeafs = new ArrayList<>(nonConsecutiveLeafs);
+            sortedLeafs.sort(Comparator.comparingInt(nonConsecutiveLeaf -> nonConsecutiveLeaf.getAllAtoms().get(0).getAtomIdentifier()));
+            return sortedLeafs.stream()
                     .map(LeafSubstructure::getPdbLines)
                     .flatMap(Collection::stream)
                     .collect(Collectors.joining(System.lineSeparator(), "", System.lineSeparator()));
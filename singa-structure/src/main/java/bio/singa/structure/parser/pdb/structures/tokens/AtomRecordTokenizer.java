@@ -0,0 +1,367 @@
+package bio.singa.structure.parser.pdb.structures.tokens;
+
+import bio.singa.mathematics.vectors.Vector3D;
+import bio.singa.structure.elements.Element;
+import bio.singa.structure.elements.ElementProvider;
+import bio.singa.structure.model.identifiers.LeafIdentifier;
+import bio.singa.structure.model.oak.OakAtom;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the fixed columns of ATOM and HETATM records (as described by the {@link AtomToken}s) directly from the
+ * characters of a line. Numbers are parsed in place without creating intermediate strings and textual fields (atom
+ * names, residue names, chain identifiers and element symbols) are interned in a pool owned by the tokenizer, such
+ * that only a single string is created for every distinct value. Elements are resolved once for every distinct symbol.
+ * <p>
+ * A tokenizer is positioned on a line using {@link #setLine(CharSequence)}, afterwards the fields of this line can be
+ * retrieved. Tokenizers are not thread-safe, every parser should use its own instance.
+ *
+ * @author cl
+ */
+public class AtomRecordTokenizer {
+
+    // the zero based, end exclusive columns of the atom record fields
+    private static final int ATOM_SERIAL_BEGIN = 6;
+    private static final int ATOM_SERIAL_END = 11;
+    private static final int ATOM_NAME_BEGIN = 12;
+    private static final int ATOM_NAME_END = 16;
+    private static final int RESIDUE_NAME_BEGIN = 17;
+    private static final int RESIDUE_NAME_END = 20;
+    private static final int CHAIN_IDENTIFIER_BEGIN = 21;
+    private static final int CHAIN_IDENTIFIER_END = 22;
+    private static final int RESIDUE_SERIAL_BEGIN = 22;
+    private static final int RESIDUE_SERIAL_END = 26;
+    private static final int RESIDUE_INSERTION_BEGIN = 26;
+    private static final int RESIDUE_INSERTION_END = 30;
+    private static final int X_COORDINATE_BEGIN = 30;
+    private static final int X_COORDINATE_END = 38;
+    private static final int Y_COORDINATE_BEGIN = 38;
+    private static final int Y_COORDINATE_END = 46;
+    private static final int Z_COORDINATE_BEGIN = 46;
+    private static final int Z_COORDINATE_END = 54;
+    private static final int ELEMENT_SYMBOL_BEGIN = 76;
+    private static final int ELEMENT_SYMBOL_END = 78;
+
+    /**
+     * Exactly representable powers of ten.
+     */
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+            1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    /**
+     * The elements resolved for interned element symbols.
+     */
+    private final Map<String, Element> elements;
+
+    /**
+     * The open addressing table of interned strings.
+     */
+    private String[] internedStrings;
+
+    /**
+     * The number of interned strings.
+     */
+    private int numberOfInternedStrings;
+
+    /**
+     * The current line.
+     */
+    private CharSequence line;
+
+    /**
+     * Creates a new tokenizer.
+     */
+    public AtomRecordTokenizer() {
+        elements = new HashMap<>();
+        internedStrings = new String[256];
+    }
+
+    /**
+     * Returns true if the given line is a record of the given type. The record name is required to be followed by
+     * white space or the end of the line, if it is shorter than the record type columns.
+     *
+     * @param line The line.
+     * @param recordName The name of the record (such as "ATOM" or "MODEL").
+     * @return True if the line is a record of the given type.
+     */
+    public static boolean isRecord(CharSequence line, String recordName) {
+        int length = recordName.length();
+        if (line.length() < length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (line.charAt(i) != recordName.charAt(i)) {
+                return false;
+            }
+        }
+        return line.length() == length || length >= 6 || line.charAt(length) == ' ';
+    }
+
+    /**
+     * Returns true if the given line is an ATOM or HETATM record.
+     *
+     * @param line The line.
+     * @return True if the line is an atom record.
+     */
+    public static boolean isAtomRecord(CharSequence line) {
+        return isRecord(line, "ATOM") || isRecord(line, "HETATM");
+    }
+
+    /**
+     * Returns true if the given line is a HETATM record.
+     *
+     * @param line The line.
+     * @return True if the line is a HETATM record.
+     */
+    public static boolean isHeteroAtomRecord(CharSequence line) {
+        return isRecord(line, "HETATM");
+    }
+
+    /**
+     * Parses the integer in the given columns of the line, surrounding white space is ignored.
+     *
+     * @param line The line.
+     * @param begin The first column (zero based, inclusive).
+     * @param end The last column (zero based, exclusive).
+     * @return The integer.
+     * @throws NumberFormatException if the columns do not contain an integer or exceed the line.
+     */
+    public static int parseInt(CharSequence line, int begin, int end) {
+        if (line.length() < end) {
+            throw new NumberFormatException("The line is too short to contain columns " + begin + " to " + end + ".");
+        }
+        while (begin < end && line.charAt(begin) == ' ') {
+            begin++;
+        }
+        while (end > begin && line.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (begin == end) {
+            throw new NumberFormatException("The columns do not contain an integer.");
+        }
+        boolean negative = false;
+        char first = line.charAt(begin);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            begin++;
+            if (begin == end) {
+                throw new NumberFormatException("The columns do not contain an integer.");
+            }
+        }
+        int value = 0;
+        for (int i = begin; i < end; i++) {
+            int digit = line.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                // fall back for everything unusual
+                return Integer.parseInt(line.subSequence(begin, end).toString().trim()) * (negative ? -1 : 1);
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses the decimal number in the given columns of the line, surrounding white space is ignored. Plain decimal
+     * numbers are parsed in place, the result is identical to {@link Double#parseDouble(String)}.
+     *
+     * @param line The line.
+     * @param begin The first column (zero based, inclusive).
+     * @param end The last column (zero based, exclusive).
+     * @return The number.
+     * @throws NumberFormatException if the columns do not contain a number or exceed the line.
+     */
+    public static double parseDouble(CharSequence line, int begin, int end) {
+        if (line.length() < end) {
+            throw new NumberFormatException("The line is too short to contain columns " + begin + " to " + end + ".");
+        }
+        while (begin < end && line.charAt(begin) == ' ') {
+            begin++;
+        }
+        while (end > begin && line.charAt(end - 1) == ' ') {
+            end--;
+        }
+        int position = begin;
+        boolean negative = false;
+        if (position < end && (line.charAt(position) == '-' || line.charAt(position) == '+')) {
+            negative = line.charAt(position) == '-';
+            position++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; position < end; position++) {
+            char character = line.charAt(position);
+            if (character >= '0' && character <= '9') {
+                mantissa = mantissa * 10 + (character - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (character == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+        }
+        if (position != end || digits == 0 || digits > 15 || fractionDigits >= POWERS_OF_TEN.length) {
+            // fall back for exponents, very long numbers and malformed input
+            return Double.parseDouble(line.subSequence(begin, end).toString());
+        }
+        // both mantissa and power of ten are exact, therefore the division is correctly rounded
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Positions the tokenizer on the given line.
+     *
+     * @param line The atom record.
+     */
+    public void setLine(CharSequence line) {
+        this.line = line;
+    }
+
+    public int getAtomSerial() {
+        return parseInt(line, ATOM_SERIAL_BEGIN, ATOM_SERIAL_END);
+    }
+
+    public String getAtomName() {
+        return intern(line, ATOM_NAME_BEGIN, ATOM_NAME_END);
+    }
+
+    public String getResidueName() {
+        return intern(line, RESIDUE_NAME_BEGIN, RESIDUE_NAME_END);
+    }
+
+    public String getChainIdentifier() {
+        return intern(line, CHAIN_IDENTIFIER_BEGIN, CHAIN_IDENTIFIER_END);
+    }
+
+    public int getResidueSerial() {
+        return parseInt(line, RESIDUE_SERIAL_BEGIN, RESIDUE_SERIAL_END);
+    }
+
+    /**
+     * Returns the insertion code of the residue, or {@link LeafIdentifier#DEFAULT_INSERTION_CODE} if there is none.
+     *
+     * @return The insertion code.
+     */
+    public char getInsertionCode() {
+        if (line.length() < RESIDUE_INSERTION_END) {
+            return LeafIdentifier.DEFAULT_INSERTION_CODE;
+        }
+        for (int i = RESIDUE_INSERTION_BEGIN; i < RESIDUE_INSERTION_END; i++) {
+            char character = line.charAt(i);
+            if (character != ' ') {
+                return character;
+            }
+        }
+        return LeafIdentifier.DEFAULT_INSERTION_CODE;
+    }
+
+    public Vector3D getPosition() {
+        return new Vector3D(parseDouble(line, X_COORDINATE_BEGIN, X_COORDINATE_END),
+                parseDouble(line, Y_COORDINATE_BEGIN, Y_COORDINATE_END),
+                parseDouble(line, Z_COORDINATE_BEGIN, Z_COORDINATE_END));
+    }
+
+    /**
+     * Returns the element of the atom, or {@link ElementProvider#UNKOWN} if the symbol is missing or unknown.
+     *
+     * @return The element.
+     */
+    public Element getElement() {
+        String symbol = intern(line, ELEMENT_SYMBOL_BEGIN, ELEMENT_SYMBOL_END);
+        Element element = elements.get(symbol);
+        if (element == null) {
+            element = ElementProvider.getElementBySymbol(symbol).orElse(ElementProvider.UNKOWN);
+            elements.put(symbol, element);
+        }
+        return element;
+    }
+
+    /**
+     * Creates the atom described by the current line.
+     *
+     * @return The atom.
+     */
+    public OakAtom createAtom() {
+        return new OakAtom(getAtomSerial(), getElement(), getAtomName(), getPosition());
+    }
+
+    /**
+     * Returns the interned string in the given columns of the line, surrounding white space is removed. If the line is
+     * too short to contain the columns, an empty string is returned.
+     *
+     * @param line The line.
+     * @param begin The first column (zero based, inclusive).
+     * @param end The last column (zero based, exclusive).
+     * @return The interned string.
+     */
+    public String intern(CharSequence line, int begin, int end) {
+        if (line.length() < end) {
+            return "";
+        }
+        while (begin < end && line.charAt(begin) == ' ') {
+            begin++;
+        }
+        while (end > begin && line.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (begin == end) {
+            return "";
+        }
+        // same hash as the resulting string
+        int hash = 0;
+        for (int i = begin; i < end; i++) {
+            hash = 31 * hash + line.charAt(i);
+        }
+        int mask = internedStrings.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        String interned;
+        while ((interned = internedStrings[slot]) != null) {
+            if (interned.hashCode() == hash && regionMatches(interned, line, begin, end)) {
+                return interned;
+            }
+            slot = (slot + 1) & mask;
+        }
+        interned = line.subSequence(begin, end).toString();
+        internedStrings[slot] = interned;
+        numberOfInternedStrings++;
+        if (numberOfInternedStrings * 2 > internedStrings.length) {
+            resizeInternedStrings();
+        }
+        return interned;
+    }
+
+    private static boolean regionMatches(String string, CharSequence line, int begin, int end) {
+        if (string.length() != end - begin) {
+            return false;
+        }
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) != line.charAt(begin + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void resizeInternedStrings() {
+        String[] previousStrings = internedStrings;
+        internedStrings = new String[previousStrings.length * 2];
+        int mask = internedStrings.length - 1;
+        for (String string : previousStrings) {
+            if (string != null) {
+                int hash = string.hashCode();
+                int slot = (hash ^ (hash >>> 16)) & mask;
+                while (internedStrings[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                internedStrings[slot] = string;
+            }
+        }
+    }
+
+}
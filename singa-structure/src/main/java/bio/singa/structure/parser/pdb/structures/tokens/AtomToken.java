@@ -50,14 +50,21 @@ public enum AtomToken implements PDBToken {
         this.justification = justification;
     }
 
+    /**
+     * Assembles a single atom from the given line. To parse many lines use an {@link AtomRecordTokenizer}, that
+     * shares names and elements between atoms.
+     *
+     * @param atomLine The atom line.
+     * @return The atom.
+     */
     public static OakAtom assembleAtom(String atomLine) {
         // coordinates
-        Double x = Double.valueOf(X_COORDINATE.extract(atomLine));
-        Double y = Double.valueOf(Y_COORDINATE.extract(atomLine));
-        Double z = Double.valueOf(Z_COORDINATE.extract(atomLine));
+        double x = X_COORDINATE.extractDouble(atomLine);
+        double y = Y_COORDINATE.extractDouble(atomLine);
+        double z = Z_COORDINATE.extractDouble(atomLine);
         Vector3D coordinates = new Vector3D(x, y, z);
         // serial
-        int atomSerial = Integer.parseInt(ATOM_SERIAL.extract(atomLine));
+        int atomSerial = AtomRecordTokenizer.parseInt(atomLine, ATOM_SERIAL.columns.getLowerBound() - 1, ATOM_SERIAL.columns.getUpperBound());
         // atom name string
         String atomName = ATOM_NAME.extract(atomLine);
         // element
@@ -147,6 +154,10 @@ public enum AtomToken implements PDBToken {
         return RECORD_PATTERN;
     }
 
+    private double extractDouble(String line) {
+        return AtomRecordTokenizer.parseDouble(line, columns.getLowerBound() - 1, columns.getUpperBound());
+    }
+
     private String createTokenString(String content) {
         int totalLength = columns.getUpperBound() - columns.getLowerBound() - content.length();
         StringBuilder filler = new StringBuilder();
@@ -4,6 +4,7 @@ import bio.singa.features.identifiers.PfamIdentifier;
 import bio.singa.structure.model.interfaces.AminoAcid;
 import bio.singa.structure.model.interfaces.Chain;
 import bio.singa.structure.model.interfaces.LeafSubstructure;
+import bio.singa.structure.model.interfaces.Structure;
 import bio.singa.structure.model.oak.StructuralEntityFilter;
 import bio.singa.structure.parser.pdb.structures.StructureParser;
 import bio.singa.structure.parser.pdb.structures.StructureParserOptions;
@@ -102,21 +103,21 @@ public class PfamParser {
             String chainIdentifier = PfamToken.PDBToken.CHAIN_IDENTIFIER.extract(relevantLine);
             int startPdb = Integer.valueOf(PfamToken.PDBToken.PDB_RESIDUE_START.extract(relevantLine));
             int endPdb = Integer.valueOf(PfamToken.PDBToken.PDB_RESIDUE_END.extract(relevantLine));
-            List<LeafSubstructure<?>> domain;
+            Structure structure;
             if (structureParserOptions != null) {
-                domain = StructureParser.pdb()
+                structure = StructureParser.pdb()
                         .pdbIdentifier(pdbIdentifier)
                         .chainIdentifier(chainIdentifier)
                         .setOptions(structureParserOptions)
-                        .parse()
-                        .getAllLeafSubstructures();
+                        .parse();
             } else {
-                domain = StructureParser.pdb()
+                structure = StructureParser.pdb()
                         .pdbIdentifier(pdbIdentifier)
                         .chainIdentifier(chainIdentifier)
-                        .parse()
-                        .getAllLeafSubstructures();
+                        .parse();
             }
+            // the leaves of the structure are an unmodifiable view
+            List<LeafSubstructure<?>> domain = new ArrayList<>(structure.getAllLeafSubstructures());
             // apply global filter
             domain.removeIf(LEAF_SUBSTRUCTURE_FILTER);
             // remove all leaf remaining leaf substructures if not in range
@@ -0,0 +1,41 @@
+package bio.singa.structure.parser.sifts;
+
+import java.nio.file.Path;
+
+/**
+ * A {@link SiftsMappingStore} of a SIFTS flat file, that is fetched on first access and shared by all threads, unless
+ * a local copy has been loaded before.
+ *
+ * @author cl
+ */
+class LazySiftsMapping {
+
+    private final String url;
+    private final int valueColumn;
+
+    private volatile SiftsMappingStore store;
+
+    LazySiftsMapping(String url, int valueColumn) {
+        this.url = url;
+        this.valueColumn = valueColumn;
+    }
+
+    SiftsMappingStore get() {
+        SiftsMappingStore currentStore = store;
+        if (currentStore == null) {
+            synchronized (this) {
+                currentStore = store;
+                if (currentStore == null) {
+                    currentStore = SiftsMappingStore.fetch(url, valueColumn);
+                    store = currentStore;
+                }
+            }
+        }
+        return currentStore;
+    }
+
+    void load(Path mappingFile) {
+        store = SiftsMappingStore.load(mappingFile, valueColumn);
+    }
+
+}
@@ -3,65 +3,56 @@ package bio.singa.structure.parser.sifts;
 import bio.singa.core.parser.AbstractHTMLParser;
 import bio.singa.features.identifiers.ECNumber;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.UncheckedIOException;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-import java.util.zip.GZIPInputStream;
 
 /**
+ * Maps the chains of PDB entries to EC numbers using the SIFTS chain level mapping.
+ *
  * @author fk
+ * @see SiftsMappingStore
  */
 public class PDBEnzymeMapper extends AbstractHTMLParser<Map<String, ECNumber>> {
 
     private static final String MAP_URL = "http://ftp.ebi.ac.uk/pub/databases/msd/sifts/flatfiles/tsv/pdb_chain_enzyme.tsv.gz";
-    private static List<String> mappingStrings;
+    private static final int VALUE_COLUMN = 3;
 
-    private static PDBEnzymeMapper pdbUniProtMapper;
+    private static final LazySiftsMapping mapping = new LazySiftsMapping(MAP_URL, VALUE_COLUMN);
 
-    private String currentPDBIdentifier;
+    private final String pdbIdentifier;
 
-    private PDBEnzymeMapper() {
-        setResource(MAP_URL);
-        fetchResource();
-        try {
-            mappingStrings = new BufferedReader(new InputStreamReader(new GZIPInputStream(getFetchResult()), StandardCharsets.UTF_8))
-                    .lines().collect(Collectors.toList());
-        } catch (IOException e) {
-            throw new UncheckedIOException("Unable to unpack gzip.", e);
-        }
+    private PDBEnzymeMapper(String pdbIdentifier) {
+        this.pdbIdentifier = pdbIdentifier;
     }
 
-    private static PDBEnzymeMapper getInstance() {
-        if (pdbUniProtMapper == null) {
-            pdbUniProtMapper = new PDBEnzymeMapper();
-        }
-        return pdbUniProtMapper;
+    /**
+     * Returns the enzyme mapping store, fetching it if it has not been loaded yet.
+     *
+     * @return The mapping store.
+     */
+    public static SiftsMappingStore getMappingStore() {
+        return mapping.get();
+    }
+
+    /**
+     * Loads the enzyme mapping from a local file (see {@link SiftsMappingStore#load(Path, int)}).
+     *
+     * @param mappingFile The mapping file.
+     */
+    public static void loadMapping(Path mappingFile) {
+        mapping.load(mappingFile);
     }
 
     public static Map<String, ECNumber> map(String pdbIdentifier) {
-        getInstance().currentPDBIdentifier = pdbIdentifier;
-        return getInstance().parse();
+        return new PDBEnzymeMapper(pdbIdentifier).parse();
     }
 
     @Override
     public Map<String, ECNumber> parse() {
         Map<String, ECNumber> result = new HashMap<>();
-        Pattern pattern = Pattern.compile("^" + currentPDBIdentifier + "\\t(\\p{Alpha}*)\\t\\w*\\t.*$");
-        for (String mappingString : mappingStrings) {
-            Matcher matcher = pattern.matcher(mappingString);
-            if (matcher.matches()) {
-                String chain = matcher.group(1);
-                String ecNumber = mappingString.split("\t")[3];
-                result.put(chain, new ECNumber(ecNumber));
-            }
+        for (Map.Entry<String, String> entry : getMappingStore().get(pdbIdentifier).entrySet()) {
+            result.put(entry.getKey(), new ECNumber(entry.getValue()));
         }
         return result;
     }
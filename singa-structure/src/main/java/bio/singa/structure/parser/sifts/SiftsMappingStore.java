@@ -0,0 +1,241 @@
+package bio.singa.structure.parser.sifts;
+
+import bio.singa.core.parser.AbstractHTMLParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * An immutable index of a SIFTS chain level flat file (such as pdb_chain_uniprot.tsv), mapping each chain of a PDB
+ * entry to the value of a single column. The flat file is parsed once, afterwards lookups are constant time and can be
+ * performed concurrently. Identical values are shared between entries to keep the index compact.
+ * <p>
+ * Stores can be fetched from the SIFTS FTP server (using the {@link AbstractHTMLParser#getResourceCache() resource
+ * cache} if one is set), loaded from local flat files (plain or gzipped) or from the binary form written by
+ * {@link #write(Path)}, which is considerably faster to load than the flat file.
+ *
+ * @author cl
+ */
+public class SiftsMappingStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SiftsMappingStore.class);
+
+    /**
+     * The magic number at the start of every binary mapping store.
+     */
+    private static final int BINARY_MAGIC = 0x53494654;
+
+    /**
+     * The magic number at the start of every gzip file.
+     */
+    private static final int GZIP_MAGIC = 0x1f8b;
+
+    /**
+     * The mapped values by chain identifier by (lower case) PDB identifier.
+     */
+    private final Map<String, Map<String, String>> mapping;
+
+    private SiftsMappingStore(Map<String, Map<String, String>> mapping) {
+        this.mapping = mapping;
+    }
+
+    /**
+     * Fetches and indexes the gzipped flat file from the given URL.
+     *
+     * @param url The URL of the flat file.
+     * @param valueColumn The (zero based) column containing the mapped value.
+     * @return The mapping store.
+     */
+    public static SiftsMappingStore fetch(String url, int valueColumn) {
+        logger.info("Fetching SIFTS mapping from {}.", url);
+        try (InputStream inputStream = new GZIPInputStream(AbstractHTMLParser.openResource(url))) {
+            return parse(inputStream, valueColumn);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not fetch SIFTS mapping from \"" + url + "\".", e);
+        }
+    }
+
+    /**
+     * Loads a mapping store from a local file. The file can either be a plain or gzipped flat file or a binary store
+     * written by {@link #write(Path)}, the type is determined from the content of the file. The value column is ignored
+     * for binary stores.
+     *
+     * @param file The file.
+     * @param valueColumn The (zero based) column containing the mapped value.
+     * @return The mapping store.
+     */
+    public static SiftsMappingStore load(Path file, int valueColumn) {
+        logger.info("Loading SIFTS mapping from {}.", file);
+        try (BufferedInputStream inputStream = new BufferedInputStream(Files.newInputStream(file))) {
+            inputStream.mark(4);
+            DataInputStream dataInputStream = new DataInputStream(inputStream);
+            int magic;
+            try {
+                magic = dataInputStream.readInt();
+            } catch (EOFException e) {
+                magic = 0;
+            }
+            inputStream.reset();
+            if (magic == BINARY_MAGIC) {
+                return read(dataInputStream);
+            }
+            if (magic >>> 16 == GZIP_MAGIC) {
+                return parse(new GZIPInputStream(inputStream), valueColumn);
+            }
+            return parse(inputStream, valueColumn);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load SIFTS mapping from " + file + ".", e);
+        }
+    }
+
+    /**
+     * Parses a flat file from the given stream. Comment lines and the header line are skipped, if a chain is listed
+     * more than once the last value is retained.
+     *
+     * @param inputStream The stream of the flat file.
+     * @param valueColumn The (zero based) column containing the mapped value.
+     * @return The mapping store.
+     * @throws IOException If the stream could not be read.
+     */
+    public static SiftsMappingStore parse(InputStream inputStream, int valueColumn) throws IOException {
+        Map<String, Map<String, String>> mapping = new HashMap<>();
+        Map<String, String> values = new HashMap<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty() || line.charAt(0) == '#' || line.startsWith("PDB\t")) {
+                continue;
+            }
+            int pdbEnd = line.indexOf('\t');
+            if (pdbEnd < 0) {
+                continue;
+            }
+            int chainEnd = line.indexOf('\t', pdbEnd + 1);
+            if (chainEnd < 0) {
+                continue;
+            }
+            // skip to value column
+            int valueStart = chainEnd + 1;
+            for (int column = 2; column < valueColumn && valueStart > 0; column++) {
+                valueStart = line.indexOf('\t', valueStart) + 1;
+            }
+            if (valueStart <= 0) {
+                continue;
+            }
+            int valueEnd = line.indexOf('\t', valueStart);
+            if (valueEnd < 0) {
+                valueEnd = line.length();
+            }
+            String pdbIdentifier = line.substring(0, pdbEnd).toLowerCase();
+            String chainIdentifier = line.substring(pdbEnd + 1, chainEnd);
+            String value = values.computeIfAbsent(line.substring(valueStart, valueEnd), key -> key);
+            mapping.computeIfAbsent(pdbIdentifier, key -> new HashMap<>(4)).put(chainIdentifier, value);
+        }
+        return new SiftsMappingStore(mapping);
+    }
+
+    private static SiftsMappingStore read(DataInputStream inputStream) throws IOException {
+        inputStream.readInt();
+        // values
+        int numberOfValues = inputStream.readInt();
+        String[] values = new String[numberOfValues];
+        for (int i = 0; i < numberOfValues; i++) {
+            values[i] = inputStream.readUTF();
+        }
+        // entries
+        int numberOfEntries = inputStream.readInt();
+        Map<String, Map<String, String>> mapping = new HashMap<>(numberOfEntries * 4 / 3 + 1);
+        for (int i = 0; i < numberOfEntries; i++) {
+            String pdbIdentifier = inputStream.readUTF();
+            int numberOfChains = inputStream.readShort();
+            Map<String, String> chains = new HashMap<>(numberOfChains * 4 / 3 + 1);
+            for (int j = 0; j < numberOfChains; j++) {
+                chains.put(inputStream.readUTF(), values[inputStream.readInt()]);
+            }
+            mapping.put(pdbIdentifier, chains);
+        }
+        return new SiftsMappingStore(mapping);
+    }
+
+    /**
+     * Writes the binary form of this store to the given file, that can be loaded with {@link #load(Path, int)}.
+     *
+     * @param file The file.
+     */
+    public void write(Path file) {
+        // index distinct values
+        Map<String, Integer> valueIndices = new LinkedHashMap<>();
+        for (Map<String, String> chains : mapping.values()) {
+            for (String value : chains.values()) {
+                valueIndices.putIfAbsent(value, valueIndices.size());
+            }
+        }
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            // write to temporary file first, so concurrent readers never see partial stores
+            Path temporaryFile = Files.createTempFile(directory, "sifts", ".tmp");
+            try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                outputStream.writeInt(BINARY_MAGIC);
+                outputStream.writeInt(valueIndices.size());
+                for (String value : valueIndices.keySet()) {
+                    outputStream.writeUTF(value);
+                }
+                outputStream.writeInt(mapping.size());
+                for (Map.Entry<String, Map<String, String>> entry : mapping.entrySet()) {
+                    outputStream.writeUTF(entry.getKey());
+                    outputStream.writeShort(entry.getValue().size());
+                    for (Map.Entry<String, String> chainEntry : entry.getValue().entrySet()) {
+                        outputStream.writeUTF(chainEntry.getKey());
+                        outputStream.writeInt(valueIndices.get(chainEntry.getValue()));
+                    }
+                }
+            }
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write SIFTS mapping to " + file + ".", e);
+        }
+    }
+
+    /**
+     * Returns the mapped values by chain identifier for the given PDB identifier.
+     *
+     * @param pdbIdentifier The PDB identifier (case insensitive).
+     * @return An unmodifiable view of the mapped values, empty if the entry is unknown.
+     */
+    public Map<String, String> get(String pdbIdentifier) {
+        Map<String, String> chains = mapping.get(pdbIdentifier.toLowerCase());
+        if (chains == null) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(chains);
+    }
+
+    /**
+     * Returns the mapped value for the given chain.
+     *
+     * @param pdbIdentifier The PDB identifier (case insensitive).
+     * @param chainIdentifier The chain identifier.
+     * @return The mapped value or null if the chain is unknown.
+     */
+    public String get(String pdbIdentifier, String chainIdentifier) {
+        return get(pdbIdentifier).get(chainIdentifier);
+    }
+
+    /**
+     * Returns the number of PDB entries in this store.
+     *
+     * @return The number of PDB entries.
+     */
+    public int size() {
+        return mapping.size();
+    }
+
+}
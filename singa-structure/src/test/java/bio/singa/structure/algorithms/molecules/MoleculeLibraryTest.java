@@ -0,0 +1,104 @@
+package bio.singa.structure.algorithms.molecules;
+
+import bio.singa.structure.elements.Element;
+import bio.singa.structure.elements.ElementProvider;
+import bio.singa.structure.model.molecules.MoleculeBondType;
+import bio.singa.structure.model.molecules.MoleculeGraph;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static bio.singa.structure.model.molecules.MoleculeBondType.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author cl
+ */
+class MoleculeLibraryTest {
+
+    private static MoleculeGraph benzene;
+    private static MoleculeGraph phenol;
+    private static MoleculeGraph ethanol;
+    private static MoleculeGraph aceticAcid;
+    private static MoleculeGraph cyclohexanol;
+    private static MoleculeLibrary library;
+
+    @BeforeAll
+    static void initialize() {
+        benzene = createRing(6, AROMATIC_BOND);
+        phenol = createRing(6, AROMATIC_BOND);
+        addAtom(phenol, 0, ElementProvider.OXYGEN, SINGLE_BOND);
+        ethanol = createChain(SINGLE_BOND, ElementProvider.CARBON, ElementProvider.CARBON, ElementProvider.OXYGEN);
+        aceticAcid = createChain(SINGLE_BOND, ElementProvider.CARBON, ElementProvider.CARBON, ElementProvider.OXYGEN);
+        addAtom(aceticAcid, 1, ElementProvider.OXYGEN, DOUBLE_BOND);
+        cyclohexanol = createRing(6, SINGLE_BOND);
+        addAtom(cyclohexanol, 0, ElementProvider.OXYGEN, SINGLE_BOND);
+        library = new MoleculeLibrary(Arrays.asList(benzene, phenol, ethanol, aceticAcid, cyclohexanol));
+    }
+
+    private static MoleculeGraph createRing(int size, MoleculeBondType bondType) {
+        MoleculeGraph ring = new MoleculeGraph();
+        for (int i = 0; i < size; i++) {
+            ring.addNextAtom(ElementProvider.CARBON);
+        }
+        for (int i = 0; i < size; i++) {
+            ring.addEdgeBetween(ring.getNode(i), ring.getNode((i + 1) % size), bondType);
+        }
+        return ring;
+    }
+
+    private static MoleculeGraph createChain(MoleculeBondType bondType, Element... elements) {
+        MoleculeGraph chain = new MoleculeGraph();
+        for (Element element : elements) {
+            chain.addNextAtom(element);
+        }
+        for (int i = 1; i < elements.length; i++) {
+            chain.addEdgeBetween(chain.getNode(i - 1), chain.getNode(i), bondType);
+        }
+        return chain;
+    }
+
+    private static void addAtom(MoleculeGraph molecule, int neighbour, Element element, MoleculeBondType bondType) {
+        int identifier = molecule.addNextAtom(element);
+        molecule.addEdgeBetween(molecule.getNode(neighbour), molecule.getNode(identifier), bondType);
+    }
+
+    @Test
+    void shouldFindSubstructures() {
+        MoleculeGraph hydroxyl = createChain(SINGLE_BOND, ElementProvider.CARBON, ElementProvider.OXYGEN);
+        assertEquals(Arrays.asList(phenol, ethanol, aceticAcid, cyclohexanol), library.findSubstructureMatches(hydroxyl));
+        MoleculeGraph aromaticRing = createRing(6, AROMATIC_BOND);
+        assertEquals(Arrays.asList(benzene, phenol), library.findSubstructureMatches(aromaticRing));
+        MoleculeGraph carbonyl = createChain(DOUBLE_BOND, ElementProvider.CARBON, ElementProvider.OXYGEN);
+        assertEquals(Arrays.asList(aceticAcid), library.findSubstructureMatches(carbonyl));
+    }
+
+    @Test
+    void shouldScreenByFingerprint() {
+        MoleculeGraph aromaticRing = createRing(6, AROMATIC_BOND);
+        long[] patternFingerprint = MoleculeFingerprints.calculatePathFingerprint(aromaticRing);
+        int[] candidates = library.screen(aromaticRing);
+        // the substructures are always contained in the candidates
+        assertTrue(candidates.length >= 2 && candidates[0] == 0 && candidates[1] == 1);
+        assertTrue(MoleculeFingerprints.isSubset(patternFingerprint, library.getFingerprint(1)));
+        // identical molecules have identical fingerprints
+        assertEquals(Arrays.toString(library.getFingerprint(0)), Arrays.toString(patternFingerprint));
+    }
+
+    @Test
+    void shouldRankBySimilarity() {
+        List<Map.Entry<MoleculeGraph, Double>> similarMolecules = library.findSimilarMolecules(phenol, 0.0);
+        assertEquals(library.size(), similarMolecules.size());
+        assertEquals(phenol, similarMolecules.get(0).getKey());
+        assertEquals(1.0, similarMolecules.get(0).getValue(), 1e-10);
+        assertEquals(benzene, similarMolecules.get(1).getKey());
+        for (int i = 1; i < similarMolecules.size(); i++) {
+            assertTrue(similarMolecules.get(i - 1).getValue() >= similarMolecules.get(i).getValue());
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+package bio.singa.structure.model.mmtf;
+
+import bio.singa.core.utility.Resources;
+import bio.singa.structure.model.interfaces.Atom;
+import bio.singa.structure.model.interfaces.Chain;
+import bio.singa.structure.model.interfaces.LeafSubstructure;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author cl
+ */
+class MmtfStructureViewTest {
+
+    private static MmtfStructure structure;
+    private static MmtfStructureView view;
+
+    @BeforeAll
+    static void initialize() throws IOException {
+        byte[] bytes = Files.readAllBytes(Paths.get(Resources.getResourceAsFileLocation("pdb/data/structures/divided/mmtf/c0/1c0a.mmtf.gz")));
+        structure = new MmtfStructure(bytes, false);
+        view = new MmtfStructureView(bytes, false);
+    }
+
+    @Test
+    void shouldIterateLeavesOfChains() {
+        assertEquals("1c0a", view.getPdbIdentifier());
+        MmtfStructureView.LeafCursor cursor = view.leafCursor();
+        int leafCount = 0;
+        for (int chainIndex = view.getFirstChainIndex(0); chainIndex <= view.getLastChainIndex(0); chainIndex++) {
+            cursor.resetToChain(chainIndex);
+            while (cursor.next()) {
+                assertEquals(chainIndex, view.getChainIndex(cursor.getLeafIndex()));
+                leafCount++;
+            }
+        }
+        int expectedLeafCount = 0;
+        for (Chain chain : structure.getFirstModel().getAllChains()) {
+            expectedLeafCount += ((MmtfChain) chain).getNumberOfLeafSubstructures();
+        }
+        assertEquals(expectedLeafCount, leafCount);
+    }
+
+    @Test
+    void shouldProvidePrimitivePositions() {
+        List<LeafSubstructure<?>> leafSubstructures = structure.getAllLeafSubstructures();
+        LeafSubstructure<?> leafSubstructure = leafSubstructures.get(leafSubstructures.size() / 2);
+        for (Atom atom : leafSubstructure.getAllAtoms()) {
+            int atomIndex = atom.getAtomIdentifier() - 1;
+            assertEquals(atom.getPosition().getX(), view.x(atomIndex));
+            assertEquals(atom.getPosition().getY(), view.y(atomIndex));
+            assertEquals(atom.getPosition().getZ(), view.z(atomIndex));
+            assertEquals(atom.getAtomName(), view.getAtomName(atomIndex));
+            int leafIndex = view.getLeafIndex(atomIndex);
+            assertEquals(leafSubstructure.getThreeLetterCode(), view.getThreeLetterCode(leafIndex));
+            assertEquals(leafSubstructure.getIdentifier().getSerial(), view.getSerial(leafIndex));
+        }
+    }
+
+    @Test
+    void shouldTrackLeavesWhileIteratingAtoms() {
+        MmtfStructureView.AtomCursor cursor = view.atomCursor();
+        int atomCount = 0;
+        while (cursor.next()) {
+            assertEquals(view.getLeafIndex(cursor.getAtomIndex()), cursor.getLeafIndex());
+            assertEquals(view.getAtomName(cursor.getAtomIndex()), cursor.getAtomName());
+            atomCount++;
+        }
+        assertEquals(view.getNumberOfAtoms(), atomCount);
+    }
+
+}
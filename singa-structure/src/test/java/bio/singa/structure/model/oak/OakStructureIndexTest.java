@@ -0,0 +1,88 @@
+package bio.singa.structure.model.oak;
+
+import bio.singa.core.utility.Resources;
+import bio.singa.structure.model.interfaces.Atom;
+import bio.singa.structure.model.interfaces.LeafSubstructure;
+import bio.singa.structure.model.interfaces.Structure;
+import bio.singa.structure.parser.pdb.structures.StructureParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author cl
+ */
+class OakStructureIndexTest {
+
+    private Structure structure;
+
+    @BeforeEach
+    void initialize() {
+        structure = StructureParser.local()
+                .fileLocation(Resources.getResourceAsFileLocation("1GL0_HDS_intra_E-H57_E-D102_E-S195.pdb"))
+                .everything()
+                .parse();
+    }
+
+    @Test
+    void shouldFindAtomsUsingIndex() {
+        for (Atom atom : structure.getAllAtoms()) {
+            assertSame(atom, structure.getAtom(atom.getAtomIdentifier()).orElseThrow(AssertionError::new));
+        }
+        assertFalse(structure.getAtom(Integer.MAX_VALUE).isPresent());
+    }
+
+    @Test
+    void shouldInvalidateViewsOnAtomRemoval() {
+        List<Atom> atomsBefore = structure.getAllAtoms();
+        assertSame(atomsBefore, structure.getAllAtoms());
+        Atom removedAtom = atomsBefore.get(0);
+        structure.removeAtom(removedAtom.getAtomIdentifier());
+        assertFalse(structure.getAtom(removedAtom.getAtomIdentifier()).isPresent());
+        List<Atom> atomsAfter = structure.getAllAtoms();
+        assertEquals(atomsBefore.size() - 1, atomsAfter.size());
+        assertFalse(atomsAfter.contains(removedAtom));
+    }
+
+    @Test
+    void shouldInvalidateViewsOnLeafRemoval() {
+        List<LeafSubstructure<?>> leavesBefore = structure.getAllLeafSubstructures();
+        LeafSubstructure<?> removedLeaf = leavesBefore.get(0);
+        Atom atomOfRemovedLeaf = removedLeaf.getAllAtoms().get(0);
+        assertTrue(structure.removeLeafSubstructure(removedLeaf.getIdentifier()));
+        assertEquals(leavesBefore.size() - 1, structure.getAllLeafSubstructures().size());
+        assertFalse(structure.getLeafSubstructure(removedLeaf.getIdentifier()).isPresent());
+        assertFalse(structure.getAtom(atomOfRemovedLeaf.getAtomIdentifier()).isPresent());
+    }
+
+    @Test
+    void shouldInvalidateViewsOnAtomRemovalFromLeaf() {
+        List<Atom> atomsBefore = structure.getAllAtoms();
+        List<LeafSubstructure<?>> leavesBefore = structure.getAllLeafSubstructures();
+        // remove the atom from the leaf directly, bypassing the structure
+        LeafSubstructure<?> leaf = leavesBefore.get(0);
+        Atom removedAtom = leaf.getAllAtoms().get(0);
+        leaf.removeAtom(removedAtom.getAtomIdentifier());
+        assertEquals(atomsBefore.size() - 1, structure.getAllAtoms().size());
+        assertFalse(structure.getAtom(removedAtom.getAtomIdentifier()).isPresent());
+    }
+
+    @Test
+    void shouldInvalidateViewsOfCopiesIndependently() {
+        Structure copy = structure.getCopy();
+        List<Atom> atomsOfOriginal = structure.getAllAtoms();
+        List<Atom> atomsOfCopy = copy.getAllAtoms();
+        LeafSubstructure<?> leafOfCopy = copy.getAllLeafSubstructures().get(0);
+        Atom removedAtom = leafOfCopy.getAllAtoms().get(0);
+        leafOfCopy.removeAtom(removedAtom.getAtomIdentifier());
+        // only the copy is changed
+        assertSame(atomsOfOriginal, structure.getAllAtoms());
+        assertTrue(structure.getAtom(removedAtom.getAtomIdentifier()).isPresent());
+        assertEquals(atomsOfCopy.size() - 1, copy.getAllAtoms().size());
+        assertFalse(copy.getAtom(removedAtom.getAtomIdentifier()).isPresent());
+    }
+
+}
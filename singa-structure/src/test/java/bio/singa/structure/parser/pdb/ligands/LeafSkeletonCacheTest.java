@@ -0,0 +1,64 @@
+package bio.singa.structure.parser.pdb.ligands;
+
+import bio.singa.core.utility.Resources;
+import bio.singa.structure.parser.pdb.structures.tokens.LeafSkeleton;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author cl
+ */
+class LeafSkeletonCacheTest {
+
+    @AfterEach
+    void tearDown() {
+        LeafSkeletonCache.setPersistentStore(null);
+        LeafSkeletonCache.clear();
+    }
+
+    @Test
+    void shouldLoadComponentsDictionary() throws IOException {
+        Path components = Paths.get(Resources.getResourceAsFileLocation("ligands/components.cif"));
+        assertEquals(2, LeafSkeletonCache.loadComponents(components));
+        assertTrue(LeafSkeletonCache.contains("EOH"));
+        // no network access is required
+        LeafSkeleton selenomethionine = LeafSkeletonCache.get("MSE");
+        assertEquals(LeafSkeleton.AssignedFamily.MODIFIED_AMINO_ACID, selenomethionine.getAssignedFamily());
+        assertEquals("MET", selenomethionine.getParent());
+        assertEquals(7, selenomethionine.getBonds().size());
+        assertSame(selenomethionine, LeafSkeletonCache.get("MSE"));
+    }
+
+    @Test
+    void shouldUsePersistentStore() throws IOException {
+        Path store = Files.createTempDirectory("singa-ligands");
+        try {
+            LeafSkeletonCache.setPersistentStore(store);
+            LeafSkeletonCache.loadComponents(Paths.get(Resources.getResourceAsFileLocation("ligands/components.cif")));
+            assertTrue(Files.exists(store.resolve("EOH.cif")));
+            // skeletons are rebuilt from the store
+            LeafSkeletonCache.clear();
+            LeafSkeleton ethanol = LeafSkeletonCache.get("EOH");
+            assertEquals(LeafSkeleton.AssignedFamily.LIGAND, ethanol.getAssignedFamily());
+            assertEquals(2, ethanol.getBonds().size());
+        } finally {
+            LeafSkeletonCache.setPersistentStore(null);
+            try (Stream<Path> paths = Files.walk(store)) {
+                paths.sorted(Comparator.reverseOrder())
+                        .map(Path::toFile)
+                        .forEach(File::delete);
+            }
+        }
+    }
+
+}
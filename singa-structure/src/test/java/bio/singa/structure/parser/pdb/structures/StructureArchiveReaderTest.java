@@ -0,0 +1,68 @@
+package bio.singa.structure.parser.pdb.structures;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author cl
+ */
+class StructureArchiveReaderTest {
+
+    @Test
+    void shouldSplitLinesLikeBufferedReader() throws IOException {
+        String[] contents = {"", "\n", "HEADER", "HEADER\n", "HEADER\r\nATOM\rHETATM\n\nEND", "HEADER\n\r\nEND\r"};
+        for (String content : contents) {
+            List<String> expectedLines;
+            try (BufferedReader reader = new BufferedReader(new StringReader(content))) {
+                expectedLines = reader.lines().collect(Collectors.toList());
+            }
+            List<String> lines = new StructureArchiveReader.LineView(content.getBytes(StandardCharsets.UTF_8));
+            assertEquals(expectedLines, lines);
+        }
+    }
+
+    @Test
+    void shouldNotRetrieveMissingLines() {
+        List<String> lines = new StructureArchiveReader.LineView("HEADER\nEND\n".getBytes(StandardCharsets.UTF_8));
+        assertEquals(2, lines.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> lines.get(2));
+    }
+
+    @Test
+    void shouldReadContentsInOrderOfPaths() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try {
+            for (int i = 0; i < 10; i++) {
+                Path path = Files.createTempFile("structure", ".pdb");
+                Files.write(path, Collections.singletonList("HEADER " + i));
+                paths.add(path);
+            }
+            StructureArchiveReader reader = new StructureArchiveReader(paths, 3);
+            for (int i = 0; i < paths.size(); i++) {
+                StructureArchiveReader.StructureContent content = reader.next();
+                assertEquals(paths.get(i), content.getPath());
+                assertEquals(Collections.singletonList("HEADER " + i), content.getLines());
+            }
+            assertFalse(reader.hasNext());
+        } finally {
+            for (Path path : paths) {
+                Files.delete(path);
+            }
+        }
+    }
+
+}
@@ -137,6 +137,21 @@ class StructureParserTest {
                 .parse();
     }
 
+    @Test
+    void shouldParseMultipleFromLocalMMTF() {
+        StructureParser.LocalPDB localPdb = new StructureParser.LocalPDB(Resources.getResourceAsFileLocation("pdb"), SourceLocation.OFFLINE_MMTF);
+        List<Structure> structures = StructureParser.local()
+                .localPDB(localPdb, Arrays.asList("1C0A", "1C0A", "1C0A"))
+                .everything()
+                .setNumberOfReadingThreads(2)
+                .parse();
+        assertEquals(3, structures.size());
+        for (Structure structure : structures) {
+            assertEquals("1c0a", structure.getPdbIdentifier());
+            assertEquals(structures.get(0).getAllAtoms().size(), structure.getAllAtoms().size());
+        }
+    }
+
     @Test
     void shouldParseMMTFChain() {
         Structure structure = StructureParser.mmtf()
@@ -0,0 +1,66 @@
+package bio.singa.structure.parser.pdb.structures.tokens;
+
+import bio.singa.structure.elements.ElementProvider;
+import bio.singa.structure.model.identifiers.LeafIdentifier;
+import bio.singa.structure.model.oak.OakAtom;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author cl
+ */
+class AtomRecordTokenizerTest {
+
+    private static final String ATOM_LINE = "ATOM    101  CA  GLY A  14A     -8.462  23.815 -12.007  1.00 21.45           C  ";
+    private static final String HETATM_LINE = "HETATM 1201 FE   HEM A 142       8.128   7.371 -15.022  1.00 16.74          FE  ";
+
+    @Test
+    void shouldIdentifyRecords() {
+        assertTrue(AtomRecordTokenizer.isAtomRecord(ATOM_LINE));
+        assertTrue(AtomRecordTokenizer.isAtomRecord(HETATM_LINE));
+        assertFalse(AtomRecordTokenizer.isHeteroAtomRecord(ATOM_LINE));
+        assertTrue(AtomRecordTokenizer.isHeteroAtomRecord(HETATM_LINE));
+        assertTrue(AtomRecordTokenizer.isRecord("TER", "TER"));
+        assertTrue(AtomRecordTokenizer.isRecord("MODEL        1", "MODEL"));
+        assertFalse(AtomRecordTokenizer.isRecord("ATOMIC", "ATOM"));
+        assertFalse(AtomRecordTokenizer.isAtomRecord("ANISOU  101  CA  GLY A  14A"));
+    }
+
+    @Test
+    void shouldParseNumbersInPlace() {
+        String[] numbers = {"-8.462", "23.815", "0.000", "-0.001", "123456.789", "7", "1.5E3"};
+        for (String number : numbers) {
+            String line = "  " + number + " ";
+            assertEquals(Double.parseDouble(number), AtomRecordTokenizer.parseDouble(line, 0, line.length()));
+        }
+        assertEquals(-42, AtomRecordTokenizer.parseInt("  -42", 0, 5));
+        assertThrows(NumberFormatException.class, () -> AtomRecordTokenizer.parseInt("     ", 0, 5));
+        assertThrows(NumberFormatException.class, () -> AtomRecordTokenizer.parseDouble("1.0", 0, 8));
+    }
+
+    @Test
+    void shouldTokenizeAtomRecords() {
+        AtomRecordTokenizer tokenizer = new AtomRecordTokenizer();
+        tokenizer.setLine(ATOM_LINE);
+        assertEquals(101, tokenizer.getAtomSerial());
+        assertEquals("CA", tokenizer.getAtomName());
+        assertEquals("GLY", tokenizer.getResidueName());
+        assertEquals("A", tokenizer.getChainIdentifier());
+        assertEquals(14, tokenizer.getResidueSerial());
+        assertEquals('A', tokenizer.getInsertionCode());
+        OakAtom atom = tokenizer.createAtom();
+        assertEquals(-8.462, atom.getPosition().getX());
+        assertEquals(23.815, atom.getPosition().getY());
+        assertEquals(-12.007, atom.getPosition().getZ());
+        assertEquals(ElementProvider.CARBON, atom.getElement());
+        // strings are shared between lines
+        String chainIdentifier = tokenizer.getChainIdentifier();
+        tokenizer.setLine(HETATM_LINE);
+        assertEquals(LeafIdentifier.DEFAULT_INSERTION_CODE, tokenizer.getInsertionCode());
+        assertSame(chainIdentifier, tokenizer.getChainIdentifier());
+        assertEquals(ElementProvider.IRON, tokenizer.getElement());
+        assertEquals(AtomToken.assembleAtom(HETATM_LINE).getPosition(), tokenizer.getPosition());
+    }
+
+}
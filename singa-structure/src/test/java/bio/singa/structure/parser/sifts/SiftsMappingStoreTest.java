@@ -0,0 +1,60 @@
+package bio.singa.structure.parser.sifts;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author cl
+ */
+class SiftsMappingStoreTest {
+
+    private static final String MAPPING = "# 2019/01/01 - 00:00 | PDB: 01.19 | UniProt: 2019.01\n" +
+            "PDB\tCHAIN\tSP_PRIMARY\tPFAM_ID\tCOVERAGE\n" +
+            "4hhb\tA\tP69905\tPF00042\t0.97\n" +
+            "4hhb\tB\tP68871\tPF00042\t0.98\n" +
+            "4HHB\tC\tP69905\tPF00042\t0.97\n" +
+            "1c0a\tA\tP21889\tPF02938\t0.21\n";
+
+    @Test
+    void shouldIndexChainsByEntry() throws IOException {
+        SiftsMappingStore store = SiftsMappingStore.parse(new ByteArrayInputStream(MAPPING.getBytes(StandardCharsets.UTF_8)), 2);
+        assertEquals(2, store.size());
+        assertEquals(3, store.get("4hhb").size());
+        assertEquals("P69905", store.get("4hhb", "C"));
+        assertEquals("P68871", store.get("4HHB", "B"));
+        assertNull(store.get("4hhb", "D"));
+        assertTrue(store.get("1abc").isEmpty());
+        // other columns
+        SiftsMappingStore pfamStore = SiftsMappingStore.parse(new ByteArrayInputStream(MAPPING.getBytes(StandardCharsets.UTF_8)), 3);
+        assertEquals("PF02938", pfamStore.get("1c0a", "A"));
+    }
+
+    @Test
+    void shouldLoadLocalAndBinaryMappings() throws IOException {
+        Path directory = Files.createTempDirectory("singa-sifts");
+        Path flatFile = directory.resolve("pdb_chain_uniprot.tsv.gz");
+        try (OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(flatFile))) {
+            outputStream.write(MAPPING.getBytes(StandardCharsets.UTF_8));
+        }
+        SiftsMappingStore store = SiftsMappingStore.load(flatFile, 2);
+        Path binaryFile = directory.resolve("pdb_chain_uniprot.bin");
+        store.write(binaryFile);
+        SiftsMappingStore binaryStore = SiftsMappingStore.load(binaryFile, 2);
+        assertEquals(store.size(), binaryStore.size());
+        assertEquals(store.get("4hhb"), binaryStore.get("4hhb"));
+        assertEquals("P21889", binaryStore.get("1c0a", "A"));
+        Files.delete(flatFile);
+        Files.delete(binaryFile);
+        Files.delete(directory);
+    }
+
+}